@@ -0,0 +1,34 @@
+package com.lynn.museum.gateway.auth;
+
+/**
+ * 认证结果交换属性
+ *
+ * 认证策略验证通过后写入 ServerWebExchange 属性，供后续过滤器（如限流）读取。
+ * 与转发给下游的 X-User-ID 等请求头不同，属性无法由客户端伪造。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+public final class AuthAttributes {
+
+    /**
+     * 认证类型：OAUTH2 / INTERNAL
+     */
+    public static final String AUTH_TYPE = AuthAttributes.class.getName() + ".authType";
+
+    /**
+     * 已验证的用户ID
+     */
+    public static final String USER_ID = AuthAttributes.class.getName() + ".userId";
+
+    /**
+     * 已验证的用户角色（List&lt;String&gt;）
+     */
+    public static final String ROLES = AuthAttributes.class.getName() + ".roles";
+
+    public static final String AUTH_TYPE_OAUTH2 = "OAUTH2";
+    public static final String AUTH_TYPE_INTERNAL = "INTERNAL";
+
+    private AuthAttributes() {
+    }
+}
@@ -0,0 +1,163 @@
+package com.lynn.museum.gateway.auth;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路径模式前缀树
+ *
+ * 将Ant风格路径模式按"/"分段编译为前缀树，匹配时按请求路径逐段下降，
+ * 耗时取决于路径段数而不是模式数量。支持：
+ * 1. 字面段：/api/v1/auth/login
+ * 2. 单段通配：*、*.html、{id}（段内匹配交给AntPathMatcher）
+ * 3. 多段通配：**，可出现在任意位置，匹配零个或多个段
+ *
+ * 编译后不可变，可在多线程间共享。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+final class PathPatternTrie {
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    private static final AntPathMatcher SEGMENT_MATCHER = new AntPathMatcher();
+
+    private final Node root = new Node(false);
+
+    private final int patternCount;
+
+    private PathPatternTrie(int patternCount) {
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * 编译路径模式
+     */
+    static PathPatternTrie compile(Collection<String> patterns) {
+        PathPatternTrie trie = new PathPatternTrie(patterns == null ? 0 : patterns.size());
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                if (pattern != null && !pattern.isBlank()) {
+                    trie.insert(pattern.trim());
+                }
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * 路径是否匹配任一模式
+     */
+    boolean matches(String path) {
+        if (path == null || path.isEmpty()) {
+            return false;
+        }
+        boolean trailingSlash = path.length() > 1 && path.endsWith("/");
+        return match(root, split(path), 0, trailingSlash);
+    }
+
+    int size() {
+        return patternCount;
+    }
+
+    private void insert(String pattern) {
+        Node node = root;
+        for (String segment : split(pattern)) {
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                if (node.doubleWildcard == null) {
+                    node.doubleWildcard = new Node(true);
+                }
+                node = node.doubleWildcard;
+            } else if (isGlob(segment)) {
+                node = node.globs.computeIfAbsent(segment, k -> new Node(false));
+            } else {
+                node = node.literals.computeIfAbsent(segment, k -> new Node(false));
+            }
+        }
+        node.terminal = true;
+        // 与AntPathMatcher一致：以"/"结尾的模式只匹配以"/"结尾的路径
+        if (pattern.length() > 1 && pattern.endsWith("/")) {
+            node.trailingSlashOnly = true;
+        }
+    }
+
+    private static boolean match(Node node, List<String> segments, int index, boolean trailingSlash) {
+        if (node.doubleWildcard != null) {
+            for (int next = index; next <= segments.size(); next++) {
+                if (match(node.doubleWildcard, segments, next, trailingSlash)) {
+                    return true;
+                }
+            }
+        }
+
+        if (index == segments.size()) {
+            if (!node.terminal) {
+                return false;
+            }
+            return node.multiSegment || trailingSlash == node.trailingSlashOnly;
+        }
+
+        String segment = segments.get(index);
+        Node literal = node.literals.get(segment);
+        if (literal != null && match(literal, segments, index + 1, trailingSlash)) {
+            return true;
+        }
+        for (Map.Entry<String, Node> glob : node.globs.entrySet()) {
+            if (SEGMENT_MATCHER.match(glob.getKey(), segment)
+                    && match(glob.getValue(), segments, index + 1, trailingSlash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isGlob(String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0;
+    }
+
+    /**
+     * 按"/"切分，忽略空段（与AntPathMatcher的tokenize行为一致）
+     */
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>(8);
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> literals = new HashMap<>();
+
+        private final Map<String, Node> globs = new LinkedHashMap<>();
+
+        private final boolean multiSegment;
+
+        private Node doubleWildcard;
+
+        private boolean terminal;
+
+        private boolean trailingSlashOnly;
+
+        private Node(boolean multiSegment) {
+            this.multiSegment = multiSegment;
+        }
+    }
+}
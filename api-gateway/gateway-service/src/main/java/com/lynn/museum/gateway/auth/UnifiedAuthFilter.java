@@ -2,8 +2,10 @@ package com.lynn.museum.gateway.auth;
 
 import com.lynn.museum.gateway.auth.strategy.AuthStrategy;
 import com.lynn.museum.gateway.config.UnifiedAuthConfig;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -11,11 +13,12 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,6 +31,8 @@ import java.util.stream.Collectors;
  * 3. 统一错误处理
  * 4. 性能监控
  * 
+ * 白名单和认证策略链在启动及配置刷新时预先编译，请求处理时只读不变的快照
+ * 
  * @author lynn
  * @since 2024-01-01
  */
@@ -38,15 +43,46 @@ public class UnifiedAuthFilter implements GlobalFilter, Ordered {
 
     private final UnifiedAuthConfig authConfig;
     private final List<AuthStrategy> authStrategies;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 编译后的白名单
+     */
+    private volatile PathPatternTrie whitelist = PathPatternTrie.compile(List.of());
+
+    /**
+     * 启用且按优先级排序的认证策略
+     */
+    private volatile List<AuthStrategy> strategyChain = List.of();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 配置刷新后重新编译白名单和策略链
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onConfigRefresh() {
+        rebuild();
+    }
+
+    private void rebuild() {
+        whitelist = PathPatternTrie.compile(authConfig.getWhitelist().getPatterns());
+        strategyChain = authStrategies.stream()
+            .filter(AuthStrategy::isEnabled)
+            .sorted(Comparator.comparingInt(AuthStrategy::getOrder))
+            .toList();
+        log.info("Auth filter rebuilt: {} whitelist patterns, strategies [{}]", whitelist.size(),
+            strategyChain.stream().map(AuthStrategy::getStrategyName).collect(Collectors.joining(", ")));
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         String path = request.getURI().getPath();
-        String method = request.getMethod().name();
         
-        log.debug("Processing request: {} {}", method, path);
+        log.debug("Processing request: {} {}", request.getMethod(), path);
 
         // 1. 检查白名单路径
         if (isWhitelistPath(path)) {
@@ -71,47 +107,19 @@ public class UnifiedAuthFilter implements GlobalFilter, Ordered {
      * 检查路径是否在白名单中
      */
     private boolean isWhitelistPath(String path) {
-        if (path == null || path.isEmpty()) {
-            return false;
-        }
-
-        log.debug("【认证检查】检查白名单路径: path={}, patterns_count={}", path, 
-            authConfig.getWhitelist().getPatterns().size());
-
-        // 检查配置的白名单路径
-        for (String pattern : authConfig.getWhitelist().getPatterns()) {
-            boolean matches = pathMatcher.match(pattern, path);
-            log.debug("【认证检查】路径匹配: path={}, pattern={}, matches={}", path, pattern, matches);
-            if (matches) {
-                log.info("【认证检查】白名单匹配成功: path={}, pattern={}", path, pattern);
-                return true;
-            }
-        }
-        
-        log.warn("【认证检查】白名单匹配失败: path={}", path);
-        return false;
+        return whitelist.matches(path);
     }
 
     /**
      * 执行认证策略链
      */
     private Mono<Void> executeAuthStrategies(ServerWebExchange exchange, GatewayFilterChain chain) {
-        // 获取启用且排序的认证策略
-        List<AuthStrategy> enabledStrategies = authStrategies.stream()
-            .filter(AuthStrategy::isEnabled)
-            .sorted((a, b) -> Integer.compare(a.getOrder(), b.getOrder()))
-            .collect(Collectors.toList());
-
+        List<AuthStrategy> enabledStrategies = strategyChain;
         if (enabledStrategies.isEmpty()) {
             log.warn("No enabled authentication strategies found");
             return unauthorized(exchange, "No authentication method available");
         }
 
-        log.debug("Executing authentication strategies: {}", 
-            enabledStrategies.stream()
-                .map(AuthStrategy::getStrategyName)
-                .collect(Collectors.joining(", ")));
-
         // 按优先级依次尝试认证策略
         return tryAuthStrategies(exchange, chain, enabledStrategies, 0);
     }
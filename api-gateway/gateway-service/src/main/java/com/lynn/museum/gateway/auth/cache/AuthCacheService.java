@@ -2,31 +2,55 @@ package com.lynn.museum.gateway.auth.cache;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.lynn.museum.common.utils.RedisKeyBuilder;
 import com.lynn.museum.gateway.config.UnifiedAuthConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 认证缓存服务
  * 
- * 优化的认证缓存机制：
- * 1. 安全的缓存Key生成策略
- * 2. JSON序列化支持
- * 3. 缓存统计和监控
- * 4. 自动过期管理
- * 5. 避免重复认证的高性能缓存
+ * 两级认证缓存：
+ * 1. 本地缓存（L1）：进程内保存已验证的认证信息，按Token过期时间过期，命中时不访问Redis
+ * 2. Redis缓存（L2）：多个网关节点共享，避免重复验签
+ * 3. 吊销广播：黑名单和用户缓存清理通过Redis发布订阅推送到所有网关节点，本地立即生效
+ * 4. 统计信息：本地LongAdder计数并注册为Micrometer指标，不再每次请求写Redis
+ * 5. 用户索引：每个用户一个按缓存过期时间排序的Token摘要集合，写入时剔除已过期的摘要，
+ *    索引过期时间不短于其中最晚过期的缓存；按用户清理时只删除该用户的缓存，不扫描全部键。
+ *    索引与缓存键不在同一槽，两者分别写入，兼容集群模式
+ * 
+ * 本地缓存最长有效期受 museum.auth.cache.local-max-ttl-seconds 限制，
+ * 即使节点断线错过吊销通知，被吊销的Token也最多在该时间内失效
  * 
  * @author lynn
  * @since 2024-01-01
@@ -36,34 +60,140 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AuthCacheService {
 
+    private static final String REVOKE_JTI_PREFIX = "jti:";
+    private static final String REVOKE_USER_PREFIX = "user:";
+
+    /**
+     * 登记Token摘要到用户索引，剔除已过期的摘要，索引过期时间只延长不缩短
+     * 脚本只访问索引一个键，认证缓存键与索引不在同一槽，需单独写入，否则集群模式下报CROSSSLOT
+     * KEYS[1] 用户索引
+     * ARGV[1] Token摘要 ARGV[2] 缓存过期时间（毫秒） ARGV[3] 当前时间（毫秒） ARGV[4] 过期秒数
+     */
+    private static final RedisScript<Long> INDEX_TOKEN_SCRIPT = RedisScript.of(
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[3]) " +
+            "if redis.call('TTL', KEYS[1]) < tonumber(ARGV[4]) then redis.call('EXPIRE', KEYS[1], ARGV[4]) end " +
+            "return 1",
+            Long.class);
+
     private final ReactiveStringRedisTemplate redisTemplate;
     private final UnifiedAuthConfig authConfig;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
-    // 使用 RedisKeyBuilder 生成键，不再需要前缀常量
+    /**
+     * 本地认证缓存：tokenHash -> 认证信息
+     */
+    private Cache<String, CachedAuthInfo> localCache;
+
+    /**
+     * 本地缓存的用户索引：userId -> tokenHash，随本地缓存的写入和移除维护，按用户吊销时只清理该用户的缓存
+     */
+    private final Map<String, Set<String>> localUserIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 本地黑名单：jti
+     */
+    private Cache<String, Boolean> localBlacklist;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    private Disposable revocationSubscription;
+
+    @PostConstruct
+    public void init() {
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(authConfig.getCache().getLocalMaxTtlSeconds());
+        localCache = Caffeine.newBuilder()
+            .maximumSize(authConfig.getCache().getLocalMaxSize())
+            .expireAfter(new Expiry<String, CachedAuthInfo>() {
+                @Override
+                public long expireAfterCreate(String key, CachedAuthInfo value, long currentTime) {
+                    return localTtlNanos(value, maxTtlNanos);
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, CachedAuthInfo value, long currentTime, long currentDuration) {
+                    return localTtlNanos(value, maxTtlNanos);
+                }
+
+                @Override
+                public long expireAfterRead(String key, CachedAuthInfo value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .removalListener((String tokenHash, CachedAuthInfo value, RemovalCause cause) -> {
+                // 同一Token摘要的替换仍属于同一用户，索引无需变化
+                if (cause != RemovalCause.REPLACED && tokenHash != null && value != null) {
+                    unindexLocal(value.getUserId(), tokenHash);
+                }
+            })
+            .build();
+        // Token最长有效期过后黑名单记录已无意义
+        localBlacklist = Caffeine.newBuilder()
+            .maximumSize(authConfig.getCache().getLocalMaxSize())
+            .expireAfterWrite(Duration.ofSeconds(authConfig.getJwt().getAccessTokenExpire()))
+            .build();
+
+        FunctionCounter.builder("gateway.auth.cache.requests", localHits, LongAdder::sum)
+            .tag("result", "local_hit").register(meterRegistry);
+        FunctionCounter.builder("gateway.auth.cache.requests", redisHits, LongAdder::sum)
+            .tag("result", "redis_hit").register(meterRegistry);
+        FunctionCounter.builder("gateway.auth.cache.requests", misses, LongAdder::sum)
+            .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("gateway.auth.cache.writes", writes, LongAdder::sum)
+            .register(meterRegistry);
+        Gauge.builder("gateway.auth.cache.local.size", localCache, Cache::estimatedSize)
+            .register(meterRegistry);
+
+        subscribeRevocations();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (revocationSubscription != null) {
+            revocationSubscription.dispose();
+        }
+    }
 
     /**
      * 检查认证缓存
      * 
      * @param token JWT Token
-     * @return 缓存的认证信息，如果未命中返回null
+     * @return 缓存的认证信息，如果未命中返回空
      */
     public Mono<CachedAuthInfo> getAuthInfo(String token) {
-        String cacheKey = generateCacheKey(token);
-        // TODO: 迁移到新键格式 - gateway:auth:cache:str:{tokenHash}
-        
+        String tokenHash = hashToken(token);
+
+        CachedAuthInfo localInfo = localCache.getIfPresent(tokenHash);
+        if (localInfo != null) {
+            if (isUsable(localInfo)) {
+                localHits.increment();
+                return Mono.just(localInfo);
+            }
+            localCache.invalidate(tokenHash);
+        }
+
         return redisTemplate.opsForValue()
-            .get(cacheKey)
+            .get(RedisKeyBuilder.buildGatewayAuthCacheKey(tokenHash))
             .flatMap(this::deserializeAuthInfo)
-            .doOnNext(authInfo -> {
-                log.debug("Auth cache hit for user: {}", authInfo.getUserId());
-                recordCacheHit();
+            .filter(this::isUsable)
+            .doOnSuccess(authInfo -> {
+                if (authInfo != null) {
+                    log.debug("Auth cache hit (redis) for user: {}", authInfo.getUserId());
+                    redisHits.increment();
+                    putLocal(tokenHash, authInfo);
+                } else {
+                    misses.increment();
+                }
             })
-            .doOnError(error -> {
+            .onErrorResume(error -> {
                 log.warn("Failed to get auth cache: {}", error.getMessage());
-                recordCacheMiss();
-            })
-            .onErrorResume(error -> Mono.empty());
+                misses.increment();
+                return Mono.empty();
+            });
     }
 
     /**
@@ -75,26 +205,36 @@ public class AuthCacheService {
      * @return 缓存操作结果
      */
     public Mono<Boolean> cacheAuthInfo(String token, CachedAuthInfo authInfo, String jti) {
-        String cacheKey = generateCacheKey(token);
-        
-        // 设置缓存过期时间为Token过期时间的一半，确保安全性
-        Duration cacheDuration = Duration.ofSeconds(authConfig.getJwt().getAccessTokenExpire() / 2);
+        String tokenHash = hashToken(token);
         
         // 添加缓存时间戳和JTI
         authInfo.setCachedAt(new Date());
         authInfo.setJti(jti);
         
+        putLocal(tokenHash, authInfo);
+        writes.increment();
+        
+        // Redis缓存时间为Token有效期的一半，且不超过Token剩余有效期
+        long cacheSeconds = authConfig.getJwt().getAccessTokenExpire() / 2;
+        if (authInfo.getExpiresAt() != null) {
+            long remainingSeconds = (authInfo.getExpiresAt().getTime() - System.currentTimeMillis()) / 1000;
+            cacheSeconds = Math.min(cacheSeconds, remainingSeconds);
+        }
+        if (cacheSeconds <= 0) {
+            return Mono.just(false);
+        }
+        Duration cacheDuration = Duration.ofSeconds(cacheSeconds);
+        
+        String cacheKey = RedisKeyBuilder.buildGatewayAuthCacheKey(tokenHash);
+        
+        // 先登记索引再写缓存：写缓存失败只会在索引里留下无效摘要，按用户清理时删除不存在的键无副作用；
+        // 反过来则可能留下索引找不到的缓存，按用户清理时漏删
         return serializeAuthInfo(authInfo)
-            .flatMap(serialized -> redisTemplate.opsForValue()
-                .set(cacheKey, serialized, cacheDuration))
-            .doOnSuccess(result -> {
-                log.debug("Cached auth info for user: {}, duration: {}s", 
-                    authInfo.getUserId(), cacheDuration.getSeconds());
-                recordCacheWrite();
-            })
-            .doOnError(error -> {
-                log.error("Failed to cache auth info for user: {}", authInfo.getUserId(), error);
-            })
+            .flatMap(serialized -> indexToken(authInfo.getUserId(), tokenHash, cacheDuration)
+                .then(redisTemplate.opsForValue().set(cacheKey, serialized, cacheDuration)))
+            .doOnSuccess(result -> log.debug("Cached auth info for user: {}, duration: {}s", 
+                authInfo.getUserId(), cacheDuration.getSeconds()))
+            .doOnError(error -> log.error("Failed to cache auth info for user: {}", authInfo.getUserId(), error))
             .onErrorReturn(false);
     }
 
@@ -108,19 +248,23 @@ public class AuthCacheService {
         if (!StringUtils.hasText(jti)) {
             return Mono.just(false);
         }
+        if (localBlacklist.getIfPresent(jti) != null) {
+            return Mono.just(true);
+        }
 
         String blacklistKey = RedisKeyBuilder.buildGatewayAuthBlacklistKey(jti);
         return redisTemplate.hasKey(blacklistKey)
             .doOnNext(isBlacklisted -> {
                 if (isBlacklisted) {
                     log.warn("Token is blacklisted: {}", jti);
+                    localBlacklist.put(jti, Boolean.TRUE);
                 }
             })
             .onErrorReturn(false);
     }
 
     /**
-     * 将Token加入黑名单
+     * 将Token加入黑名单，并通知所有网关节点
      * 
      * @param jti JWT ID
      * @param expireTime Token过期时间（秒）
@@ -133,88 +277,169 @@ public class AuthCacheService {
 
         String blacklistKey = RedisKeyBuilder.buildGatewayAuthBlacklistKey(jti);
         Duration expireDuration = Duration.ofSeconds(expireTime);
+        applyRevocation(REVOKE_JTI_PREFIX + jti);
         
         return redisTemplate.opsForValue()
             .set(blacklistKey, "blacklisted", expireDuration)
+            .flatMap(result -> publishRevocation(REVOKE_JTI_PREFIX + jti).thenReturn(result))
             .doOnSuccess(result -> log.info("Added token to blacklist: {}", jti))
             .doOnError(error -> log.error("Failed to add token to blacklist: {}", jti, error))
             .onErrorReturn(false);
     }
 
     /**
-     * 清除用户的所有认证缓存
+     * 清除用户的所有认证缓存，并通知所有网关节点
+     * 
+     * 只删除用户索引中登记的缓存，耗时与该用户的Token数成正比。缓存键不与索引同槽，
+     * 因此先读出索引再按键删除（集群模式下按槽拆分），最后只从索引移除已读出的摘要，
+     * 期间新写入的缓存仍保留在索引中
      * 
      * @param userId 用户ID
-     * @return 操作结果
+     * @return 删除的Redis缓存数
      */
     public Mono<Long> clearUserAuthCache(String userId) {
-        // 使用新的键格式模式：gateway:auth:cache:str:{tokenHash}
-        String pattern = "gateway:auth:cache:str:*";
-
-        return redisTemplate.keys(pattern)
-            .collectList()
-            .flatMap(keys -> {
-                if (keys.isEmpty()) {
-                    return Mono.just(0L);
-                }
-                return redisTemplate.delete(keys.toArray(new String[0]));
-            })
+        applyRevocation(REVOKE_USER_PREFIX + userId);
+
+        String indexKey = RedisKeyBuilder.buildGatewayAuthUserIndexKey(userId);
+
+        return publishRevocation(REVOKE_USER_PREFIX + userId)
+            .then(redisTemplate.opsForZSet().range(indexKey, Range.unbounded()).collectList())
+            .flatMap(hashes -> hashes.isEmpty() ? Mono.just(0L) : redisTemplate
+                .delete(hashes.stream().map(RedisKeyBuilder::buildGatewayAuthCacheKey).toArray(String[]::new))
+                .flatMap(count -> redisTemplate.opsForZSet().remove(indexKey, hashes.toArray()).thenReturn(count)))
+            .defaultIfEmpty(0L)
             .doOnSuccess(count -> log.info("Cleared {} auth cache entries for user: {}", count, userId))
             .doOnError(error -> log.error("Failed to clear auth cache for user: {}", userId, error))
             .onErrorReturn(0L);
     }
 
     /**
-     * 获取缓存统计信息
+     * 将Token摘要登记到用户索引，无用户ID时跳过
+     */
+    private Mono<Long> indexToken(String userId, String tokenHash, Duration cacheDuration) {
+        if (!StringUtils.hasText(userId)) {
+            return Mono.empty();
+        }
+        long now = System.currentTimeMillis();
+        return redisTemplate.execute(INDEX_TOKEN_SCRIPT, List.of(RedisKeyBuilder.buildGatewayAuthUserIndexKey(userId)),
+                List.of(tokenHash, String.valueOf(now + cacheDuration.toMillis()), String.valueOf(now),
+                    String.valueOf(cacheDuration.getSeconds())))
+            .next();
+    }
+
+    /**
+     * 获取缓存统计信息（当前网关节点）
      * 
      * @return 缓存统计
      */
     public Mono<CacheStats> getCacheStats() {
-        String statsKey = RedisKeyBuilder.buildGatewayAuthStatsKey();
-        String hitKey = statsKey + ":hits";
-        String missKey = statsKey + ":misses";
-        String writeKey = statsKey + ":writes";
-
-        return Mono.zip(
-            redisTemplate.opsForValue().get(hitKey).defaultIfEmpty("0"),
-            redisTemplate.opsForValue().get(missKey).defaultIfEmpty("0"),
-            redisTemplate.opsForValue().get(writeKey).defaultIfEmpty("0")
-        ).map(tuple -> {
-            CacheStats stats = new CacheStats();
-            stats.setHits(Long.parseLong(tuple.getT1()));
-            stats.setMisses(Long.parseLong(tuple.getT2()));
-            stats.setWrites(Long.parseLong(tuple.getT3()));
-            stats.setHitRate(stats.getHits() / (double) (stats.getHits() + stats.getMisses()));
-            return stats;
-        }).onErrorReturn(new CacheStats());
+        CacheStats stats = new CacheStats();
+        stats.setLocalHits(localHits.sum());
+        stats.setHits(stats.getLocalHits() + redisHits.sum());
+        stats.setMisses(misses.sum());
+        stats.setWrites(writes.sum());
+        long total = stats.getHits() + stats.getMisses();
+        stats.setHitRate(total > 0 ? stats.getHits() / (double) total : 0.0);
+        return Mono.just(stats);
     }
 
     /**
-     * 生成安全的缓存Key
-     *
-     * 使用Token的SHA-256哈希作为缓存Key，避免hash冲突
-     * 新格式：gateway:auth:cache:str:{tokenHash}
+     * 订阅吊销通知，连接断开后自动重新订阅
      */
-    private String generateCacheKey(String token) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-
-            // 转换为十六进制字符串
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
+    private void subscribeRevocations() {
+        String channel = RedisKeyBuilder.buildGatewayAuthRevocationChannel();
+        revocationSubscription = redisTemplate.listenToChannel(channel)
+            .doOnNext(message -> applyRevocation(message.getMessage()))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofSeconds(30))
+                .doBeforeRetry(signal -> log.warn("Auth revocation subscription lost, resubscribing: {}",
+                    signal.failure().getMessage())))
+            .subscribe();
+        log.info("Subscribed to auth revocation channel: {}", channel);
+    }
+
+    private Mono<Long> publishRevocation(String message) {
+        return redisTemplate.convertAndSend(RedisKeyBuilder.buildGatewayAuthRevocationChannel(), message)
+            .doOnError(error -> log.warn("Failed to publish auth revocation {}: {}", message, error.getMessage()))
+            .onErrorReturn(0L);
+    }
+
+    /**
+     * 在本节点应用吊销：加入本地黑名单或清理用户的本地缓存
+     * 
+     * 本地缓存命中时会检查本地黑名单，吊销单个Token只需记录jti；按用户吊销通过用户索引定位缓存，
+     * 不遍历整个本地缓存
+     */
+    private void applyRevocation(String message) {
+        if (message == null) {
+            return;
+        }
+        if (message.startsWith(REVOKE_JTI_PREFIX)) {
+            localBlacklist.put(message.substring(REVOKE_JTI_PREFIX.length()), Boolean.TRUE);
+        } else if (message.startsWith(REVOKE_USER_PREFIX)) {
+            Set<String> tokenHashes = localUserIndex.remove(message.substring(REVOKE_USER_PREFIX.length()));
+            if (tokenHashes != null) {
+                localCache.invalidateAll(tokenHashes);
             }
+        }
+    }
+
+    /**
+     * 写入本地缓存，先登记用户索引再写缓存，保证缓存中的条目总能按用户找到
+     */
+    private void putLocal(String tokenHash, CachedAuthInfo authInfo) {
+        if (StringUtils.hasText(authInfo.getUserId())) {
+            localUserIndex.computeIfAbsent(authInfo.getUserId(), key -> ConcurrentHashMap.newKeySet()).add(tokenHash);
+        }
+        localCache.put(tokenHash, authInfo);
+    }
 
-            return RedisKeyBuilder.buildGatewayAuthCacheKey(hexString.toString());
+    /**
+     * 移除监听异步执行，同一摘要可能已被重新写入，此时保留索引
+     */
+    private void unindexLocal(String userId, String tokenHash) {
+        if (!StringUtils.hasText(userId)) {
+            return;
+        }
+        localUserIndex.computeIfPresent(userId, (key, tokenHashes) -> {
+            if (localCache.asMap().containsKey(tokenHash)) {
+                return tokenHashes;
+            }
+            tokenHashes.remove(tokenHash);
+            return tokenHashes.isEmpty() ? null : tokenHashes;
+        });
+    }
 
+    /**
+     * 缓存的认证信息仍可使用：Token未过期且未被吊销
+     */
+    private boolean isUsable(CachedAuthInfo authInfo) {
+        if (authInfo.getExpiresAt() != null && authInfo.getExpiresAt().getTime() <= System.currentTimeMillis()) {
+            return false;
+        }
+        return authInfo.getJti() == null || localBlacklist.getIfPresent(authInfo.getJti()) == null;
+    }
+
+    private static long localTtlNanos(CachedAuthInfo authInfo, long maxTtlNanos) {
+        if (authInfo.getExpiresAt() == null) {
+            return maxTtlNanos;
+        }
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(authInfo.getExpiresAt().getTime() - System.currentTimeMillis());
+        return Math.max(0, Math.min(maxTtlNanos, remainingNanos));
+    }
+
+    /**
+     * 计算Token摘要
+     *
+     * 使用Token的SHA-256哈希作为缓存Key，避免在缓存中保存原始Token
+     */
+    private String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
-            log.error("Failed to generate cache key, falling back to hashCode", e);
-            return RedisKeyBuilder.buildGatewayAuthCacheKey("fallback:" + token.hashCode());
+            log.error("Failed to hash token, falling back to hashCode", e);
+            return "fallback:" + token.hashCode();
         }
     }
 
@@ -240,36 +465,6 @@ public class AuthCacheService {
             });
     }
 
-    /**
-     * 记录缓存命中
-     */
-    private void recordCacheHit() {
-        String hitKey = RedisKeyBuilder.buildGatewayAuthStatsKey() + ":hits";
-        redisTemplate.opsForValue()
-            .increment(hitKey)
-            .subscribe();
-    }
-
-    /**
-     * 记录缓存未命中
-     */
-    private void recordCacheMiss() {
-        String missKey = RedisKeyBuilder.buildGatewayAuthStatsKey() + ":misses";
-        redisTemplate.opsForValue()
-            .increment(missKey)
-            .subscribe();
-    }
-
-    /**
-     * 记录缓存写入
-     */
-    private void recordCacheWrite() {
-        String writeKey = RedisKeyBuilder.buildGatewayAuthStatsKey() + ":writes";
-        redisTemplate.opsForValue()
-            .increment(writeKey)
-            .subscribe();
-    }
-
     /**
      * 缓存的认证信息
      */
@@ -290,6 +485,7 @@ public class AuthCacheService {
     @Data
     public static class CacheStats {
         private long hits = 0;
+        private long localHits = 0;
         private long misses = 0;
         private long writes = 0;
         private double hitRate = 0.0;
@@ -1,5 +1,6 @@
 package com.lynn.museum.gateway.auth.strategy;
 
+import com.lynn.museum.gateway.auth.AuthAttributes;
 import com.lynn.museum.gateway.config.UnifiedAuthConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -41,11 +42,11 @@ public class InternalServiceAuthStrategy implements AuthStrategy {
         boolean hasInternalCall = request.getHeaders().containsKey(getInternalCallHeader());
         boolean hasServiceToken = request.getHeaders().containsKey(getServiceTokenHeader());
         
-        log.info("【认证检查】内部服务认证策略检查: Path={}, hasInternalCall={}, hasServiceToken={}", 
+        log.debug("【认证检查】内部服务认证策略检查: Path={}, hasInternalCall={}, hasServiceToken={}", 
             request.getURI().getPath(), hasInternalCall, hasServiceToken);
         
         if (hasInternalCall || hasServiceToken) {
-            log.info("【认证检查】发现内部服务调用Headers: X-Internal-Call={}, X-Service-ID={}, X-Service-Token={}", 
+            log.debug("【认证检查】发现内部服务调用Headers: X-Internal-Call={}, X-Service-ID={}, X-Service-Token={}", 
                 request.getHeaders().getFirst(getInternalCallHeader()),
                 request.getHeaders().getFirst(getServiceIdHeader()),
                 maskToken(request.getHeaders().getFirst(getServiceTokenHeader())));
@@ -61,14 +62,14 @@ public class InternalServiceAuthStrategy implements AuthStrategy {
     public Mono<Void> authenticate(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         
-        log.info("【认证检查】执行内部服务认证策略: Path={}", request.getURI().getPath());
+        log.debug("【认证检查】执行内部服务认证策略: Path={}", request.getURI().getPath());
 
         // 1. 检查内部调用标识
         String internalCall = request.getHeaders().getFirst(getInternalCallHeader());
         log.debug("【认证检查】内部调用标识: {}", internalCall);
         
         if ("true".equalsIgnoreCase(internalCall)) {
-            log.info("【认证检查】发现内部调用标识，进行内部调用验证");
+            log.debug("【认证检查】发现内部调用标识，进行内部调用验证");
             return validateInternalCall(exchange, chain);
         }
 
@@ -77,7 +78,7 @@ public class InternalServiceAuthStrategy implements AuthStrategy {
         log.debug("【认证检查】服务Token: {}", maskToken(serviceToken));
         
         if (StringUtils.hasText(serviceToken)) {
-            log.info("【认证检查】发现服务Token，进行Token验证");
+            log.debug("【认证检查】发现服务Token，进行Token验证");
             return validateServiceToken(exchange, chain, serviceToken);
         }
 
@@ -93,7 +94,7 @@ public class InternalServiceAuthStrategy implements AuthStrategy {
         String serviceId = request.getHeaders().getFirst(getServiceIdHeader());
         String clientIp = getClientIp(request);
 
-        log.info("【认证检查】验证内部调用: ServiceId={}, ClientIp={}, Path={}", 
+        log.debug("【认证检查】验证内部调用: ServiceId={}, ClientIp={}, Path={}", 
             serviceId, clientIp, request.getURI().getPath());
 
         // 验证服务ID
@@ -118,9 +119,10 @@ public class InternalServiceAuthStrategy implements AuthStrategy {
                 .header("X-Auth-Time", String.valueOf(System.currentTimeMillis()))
                 .build();
 
-        log.info("【认证检查】内部服务调用认证成功: Service={}, IP={}, Path={}", 
+        log.debug("【认证检查】内部服务调用认证成功: Service={}, IP={}, Path={}", 
             serviceId, clientIp, request.getURI().getPath());
 
+        exchange.getAttributes().put(AuthAttributes.AUTH_TYPE, AuthAttributes.AUTH_TYPE_INTERNAL);
         return chain.filter(exchange.mutate().request(mutatedRequest).build());
     }
 
@@ -146,8 +148,9 @@ public class InternalServiceAuthStrategy implements AuthStrategy {
                 .header("X-Auth-Time", String.valueOf(System.currentTimeMillis()))
                 .build();
 
-        log.info("Service token authenticated: ip={}", clientIp);
+        log.debug("Service token authenticated: ip={}", clientIp);
 
+        exchange.getAttributes().put(AuthAttributes.AUTH_TYPE, AuthAttributes.AUTH_TYPE_INTERNAL);
         return chain.filter(exchange.mutate().request(mutatedRequest).build());
     }
 
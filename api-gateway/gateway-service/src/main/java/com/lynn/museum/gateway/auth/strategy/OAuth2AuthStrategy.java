@@ -1,5 +1,7 @@
 package com.lynn.museum.gateway.auth.strategy;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lynn.museum.gateway.auth.cache.AuthCacheService;
 import com.lynn.museum.gateway.config.UnifiedAuthConfig;
 import com.lynn.museum.gateway.service.JwksService;
@@ -7,7 +9,6 @@ import static com.lynn.museum.gateway.auth.strategy.OAuth2AuthStrategyHelper.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -41,8 +42,8 @@ public class OAuth2AuthStrategy implements AuthStrategy {
 
     private final UnifiedAuthConfig authConfig;
     private final JwksService jwksService;
-    private final ReactiveStringRedisTemplate redisTemplate;
     private final AuthCacheService authCacheService;
+    private final ObjectMapper objectMapper;
 
     @Override
     public boolean supports(ServerWebExchange exchange) {
@@ -66,73 +67,70 @@ public class OAuth2AuthStrategy implements AuthStrategy {
 
         String token = authHeader.substring(authConfig.getJwt().getTokenPrefix().length());
 
-        // 先检查认证缓存
+        // 先确定认证信息（缓存命中直接使用，未命中执行完整的Token验证），再只执行一次下游过滤器链
         return authCacheService.getAuthInfo(token)
-            .flatMap(cachedAuthInfo -> {
-                log.debug("Using cached authentication info for user: {}", cachedAuthInfo.getUserId());
-                return proceedWithCachedUserInfo(exchange, chain, cachedAuthInfo);
-            })
-            .switchIfEmpty(
-                // 缓存未命中，执行完整的Token验证
-                validateToken(exchange, chain, token)
-            )
+            .doOnNext(cachedAuthInfo -> log.debug("Using cached authentication info for user: {}", cachedAuthInfo.getUserId()))
+            .switchIfEmpty(Mono.defer(() -> verifyAndCache(token)))
             .onErrorResume(error -> {
                 log.warn("OAuth2 authentication failed: {}", error.getMessage());
-                return unauthorized(exchange, "Authentication failed");
-            });
+                String message = error instanceof TokenRejectedException ? error.getMessage() : "Authentication failed";
+                return unauthorized(exchange, message).then(Mono.<AuthCacheService.CachedAuthInfo>empty());
+            })
+            .flatMap(authInfo -> proceedWithCachedUserInfo(exchange, chain, authInfo));
     }
 
     /**
-     * 验证JWT Token
+     * 完整验证JWT Token并写入认证缓存
+     * 
+     * @return 认证信息；Token无效或已吊销时以 {@link TokenRejectedException} 结束
      */
-    private Mono<Void> validateToken(ServerWebExchange exchange, GatewayFilterChain chain, String token) {
+    private Mono<AuthCacheService.CachedAuthInfo> verifyAndCache(String token) {
+        String keyId;
         try {
             // 解析JWT头部获取kid
             String[] tokenParts = token.split("\\.");
             if (tokenParts.length != 3) {
-                return unauthorized(exchange, "Invalid token format");
+                return Mono.error(new TokenRejectedException("Invalid token format"));
             }
 
-            String headerJson = new String(java.util.Base64.getUrlDecoder().decode(tokenParts[0]));
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            com.fasterxml.jackson.databind.JsonNode headerNode = mapper.readTree(headerJson);
-            String keyId = headerNode.get("kid").asText();
-
-            if (!StringUtils.hasText(keyId)) {
-                return unauthorized(exchange, "Missing key ID in token");
-            }
-
-            // 获取公钥并验证Token
-            return jwksService.getPublicKey(keyId)
-                .flatMap(publicKey -> validateTokenWithPublicKey(token, publicKey))
-                .flatMap(claims -> {
-                    // 检查Token黑名单
-                    String jti = claims.getId();
-                    return authCacheService.isTokenBlacklisted(jti)
-                        .flatMap(isBlacklisted -> {
-                            if (isBlacklisted) {
-                                log.warn("Token is blacklisted: {}", jti);
-                                return unauthorized(exchange, "Token has been revoked");
-                            }
-
-                            // 提取用户信息
-                            AuthCacheService.CachedAuthInfo authInfo = extractCachedAuthInfo(claims);
-                            
-                            // 异步缓存认证信息
-                            authCacheService.cacheAuthInfo(token, authInfo, jti).subscribe();
-                            
-                            return proceedWithCachedUserInfo(exchange, chain, authInfo);
-                        });
-                })
-                .onErrorResume(error -> {
-                    log.error("JWT validation error: {}", error.getMessage());
-                    return unauthorized(exchange, "Token validation failed");
-                });
-
+            JsonNode headerNode = objectMapper.readTree(java.util.Base64.getUrlDecoder().decode(tokenParts[0]));
+            keyId = headerNode.path("kid").asText(null);
         } catch (Exception e) {
             log.error("JWT parsing error", e);
-            return unauthorized(exchange, "Token parsing failed");
+            return Mono.error(new TokenRejectedException("Token parsing failed"));
+        }
+
+        if (!StringUtils.hasText(keyId)) {
+            return Mono.error(new TokenRejectedException("Missing key ID in token"));
         }
+
+        // 获取公钥并验证Token
+        return jwksService.getPublicKey(keyId)
+            .flatMap(publicKey -> validateTokenWithPublicKey(token, publicKey))
+            .flatMap(claims -> {
+                // 检查Token黑名单
+                String jti = claims.getId();
+                return authCacheService.isTokenBlacklisted(jti)
+                    .flatMap(isBlacklisted -> {
+                        if (isBlacklisted) {
+                            log.warn("Token is blacklisted: {}", jti);
+                            return Mono.<AuthCacheService.CachedAuthInfo>error(new TokenRejectedException("Token has been revoked"));
+                        }
+
+                        // 提取用户信息
+                        AuthCacheService.CachedAuthInfo authInfo = extractCachedAuthInfo(claims);
+
+                        // 异步缓存认证信息
+                        authCacheService.cacheAuthInfo(token, authInfo, jti).subscribe();
+
+                        return Mono.just(authInfo);
+                    });
+            })
+            .switchIfEmpty(Mono.error(() -> new TokenRejectedException("Token validation failed")))
+            .onErrorMap(error -> !(error instanceof TokenRejectedException), error -> {
+                log.error("JWT validation error: {}", error.getMessage());
+                return new TokenRejectedException("Token validation failed");
+            });
     }
 
     /**
@@ -196,4 +194,14 @@ public class OAuth2AuthStrategy implements AuthStrategy {
     }
 
     // UserAuthInfo类已重构为CachedAuthInfo并移动到AuthCacheService中
+
+    /**
+     * Token被拒绝，消息作为401响应的原因返回
+     */
+    private static final class TokenRejectedException extends RuntimeException {
+
+        TokenRejectedException(String message) {
+            super(message, null, false, false);
+        }
+    }
 }
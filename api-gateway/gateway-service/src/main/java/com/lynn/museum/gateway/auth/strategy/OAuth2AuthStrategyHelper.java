@@ -1,5 +1,6 @@
 package com.lynn.museum.gateway.auth.strategy;
 
+import com.lynn.museum.gateway.auth.AuthAttributes;
 import com.lynn.museum.gateway.auth.cache.AuthCacheService;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
@@ -68,8 +69,11 @@ public class OAuth2AuthStrategyHelper {
         ServerWebExchange mutatedExchange = exchange.mutate()
                 .request(mutatedRequest)
                 .build();
+        mutatedExchange.getAttributes().put(AuthAttributes.AUTH_TYPE, AuthAttributes.AUTH_TYPE_OAUTH2);
+        mutatedExchange.getAttributes().put(AuthAttributes.USER_ID, authInfo.getUserId());
+        mutatedExchange.getAttributes().put(AuthAttributes.ROLES, authInfo.getRoles() != null ? authInfo.getRoles() : List.of());
 
-        log.info("OAuth2 authentication succeeded (cached): userId={}, username={}", 
+        log.debug("OAuth2 authentication succeeded (cached): userId={}, username={}", 
                 authInfo.getUserId(), authInfo.getUsername());
 
         return chain.filter(mutatedExchange);
@@ -0,0 +1,72 @@
+package com.lynn.museum.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关访问日志配置
+ *
+ * 1. 访问日志：采样比例、环形缓冲区大小、慢请求阈值
+ * 2. 链路追踪：追踪ID请求头名称
+ * 3. 路由耗时直方图：是否发布百分位直方图及SLO边界
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "museum.gateway.access-log")
+public class AccessLogConfig {
+
+    /**
+     * 是否输出访问日志
+     */
+    private boolean enabled = true;
+
+    /**
+     * 访问日志采样比例（0~1），错误请求和慢请求不受采样限制
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 慢请求阈值（毫秒）
+     */
+    private long slowThresholdMs = 1000;
+
+    /**
+     * 环形缓冲区容量，向上取整为2的幂；写满时丢弃新日志而不阻塞请求线程
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 追踪ID请求头，传递给下游服务并回写到响应
+     */
+    private String traceHeader = "X-Trace-Id";
+
+    /**
+     * 路由耗时直方图配置
+     */
+    private Histogram histogram = new Histogram();
+
+    @Data
+    public static class Histogram {
+        /**
+         * 是否记录路由耗时
+         */
+        private boolean enabled = true;
+
+        /**
+         * 是否发布百分位直方图（Prometheus histogram_quantile使用）
+         */
+        private boolean percentilesHistogram = true;
+
+        /**
+         * SLO边界（毫秒）
+         */
+        private List<Long> slo = new ArrayList<>(List.of(50L, 100L, 300L, 1000L));
+    }
+}
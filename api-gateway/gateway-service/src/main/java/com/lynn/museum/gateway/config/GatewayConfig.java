@@ -1,5 +1,6 @@
 package com.lynn.museum.gateway.config;
 
+import com.lynn.museum.gateway.auth.AuthAttributes;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
@@ -67,7 +68,7 @@ public class GatewayConfig {
      * 限流键解析器 - 基于用户ID
      * 
      * 用户级限流策略：
-     * 1. 优先从请求头X-User-Id获取用户标识
+     * 1. 使用认证策略验证后写入交换属性的用户ID，不信任客户端传入的X-User-Id请求头
      * 2. 如果没有用户ID，降级为IP限流
      * 3. 适用于需要对不同用户设置不同限流策略的场景
      * 
@@ -77,24 +78,23 @@ public class GatewayConfig {
      * - 恶意用户更严格的限制
      * 
      * 集成方式：
-     * - 前端：在请求头中添加用户标识
      * - 认证服务：JWT Token中包含用户ID
-     * - 网关：从Token解析或直接从Header获取
+     * - 网关：OAuth2认证策略验证Token后写入 {@link AuthAttributes#USER_ID}
+     * - 默认的全局限流由 RateLimitFilter 完成，此解析器供路由单独配置 RequestRateLimiter 时使用
      * 
      * @return KeyResolver 用户维度的键解析器
      */
     @Bean
     public KeyResolver userKeyResolver() {
         return exchange -> {
-            // 从请求头获取用户ID
-            // 通常由前端或认证服务在请求中添加
-            String userId = exchange.getRequest().getHeaders().getFirst("X-User-Id");
+            // 已验证的用户ID，由统一认证过滤器写入交换属性
+            String userId = exchange.getAttribute(AuthAttributes.USER_ID);
             
             if (userId == null || userId.isEmpty()) {
                 // 降级策略：如果没有用户ID，使用IP地址
                 // 确保未认证用户也能被正确限流
                 userId = getClientIp(exchange);
-                log.debug("No system ID found, fallback to IP: {}", userId);
+                log.debug("No verified user ID found, fallback to IP: {}", userId);
             }
             
             log.debug("User rate limiting key: {}", userId);
@@ -0,0 +1,91 @@
+package com.lynn.museum.gateway.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关限流配置
+ *
+ * 规则优先级：用户角色规则（取最宽松的一个） > 路由规则 > 默认规则；
+ * 未登录请求按客户端IP使用匿名规则，内部服务调用不限流。
+ * 客户端IP取连接的对端地址，只有对端属于可信代理时才采信 X-Forwarded-For / X-Real-IP。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "museum.gateway.rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地令牌桶与Redis滑动窗口的同步间隔（毫秒）
+     */
+    private long syncIntervalMs = 1000;
+
+    /**
+     * Redis滑动窗口长度（秒）
+     */
+    private int windowSeconds = 10;
+
+    /**
+     * 本地令牌桶最大数量，超出后淘汰最久未访问的
+     */
+    private long maxBuckets = 100000;
+
+    /**
+     * 已登录用户的默认规则
+     */
+    private Rule defaultRule = new Rule(20, 40);
+
+    /**
+     * 未登录请求（按IP）的规则
+     */
+    private Rule anonymousRule = new Rule(10, 20);
+
+    /**
+     * 可信代理（IP或CIDR，如 10.0.0.0/8），为空时只使用连接的对端地址
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /**
+     * 路由规则：路由ID -> 规则
+     */
+    private Map<String, Rule> routes = new LinkedHashMap<>();
+
+    /**
+     * 角色规则：角色编码 -> 规则
+     */
+    private Map<String, Rule> roles = new LinkedHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class Rule {
+        /**
+         * 令牌填充速率（每秒）
+         */
+        private double replenishRate;
+
+        /**
+         * 令牌桶容量（最大突发请求数）
+         */
+        private double burstCapacity;
+
+        public Rule(double replenishRate, double burstCapacity) {
+            this.replenishRate = replenishRate;
+            this.burstCapacity = burstCapacity;
+        }
+    }
+}
@@ -43,6 +43,11 @@ public class UnifiedAuthConfig {
      * JWT配置
      */
     private Jwt jwt = new Jwt();
+    
+    /**
+     * 认证缓存配置
+     */
+    private Cache cache = new Cache();
 
     @Data
     public static class Strategies {
@@ -146,4 +151,17 @@ public class UnifiedAuthConfig {
          */
         private String endpoint = "/.well-known/jwks.json";
     }
+    
+    @Data
+    public static class Cache {
+        /**
+         * 本地认证缓存最大条目数
+         */
+        private long localMaxSize = 100000;
+        
+        /**
+         * 本地认证缓存最长有效期（秒），同时也是吊销通知丢失时的最长生效延迟
+         */
+        private long localMaxTtlSeconds = 300;
+    }
 }
@@ -1,5 +1,6 @@
 package com.lynn.museum.gateway.config;
 
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -16,9 +17,10 @@ public class WebClientConfig {
     
     /**
      * WebClient Builder
-     * 用于创建WebClient实例
+     * 用于创建WebClient实例，按服务名（如 http://auth-service）负载均衡到注册中心中的实例
      */
     @Bean
+    @LoadBalanced
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
@@ -0,0 +1,189 @@
+package com.lynn.museum.gateway.filter;
+
+import com.lynn.museum.gateway.config.AccessLogConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志写入器
+ *
+ * 请求线程（Netty事件循环）只把字段写入预分配的环形缓冲区槽位，
+ * 由后台线程格式化并交给 com.lynn.museum.gateway.access 日志器输出，
+ * 事件循环上不再发生日志格式化和Appender写入。
+ * 缓冲区写满时丢弃新日志并计数（gateway.access.log.dropped），不阻塞请求。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("com.lynn.museum.gateway.access");
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Slot[] slots;
+    private final int mask;
+
+    /**
+     * 下一个可申请的序号（生产者）
+     */
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    /**
+     * 下一个待消费的序号（消费者）
+     */
+    private final AtomicLong consumeSequence = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+    private final MeterRegistry meterRegistry;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AccessLogWriter(AccessLogConfig accessLogConfig, MeterRegistry meterRegistry) {
+        int capacity = Integer.highestOneBit(Math.max(64, accessLogConfig.getBufferSize() - 1)) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        FunctionCounter.builder("gateway.access.log.dropped", dropped, LongAdder::sum).register(meterRegistry);
+        running = true;
+        writerThread = new Thread(this::drainLoop, "gateway-access-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Access log writer started, buffer size: {}", slots.length);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 提交一条访问日志，缓冲区已满时丢弃
+     */
+    public void offer(String traceId, HttpMethod method, String path, String routeId,
+                      int status, long durationNanos, String clientIp, long timestamp) {
+        long sequence;
+        do {
+            sequence = claimSequence.get();
+            if (sequence - consumeSequence.get() >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.traceId = traceId;
+        slot.method = method;
+        slot.path = path;
+        slot.routeId = routeId;
+        slot.status = status;
+        slot.durationNanos = durationNanos;
+        slot.clientIp = clientIp;
+        slot.timestamp = timestamp;
+        // 发布：消费者看到序号后才读取字段
+        slot.published = sequence;
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        long next = consumeSequence.get();
+        while (running || next < claimSequence.get()) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.published != next) {
+                if (!running) {
+                    // 停止时生产者可能已申请序号但尚未发布，直接结束
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            line.setLength(0);
+            format(slot, line);
+            slot.clear();
+            consumeSequence.lazySet(++next);
+
+            try {
+                ACCESS_LOG.info(line.toString());
+            } catch (Exception e) {
+                // 日志输出异常不能终止写入线程
+                log.warn("Failed to write access log: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void format(Slot slot, StringBuilder line) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(slot.durationNanos);
+        line.append("traceId=").append(slot.traceId)
+            .append(" ts=").append(slot.timestamp)
+            .append(" method=").append(slot.method)
+            .append(" path=").append(slot.path)
+            .append(" route=").append(slot.routeId)
+            .append(" status=").append(slot.status)
+            .append(" durationMs=").append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            line.append('0');
+        }
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction)
+            .append(" ip=").append(slot.clientIp);
+    }
+
+    /**
+     * 预分配的日志槽位
+     */
+    private static final class Slot {
+
+        private volatile long published = -1;
+
+        private String traceId;
+        private HttpMethod method;
+        private String path;
+        private String routeId;
+        private int status;
+        private long durationNanos;
+        private String clientIp;
+        private long timestamp;
+
+        private void clear() {
+            traceId = null;
+            method = null;
+            path = null;
+            routeId = null;
+            clientIp = null;
+        }
+    }
+}
@@ -1,67 +1,82 @@
 package com.lynn.museum.gateway.filter;
 
+import com.lynn.museum.gateway.config.AccessLogConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 全局日志过滤器
  * 记录所有通过网关的请求和响应信息
- * 
+ *
+ * 1. 追踪ID：沿用上游传入的追踪ID，否则生成128位随机ID，传递给下游服务并回写到响应头
+ * 2. 访问日志：按采样比例提交到 {@link AccessLogWriter} 异步输出，错误和慢请求全部记录
+ * 3. 路由耗时：按路由和状态码分类记录 gateway.route.latency 直方图
+ *
  * @author lynn
  * @since 2024
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class GlobalLoggingFilter implements GlobalFilter, Ordered {
 
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final int MAX_TRACE_ID_LENGTH = 64;
+
+    private static final String UNKNOWN_ROUTE = "unknown";
+
+    private final AccessLogConfig accessLogConfig;
+    private final AccessLogWriter accessLogWriter;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 路由+状态分类 -> Timer，避免每次请求构建Meter
+     */
+    private final Map<String, Timer> routeTimers = new ConcurrentHashMap<>();
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
-        ServerHttpResponse response = exchange.getResponse();
-        
-        String requestId = generateRequestId();
-        String startTime = LocalDateTime.now().format(FORMATTER);
-        
-        // 记录请求信息
-        log.info("[{}] [{}] Request: {} {} from {}", 
-                requestId, startTime, request.getMethod(), request.getURI(), getClientIp(request));
-        
-        // 记录请求头（调试模式）
+        String traceHeader = accessLogConfig.getTraceHeader();
+
+        String traceId = request.getHeaders().getFirst(traceHeader);
+        if (!isValidTraceId(traceId)) {
+            traceId = generateTraceId();
+        }
+        final String currentTraceId = traceId;
+
+        ServerHttpRequest tracedRequest = request.mutate()
+                .headers(headers -> headers.set(traceHeader, currentTraceId))
+                .build();
+        exchange.getResponse().getHeaders().set(traceHeader, currentTraceId);
+
         if (log.isDebugEnabled()) {
-            request.getHeaders().forEach((name, values) -> 
-                log.debug("[{}] Request Header: {} = {}", requestId, name, values));
+            request.getHeaders().forEach((name, values) ->
+                log.debug("[{}] Request Header: {} = {}", currentTraceId, name, values));
         }
-        
-        long startTimeMillis = System.currentTimeMillis();
-        
-        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
-            long endTimeMillis = System.currentTimeMillis();
-            long duration = endTimeMillis - startTimeMillis;
-            String endTime = LocalDateTime.now().format(FORMATTER);
-            
-            // 记录响应信息
-            log.info("[{}] [{}] Response: {} {} - Status: {} - Duration: {}ms", 
-                    requestId, endTime, request.getMethod(), request.getURI(), 
-                    response.getStatusCode(), duration);
-            
-            // 记录响应头（调试模式）
-            if (log.isDebugEnabled()) {
-                response.getHeaders().forEach((name, values) -> 
-                    log.debug("[{}] Response Header: {} = {}", requestId, name, values));
-            }
-        }));
+
+        long startNanos = System.nanoTime();
+        ServerWebExchange tracedExchange = exchange.mutate().request(tracedRequest).build();
+
+        return chain.filter(tracedExchange)
+                .doFinally(signal -> record(tracedExchange, currentTraceId, System.nanoTime() - startNanos));
     }
 
     @Override
@@ -70,10 +85,84 @@ public class GlobalLoggingFilter implements GlobalFilter, Ordered {
     }
 
     /**
-     * 生成请求ID
+     * 记录路由耗时和访问日志
      */
-    private String generateRequestId() {
-        return "REQ-" + System.currentTimeMillis() + "-" + Thread.currentThread().getId();
+    private void record(ServerWebExchange exchange, String traceId, long durationNanos) {
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = statusCode != null ? statusCode.value() : 200;
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : UNKNOWN_ROUTE;
+
+        if (accessLogConfig.getHistogram().isEnabled()) {
+            routeTimer(routeId, status / 100).record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (accessLogConfig.isEnabled() && shouldLog(status, durationNanos)) {
+            ServerHttpRequest request = exchange.getRequest();
+            accessLogWriter.offer(traceId, request.getMethod(), request.getURI().getRawPath(), routeId,
+                    status, durationNanos, getClientIp(request), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 错误和慢请求全部记录，其余按采样比例记录
+     */
+    private boolean shouldLog(int status, long durationNanos) {
+        if (status >= 500 || TimeUnit.NANOSECONDS.toMillis(durationNanos) >= accessLogConfig.getSlowThresholdMs()) {
+            return true;
+        }
+        double sampleRate = accessLogConfig.getSampleRate();
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private Timer routeTimer(String routeId, int statusClass) {
+        return routeTimers.computeIfAbsent(routeId + '#' + statusClass, key -> {
+            AccessLogConfig.Histogram histogram = accessLogConfig.getHistogram();
+            return Timer.builder("gateway.route.latency")
+                    .description("网关路由请求耗时")
+                    .tag("route", routeId)
+                    .tag("status", statusClass + "xx")
+                    .publishPercentileHistogram(histogram.isPercentilesHistogram())
+                    .serviceLevelObjectives(histogram.getSlo().stream()
+                            .map(Duration::ofMillis)
+                            .toArray(Duration[]::new))
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * 生成128位随机追踪ID（32位十六进制）
+     */
+    private static String generateTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[32];
+        writeHex(random.nextLong(), chars, 0);
+        writeHex(random.nextLong(), chars, 16);
+        return new String(chars);
+    }
+
+    private static void writeHex(long value, char[] chars, int offset) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = Character.forDigit((int) (value & 0xF), 16);
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * 上游传入的追踪ID只接受字母、数字和连字符，防止日志注入
+     */
+    private static boolean isValidTraceId(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_TRACE_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            boolean allowed = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -82,16 +171,17 @@ public class GlobalLoggingFilter implements GlobalFilter, Ordered {
     private String getClientIp(ServerHttpRequest request) {
         String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+            int comma = xForwardedFor.indexOf(',');
+            return (comma > 0 ? xForwardedFor.substring(0, comma) : xForwardedFor).trim();
         }
-        
+
         String xRealIp = request.getHeaders().getFirst("X-Real-IP");
         if (xRealIp != null && !xRealIp.isEmpty()) {
             return xRealIp;
         }
-        
-        return request.getRemoteAddress() != null 
-                ? request.getRemoteAddress().getAddress().getHostAddress() 
+
+        return request.getRemoteAddress() != null
+                ? request.getRemoteAddress().getAddress().getHostAddress()
                 : "unknown";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,244 @@
+package com.lynn.museum.gateway.filter;
+
+import com.lynn.museum.gateway.auth.AuthAttributes;
+import com.lynn.museum.gateway.config.RateLimitConfig;
+import com.lynn.museum.gateway.service.RateLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关限流过滤器
+ *
+ * 在认证过滤器之后执行，限流键取自认证策略写入的交换属性（{@link AuthAttributes}），
+ * 不信任客户端传入的用户请求头：
+ * 1. 已登录用户：user:{userId}:{routeId}，规则取角色规则或路由规则
+ * 2. 未登录请求（白名单路径）：ip:{clientIp}:{routeId}，使用匿名规则；
+ *    clientIp 为连接的对端地址，仅当对端是配置的可信代理时才从 X-Forwarded-For 右侧向左
+ *    跳过可信代理取第一个地址，防止客户端伪造请求头绕过限流
+ * 3. 内部服务调用：不限流
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String UNKNOWN_ROUTE = "unknown";
+
+    private final RateLimitConfig rateLimitConfig;
+    private final RateLimitService rateLimitService;
+    private final MeterRegistry meterRegistry;
+
+    private List<CidrMatcher> trustedProxies = List.of();
+
+    @PostConstruct
+    public void init() {
+        List<CidrMatcher> matchers = new ArrayList<>();
+        for (String proxy : rateLimitConfig.getTrustedProxies()) {
+            try {
+                matchers.add(CidrMatcher.parse(proxy.trim()));
+            } catch (Exception e) {
+                log.warn("Ignoring invalid trusted proxy: {}", proxy, e);
+            }
+        }
+        trustedProxies = List.copyOf(matchers);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!rateLimitConfig.isEnabled()
+                || AuthAttributes.AUTH_TYPE_INTERNAL.equals(exchange.getAttribute(AuthAttributes.AUTH_TYPE))) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : UNKNOWN_ROUTE;
+
+        String userId = exchange.getAttribute(AuthAttributes.USER_ID);
+        String key;
+        RateLimitConfig.Rule rule;
+        if (userId != null) {
+            key = "user:" + userId + ":" + routeId;
+            List<String> roles = exchange.getAttribute(AuthAttributes.ROLES);
+            rule = resolveUserRule(routeId, roles);
+        } else {
+            key = "ip:" + getClientIp(exchange.getRequest()) + ":" + routeId;
+            rule = rateLimitConfig.getAnonymousRule();
+        }
+
+        if (rateLimitService.tryAcquire(key, rule)) {
+            return chain.filter(exchange);
+        }
+
+        log.debug("Rate limited: key={}", key);
+        meterRegistry.counter("gateway.ratelimit.rejected", "route", routeId).increment();
+        return tooManyRequests(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // 在统一认证过滤器（-100）之后执行
+        return -90;
+    }
+
+    /**
+     * 角色规则取填充速率最高的一个，没有角色规则时使用路由规则或默认规则
+     */
+    private RateLimitConfig.Rule resolveUserRule(String routeId, List<String> roles) {
+        RateLimitConfig.Rule best = null;
+        if (roles != null && !rateLimitConfig.getRoles().isEmpty()) {
+            for (String role : roles) {
+                RateLimitConfig.Rule roleRule = rateLimitConfig.getRoles().get(role);
+                if (roleRule != null && (best == null || roleRule.getReplenishRate() > best.getReplenishRate())) {
+                    best = roleRule;
+                }
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        return rateLimitConfig.getRoutes().getOrDefault(routeId, rateLimitConfig.getDefaultRule());
+    }
+
+    /**
+     * 返回429响应
+     */
+    private Mono<Void> tooManyRequests(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().add(HttpHeaders.CONTENT_TYPE, "application/json;charset=UTF-8");
+        response.getHeaders().add(HttpHeaders.RETRY_AFTER, "1");
+
+        String body = String.format(
+            "{\"code\":429,\"message\":\"Too Many Requests\",\"data\":null,\"timestamp\":%d}",
+            System.currentTimeMillis());
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 获取客户端IP地址
+     *
+     * 对端不是可信代理时直接使用对端地址；否则从 X-Forwarded-For 最右侧开始跳过可信代理，
+     * 取第一个不可信的地址（最左侧的地址由客户端填写，不可信）
+     */
+    private String getClientIp(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return "unknown";
+        }
+        String remoteIp = remoteAddress.getAddress().getHostAddress();
+        if (!isTrustedProxy(remoteIp)) {
+            return remoteIp;
+        }
+
+        String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            String[] hops = xForwardedFor.split(",");
+            String clientIp = remoteIp;
+            for (int i = hops.length - 1; i >= 0; i--) {
+                clientIp = hops[i].trim();
+                if (!isTrustedProxy(clientIp)) {
+                    break;
+                }
+            }
+            return clientIp.isEmpty() ? remoteIp : clientIp;
+        }
+
+        String xRealIp = request.getHeaders().getFirst("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp.trim();
+        }
+        return remoteIp;
+    }
+
+    private boolean isTrustedProxy(String ip) {
+        if (trustedProxies.isEmpty() || ip.isEmpty()) {
+            return false;
+        }
+        for (CidrMatcher matcher : trustedProxies) {
+            if (matcher.matches(ip)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * IP / CIDR 匹配，只接受字面量地址，不做DNS解析
+     */
+    private record CidrMatcher(byte[] network, int prefixLength) {
+
+        static CidrMatcher parse(String cidr) {
+            int slash = cidr.indexOf('/');
+            byte[] address = toBytes(slash >= 0 ? cidr.substring(0, slash) : cidr);
+            if (address == null) {
+                throw new IllegalArgumentException("Not an IP literal: " + cidr);
+            }
+            int prefix = slash >= 0 ? Integer.parseInt(cidr.substring(slash + 1)) : address.length * 8;
+            if (prefix < 0 || prefix > address.length * 8) {
+                throw new IllegalArgumentException("Invalid prefix length: " + cidr);
+            }
+            return new CidrMatcher(address, prefix);
+        }
+
+        boolean matches(String ip) {
+            byte[] address = toBytes(ip);
+            if (address == null || address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+
+        /**
+         * 只解析IP字面量（含冒号为IPv6，否则须为点分十进制IPv4），避免 InetAddress 触发DNS查询
+         */
+        private static byte[] toBytes(String ip) {
+            if (ip == null || ip.isEmpty()) {
+                return null;
+            }
+            boolean literal = ip.indexOf(':') >= 0 || ip.matches("\\d{1,3}(\\.\\d{1,3}){3}");
+            if (!literal) {
+                return null;
+            }
+            try {
+                return InetAddress.getByName(ip).getAddress();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,195 +1,205 @@
 package com.lynn.museum.gateway.service;
 
-// import com.lynn.museum.common.constants.ServiceConstants; // 暂时注释，避免依赖问题
-import com.lynn.museum.common.utils.RedisKeyBuilder;
 import com.lynn.museum.gateway.config.UnifiedAuthConfig;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
-import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
+import java.math.BigInteger;
 import java.security.KeyFactory;
 import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
 import java.time.Duration;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * JWKS服务
  * 负责从认证服务获取和缓存公钥
  * 
  * 功能：
- * 1. 动态获取JWKS
- * 2. 缓存公钥信息
- * 3. 支持密钥轮换
+ * 1. 公钥常驻内存（kid -> PublicKey），只在刷新JWKS时解析一次
+ * 2. 后台按缓存时长的80%定时刷新，密钥在过期前完成更新
+ * 3. 遇到未知kid时按需刷新，并发请求共享同一次JWKS请求
+ * 4. 通过负载均衡WebClient访问认证服务，请求分散到所有实例
+ * 
+ * 刷新失败时继续使用已有公钥，认证服务短暂不可用不影响已签发Token的验证。
  * 
  * @author lynn
  * @since 2024-01-01
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class JwksService {
-    
-    private final WebClient.Builder webClientBuilder;
-    private final DiscoveryClient discoveryClient;
-    private final ReactiveStringRedisTemplate redisTemplate;
+
+    private static final String AUTH_SERVICE_URL = "http://auth-service";
+
+    /**
+     * 未知kid触发按需刷新的最小间隔，避免伪造kid的请求打满认证服务
+     */
+    private static final long MIN_ON_DEMAND_REFRESH_MILLIS = 30_000;
+
+    private static final double REFRESH_AHEAD_RATIO = 0.8;
+
+    private final WebClient webClient;
     private final UnifiedAuthConfig authConfig;
-    
+
     /**
-     * 获取公钥（优先从缓存获取）
+     * 当前生效的公钥，每次刷新整体替换
+     */
+    private volatile Map<String, PublicKey> publicKeys = Map.of();
+
+    /**
+     * 最近一次发起JWKS请求的时间，无论成功与否，认证服务不可用时同样限制按需刷新频率
+     */
+    private volatile long lastAttemptMillis;
+
+    /**
+     * 进行中的JWKS请求，保证同一时刻最多一个
+     */
+    private final AtomicReference<Mono<Map<String, PublicKey>>> inFlightRefresh = new AtomicReference<>();
+
+    private Disposable scheduledRefresh;
+
+    public JwksService(WebClient.Builder webClientBuilder, UnifiedAuthConfig authConfig) {
+        this.webClient = webClientBuilder.baseUrl(AUTH_SERVICE_URL).build();
+        this.authConfig = authConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        long cacheMillis = Duration.ofHours(authConfig.getJwt().getJwks().getCacheDurationHours()).toMillis();
+        Duration refreshInterval = Duration.ofMillis(Math.max(60_000, (long) (cacheMillis * REFRESH_AHEAD_RATIO)));
+
+        scheduledRefresh = Flux.interval(Duration.ZERO, refreshInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> refreshKeys()
+                .onErrorResume(error -> {
+                    log.warn("Scheduled JWKS refresh failed, keeping {} cached keys: {}",
+                        publicKeys.size(), error.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+        log.info("JWKS background refresh scheduled every {}s", refreshInterval.getSeconds());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.dispose();
+        }
+    }
+
+    /**
+     * 获取公钥（优先从内存获取）
      */
     public Mono<PublicKey> getPublicKey(String keyId) {
-        String cacheKey = RedisKeyBuilder.buildGatewayJwksKey(keyId);
-        Duration cacheDuration = Duration.ofHours(authConfig.getJwt().getJwks().getCacheDurationHours());
-
-        // Redis GET 操作添加重试机制
-        Mono<String> redisGetOperation = redisTemplate.opsForValue().get(cacheKey)
-            .cast(String.class)
-            .retryWhen(Retry.backoff(3, Duration.ofMillis(500))
-                .filter(throwable -> {
-                    // 只对超时和连接错误重试
-                    return throwable instanceof org.springframework.dao.QueryTimeoutException ||
-                           throwable instanceof io.lettuce.core.RedisCommandTimeoutException ||
-                           throwable.getMessage() != null &&
-                           (throwable.getMessage().contains("timeout") ||
-                            throwable.getMessage().contains("Connection refused"));
-                })
-                .doBeforeRetry(retrySignal -> log.warn("Redis GET retry attempt {} for key {}: {}",
-                    retrySignal.totalRetries(), keyId, retrySignal.failure().getMessage()))
-            );
-
-        return redisGetOperation
-            .flatMap(cachedKey -> {
-                log.debug("Cache hit for key: {}", keyId);
-                return Mono.just(parsePublicKey(cachedKey));
+        PublicKey publicKey = publicKeys.get(keyId);
+        if (publicKey != null) {
+            return Mono.just(publicKey);
+        }
+
+        // 刚尝试过刷新仍找不到的kid直接拒绝
+        if (System.currentTimeMillis() - lastAttemptMillis < MIN_ON_DEMAND_REFRESH_MILLIS) {
+            return Mono.error(new RuntimeException("Public key not found for kid: " + keyId));
+        }
+
+        return refreshKeys()
+            .flatMap(keys -> {
+                PublicKey refreshed = keys.get(keyId);
+                return refreshed != null
+                    ? Mono.just(refreshed)
+                    : Mono.<PublicKey>error(new RuntimeException("Public key not found for kid: " + keyId));
             })
-            .switchIfEmpty(
-                // 缓存未命中，从Auth服务获取
-                fetchJwksFromAuthService()
-                    .flatMap(jwks -> extractPublicKey(jwks, keyId))
-                    .doOnNext(publicKey -> {
-                        // 异步缓存公钥，同样添加重试机制
-                        String encodedKey = Base64.getEncoder().encodeToString(publicKey.getEncoded());
-                        redisTemplate.opsForValue()
-                            .set(cacheKey, encodedKey, cacheDuration)
-                            .retryWhen(Retry.backoff(2, Duration.ofMillis(300))
-                                .filter(throwable -> throwable instanceof org.springframework.dao.QueryTimeoutException ||
-                                                  throwable instanceof io.lettuce.core.RedisCommandTimeoutException)
-                                .doBeforeRetry(retrySignal -> log.warn("Redis SET retry attempt {} for key {}",
-                                    retrySignal.totalRetries(), keyId))
-                            )
-                            .doOnSuccess(result -> log.debug("Cached public key: {}", keyId))
-                            .doOnError(error -> log.warn("Failed to cache public key after retries", error))
-                            .subscribe();
-                    })
-            )
-            .doOnError(error -> log.error("Failed to get public key: " + keyId, error));
+            .doOnError(error -> log.error("Failed to get public key {}: {}", keyId, error.getMessage()));
     }
-    
+
+    /**
+     * 刷新JWKS，并发调用合并为一次请求
+     */
+    private Mono<Map<String, PublicKey>> refreshKeys() {
+        while (true) {
+            Mono<Map<String, PublicKey>> current = inFlightRefresh.get();
+            if (current != null) {
+                return current;
+            }
+            Mono<Map<String, PublicKey>> refresh = fetchJwksFromAuthService()
+                .doOnSubscribe(subscription -> lastAttemptMillis = System.currentTimeMillis())
+                .map(this::parsePublicKeys)
+                .doOnNext(keys -> {
+                    publicKeys = keys;
+                    log.debug("Refreshed JWKS, {} keys available", keys.size());
+                })
+                .doFinally(signal -> inFlightRefresh.set(null))
+                .cache();
+            if (inFlightRefresh.compareAndSet(null, refresh)) {
+                return refresh;
+            }
+        }
+    }
+
     /**
      * 从认证服务获取JWKS
      */
     @SuppressWarnings("unchecked")
     private Mono<Map<String, Object>> fetchJwksFromAuthService() {
-        return getAuthServiceUrl()
-            .flatMap(authServiceUrl -> {
-                String jwksUrl = authServiceUrl + "/api/v1/auth" + authConfig.getJwt().getJwks().getEndpoint();
-                log.debug("Fetching JWKS from URL: {}", jwksUrl);
-                
-                return webClientBuilder.build()
-                    .get()
-                    .uri(jwksUrl)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .map(rawMap -> (Map<String, Object>) rawMap)
-                    .doOnNext(jwks -> log.debug("Successfully fetched JWKS from auth service"))
-                    .doOnError(error -> log.error("Failed to fetch JWKS from {}: {}", jwksUrl, error.getMessage()))
-                    .timeout(java.time.Duration.ofSeconds(5))
-                    .onErrorMap(error -> new RuntimeException("JWKS fetch failed: " + error.getMessage(), error));
-            });
+        String jwksPath = "/api/v1/auth" + authConfig.getJwt().getJwks().getEndpoint();
+        return webClient.get()
+            .uri(jwksPath)
+            .retrieve()
+            .bodyToMono(Map.class)
+            .map(rawMap -> (Map<String, Object>) rawMap)
+            .timeout(Duration.ofSeconds(5))
+            // 重试时负载均衡会选择下一个实例
+            .retryWhen(Retry.backoff(1, Duration.ofMillis(200)))
+            .doOnError(error -> log.error("Failed to fetch JWKS from {}{}: {}", AUTH_SERVICE_URL, jwksPath, error.getMessage()))
+            .onErrorMap(error -> new RuntimeException("JWKS fetch failed: " + error.getMessage(), error));
     }
-    
+
     /**
-     * 从JWKS中提取指定的公钥
+     * 解析JWKS中的全部RSA公钥
      */
     @SuppressWarnings("unchecked")
-    private Mono<PublicKey> extractPublicKey(Map<String, Object> jwks, String keyId) {
-        try {
-            List<Map<String, Object>> keys = (List<Map<String, Object>>) jwks.get("keys");
-            
-            for (Map<String, Object> key : keys) {
-                if (keyId.equals(key.get("kid"))) {
-                    String n = (String) key.get("n");
-                    String e = (String) key.get("e");
-                    
-                    // 构建RSA公钥
-                    PublicKey publicKey = buildRSAPublicKey(n, e);
-                    log.debug("Extracted public key for kid: {}", keyId);
-                    return Mono.just(publicKey);
-                }
+    private Map<String, PublicKey> parsePublicKeys(Map<String, Object> jwks) {
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) jwks.get("keys");
+        if (keys == null) {
+            throw new RuntimeException("Invalid JWKS: missing keys");
+        }
+
+        Map<String, PublicKey> parsed = new HashMap<>(keys.size() * 2);
+        for (Map<String, Object> key : keys) {
+            Object kid = key.get("kid");
+            if (kid == null) {
+                continue;
+            }
+            try {
+                parsed.put(kid.toString(), buildRSAPublicKey((String) key.get("n"), (String) key.get("e")));
+            } catch (Exception e) {
+                log.warn("Skipping invalid JWK {}: {}", kid, e.getMessage());
             }
-            
-            return Mono.error(new RuntimeException("Public key not found for kid: " + keyId));
-            
-        } catch (Exception ex) {
-            return Mono.error(new RuntimeException("Failed to extract public key", ex));
         }
+        return Map.copyOf(parsed);
     }
-    
+
     /**
      * 构建RSA公钥
      */
     private PublicKey buildRSAPublicKey(String nBase64, String eBase64) {
         try {
-            byte[] nBytes = Base64.getUrlDecoder().decode(nBase64);
-            byte[] eBytes = Base64.getUrlDecoder().decode(eBase64);
-            
-            java.math.BigInteger modulus = new java.math.BigInteger(1, nBytes);
-            java.math.BigInteger exponent = new java.math.BigInteger(1, eBytes);
-            
-            java.security.spec.RSAPublicKeySpec spec = new java.security.spec.RSAPublicKeySpec(modulus, exponent);
-            KeyFactory factory = KeyFactory.getInstance("RSA");
-            
-            return factory.generatePublic(spec);
-            
+            BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(nBase64));
+            BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(eBase64));
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
         } catch (Exception e) {
             throw new RuntimeException("Failed to build RSA public key", e);
         }
     }
-    
-    /**
-     * 解析缓存的公钥
-     */
-    private PublicKey parsePublicKey(String encodedKey) {
-        try {
-            byte[] keyBytes = Base64.getDecoder().decode(encodedKey);
-            X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            return keyFactory.generatePublic(spec);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse cached public key", e);
-        }
-    }
-    
-    /**
-     * 获取认证服务URL
-     */
-    private Mono<String> getAuthServiceUrl() {
-        return Mono.fromCallable(() -> {
-            List<ServiceInstance> instances = discoveryClient.getInstances("auth-service");
-            if (instances.isEmpty()) {
-                throw new RuntimeException("Auth service not available");
-            }
-            ServiceInstance instance = instances.get(0);
-            return "http://" + instance.getHost() + ":" + instance.getPort();
-        });
-    }
 }
@@ -0,0 +1,239 @@
+package com.lynn.museum.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lynn.museum.common.utils.RedisKeyBuilder;
+import com.lynn.museum.gateway.config.RateLimitConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 网关限流服务
+ *
+ * 两级限流：
+ * 1. 本地令牌桶：每个限流键一个桶，请求线程只做内存计算，不访问Redis
+ * 2. Redis滑动窗口：后台按 sync-interval-ms 批量上报各桶的消耗增量，
+ *    取回集群在滑动窗口内的总请求数，按 配额/总数 乘性调整本地填充速率（平滑后生效），
+ *    使各网关节点的速率之和收敛到配置值；突发容量按本节点在集群中的请求占比分摊
+ *
+ * Redis不可用时只按本地令牌桶限流。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitService {
+
+    /**
+     * 上报增量并返回滑动窗口估算值：当前窗口计数 + 上一窗口计数 × 剩余权重
+     * KEYS[1] 当前窗口 KEYS[2] 上一窗口
+     * ARGV[1] 增量 ARGV[2] 过期秒数 ARGV[3] 上一窗口权重（千分比）
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = RedisScript.of(
+            "local current = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "local previous = tonumber(redis.call('GET', KEYS[2]) or '0') " +
+            "return current + math.floor(previous * tonumber(ARGV[3]) / 1000)",
+            Long.class);
+
+    /**
+     * 集群超限时本地速率的最低比例，避免完全饿死
+     */
+    private static final double MIN_THROTTLE_FACTOR = 0.05;
+
+    private static final int SYNC_CONCURRENCY = 16;
+
+    private final RateLimitConfig rateLimitConfig;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<String, TokenBucket> buckets;
+
+    private Disposable syncTask;
+
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimitConfig.getMaxBuckets())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        Gauge.builder("gateway.ratelimit.buckets", buckets, Cache::estimatedSize).register(meterRegistry);
+
+        syncTask = Flux.interval(Duration.ofMillis(rateLimitConfig.getSyncIntervalMs()))
+                .onBackpressureDrop()
+                .concatMap(tick -> syncWithRedis())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (syncTask != null) {
+            syncTask.dispose();
+        }
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param key 限流键
+     * @param rule 限流规则
+     * @return true表示放行
+     */
+    public boolean tryAcquire(String key, RateLimitConfig.Rule rule) {
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(rule));
+        return bucket.tryAcquire(rule);
+    }
+
+    /**
+     * 批量同步本地消耗到Redis滑动窗口，并根据集群总量调整本地速率
+     */
+    private Mono<Void> syncWithRedis() {
+        long windowMillis = rateLimitConfig.getWindowSeconds() * 1000L;
+        long now = System.currentTimeMillis();
+        long window = now / windowMillis;
+        long previousWeight = 1000 - (now % windowMillis) * 1000 / windowMillis;
+        String expireSeconds = String.valueOf(rateLimitConfig.getWindowSeconds() * 2L);
+        // 窗口计数滞后于速率变化，每次同步只向目标靠近 同步间隔/窗口长度 的比例，约一个窗口完成一次调整
+        double smoothing = Math.min(1.0, rateLimitConfig.getSyncIntervalMs() / (double) windowMillis);
+
+        return Flux.fromIterable(buckets.asMap().entrySet())
+                .filter(entry -> entry.getValue().needsSync())
+                .flatMap(entry -> {
+                    String key = entry.getKey();
+                    TokenBucket bucket = entry.getValue();
+                    long delta = bucket.drainPending();
+                    List<String> keys = List.of(
+                            RedisKeyBuilder.buildGatewayLimitKey(key + ":" + window),
+                            RedisKeyBuilder.buildGatewayLimitKey(key + ":" + (window - 1)));
+                    return redisTemplate.execute(SLIDING_WINDOW_SCRIPT, keys,
+                                    List.of(String.valueOf(delta), expireSeconds, String.valueOf(previousWeight)))
+                            .next()
+                            .doOnNext(estimate -> bucket.adjust(estimate, delta, window, previousWeight,
+                                    rateLimitConfig.getWindowSeconds(), smoothing))
+                            .onErrorResume(error -> {
+                                // 上报失败时把增量放回，下次同步再上报
+                                bucket.restorePending(delta);
+                                return Mono.empty();
+                            });
+                }, SYNC_CONCURRENCY)
+                .then()
+                .doOnError(error -> log.warn("Rate limit sync failed: {}", error.getMessage()))
+                .onErrorResume(error -> Mono.empty());
+    }
+
+    /**
+     * 本地令牌桶
+     */
+    private static final class TokenBucket {
+
+        private double tokens;
+        private long lastRefillNanos;
+        private long pending;
+        private double throttleFactor = 1.0;
+        private double replenishRate;
+
+        /**
+         * 本节点在集群滑动窗口中的请求占比，用于分摊突发容量
+         */
+        private double nodeShare = 1.0;
+
+        /**
+         * 本节点已上报的窗口计数，与Redis滑动窗口同样估算本节点的窗口内请求数
+         */
+        private long localWindow = -1;
+        private long localCurrent;
+        private long localPrevious;
+
+        private TokenBucket(RateLimitConfig.Rule rule) {
+            this.tokens = rule.getBurstCapacity();
+            this.lastRefillNanos = System.nanoTime();
+            this.replenishRate = rule.getReplenishRate();
+        }
+
+        private synchronized boolean tryAcquire(RateLimitConfig.Rule rule) {
+            long now = System.nanoTime();
+            replenishRate = rule.getReplenishRate();
+            double refill = (now - lastRefillNanos) / 1_000_000_000.0 * replenishRate * throttleFactor;
+            tokens = Math.min(Math.max(1.0, rule.getBurstCapacity() * nodeShare), tokens + refill);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            pending++;
+            return true;
+        }
+
+        private synchronized boolean needsSync() {
+            return pending > 0 || throttleFactor < 1.0 || nodeShare < 1.0;
+        }
+
+        private synchronized long drainPending() {
+            long drained = pending;
+            pending = 0;
+            return drained;
+        }
+
+        private synchronized void restorePending(long delta) {
+            pending += delta;
+        }
+
+        /**
+         * 根据集群滑动窗口总量调整本地填充速率和突发容量
+         *
+         * 速率系数按 配额/总数 乘性调整并平滑：超限时逐步降低，低于配额时逐步恢复，
+         * 不在 1 与 配额/总数 之间来回跳变
+         *
+         * @param clusterCount 集群滑动窗口估算值（已包含本次上报）
+         * @param delta 本次上报的本节点增量
+         * @param window 当前窗口序号
+         * @param previousWeight 上一窗口权重（千分比）
+         * @param windowSeconds 窗口秒数
+         * @param smoothing 向目标值靠近的比例
+         */
+        private synchronized void adjust(long clusterCount, long delta, long window, long previousWeight,
+                                         int windowSeconds, double smoothing) {
+            if (window != localWindow) {
+                localPrevious = window == localWindow + 1 ? localCurrent : 0;
+                localCurrent = 0;
+                localWindow = window;
+            }
+            localCurrent += delta;
+
+            if (clusterCount <= 0) {
+                throttleFactor = smooth(throttleFactor, 1.0, smoothing);
+                nodeShare = smooth(nodeShare, 1.0, smoothing);
+                return;
+            }
+            double windowLimit = replenishRate * windowSeconds;
+            double targetFactor = clamp(throttleFactor * windowLimit / clusterCount, MIN_THROTTLE_FACTOR, 1.0);
+            throttleFactor = smooth(throttleFactor, targetFactor, smoothing);
+
+            double localCount = localCurrent + localPrevious * previousWeight / 1000.0;
+            nodeShare = smooth(nodeShare, clamp(localCount / clusterCount, MIN_THROTTLE_FACTOR, 1.0), smoothing);
+        }
+
+        private static double smooth(double current, double target, double smoothing) {
+            return current + (target - current) * smoothing;
+        }
+
+        private static double clamp(double value, double min, double max) {
+            return Math.max(min, Math.min(max, value));
+        }
+    }
+}
@@ -508,22 +508,16 @@ public class AuthServiceImpl implements AuthService {
 
     /**
      * 处理登录失败
+     *
+     * 失败计数、计数过期和达到上限时的锁定在一个脚本内原子完成，并发失败请求不会漏锁
      */
     private void handleLoginFailure(String username) {
         String failKey = RedisKeyBuilder.buildAuthUserFailKey(username);
-        long failCount = redisUtils.incr(failKey, 1);
-
-        // 设置失败记录过期时间
-        if (failCount == 1) {
-            redisUtils.expire(failKey, lockTime);
-        }
-
-        // 达到最大重试次数，锁定账户
-        if (failCount >= maxRetry) {
-            String lockKey = RedisKeyBuilder.buildAuthUserLockKey(username);
-            redisUtils.set(lockKey, "locked", lockTime);
-            redisUtils.del(failKey);
+        String lockKey = RedisKeyBuilder.buildAuthUserLockKey(username);
+        long failCount = redisUtils.incrAndLock(failKey, lockKey, "locked", maxRetry, lockTime, lockTime);
 
+        // 已被其他请求锁定，或本次失败达到最大重试次数
+        if (failCount < 0 || failCount >= maxRetry) {
             log.warn("账户被锁定: {}, 失败次数: {}, 锁定时长: {}分钟", username, failCount, lockTime / 60);
             throw new BizException(ResultCode.ACCOUNT_LOCKED);
         }
@@ -544,8 +538,10 @@ public class AuthServiceImpl implements AuthService {
         String accessTokenKey = RedisKeyBuilder.buildAuthTokenKey(userId);
         String refreshTokenKey = RedisKeyBuilder.buildAuthRefreshTokenKey(userId);
 
-        redisUtils.set(accessTokenKey, accessToken, accessTokenExpire);
-        redisUtils.set(refreshTokenKey, refreshToken, refreshTokenExpire);
+        redisUtils.pipeline()
+                .set(accessTokenKey, accessToken, accessTokenExpire)
+                .set(refreshTokenKey, refreshToken, refreshTokenExpire)
+                .execute();
     }
 
     /**
@@ -707,8 +703,7 @@ public class AuthServiceImpl implements AuthService {
             // 6. 清除该用户的所有令牌缓存（强制重新登录）
             String accessTokenKey = RedisKeyBuilder.buildAuthTokenKey(userId);
             String refreshTokenKey = RedisKeyBuilder.buildAuthRefreshTokenKey(userId);
-            redisUtils.del(accessTokenKey);
-            redisUtils.del(refreshTokenKey);
+            redisUtils.del(accessTokenKey, refreshTokenKey);
             
         } catch (BizException e) {
             throw e;
@@ -14,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * 验证码服务实现
  * 
@@ -98,9 +100,11 @@ public class CaptchaServiceImpl implements CaptchaService {
             return false;
         }
         
-        // 从Redis获取验证码
+        // 一次往返获取验证码和失败次数
         String redisKey = RedisKeyBuilder.buildAuthCaptchaKey(captchaKey);
-        Object storedCodeObj = redisUtils.get(redisKey);
+        String failKey = RedisKeyBuilder.buildAuthCaptchaFailKey(captchaKey);
+        List<Object> values = redisUtils.mget(List.of(redisKey, failKey));
+        Object storedCodeObj = values.get(0);
         String storedCode = storedCodeObj != null ? storedCodeObj.toString() : null;
         
         // 验证码不存在或已过期
@@ -110,8 +114,7 @@ public class CaptchaServiceImpl implements CaptchaService {
         }
         
         // 检查验证失败次数（防止暴力破解）
-        String failKey = RedisKeyBuilder.buildAuthCaptchaFailKey(captchaKey);
-        Object failCountObj = redisUtils.get(failKey);
+        Object failCountObj = values.get(1);
         int failCount = failCountObj != null ? Integer.parseInt(failCountObj.toString()) : 0;
         
         if (failCount >= 3) {
@@ -125,13 +128,16 @@ public class CaptchaServiceImpl implements CaptchaService {
         boolean isValid = storedCode.equalsIgnoreCase(captchaCode.trim());
         
         if (isValid) {
-            // 验证成功后删除验证码和失败计数
-            redisUtils.del(redisKey, failKey);
-            log.info("✅ 验证码验证成功: key={}, code={}", captchaKey, captchaCode);
+            // 验证成功后原子删除验证码和失败计数，并发请求中只有一个能通过
+            isValid = redisUtils.compareAndDelete(redisKey, storedCode, failKey);
+            if (isValid) {
+                log.info("✅ 验证码验证成功: key={}, code={}", captchaKey, captchaCode);
+            } else {
+                log.warn("❌ 验证码验证失败: 验证码已被使用, key={}", captchaKey);
+            }
         } else {
             // 验证失败，增加失败次数
-            long newFailCount = redisUtils.incr(failKey, 1);
-            redisUtils.expire(failKey, captchaExpireTime);
+            long newFailCount = redisUtils.incrWithExpire(failKey, 1, captchaExpireTime);
             log.warn("❌ 验证码验证失败: 验证码错误, key={}, 输入={}, 正确={}, 失败次数={}/3", 
                     captchaKey, captchaCode, storedCode, newFailCount);
             
@@ -7,6 +7,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
@@ -25,6 +26,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
     defaultConfiguration = GlobalFeignConfiguration.class
 )
 @EnableTransactionManagement
+@EnableScheduling
 @EnableGlobalExceptionHandler
 @MapperScan("com.lynn.museum.info.mapper")
 public class MuseumServiceApplication {
@@ -0,0 +1,134 @@
+package com.lynn.museum.info.achievement;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lynn.museum.info.entity.Achievement;
+import com.lynn.museum.info.mapper.AchievementMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 成就目录内存缓存
+ *
+ * 启用的成就常驻内存，按标识、ID和进度指标建立索引，查询和进度计算不再访问 achievements 表。
+ * 启动时加载并定时全量刷新；首次使用时如尚未加载则同步加载。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AchievementCatalog {
+
+    private final AchievementMapper achievementMapper;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${museum.info.achievement.catalog-refresh-interval:300000}",
+            fixedDelayString = "${museum.info.achievement.catalog-refresh-interval:300000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * 重新加载成就目录，失败时保留旧快照
+     */
+    public void refresh() {
+        try {
+            List<Achievement> achievements = achievementMapper.selectList(
+                    new LambdaQueryWrapper<Achievement>()
+                            .eq(Achievement::getStatus, 1)
+                            .orderByAsc(Achievement::getSortOrder));
+            snapshot = new Snapshot(achievements);
+            log.debug("成就目录已加载: {}个", achievements.size());
+        } catch (Exception e) {
+            log.warn("成就目录加载失败 - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 所有启用的成就，按排序权重升序
+     */
+    public List<Achievement> all() {
+        return current().all;
+    }
+
+    public Achievement getByKey(String achievementKey) {
+        return achievementKey != null ? current().byKey.get(achievementKey) : null;
+    }
+
+    public Achievement getById(Long achievementId) {
+        return achievementId != null ? current().byId.get(achievementId) : null;
+    }
+
+    /**
+     * 使用指定指标计算进度的成就，按目标值升序
+     */
+    public List<Achievement> byMetric(AchievementMetric metric) {
+        return current().byMetric.getOrDefault(metric, List.of());
+    }
+
+    /**
+     * 所有可自动计算进度的成就对应的指标
+     */
+    public Iterable<AchievementMetric> metrics() {
+        return current().byMetric.keySet();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot != null ? snapshot : new Snapshot(List.of());
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 不可变的目录快照
+     */
+    private static final class Snapshot {
+
+        private final List<Achievement> all;
+        private final Map<String, Achievement> byKey = new HashMap<>();
+        private final Map<Long, Achievement> byId = new HashMap<>();
+        private final Map<AchievementMetric, List<Achievement>> byMetric = new EnumMap<>(AchievementMetric.class);
+
+        private Snapshot(List<Achievement> achievements) {
+            this.all = List.copyOf(achievements);
+            Map<AchievementMetric, List<Achievement>> grouped = new EnumMap<>(AchievementMetric.class);
+            for (Achievement achievement : all) {
+                byKey.put(achievement.getAchievementKey(), achievement);
+                byId.put(achievement.getId(), achievement);
+                AchievementMetric metric = AchievementMetric.of(achievement);
+                if (metric != null && achievement.getTarget() != null) {
+                    grouped.computeIfAbsent(metric, m -> new ArrayList<>()).add(achievement);
+                }
+            }
+            grouped.forEach((metric, list) -> {
+                list.sort(Comparator.comparing(Achievement::getTarget));
+                byMetric.put(metric, List.copyOf(list));
+            });
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.lynn.museum.info.achievement;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lynn.museum.info.entity.Achievement;
+import com.lynn.museum.info.entity.UserAchievement;
+import com.lynn.museum.info.mapper.CheckinRecordMapper;
+import com.lynn.museum.info.mapper.UserAchievementMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 成就规则引擎
+ *
+ * 打卡记录变更（提交、审核、删除）后通过 {@link #onCheckinChanged(Long)} 登记受影响的用户，
+ * 事务提交后才入队，不在请求线程内计算成就。后台按 flush-interval 批量处理队列：
+ * 1. 每个进度指标一次分组查询取回这批用户的指标值
+ * 2. 一次查询取回这批用户在相关成就上的进度记录，在内存中比较目标值
+ * 3. 只有进度或解锁状态变化的记录才写回，新增和更新各一条批量SQL
+ * 新解锁的成就在进度记录上标记为未提示（notified=0），由 {@link #drainUnlocked(Long)} 按条件更新取出，
+ * 提示状态保存在数据库中，任一实例都能取到，重启也不会丢失；实例关闭前处理完队列中的用户。
+ * 整批计算失败时逐个用户重试，单个用户连续失败 max-attempts 次后暂停，
+ * 按 parked-retry-interval 再重新入队，避免个别用户阻塞后面的队列。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class AchievementEngine {
+
+    private final AchievementCatalog achievementCatalog;
+    private final CheckinRecordMapper checkinRecordMapper;
+    private final UserAchievementMapper userAchievementMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    /**
+     * 待计算的用户，同一用户多次变更只计算一次
+     */
+    private final Set<Long> pendingUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 用户连续计算失败次数
+     */
+    private final Map<Long, Integer> failureCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 连续失败达到上限、暂停计算的用户
+     */
+    private final Set<Long> parkedUsers = ConcurrentHashMap.newKeySet();
+
+    public AchievementEngine(AchievementCatalog achievementCatalog,
+                             CheckinRecordMapper checkinRecordMapper,
+                             UserAchievementMapper userAchievementMapper,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${museum.info.achievement.batch-size:500}") int batchSize,
+                             @Value("${museum.info.achievement.max-attempts:3}") int maxAttempts) {
+        this.achievementCatalog = achievementCatalog;
+        this.checkinRecordMapper = checkinRecordMapper;
+        this.userAchievementMapper = userAchievementMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * 登记打卡变更，事务提交后入队异步计算
+     *
+     * @param userId 打卡用户ID
+     */
+    public void onCheckinChanged(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingUsers.add(userId);
+                }
+            });
+        } else {
+            pendingUsers.add(userId);
+        }
+    }
+
+    /**
+     * 批量处理待计算的用户
+     */
+    @Scheduled(fixedDelayString = "${museum.info.achievement.flush-interval:1000}")
+    public void flush() {
+        // 本轮失败的用户在处理完队列后才重新入队，不在本轮反复重试
+        List<Long> retryUsers = new ArrayList<>();
+        while (!pendingUsers.isEmpty()) {
+            List<Long> batch = new ArrayList<>(Math.min(batchSize, pendingUsers.size()));
+            Iterator<Long> iterator = pendingUsers.iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            try {
+                evaluate(batch);
+                batch.forEach(failureCounts::remove);
+            } catch (Exception e) {
+                log.warn("成就批量计算失败，逐个用户重试 - 用户数: {}, 原因: {}", batch.size(), e.getMessage());
+                evaluateEach(batch, retryUsers);
+            }
+        }
+        pendingUsers.addAll(retryUsers);
+    }
+
+    /**
+     * 实例关闭前处理完队列中的用户，暂停的用户也再尝试一次
+     */
+    @PreDestroy
+    public void shutdown() {
+        pendingUsers.addAll(parkedUsers);
+        parkedUsers.clear();
+        flush();
+        if (!pendingUsers.isEmpty()) {
+            log.warn("实例关闭时仍有用户的成就未计算，等待下次打卡或客户端检查时补算 - 用户数: {}", pendingUsers.size());
+        }
+    }
+
+    /**
+     * 暂停的用户定期重新入队
+     */
+    @Scheduled(initialDelayString = "${museum.info.achievement.parked-retry-interval:600000}",
+            fixedDelayString = "${museum.info.achievement.parked-retry-interval:600000}")
+    public void retryParked() {
+        if (parkedUsers.isEmpty()) {
+            return;
+        }
+        List<Long> users = new ArrayList<>(parkedUsers);
+        parkedUsers.removeAll(users);
+        pendingUsers.addAll(users);
+        log.info("暂停的成就计算重新入队 - 用户数: {}", users.size());
+    }
+
+    /**
+     * 逐个计算用户，失败未达上限的放入 retryUsers，达到上限的暂停
+     */
+    private void evaluateEach(List<Long> userIds, List<Long> retryUsers) {
+        for (Long userId : userIds) {
+            try {
+                evaluate(List.of(userId));
+                failureCounts.remove(userId);
+            } catch (Exception e) {
+                int attempts = failureCounts.merge(userId, 1, Integer::sum);
+                if (attempts >= maxAttempts) {
+                    failureCounts.remove(userId);
+                    parkedUsers.add(userId);
+                    log.error("成就计算连续失败{}次，暂停该用户 - userId: {}", attempts, userId, e);
+                } else {
+                    retryUsers.add(userId);
+                    log.warn("成就计算失败，等待重试 - userId: {}, 第{}次, 原因: {}", userId, attempts, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 立即计算单个用户的成就（供客户端主动检查）
+     *
+     * @param userId 用户ID
+     */
+    public void evaluateNow(Long userId) {
+        pendingUsers.remove(userId);
+        evaluate(List.of(userId));
+        failureCounts.remove(userId);
+        parkedUsers.remove(userId);
+    }
+
+    /**
+     * 取出用户尚未提示的新解锁成就，每条记录只会被一次调用取出
+     *
+     * @param userId 用户ID
+     * @return 新解锁成就的进度记录
+     */
+    public List<UserAchievement> drainUnlocked(Long userId) {
+        List<UserAchievement> notices = new ArrayList<>();
+        for (UserAchievement row : userAchievementMapper.selectList(new LambdaQueryWrapper<UserAchievement>()
+                .eq(UserAchievement::getUserId, userId)
+                .eq(UserAchievement::getUnlocked, 1)
+                .eq(UserAchievement::getNotified, 0))) {
+            if (userAchievementMapper.markNotified(row.getId()) > 0) {
+                notices.add(row);
+            }
+        }
+        return notices;
+    }
+
+    /**
+     * 计算一批用户的成就进度并写回变化的记录
+     */
+    private synchronized void evaluate(Collection<Long> userIds) {
+        Map<AchievementMetric, Map<Long, Integer>> metricValues = new EnumMap<>(AchievementMetric.class);
+        List<Long> achievementIds = new ArrayList<>();
+        for (AchievementMetric metric : achievementCatalog.metrics()) {
+            metricValues.put(metric, loadMetric(metric, userIds));
+            achievementCatalog.byMetric(metric).forEach(achievement -> achievementIds.add(achievement.getId()));
+        }
+        if (achievementIds.isEmpty()) {
+            return;
+        }
+
+        // 用户ID -> 成就ID -> 进度记录
+        Map<Long, Map<Long, UserAchievement>> existing = new HashMap<>();
+        userAchievementMapper.selectList(new LambdaQueryWrapper<UserAchievement>()
+                        .in(UserAchievement::getUserId, userIds)
+                        .in(UserAchievement::getAchievementId, achievementIds))
+                .forEach(ua -> existing.computeIfAbsent(ua.getUserId(), id -> new HashMap<>())
+                        .putIfAbsent(ua.getAchievementId(), ua));
+
+        Date now = new Date();
+        List<UserAchievement> inserts = new ArrayList<>();
+        List<UserAchievement> updates = new ArrayList<>();
+        Map<Long, List<UserAchievement>> unlocked = new HashMap<>();
+
+        for (Long userId : userIds) {
+            Map<Long, UserAchievement> userRows = existing.getOrDefault(userId, Map.of());
+            metricValues.forEach((metric, values) -> {
+                int value = values.getOrDefault(userId, 0);
+                for (Achievement achievement : achievementCatalog.byMetric(metric)) {
+                    UserAchievement row = userRows.get(achievement.getId());
+                    boolean reached = value >= achievement.getTarget();
+                    if (row == null) {
+                        row = new UserAchievement();
+                        row.setUserId(userId);
+                        row.setAchievementId(achievement.getId());
+                        row.setProgress(value);
+                        row.setUnlocked(reached ? 1 : 0);
+                        row.setUnlockedTime(reached ? now : null);
+                        row.setNotified(reached ? 0 : 1);
+                        inserts.add(row);
+                    } else if (Integer.valueOf(1).equals(row.getUnlocked())) {
+                        // 已解锁的成就只增加进度，不回退
+                        if (row.getProgress() == null || row.getProgress() < value) {
+                            row.setProgress(value);
+                            row.setNotified(null);
+                            updates.add(row);
+                        }
+                        continue;
+                    } else if (reached || !Integer.valueOf(value).equals(row.getProgress())) {
+                        row.setProgress(value);
+                        row.setUnlocked(reached ? 1 : 0);
+                        row.setUnlockedTime(reached ? now : null);
+                        row.setNotified(reached ? 0 : null);
+                        updates.add(row);
+                    }
+                    if (reached) {
+                        unlocked.computeIfAbsent(userId, id -> new ArrayList<>()).add(row);
+                    }
+                }
+            });
+        }
+
+        if (inserts.isEmpty() && updates.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!inserts.isEmpty()) {
+                userAchievementMapper.insertBatch(inserts);
+            }
+            if (!updates.isEmpty()) {
+                userAchievementMapper.updateProgressBatch(updates);
+            }
+        });
+
+        unlocked.forEach((userId, rows) ->
+                rows.forEach(row -> log.info("解锁成就: userId={}, achievementId={}", userId, row.getAchievementId())));
+    }
+
+    /**
+     * 批量取回用户的指标值
+     */
+    private Map<Long, Integer> loadMetric(AchievementMetric metric, Collection<Long> userIds) {
+        Map<Long, Integer> values = new HashMap<>();
+        if (metric == AchievementMetric.CHECKIN_COUNT) {
+            for (Map<String, Object> row : checkinRecordMapper.countCheckinsByUsers(userIds)) {
+                values.put(((Number) row.get("user_id")).longValue(), ((Number) row.get("checkin_count")).intValue());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,34 @@
+package com.lynn.museum.info.achievement;
+
+import com.lynn.museum.info.entity.Achievement;
+
+/**
+ * 成就进度指标
+ *
+ * 每个可自动计算进度的成就对应一个指标，指标值达到成就目标值即解锁。
+ * 新增指标时在这里声明匹配规则，并在 {@link AchievementEngine} 中提供批量取值。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+public enum AchievementMetric {
+
+    /**
+     * 审核通过的打卡次数，适用于标识包含 checkin 的成就
+     */
+    CHECKIN_COUNT;
+
+    /**
+     * 解析成就对应的指标
+     *
+     * @param achievement 成就
+     * @return 指标，不能自动计算进度的成就返回null
+     */
+    public static AchievementMetric of(Achievement achievement) {
+        String key = achievement.getAchievementKey();
+        if (key != null && key.contains("checkin")) {
+            return CHECKIN_COUNT;
+        }
+        return null;
+    }
+}
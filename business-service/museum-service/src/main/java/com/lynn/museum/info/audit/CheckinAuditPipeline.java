@@ -0,0 +1,337 @@
+package com.lynn.museum.info.audit;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.lynn.museum.info.achievement.AchievementEngine;
+import com.lynn.museum.info.config.CheckinAuditConfig;
+import com.lynn.museum.info.dto.AutoAuditRequest;
+import com.lynn.museum.info.dto.AutoAuditResponse;
+import com.lynn.museum.info.mapper.CheckinRecordMapper;
+import com.lynn.museum.info.model.entity.CheckinRecord;
+import com.lynn.museum.info.service.AutoAuditService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡异步审核流水线
+ *
+ * 提交打卡时只写入待审核（audit_status = 0）的记录，事务提交后通过 {@link #submit(CheckinRecord)} 入队，
+ * 请求线程不再等待审核系统：
+ * 1. 工作线程从有界队列批量取出记录，一次提交给审核系统
+ * 2. 审核结果按（状态, 备注, 异常类型）分组批量回写，只覆盖仍处于待审核的记录，不影响人工审核结果
+ * 3. 审核系统调用失败时按指数退避重试，超过最大次数标记为异常等待人工审核
+ * 4. 队列满时不阻塞请求，记录保持待审核，由定时补偿扫描重新入队（同时兜底重启丢失的队列）；
+ *    多个副本同时扫描时，先用条件更新刷新 update_at 认领记录，认领成功的副本才入队，
+ *    认领相当于 recover-after-seconds 的租约，认领后副本宕机的记录在租约过期后被其他副本重新认领
+ *
+ * 指标：checkin.audit.submitted / completed / retried / dropped、checkin.audit.batch（批次耗时）、checkin.audit.queue.size
+ *
+ * @author lynn
+ * @since 2024-12-30
+ */
+@Slf4j
+@Component
+public class CheckinAuditPipeline {
+
+    private static final int STATUS_PENDING = 0;
+
+    private final CheckinAuditConfig config;
+    private final AutoAuditService autoAuditService;
+    private final CheckinRecordMapper checkinRecordMapper;
+    private final AchievementEngine achievementEngine;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<AuditTask> queue;
+
+    /**
+     * 已入队或处理中的记录ID，避免补偿扫描重复入队
+     */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkin-audit-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running;
+
+    private Counter submittedCounter;
+    private Counter retriedCounter;
+    private Counter droppedCounter;
+    private Timer batchTimer;
+
+    public CheckinAuditPipeline(CheckinAuditConfig config,
+                                AutoAuditService autoAuditService,
+                                CheckinRecordMapper checkinRecordMapper,
+                                AchievementEngine achievementEngine,
+                                MeterRegistry meterRegistry) {
+        this.config = config;
+        this.autoAuditService = autoAuditService;
+        this.checkinRecordMapper = checkinRecordMapper;
+        this.achievementEngine = achievementEngine;
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        submittedCounter = Counter.builder("checkin.audit.submitted").register(meterRegistry);
+        retriedCounter = Counter.builder("checkin.audit.retried").register(meterRegistry);
+        droppedCounter = Counter.builder("checkin.audit.dropped").register(meterRegistry);
+        batchTimer = Timer.builder("checkin.audit.batch").register(meterRegistry);
+        Gauge.builder("checkin.audit.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+
+        running = true;
+        for (int i = 0; i < config.getWorkers(); i++) {
+            Thread worker = new Thread(this::workLoop, "checkin-audit-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("打卡审核流水线已启动，工作线程: {}, 队列容量: {}", config.getWorkers(), config.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.forEach(Thread::interrupt);
+        // 队列中未处理的记录保持待审核状态，重启后由补偿扫描重新入队
+    }
+
+    /**
+     * 提交待审核的打卡记录，事务提交后入队
+     *
+     * @param record 已保存的正式打卡记录
+     */
+    public void submit(CheckinRecord record) {
+        AuditTask task = new AuditTask(record.getId(), record.getUserId(), toAuditRequest(record), 1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(task);
+                }
+            });
+        } else {
+            enqueue(task);
+        }
+    }
+
+    /**
+     * 补偿扫描：认领并重新入队长时间待审核且不在队列中的记录
+     */
+    @Scheduled(initialDelayString = "${museum.info.checkin-audit.recover-interval:60000}",
+            fixedDelayString = "${museum.info.checkin-audit.recover-interval:60000}")
+    public void recoverPending() {
+        int capacity = Math.min(queue.remainingCapacity(), config.getRecoverLimit());
+        if (capacity <= 0) {
+            return;
+        }
+        try {
+            Date before = new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(config.getRecoverAfterSeconds()));
+            List<CheckinRecord> pending = checkinRecordMapper.selectList(new LambdaQueryWrapper<CheckinRecord>()
+                    .eq(CheckinRecord::getAuditStatus, STATUS_PENDING)
+                    .eq(CheckinRecord::getIsDraft, false)
+                    .lt(CheckinRecord::getUpdateAt, before)
+                    .orderByAsc(CheckinRecord::getId)
+                    .last("LIMIT " + capacity));
+            int recovered = 0;
+            for (CheckinRecord record : pending) {
+                if (!inFlight.contains(record.getId())
+                        && claim(record.getId(), before)
+                        && enqueue(new AuditTask(record.getId(), record.getUserId(), toAuditRequest(record), 1))) {
+                    recovered++;
+                }
+            }
+            if (recovered > 0) {
+                log.info("补偿入队待审核打卡: {}条", recovered);
+            }
+        } catch (Exception e) {
+            log.warn("补偿扫描待审核打卡失败 - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 认领待审核记录：仅当记录仍待审核且 update_at 早于扫描截止时间时刷新 update_at，
+     * 其他副本的同一条件更新随即失效
+     */
+    private boolean claim(Long checkinId, Date before) {
+        return checkinRecordMapper.update(null, new LambdaUpdateWrapper<CheckinRecord>()
+                .eq(CheckinRecord::getId, checkinId)
+                .eq(CheckinRecord::getAuditStatus, STATUS_PENDING)
+                .lt(CheckinRecord::getUpdateAt, before)
+                .set(CheckinRecord::getUpdateAt, new Date())) > 0;
+    }
+
+    private boolean enqueue(AuditTask task) {
+        if (!inFlight.add(task.checkinId())) {
+            return false;
+        }
+        if (!queue.offer(task)) {
+            inFlight.remove(task.checkinId());
+            droppedCounter.increment();
+            log.warn("审核队列已满，打卡记录{}保持待审核，等待补偿扫描", task.checkinId());
+            return false;
+        }
+        submittedCounter.increment();
+        return true;
+    }
+
+    private void workLoop() {
+        List<AuditTask> batch = new ArrayList<>(config.getBatchSize());
+        while (running) {
+            try {
+                AuditTask first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.clear();
+                batch.add(first);
+                queue.drainTo(batch, config.getBatchSize() - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // 单批异常不能终止工作线程
+                log.error("处理审核批次失败", e);
+                batch.forEach(task -> inFlight.remove(task.checkinId()));
+            }
+        }
+    }
+
+    private void process(List<AuditTask> batch) {
+        List<AutoAuditResponse> results;
+        long start = System.nanoTime();
+        try {
+            results = autoAuditService.performAutoAuditBatch(batch.stream().map(AuditTask::request).toList());
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("审核结果数量与请求不一致");
+            }
+        } catch (Exception e) {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            handleFailure(batch, e);
+            return;
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        apply(batch, results);
+    }
+
+    /**
+     * 审核系统调用失败：未到最大次数的延迟重试，其余标记为异常
+     */
+    private void handleFailure(List<AuditTask> batch, Exception error) {
+        log.warn("审核系统调用失败，批次大小: {} - {}", batch.size(), error.getMessage());
+        List<AuditTask> exhausted = new ArrayList<>();
+        for (AuditTask task : batch) {
+            if (task.attempt() >= config.getMaxAttempts() || !running) {
+                exhausted.add(task);
+                continue;
+            }
+            long delay = config.getRetryBackoffMs() << (task.attempt() - 1);
+            AuditTask retry = task.nextAttempt();
+            retriedCounter.increment();
+            retryScheduler.schedule(() -> {
+                if (!queue.offer(retry)) {
+                    inFlight.remove(retry.checkinId());
+                    droppedCounter.increment();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        if (!exhausted.isEmpty()) {
+            AutoAuditResponse anomaly = AutoAuditResponse.anomaly("自动审核系统异常：" + error.getMessage(), "system_error");
+            apply(exhausted, exhausted.stream().map(task -> anomaly).toList());
+        }
+    }
+
+    /**
+     * 按审核结果分组批量回写，只更新仍处于待审核的记录
+     */
+    private void apply(List<AuditTask> tasks, List<AutoAuditResponse> results) {
+        Map<ResultKey, List<Long>> groups = new LinkedHashMap<>();
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            AutoAuditResponse result = results.get(i);
+            groups.computeIfAbsent(new ResultKey(result.getAuditStatus(), result.getAuditRemark(), result.getAnomalyType()),
+                    key -> new ArrayList<>()).add(tasks.get(i).checkinId());
+            if (tasks.get(i).userId() != null) {
+                userIds.add(tasks.get(i).userId());
+            }
+        }
+
+        try {
+            Date now = new Date();
+            groups.forEach((key, ids) -> {
+                LambdaUpdateWrapper<CheckinRecord> updateWrapper = new LambdaUpdateWrapper<>();
+                updateWrapper.in(CheckinRecord::getId, ids)
+                        .eq(CheckinRecord::getAuditStatus, STATUS_PENDING)
+                        .set(CheckinRecord::getAuditStatus, key.auditStatus())
+                        .set(CheckinRecord::getAuditTime, now)
+                        .set(CheckinRecord::getAuditRemark, key.auditRemark())
+                        .set(CheckinRecord::getAnomalyType, key.anomalyType())
+                        // -1 表示系统自动审核
+                        .set(CheckinRecord::getAuditUserId, -1L);
+                checkinRecordMapper.update(null, updateWrapper);
+                meterRegistry.counter("checkin.audit.completed", "status", String.valueOf(key.auditStatus()))
+                        .increment(ids.size());
+            });
+        } finally {
+            tasks.forEach(task -> inFlight.remove(task.checkinId()));
+        }
+
+        // 审核通过会影响打卡成就进度
+        userIds.forEach(achievementEngine::onCheckinChanged);
+    }
+
+    private static AutoAuditRequest toAuditRequest(CheckinRecord checkinRecord) {
+        AutoAuditRequest auditRequest = new AutoAuditRequest();
+        auditRequest.setCheckinId(checkinRecord.getId());
+        auditRequest.setUserId(checkinRecord.getUserId());
+        auditRequest.setMuseumId(checkinRecord.getMuseumId());
+        auditRequest.setCheckinTime(checkinRecord.getCheckinTime());
+        auditRequest.setLatitude(checkinRecord.getLatitude());
+        auditRequest.setLongitude(checkinRecord.getLongitude());
+        auditRequest.setPhotoUrls(checkinRecord.getPhotos());
+        auditRequest.setRemark(checkinRecord.getFeeling());
+        auditRequest.setMood(checkinRecord.getMood());
+        // 小程序暂无设备信息
+        auditRequest.setDeviceInfo(null);
+        return auditRequest;
+    }
+
+    private record AuditTask(Long checkinId, Long userId, AutoAuditRequest request, int attempt) {
+
+        private AuditTask nextAttempt() {
+            return new AuditTask(checkinId, userId, request, attempt + 1);
+        }
+    }
+
+    private record ResultKey(Integer auditStatus, String auditRemark, String anomalyType) {
+    }
+}
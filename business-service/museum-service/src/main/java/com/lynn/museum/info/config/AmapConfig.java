@@ -34,4 +34,19 @@ public class AmapConfig {
      * 查询半径（米）
      */
     private Integer radius = 1000;
+
+    /**
+     * 是否优先使用离线逆地理编码（基于行政区划中心点）
+     */
+    private Boolean offlineEnabled = true;
+
+    /**
+     * 离线解析允许的最大中心点距离（公里），超出时回退高德API
+     */
+    private Double offlineMaxDistance = 60.0;
+
+    /**
+     * 边界判定系数：次近中心点属于其他城市且距离小于最近距离的该倍数时回退高德API
+     */
+    private Double offlineAmbiguityRatio = 1.3;
 }
@@ -0,0 +1,52 @@
+package com.lynn.museum.info.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 打卡异步审核配置
+ *
+ * @author lynn
+ * @since 2024-12-30
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "museum.info.checkin-audit")
+public class CheckinAuditConfig {
+
+    /**
+     * 待审核队列容量，队列满时新记录保持待审核状态，由补偿扫描重新入队
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 审核工作线程数
+     */
+    private int workers = 2;
+
+    /**
+     * 每批提交给审核系统的最大记录数
+     */
+    private int batchSize = 50;
+
+    /**
+     * 最大尝试次数，超过后标记为异常等待人工审核
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 首次重试等待时间（毫秒），之后每次翻倍
+     */
+    private long retryBackoffMs = 1000;
+
+    /**
+     * 待审核超过该时间（秒）且不在队列中的记录由补偿扫描重新入队
+     */
+    private long recoverAfterSeconds = 300;
+
+    /**
+     * 每次补偿扫描最多入队的记录数
+     */
+    private int recoverLimit = 500;
+}
@@ -0,0 +1,57 @@
+package com.lynn.museum.info.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 热门博物馆排行配置
+ *
+ * @author lynn
+ * @since 2025-01-08
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "museum.info.hot-ranking")
+public class HotRankingConfig {
+
+    /**
+     * Redis 键前缀
+     */
+    private String keyPrefix = "museum:hot:";
+
+    /**
+     * 趋势榜热度半衰期（小时），打卡的贡献每经过一个半衰期减半
+     */
+    private double trendingHalfLifeHours = 24;
+
+    /**
+     * 趋势榜热度低于该值的博物馆在归一化时移出排行
+     */
+    private double trendingMinScore = 0.01;
+
+    /**
+     * 日榜保留天数
+     */
+    private int dayRetentionDays = 8;
+
+    /**
+     * 周榜保留天数
+     */
+    private int weekRetentionDays = 15;
+
+    /**
+     * 排行榜博物馆详情本地缓存时间（秒）
+     */
+    private long detailCacheSeconds = 300;
+
+    /**
+     * 排行榜博物馆详情本地缓存数量上限
+     */
+    private long detailCacheMaxSize = 5000;
+
+    /**
+     * 重建排行时持有分布式锁的时间（秒），避免多实例同时重建
+     */
+    private long rebuildLockSeconds = 300;
+}
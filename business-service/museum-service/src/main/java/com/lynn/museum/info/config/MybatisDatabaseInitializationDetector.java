@@ -0,0 +1,25 @@
+package com.lynn.museum.info.config;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDependsOnDatabaseInitializationDetector;
+
+import java.util.Set;
+
+/**
+ * MyBatis 依赖数据库初始化
+ *
+ * 让 SqlSessionFactory / SqlSessionTemplate 在 Flyway 迁移完成后才创建，
+ * 保证实体新增的列（如 museum_info.checkin_count）在任何查询之前已经存在。
+ * 通过 META-INF/spring.factories 注册。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+public class MybatisDatabaseInitializationDetector extends AbstractBeansOfTypeDependsOnDatabaseInitializationDetector {
+
+    @Override
+    protected Set<Class<?>> getDependsOnDatabaseInitializationBeanTypes() {
+        return Set.of(SqlSessionFactory.class, SqlSessionTemplate.class);
+    }
+}
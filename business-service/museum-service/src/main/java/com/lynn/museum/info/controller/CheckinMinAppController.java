@@ -1,6 +1,7 @@
 package com.lynn.museum.info.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.lynn.museum.common.entity.CursorPage;
 import com.lynn.museum.common.result.Result;
 import com.lynn.museum.info.dto.*;
 import com.lynn.museum.info.model.entity.CheckinRecord;
@@ -69,6 +70,35 @@ public class CheckinMinAppController {
         return Result.success(result);
     }
 
+    @GetMapping("/records/cursor")
+    @Operation(summary = "游标分页获取打卡记录", description = "按打卡时间倒序滚动加载，不统计总数，传入上一页返回的nextCursor获取下一页")
+    public Result<CursorPage<CheckinRecord>> getCheckinRecordsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) Long museumId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Boolean isDraft,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String filterType,
+            @RequestHeader("userId") Long userId) {
+        log.info("用户{}游标获取打卡记录，游标: {}, 页大小: {}, 关键词: {}, 筛选类型: {}",
+                userId, cursor, pageSize, keyword, filterType);
+
+        CheckinRecordQueryRequest query = new CheckinRecordQueryRequest();
+        query.setPageSize(pageSize);
+        query.setUserId(userId);
+        query.setMuseumId(museumId);
+        query.setStartDate(startDate);
+        query.setEndDate(endDate);
+        query.setIsDraft(isDraft);
+        query.setKeyword(keyword);
+        query.setFilterType(filterType);
+
+        CursorPage<CheckinRecord> result = checkinMiniappService.getCheckinRecordsByCursor(query, cursor);
+        return Result.success(result);
+    }
+
     @GetMapping("/{checkinId}")
     @Operation(summary = "获取打卡详情", description = "获取指定打卡记录的详细信息")
     public Result<CheckinRecord> getCheckinDetail(
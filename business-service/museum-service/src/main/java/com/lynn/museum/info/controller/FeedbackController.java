@@ -1,5 +1,6 @@
 package com.lynn.museum.info.controller;
 
+import com.lynn.museum.common.moderation.SensitiveWordFilter;
 import com.lynn.museum.common.result.Result;
 import com.lynn.museum.info.dto.request.FeedbackRequest;
 import com.lynn.museum.info.service.EmailService;
@@ -23,6 +24,9 @@ public class FeedbackController {
     @Resource
     private EmailService emailService;
 
+    @Resource
+    private SensitiveWordFilter sensitiveWordFilter;
+
     /**
      * 提交反馈建议
      */
@@ -32,6 +36,9 @@ public class FeedbackController {
         try {
             log.info("收到用户反馈，类型：{}, 内容长度：{}", request.getTypeName(), request.getContent().length());
             
+            // 反馈内容允许提及广告、联系方式等，只对通用不当内容打码
+            request.setContent(sensitiveWordFilter.mask(request.getContent(), SensitiveWordFilter.DICT_COMMON));
+            
             // 发送邮件
             boolean success = emailService.sendFeedbackEmail(request);
             
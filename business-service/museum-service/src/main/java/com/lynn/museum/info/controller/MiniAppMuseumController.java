@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.lynn.museum.common.result.Result;
 import com.lynn.museum.info.dto.CategoryResponse;
 import com.lynn.museum.info.dto.MuseumResponse;
+import com.lynn.museum.info.dto.MuseumSuggestResponse;
 import com.lynn.museum.info.dto.NearbyMuseumsResponse;
 import com.lynn.museum.info.model.entity.MuseumInfo;
 import com.lynn.museum.info.service.AmapGeocodeService;
@@ -82,6 +83,16 @@ public class MiniAppMuseumController {
         return Result.success(result);
     }
 
+    @Operation(summary = "搜索联想", description = "根据输入的关键词或拼音首字母联想博物馆名称")
+    @GetMapping("/suggest")
+    public Result<List<MuseumSuggestResponse>> suggestMuseums(
+            @Parameter(description = "输入的关键词") @RequestParam String keyword,
+            @Parameter(description = "返回数量") @RequestParam(defaultValue = "10") Integer limit) {
+
+        List<MuseumSuggestResponse> result = miniappMuseumService.suggestMuseums(keyword, Math.min(limit, 20));
+        return Result.success(result);
+    }
+
     @Operation(summary = "获取博物馆分类列表", description = "获取所有可用的博物馆分类")
     @GetMapping("/categories")
     public Result<List<CategoryResponse>> getCategories() {
@@ -122,16 +133,17 @@ public class MiniAppMuseumController {
         return Result.success(result);
     }
 
-    @Operation(summary = "分页获取热门博物馆列表", description = "根据用户打卡次数统计最热门的博物馆，支持懒加载分页和按名称搜索")
+    @Operation(summary = "分页获取热门博物馆列表", description = "根据用户打卡次数统计最热门的博物馆，支持懒加载分页、按名称搜索和按时间窗口排行")
     @GetMapping("/hot")
     public Result<IPage<MuseumResponse>> getHotMuseums(
             @Parameter(description = "当前页") @RequestParam(defaultValue = "1") Integer page,
             @Parameter(description = "页面大小") @RequestParam(defaultValue = "5") Integer pageSize,
-            @Parameter(description = "博物馆名称") @RequestParam(required = false) String name) {
+            @Parameter(description = "博物馆名称") @RequestParam(required = false) String name,
+            @Parameter(description = "排行窗口：day-今日，week-本周，all-累计，trending-趋势") @RequestParam(defaultValue = "all") String window) {
 
-        log.info("分页获取热门博物馆列表 - 页码：{}，页面大小：{}，名称：{}", page, pageSize, name);
+        log.info("分页获取热门博物馆列表 - 页码：{}，页面大小：{}，名称：{}，窗口：{}", page, pageSize, name, window);
 
-        IPage<MuseumResponse> result = miniappMuseumService.getHotMuseums(page, pageSize, name);
+        IPage<MuseumResponse> result = miniappMuseumService.getHotMuseums(page, pageSize, name, window);
         return Result.success(result);
     }
 }
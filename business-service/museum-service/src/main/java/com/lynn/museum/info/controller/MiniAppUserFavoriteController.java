@@ -1,6 +1,7 @@
 package com.lynn.museum.info.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.lynn.museum.common.entity.CursorPage;
 import com.lynn.museum.common.result.Result;
 import com.lynn.museum.info.dto.ExhibitionResponse;
 import com.lynn.museum.info.dto.MuseumResponse;
@@ -91,6 +92,21 @@ public class MiniAppUserFavoriteController {
         return Result.success(result);
     }
 
+    @GetMapping("/museums/cursor")
+    @Operation(summary = "游标分页获取用户收藏的博物馆", description = "按收藏时间倒序滚动加载，不统计总数，传入上一页返回的nextCursor获取下一页")
+    public Result<CursorPage<MuseumResponse>> getUserFavoriteMuseumsByCursor(
+            @Parameter(description = "用户ID", required = true) @RequestHeader("userId") Long userId,
+            @Parameter(description = "上一页返回的游标") @RequestParam(required = false) String cursor,
+            @Parameter(description = "页面大小", example = "10") @RequestParam(defaultValue = "10") Integer pageSize,
+            @Parameter(description = "搜索关键词") @RequestParam(required = false) String keyword,
+            @Parameter(description = "打卡状态：true-已打卡，false-未打卡") @RequestParam(required = false) Boolean visitStatus
+    ) {
+        log.info("游标获取用户收藏博物馆列表 - 用户ID：{}, 游标：{}, 大小：{}", userId, cursor, pageSize);
+
+        CursorPage<MuseumResponse> result = miniAppUserFavoriteService.getUserFavoriteMuseumsByCursor(userId, cursor, pageSize, keyword, visitStatus);
+        return Result.success(result);
+    }
+
     @GetMapping("/exhibitions")
     @Operation(summary = "获取用户收藏的展览列表", description = "分页查询用户收藏的展览")
     public Result<IPage<ExhibitionResponse>> getUserFavoriteExhibitions(
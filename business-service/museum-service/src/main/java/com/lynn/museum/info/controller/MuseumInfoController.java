@@ -1,6 +1,7 @@
 package com.lynn.museum.info.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.lynn.museum.common.entity.CursorPage;
 import com.lynn.museum.common.result.Result;
 import com.lynn.museum.info.dto.MuseumCreateRequest;
 import com.lynn.museum.info.dto.MuseumQueryRequest;
@@ -43,6 +44,16 @@ public class MuseumInfoController {
         return Result.success(page);
     }
 
+    @Operation(summary = "游标分页查询博物馆列表", description = "按创建时间倒序滚动加载，不统计总数，传入上一页返回的nextCursor获取下一页")
+    // @PreAuthorize("hasAuthority('museum:info:query')")
+    @GetMapping("/cursor")
+    public Result<CursorPage<MuseumResponse>> getMuseumCursorPage(
+            @Valid MuseumQueryRequest query,
+            @Parameter(description = "上一页返回的游标") @RequestParam(required = false) String cursor) {
+        CursorPage<MuseumResponse> page = museumInfoService.getMuseumCursorPage(query, cursor);
+        return Result.success(page);
+    }
+
     @Operation(summary = "获取博物馆详情")
     // @PreAuthorize("hasAuthority('museum:info:query')")
     @GetMapping("/{id}")
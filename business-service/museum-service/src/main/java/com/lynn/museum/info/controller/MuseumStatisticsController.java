@@ -8,11 +8,14 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -52,4 +55,36 @@ public class MuseumStatisticsController {
         log.info("按城市统计博物馆数量, provinceCode: {}", provinceCode);
         return Result.success(museumStatisticsService.getMuseumCountByCity(provinceCode));
     }
+    
+    @PostMapping("/checkin/rebuild")
+    @Operation(summary = "重建打卡每日汇总")
+    public Result<Integer> rebuildCheckinStatistics(
+            @Parameter(description = "开始日期（默认最早打卡日期）", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "结束日期（默认今日）", example = "2024-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("重建打卡每日汇总, from: {}, to: {}", from, to);
+        return Result.success(museumStatisticsService.rebuildCheckinStatistics(from, to));
+    }
+    
+    @PostMapping("/checkin/user-stats/rebuild")
+    @Operation(summary = "重建用户打卡档案")
+    public Result<Integer> rebuildCheckinUserStats() {
+        log.info("重建用户打卡档案");
+        return Result.success(museumStatisticsService.rebuildCheckinUserStats());
+    }
+    
+    @PostMapping("/checkin/museum-counts/rebuild")
+    @Operation(summary = "重建博物馆打卡次数")
+    public Result<Integer> rebuildMuseumCheckinCounts() {
+        log.info("重建博物馆打卡次数");
+        return Result.success(museumStatisticsService.rebuildMuseumCheckinCounts());
+    }
+    
+    @PostMapping("/checkin/hot-ranking/rebuild")
+    @Operation(summary = "重建热门博物馆排行")
+    public Result<Boolean> rebuildHotRanking() {
+        log.info("重建热门博物馆排行");
+        return Result.success(museumStatisticsService.rebuildHotRanking());
+    }
 }
@@ -106,6 +106,12 @@ public class MuseumResponse implements Serializable {
     @Schema(description = "官方统计-年度访客数（人次）")
     private Long visitorCount;
 
+    @Schema(description = "打卡次数")
+    private Integer checkinCount;
+
+    @Schema(description = "是否展示：0-不展示，1-展示")
+    private Integer display;
+
     @Schema(description = "分类列表")
     private List<CategoryInfo> categories;
 
@@ -0,0 +1,28 @@
+package com.lynn.museum.info.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 博物馆搜索联想响应DTO
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+@Data
+@Schema(description = "博物馆搜索联想响应")
+public class MuseumSuggestResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "博物馆ID")
+    private Long id;
+
+    @Schema(description = "博物馆名称")
+    private String name;
+
+    @Schema(description = "博物馆地址")
+    private String address;
+}
@@ -54,6 +54,11 @@ public class NearbyMuseumsResponse {
          */
         private String cityCode;
 
+        /**
+         * 区县adcode（不设区的地级市为城市adcode），用于确定所属城市
+         */
+        private String adcode;
+
         /**
          * 详细地址
          */
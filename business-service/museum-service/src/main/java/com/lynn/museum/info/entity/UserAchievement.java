@@ -62,6 +62,12 @@ public class UserAchievement extends BaseEntity {
     @TableField("unlocked_time")
     private Date unlockedTime;
 
+    /**
+     * 新解锁提示是否已取出：0-未取出，1-已取出
+     */
+    @TableField("notified")
+    private Integer notified;
+
     /**
      * 是否已分享：0-未分享，1-已分享
      */
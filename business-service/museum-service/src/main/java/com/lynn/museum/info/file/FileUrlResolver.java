@@ -0,0 +1,269 @@
+package com.lynn.museum.info.file;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lynn.museum.api.file.client.FileApiClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 文件访问URL解析器
+ *
+ * 所有响应组装时的文件URL都通过这里获取：本地缓存预签名URL（有效期需短于文件服务的 storage.url-expiry），
+ * 未命中的文件ID合并为一次 {@link FileApiClient#getBatchFileUrls} 调用。
+ * 列表场景使用 {@link #batch()} 先登记所有需要的文件ID，再统一 {@link Batch#dispatch()}。
+ * 文件大小同样按文件ID缓存，未命中的部分合并为一次 {@link FileApiClient#getBatchFileInfo} 调用。
+ * 业务关联替换或删除文件后需调用 {@link #evict(Long)}，避免继续返回旧文件的缓存。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class FileUrlResolver {
+
+    private final FileApiClient fileApiClient;
+
+    private final Cache<Long, String> urlCache;
+
+    private final Cache<Long, Long> sizeCache;
+
+    public FileUrlResolver(FileApiClient fileApiClient,
+                           @Value("${museum.info.file-url.cache-ttl:3600}") long cacheTtlSeconds,
+                           @Value("${museum.info.file-url.cache-max-size:20000}") long cacheMaxSize) {
+        this.fileApiClient = fileApiClient;
+        this.urlCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .maximumSize(cacheMaxSize)
+                .build();
+        this.sizeCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    /**
+     * 创建一次性的批量解析上下文
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * 获取单个文件的访问URL
+     *
+     * @param fileId 文件ID
+     * @return 文件URL，获取失败时返回null
+     */
+    public String getUrl(Long fileId) {
+        if (fileId == null) {
+            return null;
+        }
+        return getUrls(List.of(fileId)).get(fileId);
+    }
+
+    /**
+     * 批量获取文件访问URL，缓存未命中的部分只发起一次远程调用
+     *
+     * @param fileIds 文件ID列表
+     * @return 文件ID到URL的映射，获取失败的文件不包含在内
+     */
+    public Map<Long, String> getUrls(Collection<Long> fileIds) {
+        Map<Long, String> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(fileIds)) {
+            return result;
+        }
+
+        List<Long> misses = new ArrayList<>();
+        for (Long fileId : new LinkedHashSet<>(fileIds)) {
+            if (fileId == null) {
+                continue;
+            }
+            String url = urlCache.getIfPresent(fileId);
+            if (url != null) {
+                result.put(fileId, url);
+            } else {
+                misses.add(fileId);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<Long, String> fetched = fetchUrls(misses);
+            urlCache.putAll(fetched);
+            result.putAll(fetched);
+        }
+        return result;
+    }
+
+    /**
+     * 批量获取文件大小（字节），缓存未命中的部分只发起一次远程调用
+     *
+     * @param fileIds 文件ID列表
+     * @return 文件ID到文件大小的映射，获取失败的文件不包含在内
+     */
+    public Map<Long, Long> getFileSizes(Collection<Long> fileIds) {
+        Map<Long, Long> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(fileIds)) {
+            return result;
+        }
+
+        List<Long> misses = new ArrayList<>();
+        for (Long fileId : new LinkedHashSet<>(fileIds)) {
+            if (fileId == null) {
+                continue;
+            }
+            Long size = sizeCache.getIfPresent(fileId);
+            if (size != null) {
+                result.put(fileId, size);
+            } else {
+                misses.add(fileId);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<Long, Long> fetched = fetchFileSizes(misses);
+            sizeCache.putAll(fetched);
+            result.putAll(fetched);
+        }
+        return result;
+    }
+
+    /**
+     * 文件被替换或删除时移除缓存
+     *
+     * @param fileId 文件ID
+     */
+    public void evict(Long fileId) {
+        if (fileId != null) {
+            urlCache.invalidate(fileId);
+            sizeCache.invalidate(fileId);
+        }
+    }
+
+    /**
+     * 批量移除缓存
+     *
+     * @param fileIds 文件ID列表
+     */
+    public void evictAll(Collection<Long> fileIds) {
+        if (CollectionUtils.isEmpty(fileIds)) {
+            return;
+        }
+        fileIds.forEach(this::evict);
+    }
+
+    private Map<Long, String> fetchUrls(List<Long> fileIds) {
+        Map<Long, String> urls = new HashMap<>();
+        try {
+            Map<String, Object> response = fileApiClient.getBatchFileUrls(fileIds);
+            if (response != null && response.get("data") != null) {
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> fileInfos = (List<Map<String, Object>>) response.get("data");
+                for (Map<String, Object> fileInfo : fileInfos) {
+                    Object fileId = fileInfo.get("fileId");
+                    Object url = fileInfo.get("url");
+                    if (fileId != null && url != null && !url.toString().isEmpty()) {
+                        urls.put(Long.valueOf(fileId.toString()), url.toString());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // 获取URL失败不影响主要业务，调用方按无图片处理
+            log.warn("批量获取文件URL失败，文件ID: {}, 错误: {}", fileIds, e.getMessage());
+        }
+        return urls;
+    }
+
+    private Map<Long, Long> fetchFileSizes(List<Long> fileIds) {
+        Map<Long, Long> sizes = new HashMap<>();
+        try {
+            Map<String, Object> response = fileApiClient.getBatchFileInfo(fileIds);
+            if (response != null && response.get("data") != null) {
+                // JSON序列化后，Map的key（原本是Long）会变成String
+                @SuppressWarnings("unchecked")
+                Map<String, Object> dataMap = (Map<String, Object>) response.get("data");
+                for (Map.Entry<String, Object> entry : dataMap.entrySet()) {
+                    if (entry.getValue() instanceof Map<?, ?> fileRecord
+                            && fileRecord.get("fileSize") instanceof Number fileSize) {
+                        sizes.put(Long.valueOf(entry.getKey()), fileSize.longValue());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("批量获取文件信息失败，文件ID: {}, 错误: {}", fileIds, e.getMessage());
+        }
+        return sizes;
+    }
+
+    /**
+     * 批量解析上下文（DataLoader风格）
+     *
+     * 非线程安全，只在组装单个响应的线程内使用。
+     */
+    public class Batch {
+
+        private final Set<Long> fileIds = new LinkedHashSet<>();
+
+        private final List<Runnable> callbacks = new ArrayList<>();
+
+        private Map<Long, String> resolved;
+
+        /**
+         * 登记单个文件，dispatch后回调URL（获取失败时回调null）
+         */
+        public Batch load(Long fileId, Consumer<String> callback) {
+            if (fileId == null) {
+                return this;
+            }
+            fileIds.add(fileId);
+            callbacks.add(() -> callback.accept(resolved.get(fileId)));
+            return this;
+        }
+
+        /**
+         * 登记多个文件，dispatch后按原顺序回调获取成功的URL列表
+         */
+        public Batch loadAll(List<Long> ids, Consumer<List<String>> callback) {
+            if (CollectionUtils.isEmpty(ids)) {
+                callback.accept(new ArrayList<>());
+                return this;
+            }
+            fileIds.addAll(ids);
+            callbacks.add(() -> {
+                List<String> urls = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    String url = resolved.get(id);
+                    if (url != null) {
+                        urls.add(url);
+                    }
+                }
+                callback.accept(urls);
+            });
+            return this;
+        }
+
+        /**
+         * 统一解析已登记的文件并执行回调
+         */
+        public void dispatch() {
+            fileIds.removeIf(Objects::isNull);
+            resolved = getUrls(fileIds);
+            callbacks.forEach(Runnable::run);
+            callbacks.clear();
+            fileIds.clear();
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package com.lynn.museum.info.index;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lynn.museum.info.mapper.MuseumInfoMapper;
+import com.lynn.museum.info.model.entity.MuseumInfo;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 博物馆地理位置内存索引
+ *
+ * 将所有启用且展示的博物馆坐标按固定经纬度网格（约11公里）分桶常驻内存，
+ * 附近查询只扫描覆盖半径的网格，距离计算只做一次，不再访问数据库。
+ * 博物馆增删改后通过 {@link #refresh(Long)} / {@link #remove(Long)} 增量更新，
+ * 同时定时全量重建，兜底其他实例上的修改；重建期间的增量更新会在替换快照前重放到新索引上。
+ *
+ * @author lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumGeoIndex {
+
+    /**
+     * 地球半径（公里）
+     */
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * 每纬度对应的公里数
+     */
+    private static final double KM_PER_DEGREE = 111.195;
+
+    /**
+     * 网格边长（度）
+     */
+    private static final double CELL_SIZE = 0.1;
+
+    /**
+     * 经度方向网格数量，用于把二维网格坐标编码为long；经度180°与-180°为同一经线，按环绕处理
+     */
+    private static final int LNG_CELLS = (int) Math.round(360 / CELL_SIZE);
+
+    /**
+     * 索引未加载时请求线程补加载的最小间隔（毫秒）
+     */
+    private static final long LOAD_RETRY_INTERVAL_MS = 30_000;
+
+    private final MuseumInfoMapper museumInfoMapper;
+
+    /**
+     * 当前索引快照，全量重建时整体替换，增量更新时在写锁内原地修改
+     */
+    private volatile IndexState state = new IndexState();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 下一次允许请求线程补加载的时间
+     */
+    private final AtomicLong nextLoadAttemptAt = new AtomicLong();
+
+    /**
+     * 全量重建串行执行
+     */
+    private final Object rebuildLock = new Object();
+
+    /**
+     * 重建期间发生的增量更新：博物馆ID -> 最新条目（null 表示移除），不在重建时为 null，读写都在 this 锁内
+     */
+    private Map<Long, GeoEntry> changesDuringRebuild;
+
+    /**
+     * 应用启动完成后加载索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定时全量重建，兜底多实例部署时其他节点上的博物馆修改
+     */
+    @Scheduled(initialDelayString = "${museum.info.geo-index.rebuild-interval:300000}",
+            fixedDelayString = "${museum.info.geo-index.rebuild-interval:300000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 从数据库全量重建索引
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changesDuringRebuild = new HashMap<>();
+            }
+            try {
+                doRebuild();
+            } finally {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取数据库构建新索引，替换前重放读取期间提交的增量更新，避免被旧数据覆盖
+     */
+    private void doRebuild() {
+        try {
+            LambdaQueryWrapper<MuseumInfo> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.select(MuseumInfo::getId, MuseumInfo::getName, MuseumInfo::getCityCode,
+                            MuseumInfo::getLatitude, MuseumInfo::getLongitude,
+                            MuseumInfo::getStatus, MuseumInfo::getDisplay)
+                    .eq(MuseumInfo::getStatus, 1)
+                    .eq(MuseumInfo::getDisplay, 1);
+            List<MuseumInfo> museums = museumInfoMapper.selectList(queryWrapper);
+
+            IndexState newState = new IndexState();
+            for (MuseumInfo museum : museums) {
+                newState.put(GeoEntry.of(museum));
+            }
+
+            synchronized (this) {
+                changesDuringRebuild.forEach((museumId, entry) -> {
+                    if (entry == null) {
+                        newState.remove(museumId);
+                    } else {
+                        newState.put(entry);
+                    }
+                });
+                state = newState;
+                ready = true;
+            }
+            log.info("🗺️ 博物馆地理索引重建完成，共 {} 家博物馆", newState.entries.size());
+        } catch (Exception e) {
+            log.error("博物馆地理索引重建失败", e);
+        }
+    }
+
+    /**
+     * 博物馆新增或修改后刷新索引条目（存在事务时在提交后执行）
+     *
+     * @param museumId 博物馆ID
+     */
+    public void refresh(Long museumId) {
+        if (museumId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            MuseumInfo museum = museumInfoMapper.selectById(museumId);
+            boolean indexed = museum != null && Integer.valueOf(1).equals(museum.getStatus())
+                    && Integer.valueOf(1).equals(museum.getDisplay());
+            apply(museumId, indexed ? GeoEntry.of(museum) : null);
+        });
+    }
+
+    /**
+     * 博物馆删除后移除索引条目（存在事务时在提交后执行）
+     *
+     * @param museumId 博物馆ID
+     */
+    public void remove(Long museumId) {
+        if (museumId == null) {
+            return;
+        }
+        afterCommit(() -> apply(museumId, null));
+    }
+
+    /**
+     * 应用增量更新，重建进行中时同时记录下来
+     *
+     * @param entry 最新条目，null 表示移除
+     */
+    private synchronized void apply(Long museumId, GeoEntry entry) {
+        if (entry == null) {
+            state.remove(museumId);
+        } else {
+            state.put(entry);
+        }
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.put(museumId, entry);
+        }
+    }
+
+    /**
+     * 半径范围内最近的博物馆
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @param radiusKm  搜索半径(km)
+     * @param limit     返回数量
+     * @return 按距离升序排列的命中结果
+     */
+    public List<GeoHit> nearest(double latitude, double longitude, double radiusKm, int limit) {
+        ensureLoaded();
+        if (limit <= 0 || radiusKm < 0) {
+            return Collections.emptyList();
+        }
+
+        IndexState current = state;
+        double latRad = Math.toRadians(latitude);
+        double cosLat = Math.cos(latRad);
+        // 按距离倒序的大顶堆，只保留最近的limit个
+        PriorityQueue<GeoHit> heap = new PriorityQueue<>(limit + 1,
+                (h1, h2) -> Double.compare(h2.getDistanceKm(), h1.getDistanceKm()));
+
+        for (GeoEntry entry : candidates(current, latitude, longitude, radiusKm)) {
+            double distance = haversine(latRad, cosLat, longitude, entry);
+            if (distance > radiusKm) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.offer(new GeoHit(entry.id, distance));
+            } else if (distance < heap.peek().getDistanceKm()) {
+                heap.poll();
+                heap.offer(new GeoHit(entry.id, distance));
+            }
+        }
+
+        List<GeoHit> hits = new ArrayList<>(heap);
+        hits.sort(GeoHit::compareTo);
+        return hits;
+    }
+
+    /**
+     * 城市内按距离排序的全部博物馆，供分页使用
+     *
+     * 没有坐标的博物馆距离记为 {@link Double#MAX_VALUE}，排在最后且不受半径过滤。
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @param cityCode  城市编码（数据库adcode），为空表示不限城市
+     * @param radiusKm  搜索半径(km)，为空表示不过滤
+     * @param name      名称关键词，为空表示不过滤
+     * @return 按距离升序排列的命中结果
+     */
+    public List<GeoHit> nearestInCity(double latitude, double longitude, String cityCode, Integer radiusKm, String name) {
+        ensureLoaded();
+        IndexState current = state;
+        Collection<Long> cityMuseumIds = cityCode != null ? current.cityIndex.get(cityCode) : current.entries.keySet();
+        if (cityMuseumIds == null || cityMuseumIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String keyword = name != null && !name.trim().isEmpty() ? name.trim() : null;
+        double latRad = Math.toRadians(latitude);
+        double cosLat = Math.cos(latRad);
+        List<GeoHit> hits = new ArrayList<>(cityMuseumIds.size());
+        for (Long museumId : cityMuseumIds) {
+            GeoEntry entry = current.entries.get(museumId);
+            if (entry == null) {
+                continue;
+            }
+            if (keyword != null && (entry.name == null || !entry.name.contains(keyword))) {
+                continue;
+            }
+            if (!entry.hasLocation()) {
+                hits.add(new GeoHit(entry.id, Double.MAX_VALUE));
+                continue;
+            }
+            double distance = haversine(latRad, cosLat, longitude, entry);
+            if (radiusKm == null || distance <= radiusKm) {
+                hits.add(new GeoHit(entry.id, distance));
+            }
+        }
+
+        hits.sort(GeoHit::compareTo);
+        return hits;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return state.entries.size();
+    }
+
+    /**
+     * 索引尚未加载（如启动时数据库不可用）时补加载
+     *
+     * 每个重试间隔只有一个请求线程执行加载，其余请求不等待，直接使用当前（空）索引返回降级结果
+     */
+    private void ensureLoaded() {
+        if (ready) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long next = nextLoadAttemptAt.get();
+        if (now < next || !nextLoadAttemptAt.compareAndSet(next, now + LOAD_RETRY_INTERVAL_MS)) {
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * 收集覆盖搜索半径的网格内的候选条目；网格数超过条目总数时直接全量扫描
+     */
+    private Iterable<GeoEntry> candidates(IndexState current, double latitude, double longitude, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double lngDelta = Math.min(radiusKm / (KM_PER_DEGREE * cosLat), 180);
+
+        int minLatCell = latCell(Math.max(latitude - latDelta, -90));
+        int maxLatCell = latCell(Math.min(latitude + latDelta, 90));
+        int minLngCell = lngCell(longitude - lngDelta);
+        int maxLngCell = lngCell(longitude + lngDelta);
+        if (maxLngCell - minLngCell + 1 > LNG_CELLS) {
+            minLngCell = 0;
+            maxLngCell = LNG_CELLS - 1;
+        }
+
+        long cellCount = (long) (maxLatCell - minLatCell + 1) * (maxLngCell - minLngCell + 1);
+        if (cellCount > current.entries.size()) {
+            return current.entries.values();
+        }
+
+        List<GeoEntry> result = new ArrayList<>();
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                Set<Long> ids = current.grid.get(cellKey(latCell, Math.floorMod(lngCell, LNG_CELLS)));
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    GeoEntry entry = current.entries.get(id);
+                    if (entry != null) {
+                        result.add(entry);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在事务提交后执行，无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runSafely(action);
+                }
+            });
+        } else {
+            runSafely(action);
+        }
+    }
+
+    private void runSafely(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            // 增量更新失败时等待下一次定时重建修正
+            log.warn("⚠️ 博物馆地理索引增量更新失败 - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 计算两点间球面距离（公里），查询点的弧度与余弦值由调用方预先计算
+     */
+    private static double haversine(double latRad, double cosLat, double longitude, GeoEntry entry) {
+        double sinLat = Math.sin((entry.latRad - latRad) / 2);
+        double sinLng = Math.sin(Math.toRadians(entry.longitude - longitude) / 2);
+        double a = sinLat * sinLat + cosLat * entry.cosLat * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static int latCell(double latitude) {
+        return (int) Math.floor((latitude + 90) / CELL_SIZE);
+    }
+
+    /**
+     * 经度所在网格，查询范围跨越±180°时可能超出 [0, LNG_CELLS)，由调用方环绕
+     */
+    private static int lngCell(double longitude) {
+        return (int) Math.floor((longitude + 180) / CELL_SIZE);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return (long) latCell * LNG_CELLS + lngCell;
+    }
+
+    /**
+     * 索引数据：条目、网格倒排、城市倒排
+     */
+    private static class IndexState {
+
+        private final Map<Long, GeoEntry> entries = new ConcurrentHashMap<>();
+
+        private final Map<Long, Set<Long>> grid = new ConcurrentHashMap<>();
+
+        private final Map<String, Set<Long>> cityIndex = new ConcurrentHashMap<>();
+
+        private void put(GeoEntry entry) {
+            remove(entry.id);
+            entries.put(entry.id, entry);
+            if (entry.hasLocation()) {
+                grid.computeIfAbsent(entry.cellKey(), k -> ConcurrentHashMap.newKeySet()).add(entry.id);
+            }
+            if (entry.cityCode != null) {
+                cityIndex.computeIfAbsent(entry.cityCode, k -> ConcurrentHashMap.newKeySet()).add(entry.id);
+            }
+        }
+
+        private void remove(Long museumId) {
+            GeoEntry old = entries.remove(museumId);
+            if (old == null) {
+                return;
+            }
+            if (old.hasLocation()) {
+                Set<Long> ids = grid.get(old.cellKey());
+                if (ids != null) {
+                    ids.remove(museumId);
+                }
+            }
+            if (old.cityCode != null) {
+                Set<Long> ids = cityIndex.get(old.cityCode);
+                if (ids != null) {
+                    ids.remove(museumId);
+                }
+            }
+        }
+    }
+
+    /**
+     * 索引条目，坐标以double保存并预计算纬度弧度和余弦值
+     */
+    private static final class GeoEntry {
+
+        private final long id;
+        private final String name;
+        private final String cityCode;
+        private final double latitude;
+        private final double longitude;
+        private final double latRad;
+        private final double cosLat;
+
+        private GeoEntry(long id, String name, String cityCode, double latitude, double longitude) {
+            this.id = id;
+            this.name = name;
+            this.cityCode = cityCode;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.latRad = Math.toRadians(latitude);
+            this.cosLat = Math.cos(latRad);
+        }
+
+        private static GeoEntry of(MuseumInfo museum) {
+            double latitude = museum.getLatitude() != null ? museum.getLatitude().doubleValue() : Double.NaN;
+            double longitude = museum.getLongitude() != null ? museum.getLongitude().doubleValue() : Double.NaN;
+            return new GeoEntry(museum.getId(), museum.getName(), museum.getCityCode(), latitude, longitude);
+        }
+
+        private boolean hasLocation() {
+            return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+        }
+
+        private long cellKey() {
+            // 经度正好为180°时归入最后一个网格
+            return MuseumGeoIndex.cellKey(latCell(latitude), Math.min(lngCell(longitude), LNG_CELLS - 1));
+        }
+    }
+
+    /**
+     * 查询命中结果
+     */
+    @Getter
+    public static final class GeoHit implements Comparable<GeoHit> {
+
+        /**
+         * 博物馆ID
+         */
+        private final Long museumId;
+
+        /**
+         * 距离（公里）
+         */
+        private final double distanceKm;
+
+        private GeoHit(Long museumId, double distanceKm) {
+            this.museumId = museumId;
+            this.distanceKm = distanceKm;
+        }
+
+        @Override
+        public int compareTo(GeoHit other) {
+            return Double.compare(distanceKm, other.distanceKm);
+        }
+    }
+}
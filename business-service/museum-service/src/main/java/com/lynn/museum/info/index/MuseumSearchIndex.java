@@ -0,0 +1,679 @@
+package com.lynn.museum.info.index;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lynn.museum.info.mapper.AreaCityMapper;
+import com.lynn.museum.info.mapper.AreaProvinceMapper;
+import com.lynn.museum.info.mapper.MuseumInfoMapper;
+import com.lynn.museum.info.model.entity.AreaCity;
+import com.lynn.museum.info.model.entity.AreaProvince;
+import com.lynn.museum.info.model.entity.MuseumInfo;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * 博物馆全文检索内存索引
+ *
+ * 对启用且展示的博物馆的名称、地址、简介建立倒排索引常驻内存：
+ * 1. 分词见 {@link SearchTokenizer}：汉字二元组 + 字母数字词 + 拼音首字母
+ * 2. 查询词的所有词条都命中才算匹配，按 BM25 打分（名称、地址、简介加权合并词频），名称包含完整查询词额外加分
+ * 3. 省份、城市名称同样常驻内存，地区名解析不再访问数据库
+ * 博物馆增删改后通过 {@link #refresh(Long)} / {@link #remove(Long)} 增量更新，
+ * 同时定时全量重建，兜底其他实例上的修改；重建期间的增量更新会在替换快照前重放到新索引上。
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MuseumSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double ADDRESS_WEIGHT = 1.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    /**
+     * 名称包含完整查询词时的加分
+     */
+    private static final double NAME_PHRASE_BONUS = 5.0;
+
+    /**
+     * 拼音首字母命中名称时的得分
+     */
+    private static final double INITIALS_SCORE = 4.0;
+
+    /**
+     * 索引未加载时请求线程补加载的最小间隔（毫秒）
+     */
+    private static final long LOAD_RETRY_INTERVAL_MS = 30_000;
+
+    private final MuseumInfoMapper museumInfoMapper;
+    private final AreaProvinceMapper areaProvinceMapper;
+    private final AreaCityMapper areaCityMapper;
+
+    /**
+     * 当前索引快照，全量重建时整体替换，增量更新时在锁内原地修改
+     */
+    private volatile IndexState state = new IndexState(List.of(), List.of());
+
+    private volatile boolean ready = false;
+
+    /**
+     * 下一次允许请求线程补加载的时间
+     */
+    private final AtomicLong nextLoadAttemptAt = new AtomicLong();
+
+    /**
+     * 全量重建串行执行
+     */
+    private final Object rebuildLock = new Object();
+
+    /**
+     * 重建期间发生的增量更新：博物馆ID -> 最新文档（null 表示移除），不在重建时为 null，读写都在 this 锁内
+     */
+    private Map<Long, Doc> changesDuringRebuild;
+
+    /**
+     * 应用启动完成后加载索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定时全量重建，兜底多实例部署时其他节点上的博物馆修改
+     */
+    @Scheduled(initialDelayString = "${museum.info.search-index.rebuild-interval:300000}",
+            fixedDelayString = "${museum.info.search-index.rebuild-interval:300000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 从数据库全量重建索引
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changesDuringRebuild = new HashMap<>();
+            }
+            try {
+                doRebuild();
+            } finally {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取数据库构建新索引，替换前重放读取期间提交的增量更新，避免被旧数据覆盖
+     */
+    private void doRebuild() {
+        try {
+            LambdaQueryWrapper<MuseumInfo> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.select(MuseumInfo::getId, MuseumInfo::getName, MuseumInfo::getAddress,
+                            MuseumInfo::getDescription, MuseumInfo::getProvinceCode, MuseumInfo::getCityCode,
+                            MuseumInfo::getStatus, MuseumInfo::getDisplay, MuseumInfo::getCheckinCount,
+                            MuseumInfo::getCreateAt, MuseumInfo::getUpdateAt)
+                    .eq(MuseumInfo::getStatus, 1)
+                    .eq(MuseumInfo::getDisplay, 1);
+            List<MuseumInfo> museums = museumInfoMapper.selectList(queryWrapper);
+
+            List<Region> provinces = new ArrayList<>();
+            for (AreaProvince province : areaProvinceMapper.selectList(null)) {
+                provinces.add(new Region(province.getName(), province.getAdcode()));
+            }
+            List<Region> cities = new ArrayList<>();
+            for (AreaCity city : areaCityMapper.selectList(null)) {
+                cities.add(new Region(city.getName(), city.getAdcode()));
+            }
+
+            IndexState newState = new IndexState(List.copyOf(provinces), List.copyOf(cities));
+            for (MuseumInfo museum : museums) {
+                newState.put(Doc.of(museum));
+            }
+
+            synchronized (this) {
+                changesDuringRebuild.forEach((museumId, doc) -> {
+                    if (doc == null) {
+                        newState.remove(museumId);
+                    } else {
+                        newState.put(doc);
+                    }
+                });
+                state = newState;
+                ready = true;
+            }
+            log.info("🔎 博物馆搜索索引重建完成，共 {} 家博物馆，{} 个词条", newState.docs.size(), newState.postings.size());
+        } catch (Exception e) {
+            log.error("博物馆搜索索引重建失败", e);
+        }
+    }
+
+    /**
+     * 博物馆新增或修改后刷新索引条目（存在事务时在提交后执行）
+     *
+     * @param museumId 博物馆ID
+     */
+    public void refresh(Long museumId) {
+        if (museumId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            MuseumInfo museum = museumInfoMapper.selectById(museumId);
+            boolean indexed = museum != null && Integer.valueOf(1).equals(museum.getStatus())
+                    && Integer.valueOf(1).equals(museum.getDisplay());
+            apply(museumId, indexed ? Doc.of(museum) : null);
+        });
+    }
+
+    /**
+     * 博物馆删除后移除索引条目（存在事务时在提交后执行）
+     *
+     * @param museumId 博物馆ID
+     */
+    public void remove(Long museumId) {
+        if (museumId == null) {
+            return;
+        }
+        afterCommit(() -> apply(museumId, null));
+    }
+
+    /**
+     * 应用增量更新，重建进行中时同时记录下来
+     *
+     * @param doc 最新文档，null 表示移除
+     */
+    private synchronized void apply(Long museumId, Doc doc) {
+        if (doc == null) {
+            state.remove(museumId);
+        } else {
+            state.put(doc);
+        }
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.put(museumId, doc);
+        }
+    }
+
+    /**
+     * 根据地区名称解析地区编码，优先级：省份 → 城市，各取第一个名称包含关键词的地区
+     *
+     * @param regionName 地区名称
+     * @return 地区编码列表，未匹配时为空
+     */
+    public List<String> resolveRegionCodes(String regionName) {
+        ensureLoaded();
+        if (regionName == null || regionName.isBlank()) {
+            return Collections.emptyList();
+        }
+        IndexState current = state;
+        for (List<Region> regions : List.of(current.provinces, current.cities)) {
+            for (Region region : regions) {
+                if (region.name != null && region.code != null && region.name.contains(regionName)) {
+                    return List.of(region.code);
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 全文检索
+     *
+     * @param keyword  查询词
+     * @param cityCode 城市编码，为空表示不限
+     * @param sortBy   排序方式：relevance 按相关度，createAt 按创建时间，hot 按打卡次数，其余按更新时间
+     * @return 排好序的博物馆ID
+     */
+    public List<Long> search(String keyword, String cityCode, String sortBy) {
+        ensureLoaded();
+        IndexState current = state;
+        Map<Long, Double> scores = new HashMap<>();
+
+        List<String> terms = SearchTokenizer.queryTerms(keyword);
+        if (!terms.isEmpty()) {
+            String phrase = SearchTokenizer.normalize(keyword.trim());
+            for (Map.Entry<Long, Double> entry : current.bm25(terms).entrySet()) {
+                Doc doc = current.docs.get(entry.getKey());
+                double bonus = doc != null && doc.normalizedName.contains(phrase) ? NAME_PHRASE_BONUS : 0;
+                scores.put(entry.getKey(), entry.getValue() + bonus);
+            }
+        }
+
+        String initials = SearchTokenizer.initialsQuery(keyword);
+        if (initials != null) {
+            for (Long museumId : current.matchInitials(initials)) {
+                scores.merge(museumId, INITIALS_SCORE, Math::max);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(scores.size());
+        for (Long museumId : scores.keySet()) {
+            Doc doc = current.docs.get(museumId);
+            if (doc != null && (cityCode == null || cityCode.isBlank() || cityCode.equals(doc.cityCode))) {
+                ids.add(museumId);
+            }
+        }
+        Comparator<Long> order = "relevance".equals(sortBy)
+                ? Comparator.<Long>comparingDouble(scores::get).reversed().thenComparing(byField(current, sortBy))
+                : byField(current, sortBy);
+        ids.sort(order);
+        return ids;
+    }
+
+    /**
+     * 地区内的全部博物馆
+     *
+     * @param regionCodes 地区编码，省份或城市编码前缀匹配
+     * @param cityCode    城市编码，为空表示不限
+     * @param sortBy      排序方式：createAt 按创建时间，hot 按打卡次数，其余按更新时间
+     * @return 排好序的博物馆ID
+     */
+    public List<Long> listByRegion(List<String> regionCodes, String cityCode, String sortBy) {
+        ensureLoaded();
+        IndexState current = state;
+        List<Long> ids = new ArrayList<>();
+        for (Doc doc : current.docs.values()) {
+            if (cityCode != null && !cityCode.isBlank() && !cityCode.equals(doc.cityCode)) {
+                continue;
+            }
+            for (String code : regionCodes) {
+                if ((doc.provinceCode != null && doc.provinceCode.startsWith(code))
+                        || (doc.cityCode != null && doc.cityCode.startsWith(code))) {
+                    ids.add(doc.id);
+                    break;
+                }
+            }
+        }
+        ids.sort(byField(current, sortBy));
+        return ids;
+    }
+
+    /**
+     * 搜索联想：名称以查询词开头的排在前面，其次是名称包含查询词或拼音首字母的
+     *
+     * @param keyword 输入的查询词
+     * @param limit   返回数量
+     * @return 联想结果
+     */
+    public List<Suggestion> suggest(String keyword, int limit) {
+        ensureLoaded();
+        if (keyword == null || keyword.isBlank() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        IndexState current = state;
+        String phrase = SearchTokenizer.normalize(keyword.trim());
+        String initials = SearchTokenizer.initialsQuery(keyword);
+
+        Map<Long, Doc> candidates = new LinkedHashMap<>();
+        List<String> terms = SearchTokenizer.queryTerms(keyword);
+        if (!terms.isEmpty()) {
+            for (Long museumId : current.matchAll(terms, true)) {
+                Doc doc = current.docs.get(museumId);
+                if (doc != null && doc.normalizedName.contains(phrase)) {
+                    candidates.put(museumId, doc);
+                }
+            }
+        }
+        if (initials != null) {
+            for (Long museumId : current.matchInitials(initials)) {
+                Doc doc = current.docs.get(museumId);
+                if (doc != null) {
+                    candidates.putIfAbsent(museumId, doc);
+                }
+            }
+        }
+
+        List<Doc> matched = new ArrayList<>(candidates.values());
+
+        matched.sort(Comparator.<Doc>comparingInt(doc -> rank(doc, phrase, initials))
+                .thenComparingInt(doc -> doc.name.length())
+                .thenComparingLong(doc -> doc.id));
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, matched.size()));
+        for (Doc doc : matched.subList(0, Math.min(limit, matched.size()))) {
+            suggestions.add(new Suggestion(doc.id, doc.name, doc.address));
+        }
+        return suggestions;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return state.docs.size();
+    }
+
+    /**
+     * 联想排序：名称前缀 → 首字母前缀 → 名称包含 → 其他
+     */
+    private static int rank(Doc doc, String phrase, String initials) {
+        if (doc.normalizedName.startsWith(phrase)) {
+            return 0;
+        }
+        if (initials != null && doc.initials.startsWith(initials)) {
+            return 1;
+        }
+        return doc.normalizedName.contains(phrase) ? 2 : 3;
+    }
+
+    /**
+     * 按字段倒序，与数据库查询的排序方式一致：hot 按打卡次数再按创建时间，createAt 按创建时间，其余按更新时间
+     *
+     * 打卡次数取自索引加载或增量刷新时的值，打卡不触发刷新，热度排序随定时重建更新
+     */
+    private static Comparator<Long> byField(IndexState current, String sortBy) {
+        if ("hot".equals(sortBy)) {
+            return Comparator.<Long>comparingLong(id -> field(current, id, doc -> doc.checkinCount)).reversed()
+                    .thenComparing(Comparator.<Long>comparingLong(id -> field(current, id, doc -> doc.createAt)).reversed());
+        }
+        boolean byCreate = "createAt".equals(sortBy);
+        return Comparator.<Long>comparingLong(id -> field(current, id, doc -> byCreate ? doc.createAt : doc.updateAt))
+                .reversed();
+    }
+
+    private static long field(IndexState current, Long id, ToLongFunction<Doc> getter) {
+        Doc doc = current.docs.get(id);
+        return doc == null ? Long.MIN_VALUE : getter.applyAsLong(doc);
+    }
+
+    /**
+     * 索引尚未加载（如启动时数据库不可用）时补加载
+     *
+     * 每个重试间隔只有一个请求线程执行加载，其余请求不等待，直接使用当前（空）索引返回降级结果，
+     * 避免数据库故障期间每个请求都排队全量加载
+     */
+    private void ensureLoaded() {
+        if (ready) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long next = nextLoadAttemptAt.get();
+        if (now < next || !nextLoadAttemptAt.compareAndSet(next, now + LOAD_RETRY_INTERVAL_MS)) {
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * 在事务提交后执行，无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runSafely(action);
+                }
+            });
+        } else {
+            runSafely(action);
+        }
+    }
+
+    private void runSafely(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            // 增量更新失败时等待下一次定时重建修正
+            log.warn("⚠️ 博物馆搜索索引增量更新失败 - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 索引数据：文档、倒排表、地区名称
+     */
+    private static class IndexState {
+
+        private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+
+        /**
+         * 词条 -> 博物馆ID -> 词频
+         */
+        private final Map<String, Map<Long, Posting>> postings = new ConcurrentHashMap<>();
+
+        private final List<Region> provinces;
+        private final List<Region> cities;
+
+        /**
+         * 全部文档的加权长度之和，用于计算平均文档长度
+         */
+        private double totalLength;
+
+        private IndexState(List<Region> provinces, List<Region> cities) {
+            this.provinces = provinces;
+            this.cities = cities;
+        }
+
+        private void put(Doc doc) {
+            remove(doc.id);
+            docs.put(doc.id, doc);
+            doc.postings.forEach((term, posting) ->
+                    postings.computeIfAbsent(term, k -> new ConcurrentHashMap<>()).put(doc.id, posting));
+            totalLength += doc.length;
+        }
+
+        private void remove(Long museumId) {
+            Doc old = docs.remove(museumId);
+            if (old == null) {
+                return;
+            }
+            for (String term : old.postings.keySet()) {
+                Map<Long, Posting> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(museumId);
+                    if (ids.isEmpty()) {
+                        postings.remove(term, ids);
+                    }
+                }
+            }
+            totalLength -= old.length;
+        }
+
+        /**
+         * 所有词条都命中的文档
+         *
+         * @param nameOnly 是否只匹配名称
+         */
+        private Collection<Long> matchAll(List<String> terms, boolean nameOnly) {
+            List<Map<Long, Posting>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Posting> list = postings.get(term);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            // 从最短的倒排表开始求交集
+            lists.sort(Comparator.comparingInt(Map::size));
+            List<Long> result = new ArrayList<>();
+            for (Map.Entry<Long, Posting> entry : lists.get(0).entrySet()) {
+                boolean all = !nameOnly || entry.getValue().inName;
+                for (int i = 1; all && i < lists.size(); i++) {
+                    Posting posting = lists.get(i).get(entry.getKey());
+                    all = posting != null && (!nameOnly || posting.inName);
+                }
+                if (all) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 对全部词条都命中的文档按 BM25 打分
+         */
+        private Map<Long, Double> bm25(List<String> terms) {
+            Collection<Long> matched = matchAll(terms, false);
+            Map<Long, Double> scores = new HashMap<>(matched.size() * 2);
+            if (matched.isEmpty()) {
+                return scores;
+            }
+            int docCount = Math.max(docs.size(), 1);
+            double avgLength = Math.max(totalLength / docCount, 1);
+            for (String term : terms) {
+                Map<Long, Posting> list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - list.size() + 0.5) / (list.size() + 0.5));
+                for (Long museumId : matched) {
+                    Posting posting = list.get(museumId);
+                    Doc doc = docs.get(museumId);
+                    if (posting == null || doc == null) {
+                        continue;
+                    }
+                    double tf = posting.weightedTf;
+                    double norm = tf + K1 * (1 - B + B * doc.length / avgLength);
+                    scores.merge(museumId, idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+            return scores;
+        }
+
+        /**
+         * 名称拼音首字母包含查询串的文档
+         */
+        private Collection<Long> matchInitials(String initials) {
+            List<String> terms = new ArrayList<>(SearchTokenizer.initialsTerms(initials));
+            if (terms.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Long> result = new ArrayList<>();
+            for (Long museumId : matchAll(terms, false)) {
+                Doc doc = docs.get(museumId);
+                // 二元组只是候选，还要确认首字母连续出现
+                if (doc != null && doc.initials.contains(initials)) {
+                    result.add(museumId);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 索引文档，保存排序和过滤需要的字段以及各词条的词频
+     */
+    private static final class Doc {
+
+        private final long id;
+        private final String name;
+        private final String normalizedName;
+        private final String initials;
+        private final String address;
+        private final String provinceCode;
+        private final String cityCode;
+        private final long createAt;
+        private final long updateAt;
+        private final long checkinCount;
+        private final Map<String, Posting> postings;
+        private final double length;
+
+        private Doc(MuseumInfo museum, Map<String, Posting> postings, double length) {
+            this.id = museum.getId();
+            this.name = museum.getName() != null ? museum.getName() : "";
+            this.normalizedName = SearchTokenizer.normalize(name);
+            this.initials = SearchTokenizer.initials(name);
+            this.address = museum.getAddress();
+            this.provinceCode = museum.getProvinceCode();
+            this.cityCode = museum.getCityCode();
+            this.createAt = toMillis(museum.getCreateAt());
+            this.updateAt = toMillis(museum.getUpdateAt());
+            this.checkinCount = museum.getCheckinCount() != null ? museum.getCheckinCount() : 0L;
+            this.postings = postings;
+            this.length = length;
+        }
+
+        private static Doc of(MuseumInfo museum) {
+            Map<String, Integer> nameTerms = SearchTokenizer.indexTerms(museum.getName());
+            Map<String, Integer> addressTerms = SearchTokenizer.indexTerms(museum.getAddress());
+            Map<String, Integer> descriptionTerms = SearchTokenizer.indexTerms(museum.getDescription());
+
+            Map<String, Double> weighted = new HashMap<>();
+            nameTerms.forEach((term, tf) -> weighted.merge(term, tf * NAME_WEIGHT, Double::sum));
+            addressTerms.forEach((term, tf) -> weighted.merge(term, tf * ADDRESS_WEIGHT, Double::sum));
+            descriptionTerms.forEach((term, tf) -> weighted.merge(term, tf * DESCRIPTION_WEIGHT, Double::sum));
+
+            Map<String, Posting> postings = new HashMap<>(weighted.size() + 8);
+            double length = 0;
+            for (Map.Entry<String, Double> entry : weighted.entrySet()) {
+                postings.put(entry.getKey(), new Posting(entry.getValue(), nameTerms.containsKey(entry.getKey())));
+                length += entry.getValue();
+            }
+            for (String term : SearchTokenizer.initialsTerms(SearchTokenizer.initials(museum.getName()))) {
+                postings.put(term, new Posting(0, true));
+            }
+            return new Doc(museum, postings, length);
+        }
+
+        private static long toMillis(Date date) {
+            return date != null ? date.getTime() : 0L;
+        }
+    }
+
+    /**
+     * 倒排表条目
+     *
+     * @param weightedTf 加权词频
+     * @param inName     词条是否出现在名称中
+     */
+    private record Posting(double weightedTf, boolean inName) {
+    }
+
+    private record Region(String name, String code) {
+    }
+
+    /**
+     * 搜索联想结果
+     */
+    @Getter
+    public static final class Suggestion {
+
+        /**
+         * 博物馆ID
+         */
+        private final Long museumId;
+
+        /**
+         * 博物馆名称
+         */
+        private final String name;
+
+        /**
+         * 博物馆地址
+         */
+        private final String address;
+
+        private Suggestion(Long museumId, String name, String address) {
+            this.museumId = museumId;
+            this.name = name;
+            this.address = address;
+        }
+    }
+}
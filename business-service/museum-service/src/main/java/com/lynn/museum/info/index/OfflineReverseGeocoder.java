@@ -0,0 +1,364 @@
+package com.lynn.museum.info.index;
+
+import com.lynn.museum.info.config.AmapConfig;
+import com.lynn.museum.info.mapper.AreaCityMapper;
+import com.lynn.museum.info.mapper.AreaDistrictMapper;
+import com.lynn.museum.info.mapper.AreaProvinceMapper;
+import com.lynn.museum.info.model.entity.AreaCity;
+import com.lynn.museum.info.model.entity.AreaDistrict;
+import com.lynn.museum.info.model.entity.AreaProvince;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 离线逆地理编码
+ *
+ * 基于 area_provinces / area_cities / area_districts 中的区县中心点构建常驻内存的网格索引，
+ * 以最近中心点（Voronoi划分）确定所在区县、城市和省份，无需调用高德API。
+ * 行政区划表只保存中心点没有边界多边形，因此当最近的两个区县属于不同城市且距离相近，
+ * 或离最近中心点过远时视为边界模糊，返回null由调用方回退到高德API。
+ *
+ * @author lynn
+ * @since 2025-09-26
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OfflineReverseGeocoder {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * 网格边长（度），约55公里
+     */
+    private static final double CELL_SIZE = 0.5;
+
+    /**
+     * 最大扩展圈数，超出仍找不到中心点视为境外或数据缺失
+     */
+    private static final int MAX_RING = 4;
+
+    private static final int LNG_CELLS = (int) Math.ceil(360 / CELL_SIZE) + 1;
+
+    private final AreaProvinceMapper areaProvinceMapper;
+    private final AreaCityMapper areaCityMapper;
+    private final AreaDistrictMapper areaDistrictMapper;
+    private final AmapConfig amapConfig;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * 行政区划数据极少变化，按较长周期重新加载
+     */
+    @Scheduled(initialDelayString = "${museum.info.amap.offline-reload-interval:3600000}",
+            fixedDelayString = "${museum.info.amap.offline-reload-interval:3600000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * 从行政区划表重新加载索引
+     */
+    public void reload() {
+        try {
+            Map<String, AreaProvince> provinces = new HashMap<>();
+            for (AreaProvince province : areaProvinceMapper.selectList(null)) {
+                provinces.put(province.getAdcode(), province);
+            }
+            Map<String, AreaCity> cities = new HashMap<>();
+            Map<String, String> citycodeToAdcode = new HashMap<>();
+            Set<String> sharedCitycodes = new HashSet<>();
+            for (AreaCity city : areaCityMapper.selectList(null)) {
+                cities.put(city.getAdcode(), city);
+                String citycode = city.getCitycode();
+                if (citycode != null && !citycode.isEmpty()
+                        && citycodeToAdcode.putIfAbsent(citycode, city.getAdcode()) != null) {
+                    sharedCitycodes.add(citycode);
+                }
+            }
+            // 多个城市共用同一电话区号时无法由区号确定城市，不做映射
+            citycodeToAdcode.keySet().removeAll(sharedCitycodes);
+
+            Snapshot newSnapshot = new Snapshot(citycodeToAdcode);
+            // 不设区的地级市高德直接返回城市adcode
+            cities.keySet().forEach(adcode -> newSnapshot.districtToCityAdcode.put(adcode, adcode));
+            Set<String> citiesWithDistricts = new HashSet<>();
+            for (AreaDistrict district : areaDistrictMapper.selectList(null)) {
+                if (district.getLatitude() == null || district.getLongitude() == null) {
+                    continue;
+                }
+                AreaCity city = cities.get(district.getCityAdcode());
+                if (city == null) {
+                    continue;
+                }
+                citiesWithDistricts.add(city.getAdcode());
+                newSnapshot.districtToCityAdcode.put(district.getAdcode(), city.getAdcode());
+                newSnapshot.add(buildPoint(district.getLatitude().doubleValue(), district.getLongitude().doubleValue(),
+                        provinces.get(city.getProvinceAdcode()), city, district));
+            }
+            // 不设区的地级市（如东莞、中山）直接使用城市中心点
+            for (AreaCity city : cities.values()) {
+                if (citiesWithDistricts.contains(city.getAdcode())
+                        || city.getLatitude() == null || city.getLongitude() == null) {
+                    continue;
+                }
+                newSnapshot.add(buildPoint(city.getLatitude().doubleValue(), city.getLongitude().doubleValue(),
+                        provinces.get(city.getProvinceAdcode()), city, null));
+            }
+
+            snapshot = newSnapshot;
+            log.info("🗺️ 离线逆地理编码索引加载完成，共 {} 个区域中心点", newSnapshot.size);
+        } catch (Exception e) {
+            log.error("离线逆地理编码索引加载失败", e);
+        }
+    }
+
+    /**
+     * 根据经纬度解析所在行政区
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @return 行政区信息；未启用、未加载或位于边界模糊地带时返回null
+     */
+    public RegionMatch resolve(double latitude, double longitude) {
+        Snapshot current = snapshot;
+        if (!Boolean.TRUE.equals(amapConfig.getOfflineEnabled()) || current == null || current.size == 0) {
+            return null;
+        }
+
+        int latCell = latCell(latitude);
+        int lngCell = lngCell(longitude);
+        double latRad = Math.toRadians(latitude);
+        double cosLat = Math.cos(latRad);
+
+        RegionPoint nearest = null;
+        RegionPoint second = null;
+        double d1 = Double.MAX_VALUE;
+        double d2 = Double.MAX_VALUE;
+        // 逐圈扩展网格，找到结果后再多扫一圈以保证最近点正确
+        int stopRing = MAX_RING;
+        for (int ring = 0; ring <= stopRing; ring++) {
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                for (int dLng = -ring; dLng <= ring; dLng++) {
+                    if (Math.abs(dLat) != ring && Math.abs(dLng) != ring) {
+                        continue;
+                    }
+                    List<RegionPoint> points = current.grid.get(cellKey(latCell + dLat, lngCell + dLng));
+                    if (points == null) {
+                        continue;
+                    }
+                    for (RegionPoint point : points) {
+                        double distance = haversine(latRad, cosLat, longitude, point);
+                        if (distance < d1) {
+                            second = nearest;
+                            d2 = d1;
+                            nearest = point;
+                            d1 = distance;
+                        } else if (distance < d2) {
+                            second = point;
+                            d2 = distance;
+                        }
+                    }
+                }
+            }
+            if (second != null && stopRing == MAX_RING) {
+                stopRing = Math.min(ring + 1, MAX_RING);
+            }
+        }
+
+        if (nearest == null || d1 > amapConfig.getOfflineMaxDistance()) {
+            return null;
+        }
+        // 最近两个中心点分属不同城市且距离接近，处于城市边界附近，交给高德判定
+        if (second != null && !second.match.getCityAdcode().equals(nearest.match.getCityAdcode())
+                && d2 < d1 * amapConfig.getOfflineAmbiguityRatio()) {
+            log.debug("离线逆地理编码位于城市边界，需回退高德 - 位置：{},{}, 候选：{}({}km) / {}({}km)",
+                    latitude, longitude, nearest.match.getCityName(), d1, second.match.getCityName(), d2);
+            return null;
+        }
+        return nearest.match;
+    }
+
+    /**
+     * 将高德citycode（电话区号）映射为城市adcode，不访问数据库
+     *
+     * @param citycode 高德citycode
+     * @return 城市adcode，未加载、未知或多个城市共用该区号时返回null
+     */
+    public String resolveCityAdcode(String citycode) {
+        Snapshot current = snapshot;
+        return current != null ? current.citycodeToAdcode.get(citycode) : null;
+    }
+
+    /**
+     * 将区县adcode映射为所属城市adcode，不访问数据库
+     *
+     * @param districtAdcode 区县adcode（高德逆地理编码返回的adcode，不设区的地级市为城市adcode）
+     * @return 城市adcode，未加载或未知时返回null
+     */
+    public String resolveCityAdcodeByDistrict(String districtAdcode) {
+        Snapshot current = snapshot;
+        return current != null ? current.districtToCityAdcode.get(districtAdcode) : null;
+    }
+
+    private RegionPoint buildPoint(double latitude, double longitude, AreaProvince province, AreaCity city, AreaDistrict district) {
+        String provinceName = province != null ? province.getName() : null;
+        // 直辖市的城市名通常为"市辖区"，与高德一致使用省份名
+        String cityName = "市辖区".equals(city.getName()) ? provinceName : city.getName();
+        String districtName = district != null ? district.getName() : null;
+        RegionMatch match = RegionMatch.builder()
+                .provinceAdcode(city.getProvinceAdcode())
+                .provinceName(provinceName)
+                .cityAdcode(city.getAdcode())
+                .cityName(cityName)
+                .citycode(city.getCitycode())
+                .districtAdcode(district != null ? district.getAdcode() : null)
+                .districtName(districtName)
+                .formattedAddress(joinNames(provinceName, cityName, districtName))
+                .build();
+        return new RegionPoint(latitude, longitude, match);
+    }
+
+    private String joinNames(String provinceName, String cityName, String districtName) {
+        StringBuilder builder = new StringBuilder();
+        if (provinceName != null) {
+            builder.append(provinceName);
+        }
+        if (cityName != null && !cityName.equals(provinceName)) {
+            builder.append(cityName);
+        }
+        if (districtName != null) {
+            builder.append(districtName);
+        }
+        return builder.toString();
+    }
+
+    private static double haversine(double latRad, double cosLat, double longitude, RegionPoint point) {
+        double sinLat = Math.sin((point.latRad - latRad) / 2);
+        double sinLng = Math.sin(Math.toRadians(point.longitude - longitude) / 2);
+        double a = sinLat * sinLat + cosLat * point.cosLat * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static int latCell(double latitude) {
+        return (int) Math.floor((latitude + 90) / CELL_SIZE);
+    }
+
+    private static int lngCell(double longitude) {
+        return (int) Math.floor((longitude + 180) / CELL_SIZE);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return (long) latCell * LNG_CELLS + Math.floorMod(lngCell, LNG_CELLS);
+    }
+
+    /**
+     * 不可变的索引快照，重新加载时整体替换
+     */
+    private static class Snapshot {
+
+        private final Map<Long, List<RegionPoint>> grid = new HashMap<>();
+
+        private final Map<String, String> citycodeToAdcode;
+
+        private final Map<String, String> districtToCityAdcode = new HashMap<>();
+
+        private int size;
+
+        private Snapshot(Map<String, String> citycodeToAdcode) {
+            this.citycodeToAdcode = citycodeToAdcode;
+        }
+
+        private void add(RegionPoint point) {
+            grid.computeIfAbsent(cellKey(latCell(point.latitude), lngCell(point.longitude)), k -> new ArrayList<>())
+                    .add(point);
+            size++;
+        }
+    }
+
+    /**
+     * 区域中心点
+     */
+    private static final class RegionPoint {
+
+        private final double latitude;
+        private final double longitude;
+        private final double latRad;
+        private final double cosLat;
+        private final RegionMatch match;
+
+        private RegionPoint(double latitude, double longitude, RegionMatch match) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.latRad = Math.toRadians(latitude);
+            this.cosLat = Math.cos(latRad);
+            this.match = match;
+        }
+    }
+
+    /**
+     * 逆地理编码结果
+     */
+    @Data
+    @Builder
+    public static class RegionMatch {
+
+        /**
+         * 省份adcode
+         */
+        private String provinceAdcode;
+
+        /**
+         * 省份名称
+         */
+        private String provinceName;
+
+        /**
+         * 城市adcode
+         */
+        private String cityAdcode;
+
+        /**
+         * 城市名称
+         */
+        private String cityName;
+
+        /**
+         * 高德城市编码（电话区号）
+         */
+        private String citycode;
+
+        /**
+         * 区县adcode
+         */
+        private String districtAdcode;
+
+        /**
+         * 区县名称
+         */
+        private String districtName;
+
+        /**
+         * 行政区拼接地址（不含街道门牌）
+         */
+        private String formattedAddress;
+    }
+}
@@ -0,0 +1,217 @@
+package com.lynn.museum.info.index;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 博物馆搜索分词
+ *
+ * 1. 全角转半角、英文转小写
+ * 2. 连续汉字切分为单字和二元组（n-gram），查询时只用二元组，单个汉字才用单字
+ * 3. 连续字母数字作为一个词
+ * 4. 汉字按 GB2312 一级字库的拼音区间取首字母，支持拼音首字母检索（"ggbwy" -> 故宫博物院）
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+final class SearchTokenizer {
+
+    /**
+     * 首字母词条前缀，避免与普通字母数字词条冲突
+     */
+    static final String INITIALS_PREFIX = "#";
+
+    /**
+     * GB2312 一级汉字（按拼音排序）各首字母的起始区位码
+     */
+    private static final int[] INITIAL_BOUNDARIES = {
+            1601, 1637, 1833, 2078, 2274, 2302, 2433, 2594, 2787, 3106, 3212, 3472,
+            3635, 3722, 3730, 3858, 4027, 4086, 4390, 4558, 4684, 4925, 5249, 5590
+    };
+    private static final char[] INITIAL_LETTERS = "abcdefghjklmnopqrstwxyz".toCharArray();
+
+    /**
+     * 无法取得首字母的汉字占位，避免前后首字母被错误地拼接
+     */
+    private static final char UNKNOWN_INITIAL = '_';
+
+    private static final Charset GB2312 = loadGb2312();
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 文档分词，返回词条 -> 出现次数
+     */
+    static Map<String, Integer> indexTerms(String text) {
+        Map<String, Integer> terms = new HashMap<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        forEachRun(normalize(text), (run, han) -> {
+            if (han) {
+                for (int i = 0; i < run.length(); i++) {
+                    terms.merge(run.substring(i, i + 1), 1, Integer::sum);
+                    if (i + 1 < run.length()) {
+                        terms.merge(run.substring(i, i + 2), 1, Integer::sum);
+                    }
+                }
+            } else {
+                terms.merge(run, 1, Integer::sum);
+            }
+        });
+        return terms;
+    }
+
+    /**
+     * 查询分词（去重，保持顺序）
+     */
+    static List<String> queryTerms(String keyword) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (keyword == null || keyword.isEmpty()) {
+            return new ArrayList<>();
+        }
+        forEachRun(normalize(keyword), (run, han) -> {
+            if (han && run.length() > 1) {
+                for (int i = 0; i + 1 < run.length(); i++) {
+                    terms.add(run.substring(i, i + 2));
+                }
+            } else {
+                terms.add(run);
+            }
+        });
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * 首字母二元组词条，用于从倒排索引中取出首字母候选
+     */
+    static Set<String> initialsTerms(String initials) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < initials.length(); i++) {
+            if (initials.charAt(i) != UNKNOWN_INITIAL && initials.charAt(i + 1) != UNKNOWN_INITIAL) {
+                terms.add(INITIALS_PREFIX + initials.substring(i, i + 2));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 拼音首字母串：汉字取首字母，字母数字保留，其余字符忽略
+     */
+    static String initials(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String normalized = normalize(text);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (isHan(c)) {
+                builder.append(initialOf(c));
+            } else if (isAlnum(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 查询词作为拼音首字母检索时的形式（去掉空格），不是纯字母或少于两个字母时返回 null
+     */
+    static String initialsQuery(String keyword) {
+        String normalized = normalize(keyword).replace(" ", "");
+        if (normalized.length() < 2) {
+            return null;
+        }
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return null;
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * 全角转半角、英文转小写
+     */
+    static String normalize(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '　') {
+                c = ' ';
+            } else if (c >= '！' && c <= '～') {
+                c = (char) (c - 0xFEE0);
+            }
+            builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 按汉字 / 字母数字切分连续片段，其余字符作为分隔符
+     */
+    private static void forEachRun(String text, RunHandler handler) {
+        int start = -1;
+        boolean startHan = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean han = isHan(c);
+            boolean token = han || isAlnum(c);
+            if (start >= 0 && (!token || han != startHan)) {
+                handler.accept(text.substring(start, i), startHan);
+                start = -1;
+            }
+            if (token && start < 0) {
+                start = i;
+                startHan = han;
+            }
+        }
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private static boolean isAlnum(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static char initialOf(char c) {
+        if (GB2312 == null) {
+            return UNKNOWN_INITIAL;
+        }
+        byte[] bytes = String.valueOf(c).getBytes(GB2312);
+        if (bytes.length != 2) {
+            return UNKNOWN_INITIAL;
+        }
+        int code = ((bytes[0] & 0xFF) - 160) * 100 + ((bytes[1] & 0xFF) - 160);
+        for (int i = 0; i < INITIAL_LETTERS.length; i++) {
+            if (code >= INITIAL_BOUNDARIES[i] && code < INITIAL_BOUNDARIES[i + 1]) {
+                return INITIAL_LETTERS[i];
+            }
+        }
+        // 二级汉字按部首排序，无法由区位码推出拼音
+        return UNKNOWN_INITIAL;
+    }
+
+    private static Charset loadGb2312() {
+        try {
+            return Charset.forName("GB2312");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RunHandler {
+        void accept(String run, boolean han);
+    }
+}
@@ -3,10 +3,28 @@ package com.lynn.museum.info.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lynn.museum.info.model.entity.Announcement;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 /**
  * 公告 Mapper 接口
  */
 @Mapper
 public interface AnnouncementMapper extends BaseMapper<Announcement> {
+
+    /**
+     * 批量累加阅读次数
+     *
+     * @param deltas ID -> 增量
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE t_announcement SET read_count = IFNULL(read_count, 0) + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'> WHEN #{id} THEN #{delta} </foreach>" +
+            " END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementReadCounts(@Param("deltas") Map<Long, Long> deltas);
 }
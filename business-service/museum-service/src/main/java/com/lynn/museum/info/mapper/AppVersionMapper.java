@@ -3,6 +3,10 @@ package com.lynn.museum.info.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lynn.museum.info.model.entity.AppVersion;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 /**
  * 应用版本Mapper接口
@@ -13,5 +17,17 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface AppVersionMapper extends BaseMapper<AppVersion> {
 
+    /**
+     * 批量累加下载次数
+     *
+     * @param deltas ID -> 增量
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE app_versions SET download_count = IFNULL(download_count, 0) + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'> WHEN #{id} THEN #{delta} </foreach>" +
+            " END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementDownloadCounts(@Param("deltas") Map<Long, Long> deltas);
 }
-
@@ -3,6 +3,10 @@ package com.lynn.museum.info.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lynn.museum.info.model.entity.Banner;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 /**
  * 轮播图Mapper接口
@@ -13,4 +17,17 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface BannerMapper extends BaseMapper<Banner> {
 
+    /**
+     * 批量累加点击次数
+     *
+     * @param deltas ID -> 增量
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE t_banner SET click_count = IFNULL(click_count, 0) + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'> WHEN #{id} THEN #{delta} </foreach>" +
+            " END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementClickCounts(@Param("deltas") Map<Long, Long> deltas);
 }
@@ -0,0 +1,96 @@
+package com.lynn.museum.info.mapper;
+
+import com.lynn.museum.info.model.entity.CheckinDailyStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 打卡每日汇总Mapper接口
+ *
+ * @author lynn
+ * @since 2024-12-16
+ */
+@Mapper
+public interface CheckinDailyStatsMapper {
+
+    /**
+     * 增量更新单行当日计数，museumId为0时更新全站行
+     *
+     * @param statDate 统计日期
+     * @param museumId 博物馆ID，0表示全站
+     * @param delta 增量，可为负数
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO checkin_daily_stats (stat_date, museum_id, checkin_count) " +
+            "VALUES (#{statDate}, #{museumId}, GREATEST(#{delta}, 0)) " +
+            "ON DUPLICATE KEY UPDATE checkin_count = GREATEST(checkin_count + #{delta}, 0)")
+    int increment(@Param("statDate") LocalDate statDate,
+                  @Param("museumId") Long museumId,
+                  @Param("delta") int delta);
+
+    /**
+     * 查询日期范围内的全站每日汇总
+     *
+     * @param from 开始日期（含）
+     * @param to 结束日期（含）
+     * @return 每日汇总
+     */
+    @Select("SELECT stat_date, museum_id, checkin_count FROM checkin_daily_stats " +
+            "WHERE museum_id = 0 AND stat_date BETWEEN #{from} AND #{to}")
+    List<CheckinDailyStats> selectGlobalDaily(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 查询指定日期打卡最多的博物馆
+     *
+     * @param statDate 统计日期
+     * @param limit 数量
+     * @return 包含 id, name, status, capacity, visitors
+     */
+    @Select("SELECT s.museum_id AS id, mi.name, mi.status, mi.capacity, s.checkin_count AS visitors " +
+            "FROM checkin_daily_stats s " +
+            "JOIN museum_info mi ON mi.id = s.museum_id AND mi.deleted = 0 " +
+            "WHERE s.stat_date = #{statDate} AND s.museum_id > 0 AND s.checkin_count > 0 " +
+            "ORDER BY s.checkin_count DESC " +
+            "LIMIT #{limit}")
+    List<Map<String, Object>> selectTopMuseums(@Param("statDate") LocalDate statDate, @Param("limit") int limit);
+
+    /**
+     * 最早的正式打卡日期
+     *
+     * @return 日期，没有打卡记录时为null
+     */
+    @Select("SELECT DATE(MIN(checkin_time)) FROM checkin_record WHERE deleted = 0 AND is_draft = 0")
+    LocalDate selectEarliestCheckinDate();
+
+    /**
+     * 删除日期范围内的汇总
+     */
+    @Delete("DELETE FROM checkin_daily_stats WHERE stat_date BETWEEN #{from} AND #{to}")
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 从打卡记录重建日期范围内的博物馆汇总和全站汇总
+     *
+     * @param from 开始日期（含）
+     * @param toExclusive 结束日期（不含）
+     * @return 写入行数
+     */
+    @Insert("INSERT INTO checkin_daily_stats (stat_date, museum_id, checkin_count) " +
+            "SELECT DATE(checkin_time), museum_id, COUNT(*) FROM checkin_record " +
+            "WHERE deleted = 0 AND is_draft = 0 AND museum_id IS NOT NULL " +
+            "  AND checkin_time >= #{from} AND checkin_time < #{toExclusive} " +
+            "GROUP BY DATE(checkin_time), museum_id " +
+            "UNION ALL " +
+            "SELECT DATE(checkin_time), 0, COUNT(*) FROM checkin_record " +
+            "WHERE deleted = 0 AND is_draft = 0 AND museum_id IS NOT NULL " +
+            "  AND checkin_time >= #{from} AND checkin_time < #{toExclusive} " +
+            "GROUP BY DATE(checkin_time)")
+    int rebuildRange(@Param("from") LocalDate from, @Param("toExclusive") LocalDate toExclusive);
+}
@@ -10,7 +10,10 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 打卡记录Mapper接口
@@ -105,6 +108,20 @@ public interface CheckinRecordMapper extends BaseMapper<CheckinRecord> {
                                     @Param("startTime") String startTime, 
                                     @Param("endTime") String endTime);
 
+    /**
+     * 批量查询用户打卡次数（仅统计审核通过的记录）
+     *
+     * @param userIds 用户ID列表
+     * @return 包含 user_id, checkin_count，没有打卡的用户不返回
+     */
+    @Select("<script>" +
+            "SELECT user_id, COUNT(*) AS checkin_count FROM checkin_record " +
+            "WHERE audit_status = 1 AND deleted = 0 AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach> " +
+            "GROUP BY user_id" +
+            "</script>")
+    List<Map<String, Object>> countCheckinsByUsers(@Param("userIds") Collection<Long> userIds);
+
     /**
      * 查询用户打卡的不同博物馆列表（用于统计）
      *
@@ -115,4 +132,35 @@ public interface CheckinRecordMapper extends BaseMapper<CheckinRecord> {
             "SELECT DISTINCT museum_id, museum_name FROM checkin_record WHERE user_id = #{userId} AND is_draft = 0 AND deleted = 0" +
             "</script>")
     List<CheckinRecord> selectDistinctMuseumsByUser(@Param("userId") Long userId);
+
+    /**
+     * 统计开放且展示的博物馆的正式打卡总数（用于重建热门排行）
+     *
+     * @param museumId 只统计该博物馆，为null时统计全部
+     * @return 包含 museum_id, checkin_count，没有打卡的博物馆不返回
+     */
+    @Select("<script>" +
+            "SELECT cr.museum_id, COUNT(*) AS checkin_count FROM checkin_record cr " +
+            "JOIN museum_info mi ON mi.id = cr.museum_id AND mi.deleted = 0 AND mi.status = 1 AND mi.display = 1 " +
+            "WHERE cr.deleted = 0 AND cr.is_draft = 0 " +
+            "<if test='museumId != null'>AND cr.museum_id = #{museumId} </if>" +
+            "GROUP BY cr.museum_id" +
+            "</script>")
+    List<Map<String, Object>> countCheckinsByMuseum(@Param("museumId") Long museumId);
+
+    /**
+     * 统计指定时间之后开放且展示的博物馆每天的正式打卡数（用于重建热门排行）
+     *
+     * @param from 开始时间（含）
+     * @param museumId 只统计该博物馆，为null时统计全部
+     * @return 包含 museum_id, stat_date, checkin_count
+     */
+    @Select("<script>" +
+            "SELECT cr.museum_id, DATE(cr.checkin_time) AS stat_date, COUNT(*) AS checkin_count FROM checkin_record cr " +
+            "JOIN museum_info mi ON mi.id = cr.museum_id AND mi.deleted = 0 AND mi.status = 1 AND mi.display = 1 " +
+            "WHERE cr.deleted = 0 AND cr.is_draft = 0 AND cr.checkin_time >= #{from} " +
+            "<if test='museumId != null'>AND cr.museum_id = #{museumId} </if>" +
+            "GROUP BY cr.museum_id, DATE(cr.checkin_time)" +
+            "</script>")
+    List<Map<String, Object>> countDailyCheckinsByMuseum(@Param("from") Date from, @Param("museumId") Long museumId);
 }
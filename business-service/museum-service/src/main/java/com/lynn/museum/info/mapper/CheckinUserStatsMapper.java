@@ -0,0 +1,136 @@
+package com.lynn.museum.info.mapper;
+
+import com.lynn.museum.info.model.entity.CheckinUserMuseum;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户打卡汇总Mapper接口
+ *
+ * 照片数量按 photos 字段的JSON数组长度统计，非法JSON按0计。
+ *
+ * @author lynn
+ * @since 2024-12-30
+ */
+@Mapper
+public interface CheckinUserStatsMapper {
+
+    /**
+     * 从打卡记录刷新用户在某个博物馆的汇总（无打卡时次数刷新为0）
+     *
+     * @param userId 用户ID
+     * @param museumId 博物馆ID
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO checkin_user_museum (user_id, museum_id, museum_name, province_code, checkin_count, " +
+            "  photo_count, first_checkin_time, last_checkin_time) " +
+            "SELECT #{userId}, #{museumId}, " +
+            "  COALESCE(MAX(mi.name), MAX(r.museum_name)), MAX(mi.province_code), COUNT(r.id), " +
+            "  COALESCE(SUM(IF(JSON_VALID(r.photos), JSON_LENGTH(r.photos), 0)), 0), " +
+            "  MIN(r.checkin_time), MAX(r.checkin_time) " +
+            "FROM checkin_record r " +
+            "LEFT JOIN museum_info mi ON mi.id = r.museum_id " +
+            "WHERE r.user_id = #{userId} AND r.museum_id = #{museumId} AND r.deleted = 0 AND r.is_draft = 0 " +
+            "ON DUPLICATE KEY UPDATE museum_name = VALUES(museum_name), province_code = VALUES(province_code), " +
+            "  checkin_count = VALUES(checkin_count), photo_count = VALUES(photo_count), " +
+            "  first_checkin_time = VALUES(first_checkin_time), last_checkin_time = VALUES(last_checkin_time)")
+    int refreshMuseum(@Param("userId") Long userId, @Param("museumId") Long museumId);
+
+    /**
+     * 从打卡记录刷新用户某个月的打卡次数
+     *
+     * @param userId 用户ID
+     * @param statMonth 统计月份（当月1日）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO checkin_user_monthly (user_id, stat_month, checkin_count) " +
+            "SELECT #{userId}, #{statMonth}, COUNT(*) FROM checkin_record " +
+            "WHERE user_id = #{userId} AND deleted = 0 AND is_draft = 0 AND museum_id IS NOT NULL " +
+            "  AND checkin_time >= #{statMonth} AND checkin_time < DATE_ADD(#{statMonth}, INTERVAL 1 MONTH) " +
+            "ON DUPLICATE KEY UPDATE checkin_count = VALUES(checkin_count)")
+    int refreshMonthly(@Param("userId") Long userId, @Param("statMonth") LocalDate statMonth);
+
+    /**
+     * 用户打卡总览
+     *
+     * @param userId 用户ID
+     * @return 包含 total_checkins, visited_museums, total_photos
+     */
+    @Select("SELECT COALESCE(SUM(checkin_count), 0) AS total_checkins, COUNT(*) AS visited_museums, " +
+            "  COALESCE(SUM(photo_count), 0) AS total_photos " +
+            "FROM checkin_user_museum WHERE user_id = #{userId} AND checkin_count > 0")
+    Map<String, Object> selectUserSummary(@Param("userId") Long userId);
+
+    /**
+     * 用户某个月的打卡次数
+     *
+     * @param userId 用户ID
+     * @param statMonth 统计月份（当月1日）
+     * @return 打卡次数，没有记录时为null
+     */
+    @Select("SELECT checkin_count FROM checkin_user_monthly WHERE user_id = #{userId} AND stat_month = #{statMonth}")
+    Integer selectMonthlyCount(@Param("userId") Long userId, @Param("statMonth") LocalDate statMonth);
+
+    /**
+     * 用户打卡过的博物馆，按最近打卡时间倒序
+     *
+     * @param userId 用户ID
+     * @return 博物馆汇总列表
+     */
+    @Select("SELECT user_id, museum_id, museum_name, province_code, checkin_count, photo_count, " +
+            "  first_checkin_time, last_checkin_time " +
+            "FROM checkin_user_museum WHERE user_id = #{userId} AND checkin_count > 0 " +
+            "ORDER BY last_checkin_time DESC")
+    List<CheckinUserMuseum> selectUserMuseums(@Param("userId") Long userId);
+
+    /**
+     * 打卡记录中的最大用户ID，用于分段重建
+     */
+    @Select("SELECT MAX(user_id) FROM checkin_record")
+    Long selectMaxUserId();
+
+    /**
+     * 删除用户ID范围内的博物馆汇总
+     */
+    @Delete("DELETE FROM checkin_user_museum WHERE user_id BETWEEN #{fromUserId} AND #{toUserId}")
+    int deleteMuseumRange(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 删除用户ID范围内的月度汇总
+     */
+    @Delete("DELETE FROM checkin_user_monthly WHERE user_id BETWEEN #{fromUserId} AND #{toUserId}")
+    int deleteMonthlyRange(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 从打卡记录重建用户ID范围内的博物馆汇总
+     */
+    @Insert("INSERT INTO checkin_user_museum (user_id, museum_id, museum_name, province_code, checkin_count, " +
+            "  photo_count, first_checkin_time, last_checkin_time) " +
+            "SELECT r.user_id, r.museum_id, " +
+            "  COALESCE(MAX(mi.name), MAX(r.museum_name)), MAX(mi.province_code), COUNT(*), " +
+            "  COALESCE(SUM(IF(JSON_VALID(r.photos), JSON_LENGTH(r.photos), 0)), 0), " +
+            "  MIN(r.checkin_time), MAX(r.checkin_time) " +
+            "FROM checkin_record r " +
+            "LEFT JOIN museum_info mi ON mi.id = r.museum_id " +
+            "WHERE r.user_id BETWEEN #{fromUserId} AND #{toUserId} AND r.deleted = 0 AND r.is_draft = 0 " +
+            "  AND r.museum_id IS NOT NULL " +
+            "GROUP BY r.user_id, r.museum_id")
+    int rebuildMuseumRange(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 从打卡记录重建用户ID范围内的月度汇总
+     */
+    @Insert("INSERT INTO checkin_user_monthly (user_id, stat_month, checkin_count) " +
+            "SELECT user_id, DATE_FORMAT(checkin_time, '%Y-%m-01'), COUNT(*) FROM checkin_record " +
+            "WHERE user_id BETWEEN #{fromUserId} AND #{toUserId} AND deleted = 0 AND is_draft = 0 " +
+            "  AND museum_id IS NOT NULL AND checkin_time IS NOT NULL " +
+            "GROUP BY user_id, DATE_FORMAT(checkin_time, '%Y-%m-01')")
+    int rebuildMonthlyRange(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+}
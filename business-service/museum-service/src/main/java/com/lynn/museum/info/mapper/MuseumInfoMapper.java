@@ -8,6 +8,10 @@ import com.lynn.museum.info.dto.MuseumResponse;
 import com.lynn.museum.info.model.entity.MuseumInfo;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 博物馆信息Mapper接口
  *
@@ -38,16 +42,13 @@ public interface MuseumInfoMapper extends BaseMapper<MuseumInfo> {
             "m.education_activities AS educationActivities, m.visitor_count AS visitorCount, m.display, " +
             "m.create_at AS createTime, m.update_at AS updateTime, " +
             "cat.id AS category_id, cat.name AS category_name, cat.code AS category_code, " +
-            "COALESCE(cr.checkin_count, 0) AS checkin_count " +
+            "m.checkin_count AS checkinCount " +
             "FROM museum_info m " +
             "LEFT JOIN area_provinces p ON m.province_code = p.adcode " +
             "LEFT JOIN area_cities c ON m.city_code = c.adcode " +
             "LEFT JOIN area_districts d ON m.district_code = d.adcode " +
             "LEFT JOIN museum_category_relation mcr ON m.id = mcr.museum_id " +
             "LEFT JOIN museum_category cat ON mcr.category_id = cat.id " +
-            "LEFT JOIN (" +
-            "  SELECT museum_id, COUNT(*) AS checkin_count FROM checkin_record WHERE deleted = 0 GROUP BY museum_id" +
-            ") cr ON m.id = cr.museum_id " +
             "<where>" +
             "  m.deleted = 0 AND m.display = 1 " +
             "  <if test='query.name != null and query.name != \"\"'>AND m.name LIKE CONCAT('%', #{query.name}, '%')</if>" +
@@ -67,13 +68,71 @@ public interface MuseumInfoMapper extends BaseMapper<MuseumInfo> {
             "  </if>" +
             "</where>" +
             "<choose>" +
-            "  <when test='query.sortBy == \"hot\"'>ORDER BY COALESCE(cr.checkin_count, 0) DESC, m.create_at DESC</when>" +
+            "  <when test='query.sortBy == \"hot\"'>ORDER BY m.checkin_count DESC, m.create_at DESC</when>" +
             "  <when test='query.sortBy == \"collection\"'>ORDER BY m.collection_count DESC, m.create_at DESC</when>" +
             "  <otherwise>ORDER BY m.create_at DESC</otherwise>" +
             "</choose>" +
             "</script>")
     IPage<MuseumResponse> selectMuseumPage(Page<MuseumInfo> page, @Param("query") MuseumQueryRequest query);
 
+    /**
+     * 游标分页查询博物馆列表（按创建时间倒序，不统计总数）
+     * 只关联一对一的地区表，分类、标签由调用方补充，避免一对多关联拆散分页
+     *
+     * @param query      查询条件（忽略 sortBy 和页码）
+     * @param cursorTime 游标创建时间，为空表示第一页
+     * @param cursorId   游标ID
+     * @param limit      查询条数（每页大小 + 1）
+     * @return 博物馆列表
+     */
+    @Select("<script>" +
+            "SELECT " +
+            "m.id, m.name, m.code, m.description, m.address, " +
+            "m.province_code AS provinceCode, p.name AS provinceName, " +
+            "m.city_code AS cityCode, c.name AS cityName, " +
+            "m.district_code AS districtCode, d.name AS districtName, " +
+            "m.longitude, m.latitude, m.phone, m.website, " +
+            "m.open_time AS openTime, m.ticket_price AS ticketPrice, m.ticket_description AS ticketDescription, " +
+            "m.capacity, m.status, m.level, m.type, " +
+            "m.free_admission AS freeAdmission, m.collection_count AS collectionCount, " +
+            "m.precious_items AS preciousItems, m.exhibitions, " +
+            "m.education_activities AS educationActivities, m.visitor_count AS visitorCount, m.display, " +
+            "m.create_at AS createAt, m.update_at AS updateAt, m.checkin_count AS checkinCount " +
+            "FROM museum_info m " +
+            "LEFT JOIN area_provinces p ON m.province_code = p.adcode " +
+            "LEFT JOIN area_cities c ON m.city_code = c.adcode " +
+            "LEFT JOIN area_districts d ON m.district_code = d.adcode " +
+            "<where>" +
+            "  m.deleted = 0 AND m.display = 1 " +
+            "  <if test='cursorTime != null'>" +
+            "    AND (m.create_at &lt; #{cursorTime} OR (m.create_at = #{cursorTime} AND m.id &lt; #{cursorId}))" +
+            "  </if>" +
+            "  <if test='query.name != null and query.name != \"\"'>AND m.name LIKE CONCAT('%', #{query.name}, '%')</if>" +
+            "  <if test='query.provinceCode != null and query.provinceCode != \"\"'>AND m.province_code = #{query.provinceCode}</if>" +
+            "  <if test='query.cityCode != null and query.cityCode != \"\"'>AND m.city_code = #{query.cityCode}</if>" +
+            "  <if test='query.districtCode != null and query.districtCode != \"\"'>AND m.district_code = #{query.districtCode}</if>" +
+            "  <if test='query.streetCode != null and query.streetCode != \"\"'>AND m.street_code = #{query.streetCode}</if>" +
+            "  <if test='query.status != null'>AND m.status = #{query.status}</if>" +
+            "  <if test='query.level != null'>AND m.level = #{query.level}</if>" +
+            "  <if test='query.type != null and query.type != \"\"'>AND m.type = #{query.type}</if>" +
+            "  <if test='query.freeAdmission != null'>AND m.free_admission = #{query.freeAdmission}</if>" +
+            "  <if test='query.minCollectionCount != null'>AND m.collection_count &gt;= #{query.minCollectionCount}</if>" +
+            "  <if test='query.maxCollectionCount != null'>AND m.collection_count &lt;= #{query.maxCollectionCount}</if>" +
+            "  <if test='query.categoryId != null'>" +
+            "    AND EXISTS (SELECT 1 FROM museum_category_relation mcr WHERE mcr.museum_id = m.id AND mcr.category_id = #{query.categoryId})" +
+            "  </if>" +
+            "  <if test='query.tagId != null'>" +
+            "    AND EXISTS (SELECT 1 FROM museum_tag_relation mtr WHERE mtr.museum_id = m.id AND mtr.tag_id = #{query.tagId})" +
+            "  </if>" +
+            "</where>" +
+            "ORDER BY m.create_at DESC, m.id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<MuseumResponse> selectMuseumCursor(@Param("query") MuseumQueryRequest query,
+                                            @Param("cursorTime") Date cursorTime,
+                                            @Param("cursorId") Long cursorId,
+                                            @Param("limit") int limit);
+
     /**
      * 获取博物馆详情
      *
@@ -104,9 +163,37 @@ public interface MuseumInfoMapper extends BaseMapper<MuseumInfo> {
             "</script>")
     MuseumResponse selectMuseumById(@Param("id") Long id);
 
+    /**
+     * 根据ID列表批量获取博物馆（不保证顺序，由调用方排序）
+     *
+     * @param ids 博物馆ID列表
+     * @return 博物馆列表
+     */
+    @Select("<script>" +
+            "SELECT " +
+            "m.id, m.name, m.code, m.description, m.address, " +
+            "m.province_code AS provinceCode, p.name AS provinceName, " +
+            "m.city_code AS cityCode, c.name AS cityName, " +
+            "m.district_code AS districtCode, d.name AS districtName, " +
+            "m.longitude, m.latitude, m.phone, m.website, " +
+            "m.open_time AS openTime, m.ticket_price AS ticketPrice, m.ticket_description AS ticketDescription, " +
+            "m.capacity, m.status, m.level, m.type, " +
+            "m.free_admission AS freeAdmission, m.collection_count AS collectionCount, " +
+            "m.precious_items AS preciousItems, m.exhibitions, " +
+            "m.education_activities AS educationActivities, m.visitor_count AS visitorCount, m.display, " +
+            "m.create_at AS createTime, m.update_at AS updateTime, m.checkin_count AS checkinCount " +
+            "FROM museum_info m " +
+            "LEFT JOIN area_provinces p ON m.province_code = p.adcode " +
+            "LEFT JOIN area_cities c ON m.city_code = c.adcode " +
+            "LEFT JOIN area_districts d ON m.district_code = d.adcode " +
+            "WHERE m.deleted = 0 AND m.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<MuseumResponse> selectMuseumsByIds(@Param("ids") List<Long> ids);
+
     /**
      * 分页查询热门博物馆列表
-     * 根据用户打卡次数统计最热门的博物馆
+     * 按冗余的打卡次数 checkin_count 排序，只返回有打卡的博物馆
      *
      * @param page    分页参数
      * @param name    博物馆名称（可选）
@@ -127,7 +214,7 @@ public interface MuseumInfoMapper extends BaseMapper<MuseumInfo> {
             "m.create_at AS createTime, m.update_at AS updateTime, " +
             "cat.id AS category_id, cat.name AS category_name, cat.code AS category_code, " +
             "tag.id AS tag_id, tag.name AS tag_name, tag.code AS tag_code, tag.color AS tag_color, " +
-            "COALESCE(cr.checkin_count, 0) AS checkinCount " +
+            "m.checkin_count AS checkinCount " +
             "FROM museum_info m " +
             "LEFT JOIN area_provinces p ON m.province_code = p.adcode " +
             "LEFT JOIN area_cities c ON m.city_code = c.adcode " +
@@ -136,16 +223,50 @@ public interface MuseumInfoMapper extends BaseMapper<MuseumInfo> {
             "LEFT JOIN museum_category cat ON mcr.category_id = cat.id " +
             "LEFT JOIN museum_tag_relation mtr ON m.id = mtr.museum_id " +
             "LEFT JOIN museum_tag tag ON mtr.tag_id = tag.id " +
-            "INNER JOIN (" +
-            "  SELECT museum_id, COUNT(*) AS checkin_count " +
-            "  FROM checkin_record WHERE deleted = 0 " +
-            "  GROUP BY museum_id HAVING COUNT(*) > 0" +
-            ") cr ON m.id = cr.museum_id " +
-            "WHERE m.deleted = 0 AND m.status = 1 AND m.display = 1 " +
+            "WHERE m.deleted = 0 AND m.status = 1 AND m.display = 1 AND m.checkin_count > 0 " +
             "  <if test='name != null and name != \"\" and name.trim() != \"\"'>" +
             "    AND m.name LIKE CONCAT('%', #{name}, '%')" +
             "  </if>" +
-            "ORDER BY cr.checkin_count DESC, m.visitor_count DESC, m.create_at DESC" +
+            "ORDER BY m.checkin_count DESC, m.visitor_count DESC, m.create_at DESC" +
             "</script>")
     IPage<MuseumResponse> selectHotMuseums(Page<MuseumResponse> page, @Param("name") String name);
+
+    /**
+     * 按省份统计开放中的博物馆数量
+     *
+     * @return 包含 province_code, museum_count（开放中）, display_count（开放中且展示）
+     */
+    @Select("SELECT province_code, COUNT(*) AS museum_count, SUM(display = 1) AS display_count " +
+            "FROM museum_info WHERE deleted = 0 AND status = 1 " +
+            "GROUP BY province_code")
+    List<Map<String, Object>> selectOpenMuseumCountByProvince();
+
+    /**
+     * 增量更新博物馆打卡次数（不低于0）
+     *
+     * @param id 博物馆ID
+     * @param delta 变化量
+     * @return 影响行数
+     */
+    @Update("UPDATE museum_info SET checkin_count = GREATEST(checkin_count + #{delta}, 0) WHERE id = #{id}")
+    int incrementCheckinCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * 从打卡记录重新统计ID范围内博物馆的打卡次数
+     *
+     * @param fromId 起始ID（含）
+     * @param toId 结束ID（含）
+     * @return 影响行数
+     */
+    @Update("UPDATE museum_info m SET m.checkin_count = (" +
+            "  SELECT COUNT(*) FROM checkin_record cr " +
+            "  WHERE cr.museum_id = m.id AND cr.deleted = 0 AND cr.is_draft = 0" +
+            ") WHERE m.id BETWEEN #{fromId} AND #{toId}")
+    int rebuildCheckinCountRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 最大博物馆ID（含已删除），用于分段重建
+     */
+    @Select("SELECT MAX(id) FROM museum_info")
+    Long selectMaxId();
 }
@@ -2,8 +2,10 @@ package com.lynn.museum.info.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lynn.museum.info.entity.UserAchievement;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 
@@ -31,4 +33,57 @@ public interface UserAchievementMapper extends BaseMapper<UserAchievement> {
      * @return 统计信息
      */
     UserAchievement getUserAchievementStats(@Param("userId") Long userId);
+
+    /**
+     * 批量插入用户成就记录
+     *
+     * @param list 用户成就记录
+     * @return 插入行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO user_achievements (user_id, achievement_id, progress, unlocked, unlocked_time, notified, " +
+            "shared, deleted, create_at, update_at) VALUES " +
+            "<foreach collection='list' item='ua' separator=','>" +
+            "(#{ua.userId}, #{ua.achievementId}, #{ua.progress}, #{ua.unlocked}, " +
+            "#{ua.unlockedTime,jdbcType=TIMESTAMP}, #{ua.notified}, 0, 0, NOW(), NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<UserAchievement> list);
+
+    /**
+     * 按ID批量更新成就进度、解锁状态和提示状态
+     *
+     * notified 为空的记录保留原提示状态，避免覆盖并发取出的结果
+     *
+     * @param list 用户成就记录（需包含ID）
+     * @return 更新行数
+     */
+    @Update("<script>" +
+            "UPDATE user_achievements SET " +
+            "progress = CASE id " +
+            "<foreach collection='list' item='ua'>WHEN #{ua.id} THEN #{ua.progress} </foreach>" +
+            "END, " +
+            "unlocked = CASE id " +
+            "<foreach collection='list' item='ua'>WHEN #{ua.id} THEN #{ua.unlocked} </foreach>" +
+            "END, " +
+            "unlocked_time = CASE id " +
+            "<foreach collection='list' item='ua'>WHEN #{ua.id} THEN #{ua.unlockedTime,jdbcType=TIMESTAMP} </foreach>" +
+            "END, " +
+            "notified = COALESCE(CASE id " +
+            "<foreach collection='list' item='ua'>WHEN #{ua.id} THEN #{ua.notified} </foreach>" +
+            "END, notified), " +
+            "update_at = NOW() " +
+            "WHERE id IN " +
+            "<foreach collection='list' item='ua' open='(' separator=',' close=')'>#{ua.id}</foreach>" +
+            "</script>")
+    int updateProgressBatch(@Param("list") List<UserAchievement> list);
+
+    /**
+     * 标记新解锁提示已取出，只有仍未取出时才更新，多个实例并发取出时只有一个成功
+     *
+     * @param id 用户成就记录ID
+     * @return 更新行数，0 表示已被取出
+     */
+    @Update("UPDATE user_achievements SET notified = 1, update_at = NOW() WHERE id = #{id} AND notified = 0")
+    int markNotified(@Param("id") Long id);
 }
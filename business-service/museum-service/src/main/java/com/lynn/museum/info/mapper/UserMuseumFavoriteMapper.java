@@ -10,6 +10,9 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * 用户博物馆收藏 Mapper 接口
  *
@@ -106,6 +109,51 @@ public interface UserMuseumFavoriteMapper extends BaseMapper<UserMuseumFavorite>
             @Param("sortBy") String sortBy
     );
 
+    /**
+     * 游标分页查询用户的博物馆收藏记录（按收藏时间倒序，不统计总数）
+     * 只取收藏记录，博物馆详情由调用方按ID批量加载
+     *
+     * @param userId 用户ID
+     * @param keyword 搜索关键词
+     * @param visitStatus 打卡状态：null-全部，true-已打卡，false-未打卡
+     * @param cursorTime 游标收藏时间，为空表示第一页
+     * @param cursorId 游标收藏记录ID
+     * @param limit 查询条数（每页大小 + 1）
+     * @return 收藏记录
+     */
+    @Select("<script>" +
+            "SELECT uf.id, uf.user_id, uf.museum_id, uf.create_at " +
+            "FROM user_museum_favorite uf " +
+            "INNER JOIN museum_info m ON uf.museum_id = m.id " +
+            "WHERE uf.user_id = #{userId} AND uf.deleted = 0 AND m.deleted = 0 AND m.display = 1 " +
+            "  <if test='cursorTime != null'>" +
+            "    AND (uf.create_at &lt; #{cursorTime} OR (uf.create_at = #{cursorTime} AND uf.id &lt; #{cursorId}))" +
+            "  </if>" +
+            "  <if test='keyword != null and keyword != \"\"'>" +
+            "    AND (m.name LIKE CONCAT('%', #{keyword}, '%') " +
+            "         OR m.description LIKE CONCAT('%', #{keyword}, '%') " +
+            "         OR m.address LIKE CONCAT('%', #{keyword}, '%'))" +
+            "  </if>" +
+            "  <if test='visitStatus != null'>" +
+            "    <if test='visitStatus == true'>" +
+            "      AND EXISTS (SELECT 1 FROM checkin_record cr WHERE cr.user_id = uf.user_id AND cr.museum_id = uf.museum_id AND cr.deleted = 0)" +
+            "    </if>" +
+            "    <if test='visitStatus == false'>" +
+            "      AND NOT EXISTS (SELECT 1 FROM checkin_record cr WHERE cr.user_id = uf.user_id AND cr.museum_id = uf.museum_id AND cr.deleted = 0)" +
+            "    </if>" +
+            "  </if>" +
+            "ORDER BY uf.create_at DESC, uf.id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<UserMuseumFavorite> selectFavoriteCursor(
+            @Param("userId") Long userId,
+            @Param("keyword") String keyword,
+            @Param("visitStatus") Boolean visitStatus,
+            @Param("cursorTime") Date cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
     /**
      * 检查用户是否收藏了指定博物馆
      *
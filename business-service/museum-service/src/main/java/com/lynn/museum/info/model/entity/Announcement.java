@@ -54,6 +54,7 @@ public class Announcement extends BaseEntity {
     private Date expireTime;
 
     @Schema(description = "阅读次数")
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private Integer readCount;
 
     @Schema(description = "创建人ID")
@@ -76,6 +76,7 @@ public class AppVersion extends BaseEntity {
      * 下载次数
      */
     @Schema(description = "下载次数", example = "100")
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private Integer downloadCount;
 
     /**
@@ -74,7 +74,8 @@ public class Banner extends BaseEntity {
     private Date endTime;
 
     /**
-     * 点击次数
+     * 点击次数（由延迟写回计数器累加，更新轮播图时不写入）
      */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private Integer clickCount;
 }
@@ -0,0 +1,40 @@
+package com.lynn.museum.info.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 打卡每日汇总
+ *
+ * 每个 (统计日期, 博物馆) 一行，museum_id = 0 为当日全站汇总。
+ * 由 {@link com.lynn.museum.info.stats.CheckinStatsRollup} 随打卡增删增量维护，表结构见 db/migration/V2__create_checkin_daily_stats.sql
+ *
+ * @author lynn
+ * @since 2024-12-16
+ */
+@Data
+@TableName("checkin_daily_stats")
+public class CheckinDailyStats {
+
+    /**
+     * 全站汇总行的博物馆ID
+     */
+    public static final long GLOBAL_MUSEUM_ID = 0L;
+
+    /**
+     * 统计日期（按打卡时间）
+     */
+    private LocalDate statDate;
+
+    /**
+     * 博物馆ID，0表示全站
+     */
+    private Long museumId;
+
+    /**
+     * 正式打卡次数（不含暂存、已删除）
+     */
+    private Long checkinCount;
+}
@@ -0,0 +1,60 @@
+package com.lynn.museum.info.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 用户博物馆打卡汇总
+ *
+ * 每个 (用户, 博物馆) 一行，由 {@link com.lynn.museum.info.stats.CheckinStatsRollup} 随打卡增删刷新，
+ * 表结构见 db/migration/V3__create_checkin_user_stats.sql
+ *
+ * @author lynn
+ * @since 2024-12-30
+ */
+@Data
+@TableName("checkin_user_museum")
+public class CheckinUserMuseum {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 博物馆ID
+     */
+    private Long museumId;
+
+    /**
+     * 博物馆名称
+     */
+    private String museumName;
+
+    /**
+     * 博物馆所在省份编码
+     */
+    private String provinceCode;
+
+    /**
+     * 正式打卡次数
+     */
+    private Integer checkinCount;
+
+    /**
+     * 照片数量
+     */
+    private Integer photoCount;
+
+    /**
+     * 首次打卡时间
+     */
+    private Date firstCheckinTime;
+
+    /**
+     * 最近打卡时间
+     */
+    private Date lastCheckinTime;
+}
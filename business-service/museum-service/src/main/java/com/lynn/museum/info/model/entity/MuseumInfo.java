@@ -2,7 +2,9 @@ package com.lynn.museum.info.model.entity;
 
 import com.lynn.museum.common.entity.BaseEntity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
@@ -160,4 +162,10 @@ public class MuseumInfo extends BaseEntity {
      * 是否展示：0-不展示，1-展示
      */
     private Integer display;
+
+    /**
+     * 正式打卡次数（冗余计数，只由打卡汇总增量维护，增删改博物馆时不写入）
+     */
+    @TableField(insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Integer checkinCount;
 }
@@ -0,0 +1,52 @@
+package com.lynn.museum.info.ranking;
+
+/**
+ * 热门排行时间窗口
+ *
+ * @author lynn
+ * @since 2025-01-08
+ */
+public enum HotWindow {
+
+    /**
+     * 今日打卡数
+     */
+    DAY("day"),
+
+    /**
+     * 本周（自然周）打卡数
+     */
+    WEEK("week"),
+
+    /**
+     * 累计打卡数
+     */
+    ALL("all"),
+
+    /**
+     * 按半衰期指数衰减的热度
+     */
+    TRENDING("trending");
+
+    private final String code;
+
+    HotWindow(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 按编码解析窗口，无法识别时为累计
+     */
+    public static HotWindow of(String code) {
+        for (HotWindow window : values()) {
+            if (window.code.equalsIgnoreCase(code)) {
+                return window;
+            }
+        }
+        return ALL;
+    }
+}
@@ -0,0 +1,550 @@
+package com.lynn.museum.info.ranking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lynn.museum.info.config.HotRankingConfig;
+import com.lynn.museum.info.dto.MuseumResponse;
+import com.lynn.museum.info.mapper.CheckinRecordMapper;
+import com.lynn.museum.info.mapper.MuseumInfoMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 热门博物馆实时排行
+ *
+ * 打卡事务提交后通过一次 Lua 脚本对四个 Redis 有序集合执行 ZINCRBY（删除打卡时为负数）：
+ * 1. 日榜 {@code museum:hot:day:<yyyyMMdd>}、周榜 {@code museum:hot:week:<年W周>}：按打卡日期计入，过期自动清理
+ * 2. 累计榜 {@code museum:hot:all}
+ * 3. 趋势榜 {@code museum:hot:trending}：前向衰减，每次打卡计入 e^(λ·(打卡时间 - 基准时间))，
+ *    λ = ln2 / 半衰期，同一时刻所有博物馆的分数按相同比例衰减，排序等价于指数衰减后的热度；
+ *    定时归一化把分数换算到新的基准时间（避免指数溢出），同时移除热度过低的博物馆
+ * 查询为 ZREVRANGE，复杂度 O(log n + m)；榜单中的博物馆详情走本地缓存。
+ *
+ * Redis 中没有累计榜时（首次上线或数据丢失），启动后从 checkin_record 重建全部榜单，
+ * 也可通过 {@link #rebuild()} 手动重建。重建期间的打卡增量可能被覆盖，由下次重建修正。
+ *
+ * 榜单只收录开放且展示的博物馆，ZCARD 即可作为分页总数：博物馆状态或展示变化时调用
+ * {@link #refreshMuseum(Long)}，下架的从各榜单移除，重新上架的按打卡记录重新计入。
+ *
+ * @author lynn
+ * @since 2025-01-08
+ */
+@Slf4j
+@Component
+public class MuseumHotRanking {
+
+    /**
+     * KEYS: 日榜, 周榜, 累计榜, 趋势榜, 趋势基准时间
+     * ARGV: 博物馆ID, 增量, 日榜TTL, 周榜TTL（0 表示超出保留期不计入）, 打卡时间(秒), 当前时间(秒), λ
+     */
+    private static final RedisScript<Long> RECORD_SCRIPT = RedisScript.of(
+            "local member = ARGV[1] " +
+            "local delta = tonumber(ARGV[2]) " +
+            "local function bump(key, amount) " +
+            "  local score = tonumber(redis.call('ZINCRBY', key, amount, member)) " +
+            "  if score <= 0 then redis.call('ZREM', key, member) end " +
+            "end " +
+            "if tonumber(ARGV[3]) > 0 then bump(KEYS[1], delta) redis.call('EXPIRE', KEYS[1], ARGV[3]) end " +
+            "if tonumber(ARGV[4]) > 0 then bump(KEYS[2], delta) redis.call('EXPIRE', KEYS[2], ARGV[4]) end " +
+            "bump(KEYS[3], delta) " +
+            "local epoch = tonumber(redis.call('GET', KEYS[5])) " +
+            "if not epoch then epoch = tonumber(ARGV[6]) redis.call('SET', KEYS[5], ARGV[6]) end " +
+            "bump(KEYS[4], delta * math.exp(tonumber(ARGV[7]) * (tonumber(ARGV[5]) - epoch))) " +
+            "return 1",
+            Long.class);
+
+    /**
+     * KEYS: 趋势榜, 趋势基准时间
+     * ARGV: λ, 新基准时间(秒), 最低热度
+     */
+    private static final RedisScript<Long> NORMALIZE_SCRIPT = RedisScript.of(
+            "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+            "if epoch and redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  local factor = math.exp(-tonumber(ARGV[1]) * (tonumber(ARGV[2]) - epoch)) " +
+            "  redis.call('ZUNIONSTORE', KEYS[1], 1, KEYS[1], 'WEIGHTS', factor) " +
+            "  redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3]) " +
+            "end " +
+            "redis.call('SET', KEYS[2], ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = RedisScript.of(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 重建趋势榜时回溯的半衰期个数，更早的打卡贡献不足 0.1%
+     */
+    private static final int TRENDING_LOOKBACK_HALF_LIVES = 10;
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final HotRankingConfig config;
+    private final StringRedisTemplate redisTemplate;
+    private final CheckinRecordMapper checkinRecordMapper;
+    private final MuseumInfoMapper museumInfoMapper;
+    private final Cache<Long, MuseumResponse> detailCache;
+
+    public MuseumHotRanking(HotRankingConfig config,
+                            StringRedisTemplate redisTemplate,
+                            CheckinRecordMapper checkinRecordMapper,
+                            MuseumInfoMapper museumInfoMapper) {
+        this.config = config;
+        this.redisTemplate = redisTemplate;
+        this.checkinRecordMapper = checkinRecordMapper;
+        this.museumInfoMapper = museumInfoMapper;
+        this.detailCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(config.getDetailCacheSeconds()))
+                .maximumSize(config.getDetailCacheMaxSize())
+                .build();
+    }
+
+    /**
+     * Redis 中没有累计榜时从打卡记录重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(allKey()))) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("热门排行预热失败 - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 打卡数变化，事务提交后更新排行
+     *
+     * @param museumId 博物馆ID
+     * @param checkinTime 打卡时间，决定计入的日榜/周榜和趋势权重
+     * @param delta 变化量，新增为 1，删除为 -1
+     */
+    public void record(Long museumId, Date checkinTime, int delta) {
+        if (museumId == null || checkinTime == null || delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(museumId, checkinTime, delta);
+                }
+            });
+        } else {
+            apply(museumId, checkinTime, delta);
+        }
+    }
+
+    /**
+     * 博物馆状态、展示或删除标记变化后同步榜单，事务提交后执行
+     *
+     * @param museumId 博物馆ID
+     */
+    public void refreshMuseum(Long museumId) {
+        if (museumId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resync(museumId);
+                }
+            });
+        } else {
+            resync(museumId);
+        }
+    }
+
+    /**
+     * 查询排行
+     *
+     * @param window 时间窗口
+     * @param offset 起始名次（从0开始）
+     * @param limit 数量
+     * @return 按热度倒序的博物馆，Redis 不可用时为空列表
+     */
+    public List<HotMuseum> top(HotWindow window, long offset, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        try {
+            Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                    .reverseRangeWithScores(keyOf(window), offset, offset + limit - 1);
+            if (tuples == null || tuples.isEmpty()) {
+                return List.of();
+            }
+            // 趋势榜分数相对基准时间，换算为当前时刻的热度
+            double scale = window == HotWindow.TRENDING ? decaySinceEpoch() : 1;
+            List<HotMuseum> result = new ArrayList<>(tuples.size());
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    result.add(new HotMuseum(Long.valueOf(tuple.getValue()), tuple.getScore() * scale));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            log.warn("查询热门排行失败: {} - {}", window.getCode(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 排行中的博物馆数量
+     */
+    public long size(HotWindow window) {
+        try {
+            Long size = redisTemplate.opsForZSet().zCard(keyOf(window));
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            log.warn("查询热门排行数量失败: {} - {}", window.getCode(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 批量获取榜单博物馆详情（本地缓存，未命中的合并为一次查询），返回副本，调用方可自由修改
+     *
+     * @param museumIds 博物馆ID
+     * @return 博物馆ID -> 详情，已删除的博物馆不包含在内
+     */
+    public Map<Long, MuseumResponse> details(Collection<Long> museumIds) {
+        if (museumIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, MuseumResponse> cached = detailCache.getAll(museumIds, missing ->
+                museumInfoMapper.selectMuseumsByIds(new ArrayList<>(missing)).stream()
+                        .collect(Collectors.toMap(MuseumResponse::getId, Function.identity(), (a, b) -> a)));
+        Map<Long, MuseumResponse> result = new LinkedHashMap<>();
+        cached.forEach((id, museum) -> {
+            MuseumResponse copy = new MuseumResponse();
+            BeanUtils.copyProperties(museum, copy);
+            result.put(id, copy);
+        });
+        return result;
+    }
+
+    /**
+     * 定时归一化趋势榜：换算到当前基准时间并移除热度过低的博物馆
+     */
+    @Scheduled(initialDelayString = "${museum.info.hot-ranking.normalize-interval:3600000}",
+            fixedDelayString = "${museum.info.hot-ranking.normalize-interval:3600000}")
+    public void normalizeTrending() {
+        try {
+            redisTemplate.execute(NORMALIZE_SCRIPT, List.of(trendingKey(), epochKey()),
+                    String.valueOf(lambda()), String.valueOf(nowSeconds()), String.valueOf(config.getTrendingMinScore()));
+        } catch (Exception e) {
+            log.warn("归一化趋势榜失败 - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从打卡记录重建全部榜单，多实例同时调用时只有一个实例执行
+     *
+     * @return 是否执行了重建
+     */
+    public boolean rebuild() {
+        String lockKey = config.getKeyPrefix() + "rebuild:lock";
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(lockKey, token, Duration.ofSeconds(config.getRebuildLockSeconds())))) {
+            log.info("其他实例正在重建热门排行，跳过");
+            return false;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            doRebuild();
+            log.info("热门排行重建完成，耗时{}ms", System.currentTimeMillis() - start);
+            return true;
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), token);
+        }
+    }
+
+    private void doRebuild() {
+        LocalDate today = LocalDate.now();
+        long now = nowSeconds();
+        int lookbackDays = lookbackDays();
+        LocalDate from = today.minusDays(lookbackDays - 1L);
+
+        List<Map<String, Object>> daily = checkinRecordMapper.countDailyCheckinsByMuseum(toDate(from.atStartOfDay()), null);
+        Map<String, Map<String, Double>> scores = collectScores(daily, checkinRecordMapper.countCheckinsByMuseum(null), today, now);
+
+        // 保留期内的日榜/周榜逐个替换，没有打卡的直接删除
+        Set<String> replaced = new HashSet<>();
+        for (LocalDate date = from; !date.isAfter(today); date = date.plusDays(1)) {
+            long dayTtl = dayTtl(date, today);
+            if (dayTtl > 0 && replaced.add(dayKey(date))) {
+                replace(dayKey(date), scores.getOrDefault(dayKey(date), Map.of()), dayTtl);
+            }
+            long weekTtl = weekTtl(date, today);
+            if (weekTtl > 0 && replaced.add(weekKey(date))) {
+                replace(weekKey(date), scores.getOrDefault(weekKey(date), Map.of()), weekTtl);
+            }
+        }
+        replace(allKey(), scores.getOrDefault(allKey(), Map.of()), 0);
+        replace(trendingKey(), scores.getOrDefault(trendingKey(), Map.of()), 0);
+        redisTemplate.opsForValue().set(epochKey(), String.valueOf(now));
+        log.info("热门排行重建: 近{}天每日记录{}行, 累计榜{}个博物馆", lookbackDays, daily.size(),
+                scores.getOrDefault(allKey(), Map.of()).size());
+    }
+
+    /**
+     * 按打卡记录重新计算单个博物馆在各榜单的分数：未上架的从所有榜单移除，否则覆盖写入
+     */
+    private void resync(Long museumId) {
+        detailCache.invalidate(museumId);
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate from = today.minusDays(lookbackDays() - 1L);
+            String epoch = redisTemplate.opsForValue().get(epochKey());
+            long epochSeconds = epoch != null ? Long.parseLong(epoch) : nowSeconds();
+            Map<String, Map<String, Double>> scores = collectScores(
+                    checkinRecordMapper.countDailyCheckinsByMuseum(toDate(from.atStartOfDay()), museumId),
+                    checkinRecordMapper.countCheckinsByMuseum(museumId), today, epochSeconds);
+
+            String member = String.valueOf(museumId);
+            Map<String, Long> keys = new LinkedHashMap<>();
+            for (LocalDate date = from; !date.isAfter(today); date = date.plusDays(1)) {
+                long dayTtl = dayTtl(date, today);
+                if (dayTtl > 0) {
+                    keys.putIfAbsent(dayKey(date), dayTtl);
+                }
+                long weekTtl = weekTtl(date, today);
+                if (weekTtl > 0) {
+                    keys.putIfAbsent(weekKey(date), weekTtl);
+                }
+            }
+            keys.put(allKey(), 0L);
+            keys.put(trendingKey(), 0L);
+            keys.forEach((key, ttlSeconds) -> {
+                Double score = scores.getOrDefault(key, Map.of()).get(member);
+                if (score == null) {
+                    redisTemplate.opsForZSet().remove(key, member);
+                    return;
+                }
+                redisTemplate.opsForZSet().add(key, member, score);
+                if (ttlSeconds > 0) {
+                    redisTemplate.expire(key, Duration.ofSeconds(ttlSeconds));
+                }
+            });
+            if (epoch == null) {
+                redisTemplate.opsForValue().setIfAbsent(epochKey(), String.valueOf(epochSeconds));
+            }
+        } catch (Exception e) {
+            log.warn("同步博物馆热门排行失败: museumId={} - {}", museumId, e.getMessage());
+        }
+    }
+
+    /**
+     * 把打卡统计换算为各榜单分数：键 -> 博物馆ID -> 分数，趋势榜分数相对给定的基准时间
+     */
+    private Map<String, Map<String, Double>> collectScores(List<Map<String, Object>> daily, List<Map<String, Object>> totals,
+                                                           LocalDate today, long epochSeconds) {
+        long now = nowSeconds();
+        double lambda = lambda();
+        Map<String, Map<String, Double>> scores = new HashMap<>();
+        for (Map<String, Object> row : daily) {
+            String member = String.valueOf(((Number) row.get("museum_id")).longValue());
+            LocalDate date = toLocalDate(row.get("stat_date"));
+            double count = ((Number) row.get("checkin_count")).doubleValue();
+            if (dayTtl(date, today) > 0) {
+                scores.computeIfAbsent(dayKey(date), k -> new HashMap<>()).merge(member, count, Double::sum);
+            }
+            if (weekTtl(date, today) > 0) {
+                scores.computeIfAbsent(weekKey(date), k -> new HashMap<>()).merge(member, count, Double::sum);
+            }
+            // 当天的打卡按正午（不晚于当前时间）计算衰减
+            long time = Math.min(now, toDate(date.atTime(LocalTime.NOON)).getTime() / 1000);
+            scores.computeIfAbsent(trendingKey(), k -> new HashMap<>())
+                    .merge(member, count * Math.exp(lambda * (time - epochSeconds)), Double::sum);
+        }
+        for (Map<String, Object> row : totals) {
+            scores.computeIfAbsent(allKey(), k -> new HashMap<>())
+                    .put(String.valueOf(((Number) row.get("museum_id")).longValue()), ((Number) row.get("checkin_count")).doubleValue());
+        }
+        return scores;
+    }
+
+    /**
+     * 重建时回溯的天数，覆盖日榜/周榜保留期和趋势榜有效的衰减范围
+     */
+    private int lookbackDays() {
+        int trendingDays = (int) Math.ceil(TRENDING_LOOKBACK_HALF_LIVES * config.getTrendingHalfLifeHours() / 24);
+        return Math.max(Math.max(config.getDayRetentionDays(), config.getWeekRetentionDays()), trendingDays);
+    }
+
+    /**
+     * 写入临时键后 RENAME 替换，查询方不会看到写了一半的榜单
+     */
+    private void replace(String key, Map<String, Double> members, long ttlSeconds) {
+        if (members.isEmpty()) {
+            redisTemplate.delete(key);
+            return;
+        }
+        String tempKey = key + ":rebuild";
+        redisTemplate.delete(tempKey);
+        Set<ZSetOperations.TypedTuple<String>> tuples = members.entrySet().stream()
+                .map(e -> (ZSetOperations.TypedTuple<String>) new DefaultTypedTuple<>(e.getKey(), e.getValue()))
+                .collect(Collectors.toSet());
+        redisTemplate.opsForZSet().add(tempKey, tuples);
+        redisTemplate.rename(tempKey, key);
+        if (ttlSeconds > 0) {
+            redisTemplate.expire(key, Duration.ofSeconds(ttlSeconds));
+        }
+    }
+
+    private void apply(Long museumId, Date checkinTime, int delta) {
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate date = toLocalDate(checkinTime);
+            redisTemplate.execute(RECORD_SCRIPT,
+                    List.of(dayKey(date), weekKey(date), allKey(), trendingKey(), epochKey()),
+                    String.valueOf(museumId),
+                    String.valueOf(delta),
+                    String.valueOf(dayTtl(date, today)),
+                    String.valueOf(weekTtl(date, today)),
+                    String.valueOf(checkinTime.getTime() / 1000),
+                    String.valueOf(nowSeconds()),
+                    String.valueOf(lambda()));
+        } catch (Exception e) {
+            log.warn("更新热门排行失败: museumId={}, delta={} - {}", museumId, delta, e.getMessage());
+        }
+    }
+
+    /**
+     * 当前时刻相对趋势基准时间的衰减系数
+     */
+    private double decaySinceEpoch() {
+        String epoch = redisTemplate.opsForValue().get(epochKey());
+        if (epoch == null) {
+            return 1;
+        }
+        return Math.exp(-lambda() * (nowSeconds() - Long.parseLong(epoch)));
+    }
+
+    /**
+     * 衰减常数 λ（每秒）
+     */
+    private double lambda() {
+        return Math.log(2) / (config.getTrendingHalfLifeHours() * 3600);
+    }
+
+    /**
+     * 日榜剩余保留时间（秒），超出保留期返回 0
+     */
+    private long dayTtl(LocalDate date, LocalDate today) {
+        return secondsUntil(date.plusDays(config.getDayRetentionDays()), today);
+    }
+
+    /**
+     * 周榜剩余保留时间（秒），从该周周一开始计算，超出保留期返回 0
+     */
+    private long weekTtl(LocalDate date, LocalDate today) {
+        LocalDate monday = date.minusDays(date.getDayOfWeek().getValue() - 1L);
+        return secondsUntil(monday.plusDays(config.getWeekRetentionDays()), today);
+    }
+
+    private static long secondsUntil(LocalDate expireDate, LocalDate today) {
+        if (!expireDate.isAfter(today)) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(LocalDateTime.now(), expireDate.atStartOfDay()).getSeconds());
+    }
+
+    private String keyOf(HotWindow window) {
+        LocalDate today = LocalDate.now();
+        return switch (window) {
+            case DAY -> dayKey(today);
+            case WEEK -> weekKey(today);
+            case TRENDING -> trendingKey();
+            default -> allKey();
+        };
+    }
+
+    private String dayKey(LocalDate date) {
+        return config.getKeyPrefix() + "day:" + date.format(DAY_FORMAT);
+    }
+
+    private String weekKey(LocalDate date) {
+        return config.getKeyPrefix() + "week:" + date.get(IsoFields.WEEK_BASED_YEAR)
+                + "W" + String.format("%02d", date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    private String allKey() {
+        return config.getKeyPrefix() + "all";
+    }
+
+    private String trendingKey() {
+        return config.getKeyPrefix() + "trending";
+    }
+
+    private String epochKey() {
+        return config.getKeyPrefix() + "trending:epoch";
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate localDate) {
+            return localDate;
+        }
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        if (value instanceof Date date) {
+            return toLocalDate(date);
+        }
+        return LocalDate.parse(String.valueOf(value));
+    }
+
+    /**
+     * 排行条目
+     *
+     * @param museumId 博物馆ID
+     * @param score 日榜/周榜/累计榜为打卡数，趋势榜为当前热度
+     */
+    public record HotMuseum(Long museumId, double score) {
+    }
+}
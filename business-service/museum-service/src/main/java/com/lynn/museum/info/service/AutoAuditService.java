@@ -3,6 +3,8 @@ package com.lynn.museum.info.service;
 import com.lynn.museum.info.dto.AutoAuditRequest;
 import com.lynn.museum.info.dto.AutoAuditResponse;
 
+import java.util.List;
+
 /**
  * 自动审核服务接口
  * 
@@ -23,6 +25,17 @@ public interface AutoAuditService {
      */
     AutoAuditResponse performAutoAudit(AutoAuditRequest request);
 
+    /**
+     * 批量执行自动审核
+     * 
+     * 与 {@link #performAutoAudit} 不同，审核系统调用失败时直接抛出异常，由调用方决定重试。
+     * 当前实现在本地逐条执行审核规则；对接远程审核系统时应在此一次提交整批记录。
+     * 
+     * @param requests 自动审核请求
+     * @return 审核结果，与请求一一对应
+     */
+    List<AutoAuditResponse> performAutoAuditBatch(List<AutoAuditRequest> requests);
+
     /**
      * 检查自动审核系统是否可用
      * 
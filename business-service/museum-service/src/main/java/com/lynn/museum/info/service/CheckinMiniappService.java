@@ -1,6 +1,7 @@
 package com.lynn.museum.info.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.lynn.museum.common.entity.CursorPage;
 import com.lynn.museum.info.dto.*;
 import com.lynn.museum.info.model.entity.CheckinRecord;
 
@@ -22,6 +23,14 @@ public interface CheckinMiniappService {
      */
     IPage<CheckinRecord> getCheckinRecords(CheckinRecordQueryRequest query);
 
+    /**
+     * 游标分页获取打卡记录列表（按打卡时间倒序，不统计总数）
+     *
+     * @param query 查询条件，pageSize 为每页大小
+     * @param cursor 上一页返回的游标，为空表示第一页
+     */
+    CursorPage<CheckinRecord> getCheckinRecordsByCursor(CheckinRecordQueryRequest query, String cursor);
+
     /**
      * 获取打卡详情
      */
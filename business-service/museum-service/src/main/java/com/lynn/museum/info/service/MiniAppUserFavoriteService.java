@@ -1,6 +1,7 @@
 package com.lynn.museum.info.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.lynn.museum.common.entity.CursorPage;
 import com.lynn.museum.info.dto.ExhibitionResponse;
 import com.lynn.museum.info.dto.MuseumResponse;
 
@@ -62,6 +63,19 @@ public interface MiniAppUserFavoriteService {
     IPage<MuseumResponse> getUserFavoriteMuseums(Long userId, Integer page, Integer pageSize, 
                                                 String keyword, Boolean visitStatus, String sortBy);
 
+    /**
+     * 游标分页查询用户收藏的博物馆（按收藏时间倒序，不统计总数）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param pageSize 页面大小
+     * @param keyword 搜索关键词
+     * @param visitStatus 打卡状态
+     * @return 游标分页结果
+     */
+    CursorPage<MuseumResponse> getUserFavoriteMuseumsByCursor(Long userId, String cursor, Integer pageSize,
+                                                              String keyword, Boolean visitStatus);
+
     /**
      * 分页查询用户收藏的展览
      *
@@ -3,6 +3,7 @@ package com.lynn.museum.info.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.lynn.museum.info.dto.CategoryResponse;
 import com.lynn.museum.info.dto.MuseumResponse;
+import com.lynn.museum.info.dto.MuseumSuggestResponse;
 import com.lynn.museum.info.dto.NearbyMuseumsResponse;
 import com.lynn.museum.info.model.entity.MuseumInfo;
 
@@ -53,6 +54,15 @@ public interface MiniappMuseumService {
      */
     IPage<MuseumResponse> searchMuseums(String keyword, Integer page, Integer pageSize, String cityCode, String sortBy);
 
+    /**
+     * 搜索联想
+     *
+     * @param keyword 输入的关键词（支持拼音首字母）
+     * @param limit   返回数量
+     * @return 联想结果
+     */
+    List<MuseumSuggestResponse> suggestMuseums(String keyword, Integer limit);
+
     /**
      * 获取博物馆详情
      *
@@ -75,14 +85,15 @@ public interface MiniappMuseumService {
 
     /**
      * 分页获取热门博物馆列表
-     * 根据用户打卡次数统计最热门的博物馆
+     * 根据用户打卡次数统计最热门的博物馆，不按名称搜索时直接读取实时排行
      *
      * @param page     当前页
      * @param pageSize 页面大小
      * @param name     博物馆名称（可选）
+     * @param window   排行窗口：day、week、all、trending
      * @return 分页结果
      */
-    IPage<MuseumResponse> getHotMuseums(Integer page, Integer pageSize, String name);
+    IPage<MuseumResponse> getHotMuseums(Integer page, Integer pageSize, String name, String window);
 
     /**
      * 获取博物馆分类列表
@@ -2,6 +2,7 @@ package com.lynn.museum.info.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.lynn.museum.common.entity.CursorPage;
 import com.lynn.museum.info.dto.MuseumCreateRequest;
 import com.lynn.museum.info.dto.MuseumQueryRequest;
 import com.lynn.museum.info.dto.MuseumResponse;
@@ -26,6 +27,15 @@ public interface MuseumInfoService extends IService<MuseumInfo> {
      */
     IPage<MuseumResponse> getMuseumPage(MuseumQueryRequest query);
 
+    /**
+     * 游标分页查询博物馆列表（按创建时间倒序，不统计总数）
+     *
+     * @param query 查询条件，size 为每页大小，忽略页码和排序方式
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @return 游标分页结果
+     */
+    CursorPage<MuseumResponse> getMuseumCursorPage(MuseumQueryRequest query, String cursor);
+
     /**
      * 获取博物馆详情
      *
@@ -2,6 +2,7 @@ package com.lynn.museum.info.service;
 
 import com.lynn.museum.info.dto.MuseumStatisticsResponse;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -32,4 +33,34 @@ public interface MuseumStatisticsService {
      * @return 城市统计列表 [{name: "北京市", value: 50}, ...]
      */
     List<Map<String, Object>> getMuseumCountByCity(String provinceCode);
+
+    /**
+     * 从打卡记录重建打卡每日汇总
+     *
+     * @param from 开始日期（为空时从最早的打卡开始）
+     * @param to 结束日期（为空时到今日）
+     * @return 重建的月份数
+     */
+    int rebuildCheckinStatistics(LocalDate from, LocalDate to);
+
+    /**
+     * 从打卡记录重建全部用户打卡档案
+     *
+     * @return 重建的用户分段数
+     */
+    int rebuildCheckinUserStats();
+
+    /**
+     * 从打卡记录重新统计全部博物馆的打卡次数
+     *
+     * @return 重建的博物馆分段数
+     */
+    int rebuildMuseumCheckinCounts();
+
+    /**
+     * 从打卡记录重建 Redis 热门排行
+     *
+     * @return 是否执行了重建（其他实例正在重建时为 false）
+     */
+    boolean rebuildHotRanking();
 }
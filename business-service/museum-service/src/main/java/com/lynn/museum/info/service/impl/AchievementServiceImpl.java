@@ -1,13 +1,13 @@
 package com.lynn.museum.info.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lynn.museum.info.achievement.AchievementCatalog;
+import com.lynn.museum.info.achievement.AchievementEngine;
 import com.lynn.museum.info.dto.AchievementResponse;
 import com.lynn.museum.info.dto.AchievementStatsResponse;
 import com.lynn.museum.info.entity.Achievement;
 import com.lynn.museum.info.entity.UserAchievement;
-import com.lynn.museum.info.mapper.AchievementMapper;
 import com.lynn.museum.info.mapper.UserAchievementMapper;
-import com.lynn.museum.info.mapper.CheckinRecordMapper;
 import com.lynn.museum.info.service.AchievementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,20 +30,16 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AchievementServiceImpl implements AchievementService {
 
-    private final AchievementMapper achievementMapper;
+    private final AchievementCatalog achievementCatalog;
+    private final AchievementEngine achievementEngine;
     private final UserAchievementMapper userAchievementMapper;
-    private final CheckinRecordMapper checkinRecordMapper;
 
     private static final SimpleDateFormat DATE_FORMATTER = new SimpleDateFormat("yyyy-MM-dd");
 
     @Override
     public List<AchievementResponse> getUserAchievements(Long userId) {
         // 获取所有启用的成就
-        List<Achievement> allAchievements = achievementMapper.selectList(
-                new LambdaQueryWrapper<Achievement>()
-                        .eq(Achievement::getStatus, 1)
-                        .orderByAsc(Achievement::getSortOrder)
-        );
+        List<Achievement> allAchievements = achievementCatalog.all();
 
         if (allAchievements.isEmpty()) {
             log.warn("系统中暂无成就数据");
@@ -139,115 +135,47 @@ public class AchievementServiceImpl implements AchievementService {
     }
 
     @Override
-    @Transactional
     public List<AchievementResponse> checkAndUnlockAchievements(Long userId) {
         log.info("检查并解锁用户成就，用户ID：{}", userId);
 
+        // 打卡后成就已由引擎异步计算，这里补算一次该用户，再取出尚未提示的新解锁成就
+        achievementEngine.evaluateNow(userId);
+
         List<AchievementResponse> newUnlockedAchievements = new ArrayList<>();
-        
-        // 确保用户成就数据已初始化
-        initUserAchievements(userId);
-        
-        // 检查打卡成就
-        checkCheckinAchievements(userId, newUnlockedAchievements);
-        
-        // 检查社交成就
-        checkSocialAchievements(userId, newUnlockedAchievements);
+        for (UserAchievement userAchievement : achievementEngine.drainUnlocked(userId)) {
+            Achievement achievement = achievementCatalog.getById(userAchievement.getAchievementId());
+            if (achievement == null) {
+                continue;
+            }
+            AchievementResponse achievementResponse = new AchievementResponse();
+            achievementResponse.setId(achievement.getAchievementKey());
+            achievementResponse.setName(achievement.getName());
+            achievementResponse.setDescription(achievement.getDescription());
+            achievementResponse.setIcon(achievement.getIcon());
+            achievementResponse.setCategory(achievement.getCategory());
+            achievementResponse.setRequirement(achievement.getRequirement());
+            achievementResponse.setTarget(achievement.getTarget());
+            achievementResponse.setRarity(achievement.getRarity());
+            achievementResponse.setProgress(userAchievement.getProgress());
+            achievementResponse.setUnlocked(true);
+            if (userAchievement.getUnlockedTime() != null) {
+                achievementResponse.setUnlockedDate(DATE_FORMATTER.format(userAchievement.getUnlockedTime()));
+            }
+            newUnlockedAchievements.add(achievementResponse);
+        }
         
         if (!newUnlockedAchievements.isEmpty()) {
             log.info("解锁成就: userId={}, count={}", userId, newUnlockedAchievements.size());
         }
         return newUnlockedAchievements;
     }
-    
-    /**
-     * 根据用户打卡记录检查打卡成就
-     */
-    private void checkCheckinAchievements(Long userId, List<AchievementResponse> newUnlockedAchievements) {
-        try {
-            // 1. 查询用户打卡记录数量（仅统计审核通过的记录）
-            Integer checkinCount = checkinRecordMapper.countUserCheckins(userId);
-            
-            // 2. 查询用户打卡的不同博物馆数量
-            Integer uniqueMuseumCount = checkinRecordMapper.countUserUniqueMuseums(userId);
-            
-            // 3. 获取所有打卡相关的成就
-            List<Achievement> checkinAchievements = achievementMapper.selectList(
-                    new LambdaQueryWrapper<Achievement>()
-                            .eq(Achievement::getStatus, 1)
-                            .like(Achievement::getAchievementKey, "checkin")
-                            .orderByAsc(Achievement::getTarget)
-            );
-            
-            // 4. 检查每个打卡成就是否达成
-            for (Achievement achievement : checkinAchievements) {
-                // 查询用户当前成就状态
-                UserAchievement userAchievement = userAchievementMapper.selectOne(
-                        new LambdaQueryWrapper<UserAchievement>()
-                                .eq(UserAchievement::getUserId, userId)
-                                .eq(UserAchievement::getAchievementId, achievement.getId())
-                );
-                
-                if (userAchievement != null && userAchievement.getUnlocked() != 1) {
-                    // 更新进度
-                    userAchievement.setProgress(checkinCount);
-                    
-                    // 检查是否达成成就条件
-                    if (checkinCount >= achievement.getTarget()) {
-                        userAchievement.setUnlocked(1);
-                        userAchievement.setUnlockedTime(new Date());
-                        log.info("解锁成就: userId={}, achievement={}", userId, achievement.getName());
-                        
-                        // 构造返回的成就信息
-                        AchievementResponse achievementResponse = new AchievementResponse();
-                        achievementResponse.setId(achievement.getAchievementKey());
-                        achievementResponse.setName(achievement.getName());
-                        achievementResponse.setDescription(achievement.getDescription());
-                        achievementResponse.setIcon(achievement.getIcon());
-                        achievementResponse.setCategory(achievement.getCategory());
-                        achievementResponse.setRequirement(achievement.getRequirement());
-                        achievementResponse.setTarget(achievement.getTarget());
-                        achievementResponse.setRarity(achievement.getRarity());
-                        achievementResponse.setProgress(checkinCount);
-                        achievementResponse.setUnlocked(true);
-                        achievementResponse.setUnlockedDate(DATE_FORMATTER.format(new Date()));
-                        
-                        newUnlockedAchievements.add(achievementResponse);
-                    }
-                    
-                    // 更新用户成就记录
-                    userAchievementMapper.updateById(userAchievement);
-                } else if (userAchievement != null && userAchievement.getUnlocked() == 1) {
-                    // 已解锁的成就，仅更新进度
-                    if (userAchievement.getProgress() < checkinCount) {
-                        userAchievement.setProgress(checkinCount);
-                        userAchievementMapper.updateById(userAchievement);
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("检查用户 {} 打卡成就时发生异常", userId, e);
-        }
-    }
-    
-    /**
-     * 根据用户分享记录检查社交成就
-     */
-    private void checkSocialAchievements(Long userId, List<AchievementResponse> newUnlockedAchievements) {
-        // TODO: 实现社交成就检查逻辑
-    }
 
     @Override
     @Transactional
     public Boolean shareAchievement(Long userId, String achievementKey) {
         try {
             // 查找成就
-            Achievement achievement = achievementMapper.selectOne(
-                    new LambdaQueryWrapper<Achievement>()
-                            .eq(Achievement::getAchievementKey, achievementKey)
-                            .eq(Achievement::getStatus, 1)
-            );
+            Achievement achievement = achievementCatalog.getByKey(achievementKey);
 
             if (achievement == null) {
                 log.warn("成就不存在或已禁用：{}", achievementKey);
@@ -284,10 +212,7 @@ public class AchievementServiceImpl implements AchievementService {
     @Transactional
     public void initUserAchievements(Long userId) {
         // 获取所有启用的成就
-        List<Achievement> achievements = achievementMapper.selectList(
-                new LambdaQueryWrapper<Achievement>()
-                        .eq(Achievement::getStatus, 1)
-        );
+        List<Achievement> achievements = achievementCatalog.all();
 
         // 检查用户是否已有成就记录
         List<UserAchievement> existingUserAchievements = userAchievementMapper.selectList(
@@ -323,7 +248,7 @@ public class AchievementServiceImpl implements AchievementService {
                 }).collect(Collectors.toList());
 
         if (!newUserAchievements.isEmpty()) {
-            newUserAchievements.forEach(userAchievementMapper::insert);
+            userAchievementMapper.insertBatch(newUserAchievements);
         }
         
         // 检查已存在的用户是否需要补充解锁注册成就
@@ -356,11 +281,7 @@ public class AchievementServiceImpl implements AchievementService {
     public void updateAchievementProgress(Long userId, String achievementKey, Integer progress) {
 
         // 查找成就
-        Achievement achievement = achievementMapper.selectOne(
-                new LambdaQueryWrapper<Achievement>()
-                        .eq(Achievement::getAchievementKey, achievementKey)
-                        .eq(Achievement::getStatus, 1)
-        );
+        Achievement achievement = achievementCatalog.getByKey(achievementKey);
 
         if (achievement == null) {
             log.warn("成就不存在或已禁用：{}", achievementKey);
@@ -5,6 +5,10 @@ import java.util.Date;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lynn.museum.common.counter.WriteBehindCounter;
+import com.lynn.museum.common.counter.WriteBehindCounters;
 import com.lynn.museum.common.exception.BizException;
 import com.lynn.museum.info.dto.AnnouncementCreateRequest;
 import com.lynn.museum.info.dto.AnnouncementQueryRequest;
@@ -12,12 +16,16 @@ import com.lynn.museum.info.dto.AnnouncementResponse;
 import com.lynn.museum.info.mapper.AnnouncementMapper;
 import com.lynn.museum.info.model.entity.Announcement;
 import com.lynn.museum.info.service.AnnouncementService;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.time.ZoneId;
@@ -34,6 +42,27 @@ public class AnnouncementServiceImpl implements AnnouncementService {
     @Autowired
     private AnnouncementMapper announcementMapper;
 
+    @Autowired
+    private WriteBehindCounters writeBehindCounters;
+
+    /**
+     * 阅读次数在内存中累加，定时批量写回
+     */
+    private WriteBehindCounter readCounter;
+
+    /**
+     * 公告是否存在（未删除）的短期缓存（1分钟），阅读计数前校验ID，不存在或已删除的ID不计数
+     */
+    private final Cache<Long, Boolean> existence = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .maximumSize(10000)
+            .build();
+
+    @PostConstruct
+    public void registerCounters() {
+        readCounter = writeBehindCounters.register("announcement.read", announcementMapper::incrementReadCounts);
+    }
+
     @Override
     public IPage<AnnouncementResponse> getAnnouncementList(AnnouncementQueryRequest request) {
         LambdaQueryWrapper<Announcement> queryWrapper = new LambdaQueryWrapper<>();
@@ -62,6 +91,7 @@ public class AnnouncementServiceImpl implements AnnouncementService {
     }
 
     @Override
+    @CacheEvict(value = "museum_announcement", allEntries = true)
     public Long createAnnouncement(AnnouncementCreateRequest request) {
         Announcement announcement = new Announcement();
         BeanUtils.copyProperties(request, announcement);
@@ -83,6 +113,7 @@ public class AnnouncementServiceImpl implements AnnouncementService {
     }
 
     @Override
+    @CacheEvict(value = "museum_announcement", allEntries = true)
     public boolean updateAnnouncement(Long id, AnnouncementCreateRequest request) {
         Announcement announcement = announcementMapper.selectById(id);
         if (announcement == null || announcement.getDeleted() == 1) {
@@ -116,6 +147,7 @@ public class AnnouncementServiceImpl implements AnnouncementService {
     }
 
     @Override
+    @CacheEvict(value = "museum_announcement", allEntries = true)
     public boolean deleteAnnouncement(Long id) {
         // 使用 MyBatis-Plus 的逻辑删除，会自动设置 deleted=1
         // selectById 会自动过滤已删除的记录
@@ -125,10 +157,13 @@ public class AnnouncementServiceImpl implements AnnouncementService {
         }
 
         // 使用 deleteById 会触发逻辑删除，自动将 deleted 设置为 1
-        return announcementMapper.deleteById(id) > 0;
+        boolean deleted = announcementMapper.deleteById(id) > 0;
+        existence.invalidate(id);
+        return deleted;
     }
 
     @Override
+    @CacheEvict(value = "museum_announcement", allEntries = true)
     public boolean updateStatus(Long id, Integer status) {
         Announcement announcement = announcementMapper.selectById(id);
         if (announcement == null || announcement.getDeleted() == 1) {
@@ -146,16 +181,19 @@ public class AnnouncementServiceImpl implements AnnouncementService {
     }
 
     @Override
+    @CacheEvict(value = "museum_announcement", allEntries = true)
     public boolean publishAnnouncement(Long id) {
         return updateStatus(id, 1);
     }
 
     @Override
+    @CacheEvict(value = "museum_announcement", allEntries = true)
     public boolean offlineAnnouncement(Long id) {
         return updateStatus(id, 2);
     }
 
     @Override
+    @Cacheable(value = "museum_announcement", key = "'active:' + #limit", sync = true)
     public List<AnnouncementResponse> getActiveAnnouncements(Integer limit) {
         LambdaQueryWrapper<Announcement> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Announcement::getStatus, 1)
@@ -176,6 +214,7 @@ public class AnnouncementServiceImpl implements AnnouncementService {
     }
 
     @Override
+    @CacheEvict(value = "museum_announcement", allEntries = true)
     public boolean updateEnabled(Long id, Integer enabled) {
         // 验证公告是否存在
         Announcement announcement = announcementMapper.selectById(id);
@@ -249,13 +288,11 @@ public class AnnouncementServiceImpl implements AnnouncementService {
 
     @Override
     public boolean incrementReadCount(Long id) {
-        Announcement announcement = announcementMapper.selectById(id);
-        if (announcement == null || announcement.getDeleted() == 1) {
+        if (id == null || !existence.get(id, key -> announcementMapper.selectById(key) != null)) {
             return false;
         }
-
-        announcement.setReadCount(announcement.getReadCount() + 1);
-        return announcementMapper.updateById(announcement) > 0;
+        readCounter.increment(id);
+        return true;
     }
 
     private AnnouncementResponse convertToResponse(Announcement announcement) {
@@ -7,14 +7,18 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lynn.museum.api.file.client.FileApiClient;
+import com.lynn.museum.common.counter.WriteBehindCounter;
+import com.lynn.museum.common.counter.WriteBehindCounters;
 import com.lynn.museum.info.dto.*;
 import com.lynn.museum.info.entity.FileBusinessRelation;
 import com.lynn.museum.info.enums.BusinessTypeEnum;
 import com.lynn.museum.info.enums.RelationTypeEnum;
+import com.lynn.museum.info.file.FileUrlResolver;
 import com.lynn.museum.info.mapper.AppVersionMapper;
 import com.lynn.museum.info.model.entity.AppVersion;
 import com.lynn.museum.info.service.AppVersionService;
 import com.lynn.museum.info.service.FileBusinessRelationService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -41,6 +45,18 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
 
     private final FileBusinessRelationService fileBusinessRelationService;
     private final FileApiClient fileApiClient;
+    private final FileUrlResolver fileUrlResolver;
+    private final WriteBehindCounters writeBehindCounters;
+
+    /**
+     * 下载次数在内存中累加，定时批量写回
+     */
+    private WriteBehindCounter downloadCounter;
+
+    @PostConstruct
+    public void registerCounters() {
+        downloadCounter = writeBehindCounters.register("app-version.download", baseMapper::incrementDownloadCounts);
+    }
 
     @Override
     public IPage<AppVersionResponse> getAppVersions(AppVersionQueryRequest query) {
@@ -116,39 +132,15 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
                 .distinct()
                 .collect(Collectors.toList());
 
-        // 4. 批量获取文件信息
-        try {
-            Map<String, Object> response = fileApiClient.getBatchFileInfo(fileIds);
-            if (response != null && response.get("data") != null) {
-                // 注意：JSON序列化后，Map的key（原本是Long）会变成String
-                @SuppressWarnings("unchecked")
-                Map<String, Object> dataMap = (Map<String, Object>) response.get("data");
-                
-                
-                // 5. 构建 versionId -> fileSize 的映射
-                for (FileBusinessRelation relation : relations) {
-                    // 将 Long 类型的 fileId 转为 String 作为 key
-                    String fileIdKey = String.valueOf(relation.getFileId());
-                    Object fileRecordObj = dataMap.get(fileIdKey);
-                    
-                    if (fileRecordObj instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> fileRecord = (Map<String, Object>) fileRecordObj;
-                        Object fileSizeObj = fileRecord.get("fileSize");
-                        if (fileSizeObj != null) {
-                            Long fileSize = 0L;
-                            if (fileSizeObj instanceof Integer) {
-                                fileSize = ((Integer) fileSizeObj).longValue();
-                            } else if (fileSizeObj instanceof Long) {
-                                fileSize = (Long) fileSizeObj;
-                            }
-                            fileSizeMap.put(relation.getBusinessId(), fileSize);
-                        }
-                    }
-                }
+        // 4. 批量获取文件大小（经解析器缓存）
+        Map<Long, Long> sizeByFileId = fileUrlResolver.getFileSizes(fileIds);
+
+        // 5. 构建 versionId -> fileSize 的映射
+        for (FileBusinessRelation relation : relations) {
+            Long fileSize = sizeByFileId.get(relation.getFileId());
+            if (fileSize != null) {
+                fileSizeMap.put(relation.getBusinessId(), fileSize);
             }
-        } catch (Exception e) {
-            log.error("批量获取文件信息失败: {}", e.getMessage(), e);
         }
 
         return fileSizeMap;
@@ -290,9 +282,11 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
                         log.info("更新文件关联记录: relationId={}, 旧fileId={}, 新fileId={}", 
                                 request.getFileRelationId(), relation.getFileId(), request.getFileId());
                         
+                        Long oldFileId = relation.getFileId();
                         relation.setFileId(request.getFileId());
                         relation.setUpdateBy(request.getUpdateBy());
                         fileBusinessRelationService.updateById(relation);
+                        fileUrlResolver.evict(oldFileId);
                     } else {
                         log.info("文件ID没有变化，不需要更新文件关联: relationId={}, fileId={}", 
                                 request.getFileRelationId(), request.getFileId());
@@ -320,9 +314,11 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
                         log.info("更新现有文件关联: relationId={}, 旧fileId={}, 新fileId={}", 
                                 existingRelation.getId(), existingRelation.getFileId(), request.getFileId());
                         
+                        Long oldFileId = existingRelation.getFileId();
                         existingRelation.setFileId(request.getFileId());
                         existingRelation.setUpdateBy(request.getUpdateBy());
                         fileBusinessRelationService.updateById(existingRelation);
+                        fileUrlResolver.evict(oldFileId);
                     } else {
                         // 文件ID没有变化，不需要更新
                         log.info("文件ID没有变化，不需要更新文件关联: fileId={}, businessId={}", 
@@ -351,7 +347,9 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
         // 1. 逻辑删除版本记录
         baseMapper.deleteById(id);
 
-        // 2. 删除文件关联记录
+        // 2. 删除文件关联记录，并移除安装包的URL缓存
+        fileUrlResolver.evictAll(fileBusinessRelationService.getBusinessFileIds(
+                id, BusinessTypeEnum.APP_VERSION, RelationTypeEnum.INSTALLATION_PACKAGE));
         fileBusinessRelationService.lambdaUpdate()
                 .eq(FileBusinessRelation::getBusinessId, id)
                 .eq(FileBusinessRelation::getBusinessType, BusinessTypeEnum.APP_VERSION)
@@ -396,13 +394,8 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
     }
 
     @Override
-    @Transactional
     public void updateDownloadCount(Long id) {
-        AppVersion appVersion = baseMapper.selectById(id);
-        if (appVersion != null) {
-            appVersion.setDownloadCount((appVersion.getDownloadCount() != null ? appVersion.getDownloadCount() : 0) + 1);
-            baseMapper.updateById(appVersion);
-        }
+        downloadCounter.increment(id);
     }
 
     @Override
@@ -552,26 +545,11 @@ public class AppVersionServiceImpl extends ServiceImpl<AppVersionMapper, AppVers
             log.debug("填充文件关系表信息，关系表ID: {}, 文件ID: {}", relation.getId(), relation.getFileId());
             try {
                 // 获取文件下载URL
-                Map<String, Object> urlResponse = fileApiClient.getFileUrl(relation.getFileId());
-                if (urlResponse != null && urlResponse.get("data") != null) {
-                    response.setDownloadUrl((String) urlResponse.get("data"));
-                }
+                response.setDownloadUrl(fileUrlResolver.getUrl(relation.getFileId()));
 
-                // 获取文件详情（包含文件大小）
-                Map<String, Object> fileInfoResponse = fileApiClient.getFileInfo(relation.getFileId());
-                if (fileInfoResponse != null && fileInfoResponse.get("data") != null) {
-                    Map<String, Object> fileData = (Map<String, Object>) fileInfoResponse.get("data");
-                    Object fileSizeObj = fileData.get("fileSize");
-                    
-                    Long fileSize = 0L;
-                    if (fileSizeObj != null) {
-                        if (fileSizeObj instanceof Integer) {
-                            fileSize = ((Integer) fileSizeObj).longValue();
-                        } else if (fileSizeObj instanceof Long) {
-                            fileSize = (Long) fileSizeObj;
-                        }
-                    }
-                    
+                // 获取文件大小
+                Long fileSize = fileUrlResolver.getFileSizes(List.of(relation.getFileId())).get(relation.getFileId());
+                if (fileSize != null) {
                     response.setFileSize(formatFileSize(fileSize));
                     log.debug("获取文件大小成功，文件ID: {}, 大小: {} bytes", relation.getFileId(), fileSize);
                 } else {
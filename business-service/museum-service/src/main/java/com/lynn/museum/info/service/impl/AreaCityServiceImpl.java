@@ -53,7 +53,7 @@ public class AreaCityServiceImpl implements AreaCityService {
     }
 
     @Override
-    @Cacheable(value = "cities", key = "#provinceAdcode")
+    @Cacheable(value = "cities", key = "'province:' + #provinceAdcode", sync = true)
     public List<CityResponse> getCitiesByProvince(String provinceAdcode) {
         LambdaQueryWrapper<AreaCity> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(AreaCity::getProvinceAdcode, provinceAdcode)
@@ -63,7 +63,7 @@ public class AreaCityServiceImpl implements AreaCityService {
     }
 
     @Override
-    @Cacheable(value = "cities", key = "#id")
+    @Cacheable(value = "cities", key = "'id:' + #id", sync = true)
     public CityResponse getCityById(Integer id) {
         AreaCity city = cityMapper.selectById(id);
         if (city == null) {
@@ -73,7 +73,7 @@ public class AreaCityServiceImpl implements AreaCityService {
     }
 
     @Override
-    @Cacheable(value = "cities", key = "#adcode")
+    @Cacheable(value = "cities", key = "'adcode:' + #adcode", sync = true)
     public CityResponse getCityByAdcode(String adcode) {
         LambdaQueryWrapper<AreaCity> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(AreaCity::getAdcode, adcode);
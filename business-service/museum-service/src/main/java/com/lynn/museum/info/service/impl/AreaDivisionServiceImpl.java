@@ -43,14 +43,14 @@ public class AreaDivisionServiceImpl implements AreaDivisionService {
     private final AreaStreetMapper streetMapper;
 
     @Override
-    @Cacheable(value = "area:provinces", key = "'all'")
+    @Cacheable(value = "area:provinces", key = "'all'", sync = true)
     public List<AreaDivisionResponse> getAllProvinces() {
         List<AreaProvince> provinces = provinceMapper.selectList(null);
         return provinces.stream().map(this::convertProvinceToResponse).collect(Collectors.toList());
     }
 
     @Override
-    @Cacheable(value = "area:cities", key = "#provinceCode")
+    @Cacheable(value = "area:cities", key = "#provinceCode", sync = true)
     public List<AreaDivisionResponse> getCitiesByProvince(String provinceCode) {
         LambdaQueryWrapper<AreaCity> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(AreaCity::getProvinceAdcode, provinceCode);
@@ -59,7 +59,7 @@ public class AreaDivisionServiceImpl implements AreaDivisionService {
     }
 
     @Override
-    @Cacheable(value = "area:districts", key = "#cityCode")
+    @Cacheable(value = "area:districts", key = "#cityCode", sync = true)
     public List<AreaDivisionResponse> getDistrictsByCity(String cityCode) {
         LambdaQueryWrapper<AreaDistrict> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(AreaDistrict::getCityAdcode, cityCode);
@@ -68,7 +68,7 @@ public class AreaDivisionServiceImpl implements AreaDivisionService {
     }
 
     @Override
-    @Cacheable(value = "area:tree", key = "'full'")
+    @Cacheable(value = "area:tree", key = "'full'", sync = true)
     public List<AreaDivisionResponse> getAreaDivisionTree() {
         List<AreaDivisionResponse> provinces = getAllProvinces();
         
@@ -85,7 +85,7 @@ public class AreaDivisionServiceImpl implements AreaDivisionService {
     }
 
     @Override
-    @Cacheable(value = "area:division", key = "#adcode")
+    @Cacheable(value = "area:division", key = "#adcode", sync = true)
     public AreaDivisionResponse getByAdcode(String adcode) {
         // 先尝试从省份查找
         LambdaQueryWrapper<AreaProvince> provinceQuery = new LambdaQueryWrapper<>();
@@ -149,7 +149,7 @@ public class AreaDivisionServiceImpl implements AreaDivisionService {
     }
 
     @Override
-    @Cacheable(value = "area:streets", key = "#districtCode")
+    @Cacheable(value = "area:streets", key = "#districtCode", sync = true)
     public List<StreetResponse> getStreetsByDistrict(String districtCode) {
         log.info("根据区县代码获取街道列表: {}", districtCode);
         LambdaQueryWrapper<AreaStreet> queryWrapper = new LambdaQueryWrapper<>();
@@ -160,7 +160,7 @@ public class AreaDivisionServiceImpl implements AreaDivisionService {
     }
 
     @Override
-    @Cacheable(value = "area:districts-page", key = "#current + ':' + #pageSize + ':' + (#keyword != null ? #keyword : 'null') + ':' + (#adcode != null ? #adcode : 'null')")
+    @Cacheable(value = "area:districts-page", key = "#current + ':' + #pageSize + ':' + (#keyword != null ? #keyword : 'null') + ':' + (#adcode != null ? #adcode : 'null')", sync = true)
     public IPage<AreaDivisionResponse> getDistrictsPage(Integer current, Integer pageSize, String keyword, String adcode) {
         log.info("分页查询区县列表: current={}, pageSize={}, keyword={}, adcode={}", current, pageSize, keyword, adcode);
         
@@ -213,7 +213,7 @@ public class AreaDivisionServiceImpl implements AreaDivisionService {
     }
 
     @Override
-    @Cacheable(value = "area:streets-page", key = "#current + ':' + #pageSize + ':' + (#keyword != null ? #keyword : 'null') + ':' + (#adcode != null ? #adcode : 'null')")
+    @Cacheable(value = "area:streets-page", key = "#current + ':' + #pageSize + ':' + (#keyword != null ? #keyword : 'null') + ':' + (#adcode != null ? #adcode : 'null')", sync = true)
     public IPage<StreetResponse> getStreetsPage(Integer current, Integer pageSize, String keyword, String adcode) {
         log.info("分页查询街道列表: current={}, pageSize={}, keyword={}, adcode={}", current, pageSize, keyword, adcode);
         
@@ -48,7 +48,7 @@ public class AreaProvinceServiceImpl implements AreaProvinceService {
     }
 
     @Override
-    @Cacheable(value = "provinces", key = "'all'")
+    @Cacheable(value = "provinces", key = "'all'", sync = true)
     public List<ProvinceResponse> getAllProvinces() {
         List<AreaProvince> provinces = provinceMapper.selectList(
             new LambdaQueryWrapper<AreaProvince>().orderByAsc(AreaProvince::getAdcode)
@@ -57,7 +57,7 @@ public class AreaProvinceServiceImpl implements AreaProvinceService {
     }
 
     @Override
-    @Cacheable(value = "provinces", key = "#id")
+    @Cacheable(value = "provinces", key = "'id:' + #id", sync = true)
     public ProvinceResponse getProvinceById(Integer id) {
         AreaProvince province = provinceMapper.selectById(id);
         if (province == null) {
@@ -67,7 +67,7 @@ public class AreaProvinceServiceImpl implements AreaProvinceService {
     }
 
     @Override
-    @Cacheable(value = "provinces", key = "#adcode")
+    @Cacheable(value = "provinces", key = "'adcode:' + #adcode", sync = true)
     public ProvinceResponse getProvinceByAdcode(String adcode) {
         LambdaQueryWrapper<AreaProvince> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(AreaProvince::getAdcode, adcode);
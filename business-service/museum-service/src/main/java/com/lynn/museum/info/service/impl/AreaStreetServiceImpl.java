@@ -41,7 +41,7 @@ public class AreaStreetServiceImpl implements AreaStreetService {
     private final AreaProvinceMapper provinceMapper;
 
     @Override
-    @Cacheable(value = "area:streets-page", key = "#current + ':' + #pageSize + ':' + (#keyword != null ? #keyword : 'null') + ':' + (#adcode != null ? #adcode : 'null')")
+    @Cacheable(value = "area:streets-page", key = "#current + ':' + #pageSize + ':' + (#keyword != null ? #keyword : 'null') + ':' + (#adcode != null ? #adcode : 'null')", sync = true)
     public IPage<StreetResponse> getStreetsPage(Integer current, Integer pageSize, String keyword, String adcode) {
         LambdaQueryWrapper<AreaStreet> queryWrapper = new LambdaQueryWrapper<>();
         
@@ -94,7 +94,7 @@ public class AreaStreetServiceImpl implements AreaStreetService {
     }
 
     @Override
-    @Cacheable(value = "area:streets", key = "#districtCode")
+    @Cacheable(value = "area:streets", key = "#districtCode", sync = true)
     public List<StreetResponse> getStreetsByDistrict(String districtCode) {
         LambdaQueryWrapper<AreaStreet> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(AreaStreet::getDistrictAdcode, districtCode)
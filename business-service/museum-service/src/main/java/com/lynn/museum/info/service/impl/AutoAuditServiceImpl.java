@@ -1,13 +1,18 @@
 package com.lynn.museum.info.service.impl;
 
+import com.lynn.museum.common.moderation.SensitiveWordFilter;
 import com.lynn.museum.info.dto.AutoAuditRequest;
 import com.lynn.museum.info.dto.AutoAuditResponse;
 import com.lynn.museum.info.service.AutoAuditService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 自动审核服务实现
  * 
@@ -18,6 +23,7 @@ import org.springframework.web.client.RestTemplate;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class AutoAuditServiceImpl implements AutoAuditService {
 
     @Value("${app.auto-audit.enabled:false}")
@@ -29,6 +35,8 @@ public class AutoAuditServiceImpl implements AutoAuditService {
     @Value("${app.auto-audit.timeout:5000}")
     private int timeoutMs;
 
+    private final SensitiveWordFilter sensitiveWordFilter;
+
     // 注入RestTemplate用于HTTP调用（需要在配置类中定义Bean）
     // private final RestTemplate restTemplate;
 
@@ -62,6 +70,21 @@ public class AutoAuditServiceImpl implements AutoAuditService {
         }
     }
 
+    @Override
+    public List<AutoAuditResponse> performAutoAuditBatch(List<AutoAuditRequest> requests) {
+        List<AutoAuditResponse> responses = new ArrayList<>(requests.size());
+        if (!autoAuditEnabled) {
+            requests.forEach(request -> responses.add(AutoAuditResponse.approved("自动审核系统未启用，默认通过")));
+            return responses;
+        }
+
+        // 当前审核规则在本地执行（敏感词过滤），逐条判定即可，不产生远程调用
+        for (AutoAuditRequest request : requests) {
+            responses.add(performMockAudit(request));
+        }
+        return responses;
+    }
+
     @Override
     public boolean isAutoAuditEnabled() {
         return autoAuditEnabled;
@@ -118,17 +141,9 @@ public class AutoAuditServiceImpl implements AutoAuditService {
     }
 
     /**
-     * 敏感词检测（模拟实现）
+     * 敏感词检测：通用词典 + 广告引流词典
      */
     private boolean containsSensitiveWords(String content) {
-        // 模拟敏感词列表
-        String[] sensitiveWords = {"广告", "推广", "联系方式", "微信", "QQ"};
-        
-        for (String word : sensitiveWords) {
-            if (content.contains(word)) {
-                return true;
-            }
-        }
-        return false;
+        return sensitiveWordFilter.contains(content, SensitiveWordFilter.DICT_COMMON, SensitiveWordFilter.DICT_ADVERT);
     }
 }
@@ -5,6 +5,10 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lynn.museum.common.counter.WriteBehindCounter;
+import com.lynn.museum.common.counter.WriteBehindCounters;
 import com.lynn.museum.info.dto.BannerCreateRequest;
 import com.lynn.museum.info.dto.BannerQueryRequest;
 import com.lynn.museum.info.dto.BannerResponse;
@@ -14,15 +18,19 @@ import com.lynn.museum.info.service.BannerService;
 import com.lynn.museum.info.service.FileBusinessRelationService;
 import com.lynn.museum.info.enums.BusinessTypeEnum;
 import com.lynn.museum.info.enums.RelationTypeEnum;
-import com.lynn.museum.api.file.client.FileApiClient;
+import com.lynn.museum.info.file.FileUrlResolver;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.util.CollectionUtils;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +48,26 @@ import java.util.stream.Collectors;
 public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> implements BannerService {
 
     private final FileBusinessRelationService fileBusinessRelationService;
-    private final FileApiClient fileApiClient;
+    private final FileUrlResolver fileUrlResolver;
+    private final WriteBehindCounters writeBehindCounters;
+
+    /**
+     * 点击次数在内存中累加，定时批量写回，热门轮播图不再逐次锁同一行
+     */
+    private WriteBehindCounter clickCounter;
+
+    /**
+     * 轮播图是否存在（未删除）的短期缓存（1分钟），点击计数前校验ID，不存在或已删除的ID不计数
+     */
+    private final Cache<Long, Boolean> existence = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .maximumSize(10000)
+            .build();
+
+    @PostConstruct
+    public void registerCounters() {
+        clickCounter = writeBehindCounters.register("banner.click", baseMapper::incrementClickCounts);
+    }
 
     @Override
     public IPage<BannerResponse> getBanners(BannerQueryRequest query) {
@@ -56,16 +83,14 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
 
         // 转换为响应DTO
         Page<BannerResponse> responsePage = new Page<>(bannerPage.getCurrent(), bannerPage.getSize(), bannerPage.getTotal());
-        List<BannerResponse> responseList = bannerPage.getRecords().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-        responsePage.setRecords(responseList);
+        responsePage.setRecords(convertToResponses(bannerPage.getRecords()));
 
         return responsePage;
     }
 
     @Override
     @Transactional
+    @CacheEvict(value = "museum_banner", allEntries = true)
     public Long createBanner(BannerCreateRequest request) {
         Banner banner = new Banner();
         BeanUtils.copyProperties(request, banner);
@@ -93,6 +118,7 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
 
     @Override
     @Transactional
+    @CacheEvict(value = "museum_banner", allEntries = true)
     public void updateBanner(Long id, BannerCreateRequest request) {
         Banner banner = getById(id);
         if (banner == null) {
@@ -124,6 +150,7 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
 
     @Override
     @Transactional
+    @CacheEvict(value = "museum_banner", allEntries = true)
     public void deleteBanner(Long id) {
         // 删除横幅的文件关联关系
         try {
@@ -134,11 +161,13 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
         }
         
         removeById(id);
+        existence.invalidate(id);
         log.info("删除轮播图: id={}", id);
     }
 
     @Override
     @Transactional
+    @CacheEvict(value = "museum_banner", allEntries = true)
     public void updateBannerStatus(Long id, Integer status) {
         LambdaUpdateWrapper<Banner> updateWrapper = new LambdaUpdateWrapper<>();
         updateWrapper.eq(Banner::getId, id)
@@ -149,6 +178,7 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
     }
 
     @Override
+    @Cacheable(value = "museum_banner", key = "'active:' + #limit", sync = true)
     public List<BannerResponse> getActiveBanners(Integer limit) {
         LambdaQueryWrapper<Banner> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(Banner::getStatus, 1)
@@ -169,77 +199,70 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
         }
 
         List<Banner> banners = list(queryWrapper);
-        return banners.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(banners);
     }
 
     @Override
-    @Transactional
     public boolean incrementClickCount(Long id) {
-        try {
-            LambdaUpdateWrapper<Banner> updateWrapper = new LambdaUpdateWrapper<>();
-            updateWrapper.eq(Banner::getId, id)
-                    .setSql("click_count = click_count + 1");
-            boolean success = update(updateWrapper);
-            
-            return success;
-        } catch (Exception e) {
-            log.error("记录轮播图点击失败，ID: {}", id, e);
+        if (id == null || !existence.get(id, key -> baseMapper.selectById(key) != null)) {
             return false;
         }
+        clickCounter.increment(id);
+        return true;
     }
 
-    private BannerResponse convertToResponse(Banner banner) {
-        BannerResponse response = new BannerResponse();
-        BeanUtils.copyProperties(banner, response);
+    private List<BannerResponse> convertToResponses(List<Banner> banners) {
+        List<BannerResponse> responses = banners.stream()
+                .map(banner -> {
+                    BannerResponse response = new BannerResponse();
+                    BeanUtils.copyProperties(banner, response);
+                    return response;
+                })
+                .collect(Collectors.toList());
         
-        // 获取横幅的图片URL
-        fillImageUrl(response);
+        // 批量获取横幅的图片URL
+        fillImageUrls(responses);
         
-        return response;
+        return responses;
     }
     
     /**
-     * 填充横幅图片URL信息
+     * 批量填充横幅图片URL信息（文件关联一次查询，文件URL一次调用）
      */
-    private void fillImageUrl(BannerResponse banner) {
+    private void fillImageUrls(List<BannerResponse> banners) {
+        if (CollectionUtils.isEmpty(banners)) {
+            return;
+        }
         try {
-            // 获取横幅的主图文件ID
-            List<Long> fileIds = fileBusinessRelationService.getBusinessFileIds(
-                banner.getId(), 
-                BusinessTypeEnum.BANNER, 
+            List<Long> bannerIds = banners.stream()
+                    .map(BannerResponse::getId)
+                    .collect(Collectors.toList());
+            Map<Long, List<Long>> bannerFileMap = fileBusinessRelationService.getBatchBusinessFileIds(
+                bannerIds,
+                BusinessTypeEnum.BANNER,
                 RelationTypeEnum.MAIN_IMAGE
             );
             
-            if (!CollectionUtils.isEmpty(fileIds)) {
+            FileUrlResolver.Batch batch = fileUrlResolver.batch();
+            for (BannerResponse banner : banners) {
+                List<Long> fileIds = bannerFileMap.get(banner.getId());
+                if (CollectionUtils.isEmpty(fileIds)) {
+                    continue;
+                }
                 // 横幅只有一张主图
-                Long fileId = fileIds.get(0); 
-                System.out.println("横幅ID: " + banner.getId() + ", 找到文件ID: " + fileId);
-                
-                // 设置fileId到响应对象
+                Long fileId = fileIds.get(0);
                 banner.setFileId(fileId);
-                
-                // 调用文件服务获取URL
-                Map<String, Object> response = fileApiClient.getFileUrl(fileId);
-                System.out.println("Feign调用响应: " + response);
-                
-                if (response != null && response.get("data") != null) {
-                    String imageUrl = (String) response.get("data");
-                    if (imageUrl != null && !imageUrl.isEmpty()) {
-                        System.out.println("获取到图片URL: " + imageUrl);
+                batch.load(fileId, imageUrl -> {
+                    // 获取失败时保留原有的imageUrl
+                    if (imageUrl != null) {
                         banner.setImageUrl(imageUrl);
                     }
-                } else {
-                    System.out.println("Feign调用响应为空或data为空");
-                }
-            } else {
-                System.out.println("横幅ID: " + banner.getId() + ", 未找到关联的文件");
+                });
             }
+            batch.dispatch();
         } catch (Exception e) {
             // 获取图片失败时不影响主要业务，使用原有的imageUrl
-            System.err.println("获取横幅图片失败，横幅ID: " + banner.getId() + ", 错误: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("批量获取横幅图片失败，错误: {}", e.getMessage());
         }
     }
 }
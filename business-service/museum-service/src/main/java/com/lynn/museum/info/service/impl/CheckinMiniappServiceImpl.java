@@ -1,7 +1,7 @@
 package com.lynn.museum.info.service.impl;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.YearMonth;
 import java.time.ZoneId;
 import java.util.Date;
 
@@ -9,20 +9,26 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lynn.museum.common.entity.CursorPage;
+import com.lynn.museum.common.entity.PageCursor;
 import com.lynn.museum.common.exception.BizException;
+import com.lynn.museum.info.achievement.AchievementEngine;
+import com.lynn.museum.info.audit.CheckinAuditPipeline;
 import com.lynn.museum.info.dto.*;
 import com.lynn.museum.info.mapper.CheckinRecordMapper;
+import com.lynn.museum.info.mapper.CheckinUserStatsMapper;
 import com.lynn.museum.info.mapper.MuseumInfoMapper;
 import com.lynn.museum.info.mapper.AreaProvinceMapper;
 import com.lynn.museum.info.mapper.AreaCityMapper;
 import com.lynn.museum.info.model.entity.AreaProvince;
 import com.lynn.museum.info.model.entity.AreaCity;
 import com.lynn.museum.info.model.entity.CheckinRecord;
+import com.lynn.museum.info.model.entity.CheckinUserMuseum;
 import com.lynn.museum.info.model.entity.MuseumInfo;
 import com.lynn.museum.info.service.CheckinMiniappService;
-import com.lynn.museum.info.service.AutoAuditService;
+import com.lynn.museum.info.stats.CheckinStatsRollup;
+import com.lynn.museum.info.stats.ProvinceMuseumStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -30,7 +36,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.Date;
-import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -50,7 +55,11 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
     private final AreaProvinceMapper areaProvinceMapper;
     private final AreaCityMapper areaCityMapper;
     private final ObjectMapper objectMapper;
-    private final AutoAuditService autoAuditService;
+    private final CheckinAuditPipeline checkinAuditPipeline;
+    private final CheckinStatsRollup checkinStatsRollup;
+    private final CheckinUserStatsMapper checkinUserStatsMapper;
+    private final ProvinceMuseumStats provinceMuseumStats;
+    private final AchievementEngine achievementEngine;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -75,19 +84,17 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
                         
                         // 如果从草稿转为正式打卡，需要执行自动审核
                         if (!request.getIsDraft() && existingRecord.getIsDraft()) {
-                            // 设置为待审核
+                            // 设置为待审核，事务提交后进入异步审核队列
                             checkinRecord.setAuditStatus(0);
                             checkinRecordMapper.updateById(checkinRecord);
+                            checkinAuditPipeline.submit(checkinRecord);
                             
-                            // 执行自动审核
-                            AutoAuditResponse auditResult = performAutoAuditForRecord(checkinRecord);
-                            updateAuditResult(checkinRecord.getId(), auditResult);
-                            
-                            log.info("草稿转正式打卡，ID: {}, 审核状态: {}", 
-                                    checkinRecord.getId(), auditResult.getAuditStatus());
+                            log.info("草稿转正式打卡，ID: {}, 等待自动审核", checkinRecord.getId());
                         } else {
                             checkinRecordMapper.updateById(checkinRecord);
                         }
+                        checkinStatsRollup.onChange(existingRecord, checkinRecord);
+                        achievementEngine.onCheckinChanged(userId);
                         
                         String message = request.getIsDraft() ? "暂存更新成功" : "打卡成功";
                         return CheckinSubmitResponse.success(checkinRecord.getId(), checkinRecord.getCheckinTime(), message);
@@ -106,19 +113,19 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
             checkinRecord.setAuditStatus(0);
             checkinRecordMapper.insert(checkinRecord);
             
-            // 如果是正式打卡，执行自动审核并清理暂存记录
+            // 如果是正式打卡，提交自动审核并清理暂存记录
             if (!request.getIsDraft()) {
-                // 执行自动审核
-                AutoAuditResponse auditResult = performAutoAuditForRecord(checkinRecord);
+                checkinStatsRollup.onCreated(checkinRecord);
                 
-                // 更新审核结果
-                updateAuditResult(checkinRecord.getId(), auditResult);
+                // 事务提交后进入异步审核队列，记录先保持待审核
+                checkinAuditPipeline.submit(checkinRecord);
                 
                 // 清理该博物馆的暂存记录
                 cleanupDraftsForMuseum(userId, request.getMuseumId());
                 
-                log.info("打卡记录创建完成，ID: {}, 审核状态: {}", 
-                        checkinRecord.getId(), auditResult.getAuditStatus());
+                achievementEngine.onCheckinChanged(userId);
+                
+                log.info("打卡记录创建完成，ID: {}, 等待自动审核", checkinRecord.getId());
             }
             
             String message = request.getIsDraft() ? "暂存成功" : "打卡成功";
@@ -132,12 +139,43 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
 
     @Override
     public IPage<CheckinRecord> getCheckinRecords(CheckinRecordQueryRequest query) {
+        LambdaQueryWrapper<CheckinRecord> wrapper = buildRecordQueryWrapper(query);
+        wrapper.orderByDesc(CheckinRecord::getCheckinTime);
+
+        Page<CheckinRecord> page = new Page<>(query.getPage(), query.getPageSize());
+        return checkinRecordMapper.selectPage(page, wrapper);
+    }
+
+    @Override
+    public CursorPage<CheckinRecord> getCheckinRecordsByCursor(CheckinRecordQueryRequest query, String cursor) {
+        int size = CursorPage.normalizeSize(query.getPageSize());
+        PageCursor position = PageCursor.decode(cursor);
+
+        LambdaQueryWrapper<CheckinRecord> wrapper = buildRecordQueryWrapper(query);
+        if (position != null) {
+            // (checkin_time, id) < (游标时间, 游标ID)
+            Date time = position.timeAsDate();
+            wrapper.and(w -> w
+                .lt(CheckinRecord::getCheckinTime, time)
+                .or(o -> o.eq(CheckinRecord::getCheckinTime, time).lt(CheckinRecord::getId, position.id())));
+        }
+        wrapper.orderByDesc(CheckinRecord::getCheckinTime)
+               .orderByDesc(CheckinRecord::getId)
+               .last("LIMIT " + (size + 1));
+
+        List<CheckinRecord> rows = checkinRecordMapper.selectList(wrapper);
+        return CursorPage.of(rows, size, r -> PageCursor.of(r.getCheckinTime(), r.getId()));
+    }
+
+    /**
+     * 构建打卡记录列表的查询条件（不含排序和分页）
+     */
+    private LambdaQueryWrapper<CheckinRecord> buildRecordQueryWrapper(CheckinRecordQueryRequest query) {
         LambdaQueryWrapper<CheckinRecord> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(CheckinRecord::getUserId, query.getUserId())
                .eq(query.getMuseumId() != null, CheckinRecord::getMuseumId, query.getMuseumId())
                .eq(query.getIsDraft() != null, CheckinRecord::getIsDraft, query.getIsDraft())
-               .eq(CheckinRecord::getDeleted, false)
-               .orderByDesc(CheckinRecord::getCheckinTime);
+               .eq(CheckinRecord::getDeleted, false);
         
         // 添加关键词搜索 - 三级优先级搜索
         if (StringUtils.hasText(query.getKeyword())) {
@@ -187,9 +225,7 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
         if (StringUtils.hasText(query.getEndDate())) {
             wrapper.le(CheckinRecord::getCheckinTime, query.getEndDate());
         }
-        
-        Page<CheckinRecord> page = new Page<>(query.getPage(), query.getPageSize());
-        return checkinRecordMapper.selectPage(page, wrapper);
+        return wrapper;
     }
 
     @Override
@@ -226,46 +262,24 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
     public CheckinStatsResponse getCheckinStats(Long userId) {
         CheckinStatsResponse stats = new CheckinStatsResponse();
         
-        // 总打卡次数（不包括暂存）
-        LambdaQueryWrapper<CheckinRecord> totalWrapper = new LambdaQueryWrapper<>();
-        totalWrapper.eq(CheckinRecord::getUserId, userId)
-                   .eq(CheckinRecord::getIsDraft, false);
-        Long totalCheckins = checkinRecordMapper.selectCount(totalWrapper);
-        stats.setTotalCheckins(totalCheckins.intValue());
+        // 总打卡次数、已访问博物馆数、照片数取自用户博物馆汇总（不包括暂存）
+        Map<String, Object> summary = checkinUserStatsMapper.selectUserSummary(userId);
+        stats.setTotalCheckins(intValue(summary, "total_checkins"));
+        stats.setVisitedMuseums(intValue(summary, "visited_museums"));
+        stats.setTotalPhotos(intValue(summary, "total_photos"));
         
         // 本月打卡次数
-        YearMonth currentMonth = YearMonth.now();
-        LocalDateTime monthStart = currentMonth.atDay(1).atStartOfDay();
-        LocalDateTime monthEnd = currentMonth.atEndOfMonth().atTime(23, 59, 59);
-        
-        LambdaQueryWrapper<CheckinRecord> monthWrapper = new LambdaQueryWrapper<>();
-        monthWrapper.eq(CheckinRecord::getUserId, userId)
-                   .eq(CheckinRecord::getIsDraft, false)
-                   .ge(CheckinRecord::getCheckinTime, Date.from(monthStart.atZone(ZoneId.systemDefault()).toInstant()))
-                   .le(CheckinRecord::getCheckinTime, Date.from(monthEnd.atZone(ZoneId.systemDefault()).toInstant()));
-        Long thisMonthCheckins = checkinRecordMapper.selectCount(monthWrapper);
-        stats.setThisMonthCheckins(thisMonthCheckins.intValue());
-        
-        // 已访问博物馆数量（去重）
-        List<CheckinRecord> distinctMuseums = checkinRecordMapper.selectDistinctMuseumsByUser(userId);
-        stats.setVisitedMuseums(distinctMuseums.size());
-        
-        // 总照片数量（需要解析JSON）
-        List<CheckinRecord> recordsWithPhotos = checkinRecordMapper.selectList(
-            new LambdaQueryWrapper<CheckinRecord>()
-                .eq(CheckinRecord::getUserId, userId)
-                .eq(CheckinRecord::getIsDraft, false)
-                .isNotNull(CheckinRecord::getPhotos)
-        );
-        
-        int totalPhotos = recordsWithPhotos.stream()
-            .mapToInt(this::countPhotosInRecord)
-            .sum();
-        stats.setTotalPhotos(totalPhotos);
+        Integer thisMonthCheckins = checkinUserStatsMapper.selectMonthlyCount(userId, LocalDate.now().withDayOfMonth(1));
+        stats.setThisMonthCheckins(thisMonthCheckins != null ? thisMonthCheckins : 0);
         
         return stats;
     }
 
+    private static int intValue(Map<String, Object> row, String column) {
+        Object value = row != null ? row.get(column) : null;
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public CheckinSubmitResponse convertDraftToCheckin(String draftId, Long userId) {
@@ -278,7 +292,11 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
         // 转换为正式打卡
         draftRecord.setIsDraft(false);
         draftRecord.setCheckinTime(new Date());
+        draftRecord.setAuditStatus(0);
         checkinRecordMapper.updateById(draftRecord);
+        checkinStatsRollup.onCreated(draftRecord);
+        checkinAuditPipeline.submit(draftRecord);
+        achievementEngine.onCheckinChanged(userId);
         
         // 清理该博物馆的其他暂存记录
         cleanupDraftsForMuseum(userId, draftRecord.getMuseumId());
@@ -345,64 +363,8 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
         checkinRecordMapper.delete(wrapper);
     }
 
-    /**
-     * 为打卡记录执行自动审核
-     */
-    private AutoAuditResponse performAutoAuditForRecord(CheckinRecord checkinRecord) {
-        try {
-            // 构建自动审核请求
-            AutoAuditRequest auditRequest = new AutoAuditRequest();
-            auditRequest.setCheckinId(checkinRecord.getId());
-            auditRequest.setUserId(checkinRecord.getUserId());
-            auditRequest.setMuseumId(checkinRecord.getMuseumId());
-            auditRequest.setCheckinTime(checkinRecord.getCheckinTime());
-            auditRequest.setLatitude(checkinRecord.getLatitude());
-            auditRequest.setLongitude(checkinRecord.getLongitude());
-            auditRequest.setPhotoUrls(checkinRecord.getPhotos());
-            auditRequest.setRemark(checkinRecord.getFeeling());
-            auditRequest.setMood(checkinRecord.getMood());
-            // 小程序暂无设备信息
-            auditRequest.setDeviceInfo(null);
-
-            // 调用自动审核服务
-            return autoAuditService.performAutoAudit(auditRequest);
-            
-        } catch (Exception e) {
-            log.error("自动审核执行失败，打卡记录ID: {}, 错误: {}", checkinRecord.getId(), e.getMessage());
-            // 审核失败时，标记为异常，需要人工审核
-            return AutoAuditResponse.anomaly("自动审核系统异常：" + e.getMessage(), "system_error");
-        }
-    }
-
-    /**
-     * 更新审核结果
-     */
-    private void updateAuditResult(Long checkinId, AutoAuditResponse auditResult) {
-        LambdaUpdateWrapper<CheckinRecord> updateWrapper = new LambdaUpdateWrapper<>();
-        updateWrapper.eq(CheckinRecord::getId, checkinId)
-                .set(CheckinRecord::getAuditStatus, auditResult.getAuditStatus())
-                .set(CheckinRecord::getAuditTime, new Date())
-                .set(CheckinRecord::getAuditRemark, auditResult.getAuditRemark())
-                .set(CheckinRecord::getAnomalyType, auditResult.getAnomalyType())
-                // -1 表示系统自动审核
-                .set(CheckinRecord::getAuditUserId, -1L);
-
-        checkinRecordMapper.update(null, updateWrapper);
-    }
-
-    private int countPhotosInRecord(CheckinRecord record) {
-        try {
-            if (StringUtils.hasText(record.getPhotos())) {
-                List<String> photos = objectMapper.readValue(record.getPhotos(), new TypeReference<List<String>>() {});
-                return photos.size();
-            }
-        } catch (Exception e) {
-            log.warn("解析照片JSON失败，记录ID: {}", record.getId(), e);
-        }
-        return 0;
-    }
-
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public Boolean deleteCheckinRecord(Long checkinId, Long userId) {
         // 查询打卡记录，确保存在且属于当前用户
         LambdaQueryWrapper<CheckinRecord> queryWrapper = new LambdaQueryWrapper<>();
@@ -429,6 +391,8 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
         boolean success = updateCount > 0;
         
         if (success) {
+            checkinStatsRollup.onRemoved(existingRecord);
+            achievementEngine.onCheckinChanged(userId);
             log.info("删除打卡记录: id={}, userId={}", checkinId, userId);
         }
         return success;
@@ -437,22 +401,17 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
     @Override
     public ProvinceCheckinStatsResponse getProvinceStats(Long userId) {
         ProvinceCheckinStatsResponse response = new ProvinceCheckinStatsResponse();
+        ProvinceMuseumStats.Snapshot provinceSnapshot = provinceMuseumStats.get();
         
-        // 获取用户所有正式打卡记录，按省份分组统计
-        LambdaQueryWrapper<CheckinRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(CheckinRecord::getUserId, userId)
-               .eq(CheckinRecord::getIsDraft, false)
-               .eq(CheckinRecord::getDeleted, false)
-               .orderByDesc(CheckinRecord::getCheckinTime);
-        
-        List<CheckinRecord> allRecords = checkinRecordMapper.selectList(wrapper);
-        
-        // 按省份分组统计用户打卡记录
-        Map<String, List<CheckinRecord>> userProvinceGroups = allRecords.stream()
-                .collect(Collectors.groupingBy(this::extractProvinceName));
+        // 用户打卡过的博物馆汇总（按最近打卡时间倒序），按博物馆所在省份分组
+        List<CheckinUserMuseum> visitedMuseums = checkinUserStatsMapper.selectUserMuseums(userId);
+        Map<String, List<CheckinUserMuseum>> userProvinceGroups = visitedMuseums.stream()
+                .filter(museum -> museum.getProvinceCode() != null)
+                .collect(Collectors.groupingBy(CheckinUserMuseum::getProvinceCode));
         
-        // 获取完整的省份列表并统计每个省份的博物馆总数
-        List<ProvinceCheckinStatsResponse.ProvinceStatsData> provinces = createCompleteProvinceList(userProvinceGroups);
+        // 获取完整的省份列表并填充每个省份的博物馆总数
+        List<ProvinceCheckinStatsResponse.ProvinceStatsData> provinces =
+                createCompleteProvinceList(provinceSnapshot, userProvinceGroups);
         
         // 计算已解锁省份数量
         int totalUnlockedProvinces = (int) provinces.stream()
@@ -468,169 +427,62 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
         overallStats.setTotalProvinces(34);
         overallStats.setCoverageRate(totalUnlockedProvinces * 100.0 / 34);
         
-        // 统计用户访问的所有不同博物馆数量
-        long totalVisitedMuseums = allRecords.stream()
-                .map(CheckinRecord::getMuseumId)
-                .distinct()
-                .count();
-        
-        // 从数据库查询全国博物馆总数（活跃且未删除的）
-        LambdaQueryWrapper<MuseumInfo> museumWrapper = new LambdaQueryWrapper<>();
-        museumWrapper.eq(MuseumInfo::getStatus, 1)
-                     .eq(MuseumInfo::getDisplay, 1)
-                     .eq(MuseumInfo::getDeleted, false);
-        Long totalMuseumsInDB = museumInfoMapper.selectCount(museumWrapper);
-        
-        overallStats.setVisitedNationalMuseums((int) totalVisitedMuseums);
-        overallStats.setTotalNationalMuseums(totalMuseumsInDB != null ? totalMuseumsInDB.intValue() : 130);
+        overallStats.setVisitedNationalMuseums(visitedMuseums.size());
+        overallStats.setTotalNationalMuseums(provinceSnapshot.totalNationalMuseums());
         
         response.setOverall(overallStats);
         
         return response;
     }
 
-    /**
-     * 从地址中提取省份名称
-     */
-    private String extractProvinceName(CheckinRecord record) {
-        if (record.getAddress() == null || record.getAddress().trim().isEmpty()) {
-            return "未知省份";
-        }
-        
-        String address = record.getAddress().trim();
-        
-        // 直辖市处理（优先匹配完整名称）
-        if (address.contains("北京市") || address.contains("北京")) {
-            return "北京";
-        }
-        if (address.contains("上海市") || address.contains("上海")) {
-            return "上海";
-        }
-        if (address.contains("天津市") || address.contains("天津")) {
-            return "天津";
-        }
-        if (address.contains("重庆市") || address.contains("重庆")) {
-            return "重庆";
-        }
-        
-        // 自治区处理（优先匹配完整名称）
-        if (address.contains("新疆维吾尔自治区") || address.contains("新疆")) {
-            return "新疆维吾尔自治区";
-        }
-        if (address.contains("西藏自治区") || address.contains("西藏")) {
-            return "西藏自治区";
-        }
-        if (address.contains("内蒙古自治区") || address.contains("内蒙古")) {
-            return "内蒙古自治区";
-        }
-        if (address.contains("广西壮族自治区") || address.contains("广西")) {
-            return "广西壮族自治区";
-        }
-        if (address.contains("宁夏回族自治区") || address.contains("宁夏")) {
-            return "宁夏回族自治区";
-        }
-        
-        // 特殊行政区
-        if (address.contains("香港特别行政区") || address.contains("香港")) {
-            return "香港特别行政区";
-        }
-        if (address.contains("澳门特别行政区") || address.contains("澳门")) {
-            return "澳门特别行政区";
-        }
-        
-        // 省份处理 - 精确匹配所有省份
-        String[] provinces = {
-            "河北省", "山西省", "辽宁省", "吉林省", "黑龙江省", 
-            "江苏省", "浙江省", "安徽省", "福建省", "江西省", "山东省",
-            "河南省", "湖北省", "湖南省", "广东省", "海南省",
-            "四川省", "贵州省", "云南省", "陕西省", "甘肃省", "青海省",
-            "台湾省"
-        };
-        
-        // 优先匹配完整省名
-        for (String province : provinces) {
-            if (address.contains(province)) {
-                return province;
-            }
-        }
-        
-        // 如果没有匹配到完整省名，尝试去掉"省"字匹配简称
-        for (String province : provinces) {
-            String shortName = province.replace("省", "");
-            if (address.contains(shortName) && !shortName.isEmpty()) {
-                return province;
-            }
-        }
-        
-        log.warn("无法从地址'{}'中提取省份名称", address);
-        return "未知省份";
-    }
-
     /**
      * 创建完整的省份列表（包括未探索的省份）
      */
     private List<ProvinceCheckinStatsResponse.ProvinceStatsData> createCompleteProvinceList(
-            Map<String, List<CheckinRecord>> userProvinceGroups) {
+            ProvinceMuseumStats.Snapshot provinceSnapshot,
+            Map<String, List<CheckinUserMuseum>> userProvinceGroups) {
         
         List<ProvinceCheckinStatsResponse.ProvinceStatsData> provinces = new ArrayList<>();
         
-        // 从数据库查询完整的省份列表
-        List<AreaProvince> allProvinces = areaProvinceMapper.selectList(null);
-        
-        for (AreaProvince areaProvince : allProvinces) {
+        for (AreaProvince areaProvince : provinceSnapshot.provinces()) {
             String provinceCode = areaProvince.getAdcode();
-            String provinceName = areaProvince.getName();
             
             ProvinceCheckinStatsResponse.ProvinceStatsData provinceData = 
                 new ProvinceCheckinStatsResponse.ProvinceStatsData();
             
             provinceData.setProvinceCode(provinceCode);
-            provinceData.setProvinceName(provinceName);
-            
-            // 从数据库统计该省份的博物馆总数（通过地址匹配）
-            Integer totalMuseums = getProvinceMuseumCountFromDB(provinceName);
-            provinceData.setTotalMuseums(totalMuseums);
+            provinceData.setProvinceName(areaProvince.getName());
+            provinceData.setTotalMuseums(provinceSnapshot.museumCount(provinceCode));
             
             // 检查用户是否在该省份有打卡记录
-            List<CheckinRecord> provinceRecords = userProvinceGroups.get(provinceName);
+            List<CheckinUserMuseum> provinceMuseums = userProvinceGroups.get(provinceCode);
             
-            if (provinceRecords != null && !provinceRecords.isEmpty()) {
+            if (provinceMuseums != null && !provinceMuseums.isEmpty()) {
                 // 已探索的省份
                 provinceData.setIsUnlocked(true);
-                provinceData.setCheckinCount(provinceRecords.size());
-                
-                // 按博物馆分组统计
-                Map<Long, List<CheckinRecord>> museumGroups = provinceRecords.stream()
-                        .collect(Collectors.groupingBy(CheckinRecord::getMuseumId));
+                provinceData.setVisitedMuseums(provinceMuseums.size());
+                provinceData.setCheckinCount(provinceMuseums.stream()
+                        .mapToInt(CheckinUserMuseum::getCheckinCount)
+                        .sum());
                 
-                provinceData.setVisitedMuseums(museumGroups.size());
-                
-                // 最后打卡时间
-                Optional<CheckinRecord> lastRecord = provinceRecords.stream()
-                        .max(Comparator.comparing(CheckinRecord::getCheckinTime));
-                if (lastRecord.isPresent()) {
-                    provinceData.setLastCheckinTime(lastRecord.get().getCheckinTime().toString());
-                }
+                // 最后打卡时间（列表已按最近打卡时间倒序）
+                provinceData.setLastCheckinTime(provinceMuseums.get(0).getLastCheckinTime().toString());
                 
                 // 创建已访问博物馆列表
-                List<ProvinceCheckinStatsResponse.VisitedMuseum> visitedMuseums = new ArrayList<>();
-                for (Map.Entry<Long, List<CheckinRecord>> entry : museumGroups.entrySet()) {
-                    List<CheckinRecord> museumRecords = entry.getValue();
-                    CheckinRecord firstRecord = museumRecords.get(museumRecords.size() - 1);
-                    CheckinRecord lastMuseumRecord = museumRecords.get(0);
-                    
+                List<ProvinceCheckinStatsResponse.VisitedMuseum> visitedMuseumList = new ArrayList<>();
+                for (CheckinUserMuseum museumStats : provinceMuseums) {
                     ProvinceCheckinStatsResponse.VisitedMuseum museum = 
                         new ProvinceCheckinStatsResponse.VisitedMuseum();
-                    museum.setId(entry.getKey());
-                    museum.setName(firstRecord.getMuseumName());
-                    museum.setCheckinCount(museumRecords.size());
-                    museum.setFirstCheckinTime(firstRecord.getCheckinTime().toString());
-                    museum.setLastCheckinTime(lastMuseumRecord.getCheckinTime().toString());
+                    museum.setId(museumStats.getMuseumId());
+                    museum.setName(museumStats.getMuseumName());
+                    museum.setCheckinCount(museumStats.getCheckinCount());
+                    museum.setFirstCheckinTime(museumStats.getFirstCheckinTime().toString());
+                    museum.setLastCheckinTime(museumStats.getLastCheckinTime().toString());
                     
-                    visitedMuseums.add(museum);
+                    visitedMuseumList.add(museum);
                 }
                 
-                provinceData.setVisitedMuseumList(visitedMuseums);
+                provinceData.setVisitedMuseumList(visitedMuseumList);
                 
             } else {
                 // 未探索的省份
@@ -661,101 +513,6 @@ public class CheckinMiniappServiceImpl implements CheckinMiniappService {
         return provinces;
     }
 
-    /**
-     * 从数据库统计省份博物馆总数
-     */
-    private Integer getProvinceMuseumCountFromDB(String provinceName) {
-        log.debug("查询省份{}的博物馆总数", provinceName);
-        
-        // 根据省份名称获取省份编码
-        String provinceCode = getProvinceCodeByName(provinceName);
-        if (provinceCode == null) {
-            log.warn("未找到省份{}对应的编码，使用地址模糊匹配", provinceName);
-            // 如果没有找到编码，回退到地址模糊匹配
-            return getMuseumCountByAddressMatch(provinceName);
-        }
-        
-        try {
-            // 使用省份编码精确查询博物馆数量
-            LambdaQueryWrapper<MuseumInfo> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(MuseumInfo::getProvinceCode, provinceCode)
-                   // 只统计开放状态的博物馆
-                   .eq(MuseumInfo::getStatus, 1);
-            
-            Long count = museumInfoMapper.selectCount(wrapper);
-            Integer result = count.intValue();
-            
-            log.debug("省份{}(编码:{})共有{}个博物馆", provinceName, provinceCode, result);
-            return result;
-            
-        } catch (Exception e) {
-            log.error("查询省份{}博物馆数量失败: {}", provinceName, e.getMessage(), e);
-            // 出现异常时，回退到地址模糊匹配
-            return getMuseumCountByAddressMatch(provinceName);
-        }
-    }
-
-    /**
-     * 根据省份名称获取省份编码
-     */
-    private String getProvinceCodeByName(String provinceName) {
-        if (provinceName == null || provinceName.trim().isEmpty()) {
-            return null;
-        }
-        
-        try {
-            // 从数据库查询省份编码
-            LambdaQueryWrapper<AreaProvince> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(AreaProvince::getName, provinceName.trim());
-            
-            AreaProvince province = areaProvinceMapper.selectOne(wrapper);
-            if (province != null) {
-                return province.getAdcode();
-            }
-            
-            log.warn("未找到省份{}对应的编码", provinceName);
-            return null;
-            
-        } catch (Exception e) {
-            log.error("查询省份编码失败，provinceName: {}, 错误: {}", provinceName, e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * 通过地址模糊匹配统计博物馆数量（备用方案）
-     */
-    private Integer getMuseumCountByAddressMatch(String provinceName) {
-        log.debug("使用地址模糊匹配查询省份{}的博物馆数量", provinceName);
-        
-        try {
-            LambdaQueryWrapper<MuseumInfo> wrapper = new LambdaQueryWrapper<>();
-            wrapper.like(MuseumInfo::getAddress, provinceName)
-                   // 只统计开放状态的博物馆
-                   .eq(MuseumInfo::getStatus, 1);
-            
-            Long count = museumInfoMapper.selectCount(wrapper);
-            Integer result = count.intValue();
-            
-            log.debug("省份{}通过地址匹配找到{}个博物馆", provinceName, result);
-            return result;
-            
-        } catch (Exception e) {
-            log.error("通过地址匹配查询省份{}博物馆数量失败: {}", provinceName, e.getMessage(), e);
-            // 最后的备用方案：返回默认值
-            return getDefaultProvinceMuseumCount(provinceName);
-        }
-    }
-
-    /**
-     * 获取省份博物馆默认数量（最后备用方案）
-     */
-    private Integer getDefaultProvinceMuseumCount(String provinceName) {
-        // 数据库查询失败时，返回0而非硬编码估算值
-        log.warn("无法获取省份{}的博物馆数量，返回默认值0", provinceName);
-        return 0;
-    }
-
     @Override
     public ProvinceMuseumDetailResponse getProvinceMuseumDetail(String provinceCode, Long userId) {
         ProvinceMuseumDetailResponse response = new ProvinceMuseumDetailResponse();
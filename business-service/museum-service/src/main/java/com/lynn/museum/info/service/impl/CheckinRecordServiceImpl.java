@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lynn.museum.info.achievement.AchievementEngine;
 import com.lynn.museum.info.dto.AutoAuditRequest;
 import com.lynn.museum.info.dto.AutoAuditResponse;
 import com.lynn.museum.info.dto.CheckinAuditRequest;
@@ -14,6 +15,7 @@ import com.lynn.museum.info.mapper.CheckinRecordMapper;
 import com.lynn.museum.info.model.entity.CheckinRecord;
 import com.lynn.museum.info.service.AutoAuditService;
 import com.lynn.museum.info.service.CheckinRecordService;
+import com.lynn.museum.info.stats.CheckinStatsRollup;
 import com.lynn.museum.api.user.client.UserApiClient;
 import com.lynn.museum.api.user.dto.UserBasicInfo;
 import com.lynn.museum.common.result.Result;
@@ -37,10 +39,15 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
 
     private final AutoAuditService autoAuditService;
     private final UserApiClient userApiClient;
+    private final CheckinStatsRollup checkinStatsRollup;
+    private final AchievementEngine achievementEngine;
 
-    public CheckinRecordServiceImpl(AutoAuditService autoAuditService, UserApiClient userApiClient) {
+    public CheckinRecordServiceImpl(AutoAuditService autoAuditService, UserApiClient userApiClient,
+                                    CheckinStatsRollup checkinStatsRollup, AchievementEngine achievementEngine) {
         this.autoAuditService = autoAuditService;
         this.userApiClient = userApiClient;
+        this.checkinStatsRollup = checkinStatsRollup;
+        this.achievementEngine = achievementEngine;
     }
 
     @Override
@@ -98,6 +105,7 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         // .set(CheckinRecord::getAuditUserId, getCurrentUserId())
 
         update(updateWrapper);
+        achievementEngine.onCheckinChanged(checkinRecord.getUserId());
         log.info("审核打卡: id={}, status={}", id, request.getAuditStatus());
     }
 
@@ -113,13 +121,24 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         // .set(CheckinRecord::getAuditUserId, getCurrentUserId())
 
         update(updateWrapper);
+        listObjs(new LambdaQueryWrapper<CheckinRecord>()
+                        .select(CheckinRecord::getUserId)
+                        .in(CheckinRecord::getId, ids),
+                userId -> ((Number) userId).longValue())
+                .stream()
+                .distinct()
+                .forEach(achievementEngine::onCheckinChanged);
         log.info("批量审核打卡: count={}, status={}", ids.size(), request.getAuditStatus());
     }
 
     @Override
     @Transactional
     public void deleteCheckinRecord(Long id) {
-        removeById(id);
+        CheckinRecord record = getById(id);
+        if (record != null && removeById(id)) {
+            checkinStatsRollup.onRemoved(record);
+            achievementEngine.onCheckinChanged(record.getUserId());
+        }
         log.info("删除打卡记录: id={}", id);
     }
 
@@ -144,11 +163,15 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         log.info("开始创建打卡记录，用户ID: {}, 博物馆ID: {}", 
                 checkinRecord.getUserId(), checkinRecord.getMuseumId());
 
-        // 1. 设置初始审核状态为待审核
+        // 1. 设置初始审核状态为待审核，后台创建的均为正式打卡
         checkinRecord.setAuditStatus(0);
+        if (checkinRecord.getIsDraft() == null) {
+            checkinRecord.setIsDraft(false);
+        }
         
         // 2. 保存打卡记录
         save(checkinRecord);
+        checkinStatsRollup.onCreated(checkinRecord);
         log.info("打卡记录保存成功，ID: {}", checkinRecord.getId());
 
         // 3. 执行自动审核
@@ -156,6 +179,7 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         
         // 4. 更新审核结果
         updateAuditResult(checkinRecord.getId(), auditResult);
+        achievementEngine.onCheckinChanged(checkinRecord.getUserId());
 
         // 5. 返回结果
         CheckinRecordResponse response = new CheckinRecordResponse();
@@ -185,6 +209,7 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         
         // 更新审核结果
         updateAuditResult(id, auditResult);
+        achievementEngine.onCheckinChanged(checkinRecord.getUserId());
 
         // 返回结果
         CheckinRecordResponse response = new CheckinRecordResponse();
@@ -3,8 +3,11 @@ package com.lynn.museum.info.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lynn.museum.common.entity.CursorPage;
+import com.lynn.museum.common.entity.PageCursor;
 import com.lynn.museum.info.dto.ExhibitionResponse;
 import com.lynn.museum.info.dto.MuseumResponse;
+import com.lynn.museum.info.mapper.MuseumInfoMapper;
 import com.lynn.museum.info.mapper.UserExhibitionFavoriteMapper;
 import com.lynn.museum.info.mapper.UserMuseumFavoriteMapper;
 import com.lynn.museum.info.model.entity.UserExhibitionFavorite;
@@ -16,6 +19,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 用户收藏服务实现类
@@ -30,6 +37,7 @@ public class MiniAppUserFavoriteServiceImpl implements MiniAppUserFavoriteServic
 
     private final UserMuseumFavoriteMapper userMuseumFavoriteMapper;
     private final UserExhibitionFavoriteMapper userExhibitionFavoriteMapper;
+    private final MuseumInfoMapper museumInfoMapper;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -148,6 +156,34 @@ public class MiniAppUserFavoriteServiceImpl implements MiniAppUserFavoriteServic
         return userMuseumFavoriteMapper.selectUserFavoriteMuseums(pageRequest, userId, keyword, visitStatus, sortBy);
     }
 
+    @Override
+    public CursorPage<MuseumResponse> getUserFavoriteMuseumsByCursor(Long userId, String cursor, Integer pageSize,
+                                                                     String keyword, Boolean visitStatus) {
+        log.info("游标查询用户收藏的博物馆 - 用户ID：{}, 游标：{}, 大小：{}", userId, cursor, pageSize);
+
+        int size = CursorPage.normalizeSize(pageSize);
+        PageCursor position = PageCursor.decode(cursor);
+        List<UserMuseumFavorite> rows = userMuseumFavoriteMapper.selectFavoriteCursor(userId, keyword, visitStatus,
+                position != null ? position.timeAsDate() : null,
+                position != null ? position.id() : null,
+                size + 1);
+
+        CursorPage<UserMuseumFavorite> favorites = CursorPage.of(rows, size, f -> PageCursor.of(f.getCreateAt(), f.getId()));
+        if (favorites.getRecords().isEmpty()) {
+            return favorites.withRecords(List.of());
+        }
+
+        // 按收藏顺序组装博物馆详情
+        List<Long> museumIds = favorites.getRecords().stream().map(UserMuseumFavorite::getMuseumId).toList();
+        Map<Long, MuseumResponse> museumMap = museumInfoMapper.selectMuseumsByIds(museumIds).stream()
+                .collect(Collectors.toMap(MuseumResponse::getId, Function.identity(), (a, b) -> a));
+        List<MuseumResponse> museums = museumIds.stream()
+                .map(museumMap::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return favorites.withRecords(museums);
+    }
+
     @Override
     public IPage<ExhibitionResponse> getUserFavoriteExhibitions(Long userId, Integer page, Integer pageSize,
                                                               String keyword, Integer status, String sortBy) {
@@ -5,24 +5,26 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.lynn.museum.info.dto.AmapGeocodeResponse;
 import com.lynn.museum.info.dto.CategoryResponse;
-import com.lynn.museum.info.dto.MuseumQueryRequest;
 import com.lynn.museum.info.dto.MuseumResponse;
+import com.lynn.museum.info.dto.MuseumSuggestResponse;
 import com.lynn.museum.info.dto.NearbyMuseumsResponse;
+import com.lynn.museum.info.index.MuseumGeoIndex;
+import com.lynn.museum.info.index.MuseumSearchIndex;
+import com.lynn.museum.info.index.OfflineReverseGeocoder;
 import com.lynn.museum.info.mapper.AreaCityMapper;
-import com.lynn.museum.info.mapper.AreaProvinceMapper;
 import com.lynn.museum.info.mapper.MuseumCategoryMapper;
 import com.lynn.museum.info.mapper.MuseumInfoMapper;
-import com.lynn.museum.info.model.entity.AreaCity;
-import com.lynn.museum.info.model.entity.AreaProvince;
 import com.lynn.museum.info.model.entity.MuseumCategory;
 import com.lynn.museum.info.model.entity.MuseumInfo;
+import com.lynn.museum.info.ranking.HotWindow;
+import com.lynn.museum.info.ranking.MuseumHotRanking;
 import com.lynn.museum.info.service.AmapGeocodeService;
 import com.lynn.museum.info.service.MiniappMuseumService;
 import com.lynn.museum.info.service.MuseumInfoService;
-import com.lynn.museum.common.redis.utils.RedisUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -31,6 +33,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -48,55 +51,27 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
     private final MuseumInfoService museumInfoService;
     private final MuseumCategoryMapper museumCategoryMapper;
     private final AreaCityMapper areaCityMapper;
-    private final AreaProvinceMapper areaProvinceMapper;
     private final AmapGeocodeService amapGeocodeService;
-    // Redis工具类
-    private final RedisUtils redisUtils;
+    private final MuseumGeoIndex museumGeoIndex;
+    private final MuseumSearchIndex museumSearchIndex;
+    private final OfflineReverseGeocoder offlineReverseGeocoder;
+    private final MuseumHotRanking museumHotRanking;
+    // 多级缓存（本地 + Redis）
+    private final CacheManager cacheManager;
     
-    // Redis缓存键前缀
-    private static final String GEOCODE_CACHE_PREFIX = "geocode:";
-    // 缓存过期时间：24小时（86400秒）
-    private static final long GEOCODE_CACHE_EXPIRE = 86400L;
+    // 逆地理编码缓存名，有效期见 museum.cache.caches.geocode
+    private static final String GEOCODE_CACHE = "geocode";
 
     @Override
     public IPage<MuseumResponse> getMuseumPage(Integer page, Integer pageSize, String cityCode, String keyword, Integer categoryId, String sortBy) {
-        LambdaQueryWrapper<MuseumInfo> queryWrapper = new LambdaQueryWrapper<>();
-        
-        // 关键词搜索 - 使用三级优先级搜索逻辑
+        // 关键词搜索走内存索引
         if (keyword != null && !keyword.trim().isEmpty()) {
-            String searchKeyword = keyword.trim();
-            
-            // 第一、二优先级：省份 → 城市 → 地区代码匹配
-            List<String> regionCodes = getRegionCodesByName(searchKeyword);
-            
-            if (!regionCodes.isEmpty()) {
-                // 通过地区代码精确匹配
-                queryWrapper.and(wrapper -> {
-                    for (int i = 0; i < regionCodes.size(); i++) {
-                        String code = regionCodes.get(i);
-                        if (i == 0) {
-                            wrapper.likeRight(MuseumInfo::getProvinceCode, code)
-                                   .or().likeRight(MuseumInfo::getCityCode, code);
-                        } else {
-                            wrapper.or().likeRight(MuseumInfo::getProvinceCode, code)
-                                   .or().likeRight(MuseumInfo::getCityCode, code);
-                        }
-                    }
-                });
-            } else {
-                // 第三优先级：博物馆名称/描述/地址模糊搜索
-                log.info("🔍 第三步：使用博物馆内容模糊搜索 '{}'", searchKeyword);
-                queryWrapper.and(wrapper -> 
-                    wrapper.like(MuseumInfo::getName, searchKeyword)
-                           .or()
-                           .like(MuseumInfo::getDescription, searchKeyword)
-                           .or()
-                           .like(MuseumInfo::getAddress, searchKeyword)
-                );
-            }
+            return buildIndexPage(searchByIndex(keyword.trim(), cityCode, sortBy), page, pageSize);
         }
+
+        LambdaQueryWrapper<MuseumInfo> queryWrapper = new LambdaQueryWrapper<>();
         
-        // 城市筛选（可选）- 优先级高于关键词搜索
+        // 城市筛选（可选）
         if (cityCode != null && !cityCode.trim().isEmpty()) {
             queryWrapper.eq(MuseumInfo::getCityCode, cityCode);
         }
@@ -112,13 +87,8 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
         // 只查询展示状态的博物馆
         queryWrapper.eq(MuseumInfo::getDisplay, 1);
         
-        // 排序逻辑
-        if ("relevance".equals(sortBy)) {
-            // TODO: 实现相关性排序逻辑
-            queryWrapper.orderByDesc(MuseumInfo::getUpdateAt);
-        } else {
-            applySorting(queryWrapper, sortBy);
-        }
+        // 排序逻辑（没有关键词时相关性排序等同默认排序）
+        applySorting(queryWrapper, sortBy);
         
         Page<MuseumInfo> pageRequest = new Page<>(page, pageSize);
         IPage<MuseumInfo> result = museumInfoMapper.selectPage(pageRequest, queryWrapper);
@@ -160,65 +130,25 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
 
     @Override
     public IPage<MuseumResponse> searchMuseums(String keyword, Integer page, Integer pageSize, String cityCode, String sortBy) {
-        LambdaQueryWrapper<MuseumInfo> queryWrapper = new LambdaQueryWrapper<>();
-        
-        // 关键词搜索（必须）- 使用三级优先级搜索
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            String searchKeyword = keyword.trim();
-            
-            // 第一、二优先级：省份 → 城市 → 地区代码匹配
-            List<String> regionCodes = getRegionCodesByName(searchKeyword);
-            
-            if (!regionCodes.isEmpty()) {
-                // 通过地区代码精确匹配
-                queryWrapper.and(wrapper -> {
-                    for (int i = 0; i < regionCodes.size(); i++) {
-                        String code = regionCodes.get(i);
-                        if (i == 0) {
-                            wrapper.likeRight(MuseumInfo::getProvinceCode, code)
-                                   .or().likeRight(MuseumInfo::getCityCode, code);
-                        } else {
-                            wrapper.or().likeRight(MuseumInfo::getProvinceCode, code)
-                                   .or().likeRight(MuseumInfo::getCityCode, code);
-                        }
-                    }
-                });
-            } else {
-                // 第三优先级：博物馆名称/描述/地址模糊搜索
-                queryWrapper.and(wrapper -> 
-                    wrapper.like(MuseumInfo::getName, searchKeyword)
-                           .or()
-                           .like(MuseumInfo::getDescription, searchKeyword)
-                           .or()
-                           .like(MuseumInfo::getAddress, searchKeyword)
-                );
-            }
-        }
-        
-        // 城市筛选（可选）- 优先级高于关键词搜索
-        if (cityCode != null && !cityCode.trim().isEmpty()) {
-            queryWrapper.eq(MuseumInfo::getCityCode, cityCode);
-        }
-        
-        // 只查询启用状态的博物馆
-        queryWrapper.eq(MuseumInfo::getStatus, 1);
-        
-        // 只查询展示状态的博物馆
-        queryWrapper.eq(MuseumInfo::getDisplay, 1);
+        List<Long> museumIds = keyword != null && !keyword.trim().isEmpty()
+                ? searchByIndex(keyword.trim(), cityCode, sortBy)
+                : new ArrayList<>();
         
-        // 搜索排序（相关性优先）
-        if ("relevance".equals(sortBy)) {
-            // TODO: 实现相关性排序逻辑
-            queryWrapper.orderByDesc(MuseumInfo::getUpdateAt);
-        } else {
-            applySorting(queryWrapper, sortBy);
-        }
-        
-        Page<MuseumInfo> pageRequest = new Page<>(page, pageSize);
-        IPage<MuseumInfo> result = museumInfoMapper.selectPage(pageRequest, queryWrapper);
-        
-        log.info("✅ 博物馆搜索完成，共找到 {} 个博物馆", result.getTotal());
-        return convertToResponsePage(result);
+        log.info("✅ 博物馆搜索完成，共找到 {} 个博物馆", museumIds.size());
+        return buildIndexPage(museumIds, page, pageSize);
+    }
+
+    @Override
+    public List<MuseumSuggestResponse> suggestMuseums(String keyword, Integer limit) {
+        return museumSearchIndex.suggest(keyword, limit).stream()
+                .map(suggestion -> {
+                    MuseumSuggestResponse response = new MuseumSuggestResponse();
+                    response.setId(suggestion.getMuseumId());
+                    response.setName(suggestion.getName());
+                    response.setAddress(suggestion.getAddress());
+                    return response;
+                })
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -258,6 +188,9 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
             case "createAt":
                 queryWrapper.orderByDesc(MuseumInfo::getCreateAt);
                 break;
+            case "hot":
+                queryWrapper.orderByDesc(MuseumInfo::getCheckinCount).orderByDesc(MuseumInfo::getCreateAt);
+                break;
             default:
                 queryWrapper.orderByDesc(MuseumInfo::getUpdateAt);
                 break;
@@ -307,8 +240,17 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
     }
 
     @Override
-    public IPage<MuseumResponse> getHotMuseums(Integer page, Integer pageSize, String name) {
-        log.info("分页获取热门博物馆列表 - 页码：{}，页面大小：{}，名称：{}", page, pageSize, name);
+    public IPage<MuseumResponse> getHotMuseums(Integer page, Integer pageSize, String name, String window) {
+        log.info("分页获取热门博物馆列表 - 页码：{}，页面大小：{}，名称：{}，窗口：{}", page, pageSize, name, window);
+
+        HotWindow hotWindow = HotWindow.of(window);
+        if (name == null || name.trim().isEmpty()) {
+            IPage<MuseumResponse> ranked = getHotMuseumsFromRanking(page, pageSize, hotWindow);
+            // 累计榜为空说明排行尚未建立或 Redis 不可用，回退到数据库
+            if (ranked != null) {
+                return ranked;
+            }
+        }
 
         Page<MuseumResponse> pageRequest = new Page<>(page, pageSize);
         IPage<MuseumResponse> result = museumInfoMapper.selectHotMuseums(pageRequest, name);
@@ -323,6 +265,35 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
         return result;
     }
 
+    /**
+     * 从实时排行读取一页热门博物馆，累计榜第一页为空时返回 null
+     */
+    private IPage<MuseumResponse> getHotMuseumsFromRanking(Integer page, Integer pageSize, HotWindow window) {
+        long offset = (long) (page - 1) * pageSize;
+        List<MuseumHotRanking.HotMuseum> ranked = museumHotRanking.top(window, offset, pageSize);
+        if (ranked.isEmpty() && offset == 0 && window == HotWindow.ALL) {
+            return null;
+        }
+
+        Map<Long, MuseumResponse> details = museumHotRanking.details(
+                ranked.stream().map(MuseumHotRanking.HotMuseum::museumId).toList());
+        List<MuseumResponse> records = new ArrayList<>(ranked.size());
+        for (MuseumHotRanking.HotMuseum hot : ranked) {
+            MuseumResponse museum = details.get(hot.museumId());
+            // 榜单只收录开放且展示的博物馆，这里兜底过滤尚未同步到榜单的变更（如直接修改数据库）
+            if (museum != null && Integer.valueOf(1).equals(museum.getStatus()) && Integer.valueOf(1).equals(museum.getDisplay())) {
+                records.add(museum);
+            }
+        }
+        if (!records.isEmpty()) {
+            ((MuseumInfoServiceImpl) museumInfoService).batchFillImageUrls(records);
+        }
+
+        Page<MuseumResponse> result = new Page<>(page, pageSize, museumHotRanking.size(window));
+        result.setRecords(records);
+        return result;
+    }
+
     @Override
     public List<CategoryResponse> getCategories() {
         log.info("获取博物馆分类列表");
@@ -346,76 +317,29 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
         log.info("分页获取附近博物馆 - 位置：{},{}, 半径：{}km, 页码：{}, 大小：{}", 
                 latitude, longitude, radius, page, pageSize);
 
-        // 1. 调用高德地图API获取城市信息
-        String amapCityCode = getCityCodeFromAmap(latitude, longitude);
-        if (amapCityCode == null) {
-            log.warn("无法获取城市编码，返回空结果");
-            // 返回空的分页结果
-            return new Page<>(page, pageSize);
-        }
-        
-        String cityCode = mapAmapCityCodeToDatabase(amapCityCode);
+        // 1. 离线逆地理编码直接得到城市adcode，边界模糊时调用高德地图API
+        OfflineReverseGeocoder.RegionMatch region = offlineReverseGeocoder.resolve(latitude, longitude);
+        String cityCode = region != null ? region.getCityAdcode() : getCityAdcodeFromAmap(latitude, longitude);
         if (cityCode == null) {
-            log.warn("城市编码映射失败，返回空结果");
+            log.warn("无法获取城市编码，返回空结果");
             // 返回空的分页结果
             return new Page<>(page, pageSize);
         }
         
-        log.info("通过高德地图API获取到城市编码：{} -> 数据库编码：{}", amapCityCode, cityCode);
+        log.info("获取到城市编码：{}", cityCode);
 
-        // 2. 构建查询请求，基于城市编码查询
-        MuseumQueryRequest query = new MuseumQueryRequest();
-        query.setPage(page);
-        query.setSize(pageSize);
-        // 只查询启用状态的博物馆
-        query.setStatus(1);
-        // 设置城市编码进行筛选
-        query.setCityCode(cityCode);
-        
-        // 3. 分页查询该城市的博物馆
-        Page<MuseumInfo> museumInfoPage = new Page<>(page, pageSize);
-        IPage<MuseumResponse> result = museumInfoMapper.selectMuseumPage(museumInfoPage, query);
-        
-        // 4. 计算每个博物馆与用户位置的距离，并按距离排序
-        List<MuseumResponse> museums = result.getRecords();
-        museums.forEach(museum -> {
-            if (museum.getLatitude() != null && museum.getLongitude() != null) {
-                double distance = calculateDistance(latitude, longitude, 
-                    museum.getLatitude().doubleValue(), museum.getLongitude().doubleValue());
-                
-                // 这里可以设置距离字段到museum对象中，需要确保MuseumResponse有distance字段
-                log.debug("博物馆 {} 距离用户 {} 公里", museum.getName(), distance);
-            }
-        });
-        
-        // 5. 按距离排序（距离近的优先）
-        museums.sort((m1, m2) -> {
-            if (m1.getLatitude() == null || m1.getLongitude() == null) {
-                return 1;
-            }
-            if (m2.getLatitude() == null || m2.getLongitude() == null) {
-                return -1;
-            }
-            
-            double distance1 = calculateDistance(latitude, longitude, 
-                m1.getLatitude().doubleValue(), m1.getLongitude().doubleValue());
-            double distance2 = calculateDistance(latitude, longitude, 
-                m2.getLatitude().doubleValue(), m2.getLongitude().doubleValue());
-            
-            return Double.compare(distance1, distance2);
-        });
-        
-        // 重新设置排序后的数据
-        result.setRecords(museums);
-        
-        log.info("附近博物馆查询完成 - 城市编码：{}, 返回博物馆数量：{}", cityCode, museums.size());
+        // 2. 由内存地理索引按距离排序该城市的博物馆，再对当前页回表
+        List<MuseumGeoIndex.GeoHit> hits = museumGeoIndex.nearestInCity(latitude, longitude, cityCode, null, null);
+        IPage<MuseumResponse> result = buildNearbyPage(hits, page, pageSize);
+
+        log.info("附近博物馆查询完成 - 城市编码：{}, 返回博物馆数量：{}", cityCode, result.getRecords().size());
         return result;
     }
 
     /**
-     * 通过高德地图API获取城市编码
+     * 通过高德地图API获取城市adcode（数据库城市编码）
      */
-    private String getCityCodeFromAmap(Double latitude, Double longitude) {
+    private String getCityAdcodeFromAmap(Double latitude, Double longitude) {
         try {
             // 调用高德地图逆地理编码API
             AmapGeocodeResponse response = amapGeocodeService.reverseGeocode(longitude, latitude);
@@ -429,16 +353,23 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
                     log.info("高德地图API返回 - 城市代码：{}, 区域代码：{}, 城市：{}", 
                         cityCode, adCode, regeocode.getAddressComponent().getCity());
                     
-                    // 优先返回citycode，通过area_cities表进行映射
+                    // 优先由区县adcode确定所属城市，电话区号可能被多个城市共用
+                    if (adCode != null && !adCode.isEmpty()) {
+                        String cityAdcode = offlineReverseGeocoder.resolveCityAdcodeByDistrict(adCode);
+                        if (cityAdcode != null) {
+                            return cityAdcode;
+                        }
+                    }
+                    
+                    // 备用：通过area_cities表映射citycode
                     if (cityCode != null && !cityCode.isEmpty()) {
                         log.info("获取到高德地图citycode：{}", cityCode);
-                        return cityCode;
+                        return mapAmapCityCodeToDatabase(cityCode);
                     }
                     
-                    // 备用：如果citycode不可用，尝试从adcode推断citycode
                     if (adCode != null && !adCode.isEmpty()) {
                         log.warn("citycode不可用，尝试使用adcode：{}", adCode);
-                        return adCode;
+                        return mapAmapCityCodeToDatabase(adCode);
                     }
                 }
             }
@@ -451,25 +382,6 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
         return null;
     }
 
-    /**
-     * 计算两点间距离（简单的球面距离计算）
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        // 地球半径（公里）
-        final int R = 6371;
-        
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c;
-        
-        // 保留两位小数
-        return Math.round(distance * 100.0) / 100.0;
-    }
-
     @Override
     public NearbyMuseumsResponse getNearbyMuseumsWithLocation(Double latitude, Double longitude, Integer radius, Integer page, Integer pageSize, String name, String cityCode, String cityName) {
         log.info("获取附近博物馆（包含位置信息）- 位置：{},{}, 半径：{}km, 页码：{}, 大小：{}, 搜索：{}, 前端传入城市：{}({})",
@@ -479,11 +391,17 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
         //    原因：用户可能跨城市移动，必须根据实时位置查询
         //    性能：会优先使用Redis缓存（基于经纬度的缓存key）
         log.info("📍 附近博物馆查询：忽略前端传入的cityCode，根据当前经纬度重新获取城市信息（会使用Redis缓存）");
-        NearbyMuseumsResponse.LocationInfo locationInfo = getLocationInfoFromAmap(latitude, longitude);
-
-        // 2. 使用位置信息中的城市编码获取附近博物馆列表（支持搜索和半径过滤）
-        String useCityCode = locationInfo.getCityCode();
-        IPage<MuseumResponse> museumPage = getNearbyMuseumsPageByCityCode(latitude, longitude, useCityCode, radius, page, pageSize, name);
+        //    离线逆地理编码命中时直接使用匹配城市的adcode，不经电话区号反查
+        OfflineReverseGeocoder.RegionMatch region = offlineReverseGeocoder.resolve(latitude, longitude);
+        NearbyMuseumsResponse.LocationInfo locationInfo = region != null
+                ? buildLocationInfo(latitude, longitude, region)
+                : getLocationInfoFromAmap(latitude, longitude);
+
+        // 2. 使用城市编码获取附近博物馆列表（支持搜索和半径过滤）
+        String databaseCityCode = region != null
+                ? region.getCityAdcode()
+                : resolveDatabaseCityCode(locationInfo);
+        IPage<MuseumResponse> museumPage = getNearbyMuseumsPageByCityCode(latitude, longitude, databaseCityCode, radius, page, pageSize, name);
 
         // 3. 构建完整响应
         return NearbyMuseumsResponse.builder()
@@ -493,31 +411,60 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
     }
 
     /**
-     * 通过高德地图API获取详细位置信息（支持Redis缓存）
+     * 由高德逆地理编码结果确定数据库城市编码
+     * 
+     * 优先由区县adcode确定所属城市，电话区号可能被多个城市共用；缺少adcode时才按citycode映射
+     */
+    private String resolveDatabaseCityCode(NearbyMuseumsResponse.LocationInfo locationInfo) {
+        String adcode = locationInfo.getAdcode();
+        if (adcode != null && !adcode.isEmpty()) {
+            String cityAdcode = offlineReverseGeocoder.resolveCityAdcodeByDistrict(adcode);
+            if (cityAdcode != null) {
+                return cityAdcode;
+            }
+        }
+        return mapAmapCityCodeToDatabase(locationInfo.getCityCode());
+    }
+
+    /**
+     * 通过高德地图API获取详细位置信息（离线逆地理编码未命中时使用，支持Redis缓存）
      * 
      * 缓存策略：
-     * - Key: geocode:lat:lng（保留4位小数）
+     * - 多级缓存 geocode，Key: lat:lng（保留4位小数）
      * - 有效期: 24小时
-     * - 相同位置（精度50米）共享缓存，节省API调用
+     * - 相同位置（精度50米）共享缓存，同一位置的并发请求只调用一次高德API
      */
     private NearbyMuseumsResponse.LocationInfo getLocationInfoFromAmap(Double latitude, Double longitude) {
-        // 1. 生成Redis缓存键（保留4位小数，约等于11米精度）
+        // 生成缓存键（保留4位小数，约等于11米精度），未命中时调用高德地图API
         String cacheKey = generateGeocodeKey(latitude, longitude);
-        
-        // 2. 尝试从Redis获取缓存
-        try {
-            Object cached = redisUtils.get(cacheKey);
-            if (cached instanceof NearbyMuseumsResponse.LocationInfo) {
-                log.info("✅ Redis缓存命中 - Key: {}, 城市: {}", 
-                        cacheKey, ((NearbyMuseumsResponse.LocationInfo) cached).getCityName());
-                return (NearbyMuseumsResponse.LocationInfo) cached;
-            }
-        } catch (Exception e) {
-            log.warn("⚠️ Redis缓存读取失败，继续调用高德API - {}", e.getMessage());
-        }
-        
-        // 3. 缓存未命中，调用高德地图API
-        log.info("❌ Redis缓存未命中 - Key: {}, 开始调用高德地图API", cacheKey);
+        return cacheManager.getCache(GEOCODE_CACHE).get(cacheKey, () -> reverseGeocodeByAmap(latitude, longitude));
+    }
+
+    /**
+     * 由离线逆地理编码结果构建位置信息
+     */
+    private NearbyMuseumsResponse.LocationInfo buildLocationInfo(Double latitude, Double longitude,
+                                                               OfflineReverseGeocoder.RegionMatch region) {
+        log.debug("离线逆地理编码命中 - 位置：{},{}, 城市：{}", latitude, longitude, region.getCityName());
+        return NearbyMuseumsResponse.LocationInfo.builder()
+                .latitude(latitude)
+                .longitude(longitude)
+                .cityName(region.getCityName())
+                // 与高德保持一致返回citycode，缺失时使用adcode（后续映射可直接识别）
+                .cityCode(region.getCitycode() != null && !region.getCitycode().isEmpty()
+                        ? region.getCitycode() : region.getCityAdcode())
+                .province(region.getProvinceName())
+                .district(region.getDistrictName())
+                .adcode(region.getDistrictAdcode() != null ? region.getDistrictAdcode() : region.getCityAdcode())
+                .formattedAddress(region.getFormattedAddress())
+                .build();
+    }
+
+    /**
+     * 调用高德地图逆地理编码API，失败时返回默认位置信息
+     */
+    private NearbyMuseumsResponse.LocationInfo reverseGeocodeByAmap(Double latitude, Double longitude) {
+        log.info("逆地理编码缓存未命中 - 位置：{},{}, 开始调用高德地图API", latitude, longitude);
         
         NearbyMuseumsResponse.LocationInfo.LocationInfoBuilder builder = NearbyMuseumsResponse.LocationInfo.builder()
                 .latitude(latitude)
@@ -534,6 +481,7 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
                     
                     builder.cityName(addr.getCity())
                            .cityCode(addr.getCitycode())
+                           .adcode(addr.getAdcode())
                            .province(addr.getProvince())
                            .district(addr.getDistrict())
                            .formattedAddress(regeocode.getFormattedAddress());
@@ -551,29 +499,19 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
                    .formattedAddress("位置获取失败");
         }
 
-        NearbyMuseumsResponse.LocationInfo locationInfo = builder.build();
-        
-        // 4. 将结果存入Redis缓存（24小时）
-        try {
-            redisUtils.set(cacheKey, locationInfo, GEOCODE_CACHE_EXPIRE);
-            log.info("💾 位置信息已缓存到Redis - Key: {}, 过期时间: {}小时", cacheKey, GEOCODE_CACHE_EXPIRE / 3600);
-        } catch (Exception e) {
-            log.warn("⚠️ Redis缓存写入失败 - {}", e.getMessage());
-        }
-
-        return locationInfo;
+        return builder.build();
     }
     
     /**
      * 生成逆地理编码缓存键
      * 
      * 经纬度保留4位小数（约11米精度），相同位置共享缓存
-     * 示例: geocode:38.8703:121.5616
+     * 示例: 38.8703:121.5616
      */
     private String generateGeocodeKey(Double latitude, Double longitude) {
         BigDecimal lat = BigDecimal.valueOf(latitude).setScale(4, RoundingMode.HALF_UP);
         BigDecimal lng = BigDecimal.valueOf(longitude).setScale(4, RoundingMode.HALF_UP);
-        return GEOCODE_CACHE_PREFIX + lat + ":" + lng;
+        return lat + ":" + lng;
     }
 
     /**
@@ -593,7 +531,11 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
                     .build();
         }
 
-        // 如果前端没有传递完整城市信息，才调用高德API
+        // 如果前端没有传递完整城市信息，离线逆地理编码未命中时才调用高德API
+        OfflineReverseGeocoder.RegionMatch region = offlineReverseGeocoder.resolve(latitude, longitude);
+        if (region != null) {
+            return buildLocationInfo(latitude, longitude, region);
+        }
         log.info("前端未提供完整城市信息，调用高德地图API获取");
         return getLocationInfoFromAmap(latitude, longitude);
     }
@@ -601,93 +543,63 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
     /**
      * 基于城市编码和半径获取附近博物馆（支持距离过滤和搜索）
      */
-    private IPage<MuseumResponse> getNearbyMuseumsPageByCityCode(Double latitude, Double longitude, String cityCode, Integer radius, Integer page, Integer pageSize, String name) {
-        log.info("📍 基于城市编码和半径获取博物馆 - 城市：{}, 半径：{}km, 页码：{}, 大小：{}, 搜索：{}", cityCode, radius, page, pageSize, name);
+    private IPage<MuseumResponse> getNearbyMuseumsPageByCityCode(Double latitude, Double longitude, String databaseCityCode, Integer radius, Integer page, Integer pageSize, String name) {
+        log.info("📍 基于城市编码和半径获取博物馆 - 城市：{}, 半径：{}km, 页码：{}, 大小：{}, 搜索：{}", databaseCityCode, radius, page, pageSize, name);
 
-        // 1. 映射高德地图城市编码到数据库城市编码
-        String databaseCityCode = mapAmapCityCodeToDatabase(cityCode);
-        log.debug("城市编码映射：高德编码[{}] -> 数据库编码[{}]", cityCode, databaseCityCode);
+        // 1. 由内存地理索引完成城市、名称、半径过滤和距离排序，不访问数据库
+        List<MuseumGeoIndex.GeoHit> hits = museumGeoIndex.nearestInCity(latitude, longitude, databaseCityCode, radius, name);
+        log.info("✅ 过滤后：半径{}km内有 {} 家博物馆", radius, hits.size());
 
-        // 2. 构建查询请求（查询所有符合条件的博物馆，不预先分页）
-        MuseumQueryRequest query = new MuseumQueryRequest();
-        // 只查询启用状态的博物馆
-        query.setStatus(1);
-        // 城市编码
-        query.setCityCode(databaseCityCode);
-        // 搜索关键词
-        query.setName(name);
-        
-        // 查询该城市所有符合条件的博物馆
-        // 使用足够大的页面大小
-        Page<MuseumInfo> allMuseumsPage = new Page<>(1, 10000);
-        IPage<MuseumResponse> allMuseumsResult = museumInfoMapper.selectMuseumPage(allMuseumsPage, query);
-        List<MuseumResponse> allMuseums = allMuseumsResult.getRecords();
-        
-        log.debug("从数据库查询到 {} 家博物馆（过滤前）", allMuseums.size());
-
-        // 3. 计算距离、过滤、排序
-        List<MuseumResponse> nearbyMuseums = allMuseums.stream()
-            .peek(museum -> {
-                // 计算距离并设置到museum对象
-                if (museum.getLatitude() != null && museum.getLongitude() != null) {
-                    double distanceKm = calculateDistance(
-                        latitude, longitude,
-                        museum.getLatitude().doubleValue(), 
-                        museum.getLongitude().doubleValue()
-                    );
-                    museum.setDistance(formatDistance(distanceKm));
-                } else {
-                    museum.setDistance("未知");
-                }
-            })
-            .filter(museum -> {
-                // ✅ 根据radius过滤距离
-                if (radius != null && museum.getDistance() != null && !"未知".equals(museum.getDistance())) {
-                    double distanceKm = parseDistance(museum.getDistance());
-                    boolean inRange = distanceKm <= radius;
-                    if (!inRange) {
-                        log.debug("过滤掉：{} (距离：{}，超出{}km范围)", museum.getName(), museum.getDistance(), radius);
-                    }
-                    return inRange;
-                }
-                // 如果没有指定radius，则保留所有博物馆
-                return true;
-            })
-            .sorted((m1, m2) -> {
-                // 按距离排序（距离近的优先）
-                double d1 = parseDistance(m1.getDistance());
-                double d2 = parseDistance(m2.getDistance());
-                return Double.compare(d1, d2);
-            })
-            .collect(Collectors.toList());
-        
-        log.info("✅ 过滤后：半径{}km内有 {} 家博物馆", radius, nearbyMuseums.size());
+        // 2. 只对当前页的博物馆回表并填充距离
+        IPage<MuseumResponse> result = buildNearbyPage(hits, page, pageSize);
+
+        // 3. 批量填充图片URL，避免N+1查询
+        if (!result.getRecords().isEmpty()) {
+            log.info("🏛️ 开始为附近博物馆批量填充图片URL，数量：{}", result.getRecords().size());
+            ((MuseumInfoServiceImpl) museumInfoService).batchFillImageUrls(result.getRecords());
+            log.info("🏛️ 附近博物馆图片URL填充完成");
+        }
+
+        return result;
+    }
 
-        // 4. 手动分页
-        int total = nearbyMuseums.size();
+    /**
+     * 根据排好序的索引命中结果构建分页，只按主键查询当前页的博物馆
+     */
+    private IPage<MuseumResponse> buildNearbyPage(List<MuseumGeoIndex.GeoHit> hits, Integer page, Integer pageSize) {
+        // 与数据库分页一致，页码和每页条数不小于1
+        page = page == null || page < 1 ? 1 : page;
+        pageSize = pageSize == null || pageSize < 1 ? 10 : pageSize;
+        int total = hits.size();
         int start = (page - 1) * pageSize;
         int end = Math.min(start + pageSize, total);
-        
-        List<MuseumResponse> pageData;
-        if (start < total) {
-            pageData = nearbyMuseums.subList(start, end);
-            log.debug("分页结果：第{}页，从索引{}到{}，返回{}条", page, start, end - 1, pageData.size());
-        } else {
-            pageData = new ArrayList<>();
+
+        Page<MuseumResponse> result = new Page<>(page, pageSize, total);
+        if (start >= total) {
             log.debug("分页结果：第{}页超出范围，返回空列表", page);
+            result.setRecords(new ArrayList<>());
+            return result;
         }
 
-        // 5. 批量填充图片URL，避免N+1查询
-        if (!pageData.isEmpty()) {
-            log.info("🏛️ 开始为附近博物馆批量填充图片URL，数量：{}", pageData.size());
-            ((MuseumInfoServiceImpl) museumInfoService).batchFillImageUrls(pageData);
-            log.info("🏛️ 附近博物馆图片URL填充完成");
+        List<MuseumGeoIndex.GeoHit> pageHits = hits.subList(start, end);
+        List<Long> ids = pageHits.stream()
+                .map(MuseumGeoIndex.GeoHit::getMuseumId)
+                .collect(Collectors.toList());
+        Map<Long, MuseumResponse> museumMap = museumInfoMapper.selectMuseumsByIds(ids).stream()
+                .collect(Collectors.toMap(MuseumResponse::getId, Function.identity(), (m1, m2) -> m1));
+
+        List<MuseumResponse> pageData = new ArrayList<>(pageHits.size());
+        for (MuseumGeoIndex.GeoHit hit : pageHits) {
+            MuseumResponse museum = museumMap.get(hit.getMuseumId());
+            if (museum == null) {
+                continue;
+            }
+            museum.setDistance(hit.getDistanceKm() == Double.MAX_VALUE ? "未知" : formatDistance(hit.getDistanceKm()));
+            pageData.add(museum);
         }
+        log.debug("分页结果：第{}页，从索引{}到{}，返回{}条", page, start, end - 1, pageData.size());
 
-        // 6. 构建分页结果
-        Page<MuseumResponse> result = new Page<>(page, pageSize, total);
         result.setRecords(pageData);
-        
         return result;
     }
 
@@ -702,29 +614,6 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
         }
     }
     
-    /**
-     * 解析距离字符串为公里数
-     */
-    private double parseDistance(String distanceStr) {
-        if (distanceStr == null || "未知".equals(distanceStr)) {
-            return Double.MAX_VALUE;
-        }
-        
-        try {
-            if (distanceStr.endsWith("km")) {
-                return Double.parseDouble(distanceStr.replace("km", "").trim());
-            } else if (distanceStr.endsWith("m")) {
-                double meters = Double.parseDouble(distanceStr.replace("m", "").trim());
-                return meters / 1000.0;
-            } else {
-                return Double.parseDouble(distanceStr);
-            }
-        } catch (NumberFormatException e) {
-            log.warn("⚠️ 解析距离失败: {}", distanceStr);
-            return Double.MAX_VALUE;
-        }
-    }
-
     /**
      * 动态映射高德地图城市编码到数据库城市编码
      * 通过area_cities表查询adcode
@@ -760,6 +649,12 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
      * 从数据库查询城市adcode
      */
     private String queryCityAdcodeFromDatabase(String cityCode) {
+        // 优先使用离线索引中的citycode映射
+        String cachedAdcode = offlineReverseGeocoder.resolveCityAdcode(cityCode);
+        if (cachedAdcode != null) {
+            return cachedAdcode;
+        }
+
         try {
             String adcode = areaCityMapper.selectAdcodeByCitycode(cityCode);
             log.info("数据库查询城市编码：{} -> {}", cityCode, adcode);
@@ -780,48 +675,47 @@ public class MiniappMuseumServiceImpl implements MiniappMuseumService {
     }
 
     /**
-     * 根据地区名称获取地区代码列表
-     * 优先级搜索：省份 → 城市
-     * @param regionName 地区名称（省份或城市）
-     * @return 地区代码列表
+     * 关键词检索：优先级 省份 → 城市 → 博物馆名称/地址/简介全文检索
+     *
+     * @return 排好序的博物馆ID
      */
-    private List<String> getRegionCodesByName(String regionName) {
-        List<String> regionCodes = new ArrayList<>();
-        
-        try {
-            // 第一优先级：查找匹配的省份
-            log.info("🔍 第一步：在省份中搜索 '{}'", regionName);
-            LambdaQueryWrapper<AreaProvince> provinceWrapper = new LambdaQueryWrapper<>();
-            provinceWrapper.like(AreaProvince::getName, regionName);
-            List<AreaProvince> provinces = areaProvinceMapper.selectList(provinceWrapper);
-            
-            if (!provinces.isEmpty()) {
-                log.info("✅ 在省份中找到匹配：{}", provinces.get(0).getName());
-                String provinceCode = provinces.get(0).getAdcode();
-                regionCodes.add(provinceCode);
-                return regionCodes;
-            }
-            
-            // 第二优先级：查找匹配的城市
-            log.info("🔍 第二步：在城市中搜索 '{}'", regionName);
-            LambdaQueryWrapper<AreaCity> cityWrapper = new LambdaQueryWrapper<>();
-            cityWrapper.like(AreaCity::getName, regionName);
-            List<AreaCity> cities = areaCityMapper.selectList(cityWrapper);
-            
-            if (!cities.isEmpty()) {
-                log.info("✅ 在城市中找到匹配：{}", cities.get(0).getName());
-                String cityCode = cities.get(0).getAdcode();
-                regionCodes.add(cityCode);
-                return regionCodes;
+    private List<Long> searchByIndex(String keyword, String cityCode, String sortBy) {
+        List<String> regionCodes = museumSearchIndex.resolveRegionCodes(keyword);
+        if (!regionCodes.isEmpty()) {
+            log.info("🔍 关键词 '{}' 匹配地区：{}", keyword, regionCodes);
+            return museumSearchIndex.listByRegion(regionCodes, cityCode, sortBy);
+        }
+        return museumSearchIndex.search(keyword, cityCode, sortBy);
+    }
+
+    /**
+     * 根据排好序的索引检索结果构建分页，只按主键查询当前页的博物馆
+     */
+    private IPage<MuseumResponse> buildIndexPage(List<Long> museumIds, Integer page, Integer pageSize) {
+        // 与数据库分页一致，页码和每页条数不小于1
+        page = page == null || page < 1 ? 1 : page;
+        pageSize = pageSize == null || pageSize < 1 ? 10 : pageSize;
+        int total = museumIds.size();
+        int start = (page - 1) * pageSize;
+        int end = Math.min(start + pageSize, total);
+
+        Page<MuseumInfo> result = new Page<>(page, pageSize, total);
+        if (start >= total) {
+            result.setRecords(new ArrayList<>());
+            return convertToResponsePage(result);
+        }
+
+        List<Long> pageIds = museumIds.subList(start, end);
+        Map<Long, MuseumInfo> museumMap = museumInfoMapper.selectBatchIds(pageIds).stream()
+                .collect(Collectors.toMap(MuseumInfo::getId, Function.identity(), (m1, m2) -> m1));
+        List<MuseumInfo> records = new ArrayList<>(pageIds.size());
+        for (Long museumId : pageIds) {
+            MuseumInfo museum = museumMap.get(museumId);
+            if (museum != null) {
+                records.add(museum);
             }
-            
-            // 没有找到地区匹配
-            log.info("❌ 未在省份和城市中找到匹配: {}", regionName);
-            return regionCodes;
-            
-        } catch (Exception e) {
-            log.error("根据地区名称查找地区代码失败: {}", regionName, e);
-            return new ArrayList<>();
         }
+        result.setRecords(records);
+        return convertToResponsePage(result);
     }
 }
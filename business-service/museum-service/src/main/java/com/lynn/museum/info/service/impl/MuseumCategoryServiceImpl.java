@@ -68,7 +68,7 @@ public class MuseumCategoryServiceImpl extends ServiceImpl<MuseumCategoryMapper,
     }
 
     @Override
-    @Cacheable(value = "museum_category", key = "'categories'")
+    @Cacheable(value = "museum_category", key = "'categories'", sync = true)
     public List<CategoryResponse> getAllCategories() {
         LambdaQueryWrapper<MuseumCategory> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(MuseumCategory::getStatus, 1)
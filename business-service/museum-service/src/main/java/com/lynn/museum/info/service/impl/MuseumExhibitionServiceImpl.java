@@ -3,7 +3,6 @@ package com.lynn.museum.info.service.impl;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.lynn.museum.api.file.client.FileApiClient;
 import com.lynn.museum.common.exception.BizException;
 import com.lynn.museum.common.result.ResultCode;
 import com.lynn.museum.info.dto.ExhibitionCreateRequest;
@@ -12,6 +11,7 @@ import com.lynn.museum.info.dto.ExhibitionResponse;
 import com.lynn.museum.info.dto.ExhibitionUpdateRequest;
 import com.lynn.museum.info.enums.BusinessTypeEnum;
 import com.lynn.museum.info.enums.RelationTypeEnum;
+import com.lynn.museum.info.file.FileUrlResolver;
 import com.lynn.museum.info.mapper.MuseumExhibitionMapper;
 import com.lynn.museum.info.mapper.MuseumInfoMapper;
 import com.lynn.museum.info.model.entity.MuseumExhibition;
@@ -19,6 +19,7 @@ import com.lynn.museum.info.model.entity.MuseumInfo;
 import com.lynn.museum.info.service.FileBusinessRelationService;
 import com.lynn.museum.info.service.MuseumExhibitionService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -36,6 +37,7 @@ import java.util.stream.Collectors;
  * @author lynn
  * @since 2024-01-01
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMapper, MuseumExhibition> implements MuseumExhibitionService {
@@ -43,16 +45,16 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
     private final MuseumExhibitionMapper museumExhibitionMapper;
     private final MuseumInfoMapper museumInfoMapper;
     private final FileBusinessRelationService fileBusinessRelationService;
-    private final FileApiClient fileApiClient;
+    private final FileUrlResolver fileUrlResolver;
 
     @Override
     public IPage<ExhibitionResponse> getExhibitionPage(ExhibitionQueryRequest query) {
         Page<MuseumExhibition> page = new Page<>(query.getPage(), query.getSize());
         IPage<ExhibitionResponse> result = museumExhibitionMapper.selectExhibitionPage(page, query);
         
-        // 为每个展览填充图片URL信息
+        // 批量填充图片URL信息
         if (result.getRecords() != null && !result.getRecords().isEmpty()) {
-            result.getRecords().forEach(this::fillImageUrls);
+            fillImageUrls(result.getRecords());
         }
         
         return result;
@@ -67,13 +69,14 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
         }
         
         // 填充图片URL信息
-        fillImageUrls(exhibition);
+        fillImageUrls(List.of(exhibition));
         
         return exhibition;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
+    @CacheEvict(value = "museum_exhibition", allEntries = true)
     public Long createExhibition(ExhibitionCreateRequest request) {
         // 检查博物馆是否存在
         MuseumInfo museum = museumInfoMapper.selectById(request.getMuseumId());
@@ -94,7 +97,7 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "museum_exhibition", key = "'exhibition:' + #request.id")
+    @CacheEvict(value = "museum_exhibition", allEntries = true)
     public void updateExhibition(ExhibitionUpdateRequest request) {
         // 检查展览是否存在
         MuseumExhibition exhibition = getById(request.getId());
@@ -118,7 +121,7 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(value = "museum_exhibition", key = "'exhibition:' + #id")
+    @CacheEvict(value = "museum_exhibition", allEntries = true)
     public void deleteExhibition(Long id) {
         // 检查展览是否存在
         MuseumExhibition exhibition = getById(id);
@@ -131,7 +134,7 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
     }
 
     @Override
-    @CacheEvict(value = "museum_exhibition", key = "'exhibition:' + #id")
+    @CacheEvict(value = "museum_exhibition", allEntries = true)
     public void updateStatus(Long id, Integer status) {
         // 检查展览是否存在
         MuseumExhibition exhibition = getById(id);
@@ -152,11 +155,7 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
         
         // 填充图片URL
         if (result != null && !CollectionUtils.isEmpty(result.getRecords())) {
-            System.out.println("🖼️ 开始为最新展览填充图片URL，数量：" + result.getRecords().size());
-            for (ExhibitionResponse exhibition : result.getRecords()) {
-                fillImageUrls(exhibition);
-            }
-            System.out.println("🖼️ 最新展览图片URL填充完成");
+            fillImageUrls(result.getRecords());
         }
         
         return result;
@@ -170,56 +169,37 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
         
         // 填充图片URL
         if (result != null && !CollectionUtils.isEmpty(result.getRecords())) {
-            System.out.println("🖼️ 开始为所有展览填充图片URL，数量：" + result.getRecords().size());
-            for (ExhibitionResponse exhibition : result.getRecords()) {
-                fillImageUrls(exhibition);
-            }
-            System.out.println("🖼️ 所有展览图片URL填充完成");
+            fillImageUrls(result.getRecords());
         }
         
         return result;
     }
 
     /**
-     * 填充展览图片URL信息
+     * 批量填充展览图片URL信息（文件关联一次查询，文件URL一次调用）
      */
-    private void fillImageUrls(ExhibitionResponse exhibition) {
+    private void fillImageUrls(List<ExhibitionResponse> exhibitions) {
         try {
-            // 获取展览的图片文件ID列表
-            List<Long> fileIds = fileBusinessRelationService.getBusinessFileIds(
-                exhibition.getId(),
+            List<Long> exhibitionIds = exhibitions.stream()
+                .map(ExhibitionResponse::getId)
+                .collect(Collectors.toList());
+            Map<Long, List<Long>> exhibitionFileMap = fileBusinessRelationService.getBatchBusinessFileIds(
+                exhibitionIds,
                 BusinessTypeEnum.EXHIBITION,
                 RelationTypeEnum.GALLERY
             );
 
-            if (!CollectionUtils.isEmpty(fileIds)) {
-                System.out.println("展览ID: " + exhibition.getId() + ", 找到文件ID: " + fileIds);
-
-                // 调用文件服务批量获取URL
-                Map<String, Object> response = fileApiClient.getBatchFileUrls(fileIds);
-                System.out.println("Feign调用响应: " + response);
-
-                if (response != null && response.get("data") != null) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> fileInfos = (List<Map<String, Object>>) response.get("data");
-
-                    // 解析出图片URL
-                    List<String> imageUrls = fileInfos.stream()
-                        .map(fileInfo -> (String) fileInfo.get("url"))
-                        .filter(url -> url != null && !url.isEmpty())
-                        .collect(Collectors.toList());
-
-                    System.out.println("解析出的图片URL: " + imageUrls);
-                    // 同时设置文件ID列表
+            FileUrlResolver.Batch batch = fileUrlResolver.batch();
+            for (ExhibitionResponse exhibition : exhibitions) {
+                List<Long> fileIds = exhibitionFileMap.get(exhibition.getId());
+                if (!CollectionUtils.isEmpty(fileIds)) {
                     exhibition.setImageFileIds(fileIds);
-                    exhibition.setImageUrls(imageUrls);
-                } else {
-                    System.out.println("Feign调用响应为空或data为空");
+                    batch.loadAll(fileIds, exhibition::setImageUrls);
                 }
             }
+            batch.dispatch();
         } catch (Exception e) {
-            System.err.println("填充展览图片URL失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("填充展览图片URL失败", e);
         }
     }
 
@@ -242,8 +222,7 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
                 1L
             );
         } catch (Exception e) {
-            System.err.println("展览文件关联创建失败，展览ID: " + exhibitionId + ", 文件ID: " + fileIds + ", 错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("展览文件关联创建失败，展览ID: {}, 文件ID: {}", exhibitionId, fileIds, e);
         }
     }
 
@@ -271,10 +250,9 @@ public class MuseumExhibitionServiceImpl extends ServiceImpl<MuseumExhibitionMap
                 );
             }
 
-            System.out.println("展览ID: " + exhibitionId + ", 更新文件关联: " + fileIds);
+            log.info("展览ID: {}, 更新文件关联: {}", exhibitionId, fileIds);
         } catch (Exception e) {
-            System.err.println("展览文件关联更新失败，展览ID: " + exhibitionId + ", 文件ID: " + fileIds + ", 错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("展览文件关联更新失败，展览ID: {}, 文件ID: {}", exhibitionId, fileIds, e);
         }
     }
 }
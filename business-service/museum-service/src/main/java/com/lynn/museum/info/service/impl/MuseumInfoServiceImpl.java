@@ -4,21 +4,27 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lynn.museum.common.entity.CursorPage;
+import com.lynn.museum.common.entity.PageCursor;
 import com.lynn.museum.common.exception.BizException;
 import com.lynn.museum.common.result.ResultCode;
 import com.lynn.museum.info.dto.MuseumCreateRequest;
 import com.lynn.museum.info.dto.MuseumQueryRequest;
 import com.lynn.museum.info.dto.MuseumResponse;
 import com.lynn.museum.info.dto.MuseumUpdateRequest;
+import com.lynn.museum.info.index.MuseumGeoIndex;
+import com.lynn.museum.info.index.MuseumSearchIndex;
+import com.lynn.museum.info.ranking.MuseumHotRanking;
 import com.lynn.museum.info.mapper.*;
 import com.lynn.museum.info.model.entity.*;
 import com.lynn.museum.info.service.MuseumInfoService;
 import com.lynn.museum.info.service.FileBusinessRelationService;
 import com.lynn.museum.info.enums.BusinessTypeEnum;
 import com.lynn.museum.info.enums.RelationTypeEnum;
-import com.lynn.museum.api.file.client.FileApiClient;
+import com.lynn.museum.info.file.FileUrlResolver;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -42,6 +48,7 @@ import java.util.Objects;
  * @author lynn
  * @since 2024-01-01
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumInfo> implements MuseumInfoService {
@@ -59,7 +66,13 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
     @Resource
     private FileBusinessRelationService fileBusinessRelationService;
     @Resource
-    private FileApiClient fileApiClient;
+    private FileUrlResolver fileUrlResolver;
+    @Resource
+    private MuseumGeoIndex museumGeoIndex;
+    @Resource
+    private MuseumSearchIndex museumSearchIndex;
+    @Resource
+    private MuseumHotRanking museumHotRanking;
 
     @Override
     public IPage<MuseumResponse> getMuseumPage(MuseumQueryRequest query) {
@@ -70,14 +83,33 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
         if (pageResult.getRecords() != null && !pageResult.getRecords().isEmpty()) {
             for (MuseumResponse museum : pageResult.getRecords()) {
                 fillCategoriesAndTags(museum);
-                // 同时填充图片URL
-                fillImageUrls(museum);
             }
+            // 批量填充图片URL
+            fillImageUrls(pageResult.getRecords());
         }
         
         return pageResult;
     }
 
+    @Override
+    public CursorPage<MuseumResponse> getMuseumCursorPage(MuseumQueryRequest query, String cursor) {
+        int size = CursorPage.normalizeSize(query.getSize());
+        PageCursor position = PageCursor.decode(cursor);
+        List<MuseumResponse> rows = museumInfoMapper.selectMuseumCursor(query,
+                position != null ? position.timeAsDate() : null,
+                position != null ? position.id() : null,
+                size + 1);
+
+        CursorPage<MuseumResponse> result = CursorPage.of(rows, size, m -> PageCursor.of(m.getCreateAt(), m.getId()));
+        if (!result.getRecords().isEmpty()) {
+            for (MuseumResponse museum : result.getRecords()) {
+                fillCategoriesAndTags(museum);
+            }
+            fillImageUrls(result.getRecords());
+        }
+        return result;
+    }
+
     @Override
     @Cacheable(value = "museum_info", key = "'museum:' + #id", unless = "#result == null")
     public MuseumResponse getMuseumById(Long id) {
@@ -129,6 +161,10 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
             );
         }
         
+        // 刷新地理位置和搜索索引
+        museumGeoIndex.refresh(museum.getId());
+        museumSearchIndex.refresh(museum.getId());
+        
         return museum.getId();
     }
 
@@ -143,6 +179,7 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
         }
         
         // 更新博物馆信息
+        boolean statusChanged = !Objects.equals(museum.getStatus(), request.getStatus());
         BeanUtils.copyProperties(request, museum);
         museum.setUpdateAt(new java.util.Date());
         updateById(museum);
@@ -176,6 +213,15 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
                 RelationTypeEnum.LOGO
             );
         }
+        
+        // 刷新地理位置和搜索索引
+        museumGeoIndex.refresh(museum.getId());
+        museumSearchIndex.refresh(museum.getId());
+
+        // 开放状态变化时同步热门排行
+        if (statusChanged) {
+            museumHotRanking.refreshMuseum(museum.getId());
+        }
     }
 
     @Override
@@ -196,6 +242,15 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
         
         // 删除标签关联
         museumTagRelationMapper.deleteByMuseumId(id);
+        
+        // 移除地理位置、搜索索引和热门排行
+        museumGeoIndex.remove(id);
+        museumSearchIndex.remove(id);
+        museumHotRanking.refreshMuseum(id);
+
+        // 博物馆图片不再被引用，移除URL缓存
+        fileUrlResolver.evictAll(fileBusinessRelationService.getBusinessFileIds(
+                id, BusinessTypeEnum.MUSEUM, RelationTypeEnum.GALLERY));
     }
 
     @Override
@@ -210,6 +265,11 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
         // 更新状态
         museum.setStatus(status);
         updateById(museum);
+        
+        // 刷新地理位置、搜索索引和热门排行
+        museumGeoIndex.refresh(id);
+        museumSearchIndex.refresh(id);
+        museumHotRanking.refreshMuseum(id);
     }
 
     @Override
@@ -358,36 +418,23 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
 
     @Override
     public List<MuseumInfo> getNearbyMuseums(Double latitude, Double longitude, Integer radius, Integer limit) {
-        // 使用简单的距离计算，可以后续优化为使用地理位置索引
-        LambdaQueryWrapper<MuseumInfo> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.isNotNull(MuseumInfo::getLatitude)
-                   .isNotNull(MuseumInfo::getLongitude)
-                   .eq(MuseumInfo::getStatus, 1)
-                   .eq(MuseumInfo::getDisplay, 1);
-
-        List<MuseumInfo> allMuseums = museumInfoMapper.selectList(queryWrapper);
-        
-        // 计算距离并筛选
-        List<MuseumInfo> nearbyMuseums = allMuseums.stream()
-            .filter(museum -> {
-                if (museum.getLatitude() == null || museum.getLongitude() == null) {
-                    return false;
-                }
-                double distance = calculateDistance(latitude, longitude, 
-                    museum.getLatitude().doubleValue(), museum.getLongitude().doubleValue());
-                return distance <= radius;
-            })
-            .sorted((m1, m2) -> {
-                double d1 = calculateDistance(latitude, longitude,
-                    m1.getLatitude().doubleValue(), m1.getLongitude().doubleValue());
-                double d2 = calculateDistance(latitude, longitude,
-                    m2.getLatitude().doubleValue(), m2.getLongitude().doubleValue());
-                return Double.compare(d1, d2);
-            })
-            .limit(limit != null ? limit : 10)
-            .collect(Collectors.toList());
-
-        return nearbyMuseums;
+        // 由内存地理索引完成半径过滤和距离排序，只按主键回表查询命中的博物馆
+        List<MuseumGeoIndex.GeoHit> hits = museumGeoIndex.nearest(
+                latitude, longitude, radius, limit != null ? limit : 10);
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = hits.stream()
+                .map(MuseumGeoIndex.GeoHit::getMuseumId)
+                .collect(Collectors.toList());
+        Map<Long, MuseumInfo> museumMap = museumInfoMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(MuseumInfo::getId, museum -> museum));
+
+        return ids.stream()
+                .map(museumMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -425,23 +472,6 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
         return museumInfoMapper.selectList(queryWrapper);
     }
 
-    /**
-     * 计算两点间距离（公里）
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        // 地球半径（公里）
-        final int R = 6371;
-        
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return R * c;
-    }
-
     /**
      * 保存文件关联关系
      */
@@ -525,6 +555,7 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
                         null
                     );
                 }
+                fileUrlResolver.evictAll(toDelete);
             } else if (!CollectionUtils.isEmpty(toAdd)) {
                 // 如果只有新增，没有删除，直接添加新的关联
                 fileBusinessRelationService.batchCreateRelation(
@@ -537,8 +568,7 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
             }
             
         } catch (Exception e) {
-            System.err.println("博物馆文件关联更新失败，博物馆ID: " + museumId + ", 错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("博物馆文件关联更新失败，博物馆ID: {}", museumId, e);
         }
     }
 
@@ -557,24 +587,8 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
             // 获取当前文件ID对应的URL
             Map<String, Long> urlToFileIdMap = new HashMap<>();
             if (!CollectionUtils.isEmpty(currentFileIds)) {
-                try {
-                    // 调用文件服务批量获取URL
-                    Map<String, Object> response = fileApiClient.getBatchFileUrls(currentFileIds);
-                    if (response != null && response.get("data") != null) {
-                        @SuppressWarnings("unchecked")
-                        List<Map<String, Object>> fileInfos = (List<Map<String, Object>>) response.get("data");
-                        
-                        for (Map<String, Object> fileInfo : fileInfos) {
-                            String url = (String) fileInfo.get("url");
-                            Long fileId = ((Number) fileInfo.get("fileId")).longValue();
-                            if (url != null && fileId != null) {
-                                urlToFileIdMap.put(url, fileId);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("获取文件URL映射失败: " + e.getMessage());
-                }
+                fileUrlResolver.getUrls(currentFileIds)
+                    .forEach((fileId, url) -> urlToFileIdMap.put(url, fileId));
             }
             
             // 找出应该保留的文件ID
@@ -614,11 +628,11 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
                         null
                     );
                 }
+                fileUrlResolver.evictAll(toDelete);
             }
             
         } catch (Exception e) {
-            System.err.println("根据URL更新博物馆文件关联失败，博物馆ID: " + museumId + ", 错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("根据URL更新博物馆文件关联失败，博物馆ID: {}", museumId, e);
         }
     }
     
@@ -635,53 +649,52 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
      * 填充博物馆图片URL信息
      */
     public void fillImageUrls(MuseumResponse museum) {
+        fillImageUrls(List.of(museum));
+    }
+    
+    /**
+     * 批量填充博物馆全部图片和Logo URL信息（文件关联各一次查询，文件URL一次调用）
+     */
+    public void fillImageUrls(List<MuseumResponse> museums) {
+        if (CollectionUtils.isEmpty(museums)) {
+            return;
+        }
+        
+        Map<Long, List<Long>> museumFileMap = new HashMap<>();
+        Map<Long, List<Long>> museumLogoMap = new HashMap<>();
         try {
-            // 获取博物馆的图片文件ID列表
-            List<Long> fileIds = fileBusinessRelationService.getBusinessFileIds(
-                museum.getId(), 
+            List<Long> museumIds = museums.stream()
+                .map(MuseumResponse::getId)
+                .collect(Collectors.toList());
+            museumFileMap = fileBusinessRelationService.getBatchBusinessFileIds(
+                museumIds, 
                 BusinessTypeEnum.MUSEUM, 
                 RelationTypeEnum.GALLERY
             );
-            
-            if (!CollectionUtils.isEmpty(fileIds)) {
-                System.out.println("博物馆ID: " + museum.getId() + ", 找到文件ID: " + fileIds);
-                
-                // 调用文件服务批量获取URL
-                Map<String, Object> response = fileApiClient.getBatchFileUrls(fileIds);
-                System.out.println("Feign调用响应: " + response);
-                
-                if (response != null && response.get("data") != null) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> fileInfos = (List<Map<String, Object>>) response.get("data");
-                    
-                    List<String> imageUrls = fileInfos.stream()
-                        .map(fileInfo -> (String) fileInfo.get("url"))
-                        .filter(url -> url != null && !url.isEmpty())
-                        .collect(Collectors.toList());
-                    
-                    System.out.println("解析出的图片URL: " + imageUrls);
-                    museum.setImageUrls(imageUrls);
-                    // 同时设置文件ID列表
-                    museum.setImageFileIds(fileIds);
-                } else {
-                    System.out.println("Feign调用响应为空或data为空");
-                    museum.setImageUrls(new ArrayList<>());
-                    museum.setImageFileIds(new ArrayList<>());
-                }
-            } else {
-                museum.setImageUrls(new ArrayList<>());
-                museum.setImageFileIds(new ArrayList<>());
-            }
+            museumLogoMap = fileBusinessRelationService.getBatchBusinessFileIds(
+                museumIds, 
+                BusinessTypeEnum.MUSEUM, 
+                RelationTypeEnum.LOGO
+            );
         } catch (Exception e) {
             // 获取图片失败时设置空列表，不影响主要业务
-            museum.setImageUrls(new ArrayList<>());
-            museum.setImageFileIds(new ArrayList<>());
-            System.err.println("获取博物馆图片失败，博物馆ID: " + museum.getId() + ", 错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("批量获取博物馆文件关联失败", e);
         }
         
-        // 处理Logo URL
-        fillLogoUrl(museum);
+        FileUrlResolver.Batch batch = fileUrlResolver.batch();
+        for (MuseumResponse museum : museums) {
+            List<Long> fileIds = museumFileMap.getOrDefault(museum.getId(), new ArrayList<>());
+            museum.setImageFileIds(fileIds);
+            batch.loadAll(fileIds, museum::setImageUrls);
+            
+            // 如果没有Logo，logoUrl 保持为 null，由前端处理默认显示
+            List<Long> logoFileIds = museumLogoMap.get(museum.getId());
+            if (!CollectionUtils.isEmpty(logoFileIds)) {
+                museum.setLogoFileId(logoFileIds.get(0));
+                batch.load(logoFileIds.get(0), museum::setLogoUrl);
+            }
+        }
+        batch.dispatch();
     }
     
     /**
@@ -705,63 +718,24 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
                 RelationTypeEnum.GALLERY
             );
             
-            // 3. 收集每个博物馆的第一个文件ID（列表只显示第一张图片）
-            List<Long> firstFileIds = museumFileMap.values().stream()
-                .filter(fileIds -> !fileIds.isEmpty())
-                .map(fileIds -> fileIds.get(0)) // 只取第一个文件ID
-                .distinct()
-                .collect(Collectors.toList());
-            
-            if (!CollectionUtils.isEmpty(firstFileIds)) {
-                // 4. 批量获取文件URL
-                Map<String, Object> response = fileApiClient.getBatchFileUrls(firstFileIds);
-                
-                if (response != null && response.get("data") != null) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> fileInfos = (List<Map<String, Object>>) response.get("data");
-                    
-                    // 5. 构建文件ID到URL的映射
-                    Map<Long, String> fileIdToUrlMap = fileInfos.stream()
-                        .filter(fileInfo -> fileInfo.get("fileId") != null && fileInfo.get("url") != null)
-                        .collect(Collectors.toMap(
-                            fileInfo -> Long.valueOf(fileInfo.get("fileId").toString()),
-                            fileInfo -> (String) fileInfo.get("url"),
-                            (existing, replacement) -> existing // 如果有重复key，保留第一个
-                        ));
-                    
-                    // 6. 为每个博物馆设置第一张图片URL
-                    for (MuseumResponse museum : museums) {
-                        List<Long> fileIds = museumFileMap.get(museum.getId());
-                        if (!CollectionUtils.isEmpty(fileIds)) {
-                            Long firstFileId = fileIds.get(0);
-                            String firstImageUrl = fileIdToUrlMap.get(firstFileId);
-                            
-                            if (firstImageUrl != null) {
-                                museum.setImageUrls(List.of(firstImageUrl)); // 只设置第一张图片
-                                museum.setImageFileIds(List.of(firstFileId));
-                            } else {
-                                museum.setImageUrls(new ArrayList<>());
-                                museum.setImageFileIds(new ArrayList<>());
-                            }
-                        } else {
-                            museum.setImageUrls(new ArrayList<>());
-                            museum.setImageFileIds(new ArrayList<>());
-                        }
-                    }
-                } else {
-                    // 文件服务返回空，为所有博物馆设置空列表
-                    museums.forEach(museum -> {
-                        museum.setImageUrls(new ArrayList<>());
-                        museum.setImageFileIds(new ArrayList<>());
-                    });
+            // 3. 列表只显示第一张图片，合并为一次文件URL解析
+            FileUrlResolver.Batch batch = fileUrlResolver.batch();
+            for (MuseumResponse museum : museums) {
+                List<Long> fileIds = museumFileMap.get(museum.getId());
+                museum.setImageUrls(new ArrayList<>());
+                museum.setImageFileIds(new ArrayList<>());
+                if (CollectionUtils.isEmpty(fileIds)) {
+                    continue;
                 }
-            } else {
-                // 没有文件ID，为所有博物馆设置空列表
-                museums.forEach(museum -> {
-                    museum.setImageUrls(new ArrayList<>());
-                    museum.setImageFileIds(new ArrayList<>());
+                Long firstFileId = fileIds.get(0);
+                batch.load(firstFileId, firstImageUrl -> {
+                    if (firstImageUrl != null) {
+                        museum.setImageUrls(List.of(firstImageUrl));
+                        museum.setImageFileIds(List.of(firstFileId));
+                    }
                 });
             }
+            batch.dispatch();
         } catch (Exception e) {
             log.error("批量获取博物馆图片失败", e);
             // 失败时为所有博物馆设置空列表
@@ -772,46 +746,4 @@ public class MuseumInfoServiceImpl extends ServiceImpl<MuseumInfoMapper, MuseumI
         }
     }
     
-    /**
-     * 填充博物馆Logo URL
-     */
-    private void fillLogoUrl(MuseumResponse museum) {
-        try {
-            // 获取Logo文件ID
-            List<Long> logoFileIds = fileBusinessRelationService.getBusinessFileIds(
-                museum.getId(), 
-                BusinessTypeEnum.MUSEUM, 
-                RelationTypeEnum.LOGO
-            );
-            
-            System.out.println("博物馆ID: " + museum.getId() + ", Logo文件ID列表: " + logoFileIds);
-            
-            Long logoFileId = CollectionUtils.isEmpty(logoFileIds) ? null : logoFileIds.get(0);
-            
-            if (logoFileId != null) {
-                museum.setLogoFileId(logoFileId);
-                
-                // 获取Logo URL
-                Map<String, Object> logoResponse = fileApiClient.getFileUrl(logoFileId);
-                System.out.println("Logo文件ID: " + logoFileId + ", Feign调用响应: " + logoResponse);
-                
-                if (logoResponse != null && logoResponse.get("data") != null) {
-                    String logoUrl = (String) logoResponse.get("data");
-                    museum.setLogoUrl(logoUrl);
-                    System.out.println("设置Logo URL: " + logoUrl);
-                } else {
-                    System.out.println("Logo URL响应为空或data为空");
-                }
-                // 如果获取失败，logoUrl 保持为 null，由前端处理默认显示
-            } else {
-                System.out.println("博物馆ID: " + museum.getId() + " 没有Logo关联");
-            }
-            // 如果没有 logoFileId，logoUrl 保持为 null，由前端处理默认显示
-        } catch (Exception e) {
-            System.err.println("获取博物馆Logo失败，博物馆ID: " + museum.getId() + ", 错误: " + e.getMessage());
-            e.printStackTrace();
-            // 异常时不设置 logoUrl，保持为 null，由前端处理默认显示
-        }
-    }
-    
 }
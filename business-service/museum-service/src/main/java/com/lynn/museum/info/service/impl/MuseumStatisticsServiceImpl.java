@@ -1,29 +1,26 @@
 package com.lynn.museum.info.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.lynn.museum.info.dto.MuseumResponse;
 import com.lynn.museum.info.dto.MuseumStatisticsResponse;
 import com.lynn.museum.info.mapper.AreaCityMapper;
-import com.lynn.museum.info.mapper.CheckinRecordMapper;
+import com.lynn.museum.info.mapper.CheckinDailyStatsMapper;
 import com.lynn.museum.info.mapper.MuseumCategoryMapper;
 import com.lynn.museum.info.mapper.MuseumInfoMapper;
 import com.lynn.museum.info.model.entity.AreaCity;
-import com.lynn.museum.info.model.entity.CheckinRecord;
+import com.lynn.museum.info.model.entity.CheckinDailyStats;
 import com.lynn.museum.info.model.entity.MuseumCategory;
 import com.lynn.museum.info.model.entity.MuseumInfo;
+import com.lynn.museum.info.ranking.HotWindow;
+import com.lynn.museum.info.ranking.MuseumHotRanking;
 import com.lynn.museum.info.service.MuseumStatisticsService;
+import com.lynn.museum.info.stats.CheckinStatsRollup;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.ZoneId;
-import java.util.Date;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -36,10 +33,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MuseumStatisticsServiceImpl implements MuseumStatisticsService {
 
+    private static final int TOP_MUSEUM_LIMIT = 5;
+
     private final MuseumInfoMapper museumInfoMapper;
-    private final CheckinRecordMapper checkinRecordMapper;
     private final MuseumCategoryMapper museumCategoryMapper;
     private final AreaCityMapper areaCityMapper;
+    private final CheckinDailyStatsMapper checkinDailyStatsMapper;
+    private final CheckinStatsRollup checkinStatsRollup;
+    private final MuseumHotRanking museumHotRanking;
 
     @Override
     public MuseumStatisticsResponse getMuseumStatistics(Integer days) {
@@ -57,41 +58,44 @@ public class MuseumStatisticsServiceImpl implements MuseumStatisticsService {
         // 计算维护中博物馆数（display=1 但 status=0）
         Long maintenanceMuseums = totalMuseums - activeMuseums;
 
-        // 获取今日访客数
-        LocalDateTime todayStart = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime todayEnd = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-        Long visitorsToday = checkinRecordMapper.selectCount(new LambdaQueryWrapper<CheckinRecord>()
-                .eq(CheckinRecord::getDeleted, 0)
-                .between(CheckinRecord::getCheckinTime, 
-                    Date.from(todayStart.atZone(ZoneId.systemDefault()).toInstant()),
-                    Date.from(todayEnd.atZone(ZoneId.systemDefault()).toInstant())));
-
-        // 获取本周访客数
-        LocalDateTime weekStart = todayStart.minusDays(todayStart.getDayOfWeek().getValue() - 1);
-        Long visitorsWeek = checkinRecordMapper.selectCount(new LambdaQueryWrapper<CheckinRecord>()
-                .eq(CheckinRecord::getDeleted, 0)
-                .between(CheckinRecord::getCheckinTime, weekStart, todayEnd));
-
-        // 获取本月访客数
-        LocalDateTime monthStart = todayStart.withDayOfMonth(1);
-        Long visitorsMonth = checkinRecordMapper.selectCount(new LambdaQueryWrapper<CheckinRecord>()
-                .eq(CheckinRecord::getDeleted, 0)
-                .between(CheckinRecord::getCheckinTime, monthStart, todayEnd));
+        // 访客数据取自打卡每日汇总：一次查询本周与本年覆盖的全站日汇总，在内存中累加
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate yearStart = today.withDayOfYear(1);
+        LocalDate from = weekStart.isBefore(yearStart) ? weekStart : yearStart;
 
-        // 获取本年访客数
-        LocalDateTime yearStart = todayStart.withDayOfYear(1);
-        Long visitorsYear = checkinRecordMapper.selectCount(new LambdaQueryWrapper<CheckinRecord>()
-                .eq(CheckinRecord::getDeleted, 0)
-                .between(CheckinRecord::getCheckinTime, yearStart, todayEnd));
+        long visitorsToday = 0;
+        long visitorsWeek = 0;
+        long visitorsMonth = 0;
+        long visitorsYear = 0;
+        long[] monthlyVisitors = new long[today.getMonthValue()];
+        for (CheckinDailyStats daily : checkinDailyStatsMapper.selectGlobalDaily(from, today)) {
+            LocalDate date = daily.getStatDate();
+            long count = daily.getCheckinCount() != null ? daily.getCheckinCount() : 0;
+            if (date.equals(today)) {
+                visitorsToday += count;
+            }
+            if (!date.isBefore(weekStart)) {
+                visitorsWeek += count;
+            }
+            if (!date.isBefore(monthStart)) {
+                visitorsMonth += count;
+            }
+            if (!date.isBefore(yearStart)) {
+                visitorsYear += count;
+                monthlyVisitors[date.getMonthValue() - 1] += count;
+            }
+        }
 
         // 获取月访客趋势
-        List<MuseumStatisticsResponse.VisitorsTrend> visitorsTrend = getVisitorsTrend();
+        List<MuseumStatisticsResponse.VisitorsTrend> visitorsTrend = getVisitorsTrend(monthlyVisitors);
 
         // 获取展览类别分布
         List<MuseumStatisticsResponse.CategoryDistribution> categoryDistribution = getCategoryDistribution();
 
         // 获取热门博物馆
-        List<MuseumStatisticsResponse.TopMuseum> topMuseums = getTopMuseums();
+        List<MuseumStatisticsResponse.TopMuseum> topMuseums = getTopMuseums(today);
 
         // 构建并返回响应
         return MuseumStatisticsResponse.builder()
@@ -109,46 +113,16 @@ public class MuseumStatisticsServiceImpl implements MuseumStatisticsService {
     }
 
     /**
-     * 获取月访客趋势
+     * 获取月访客趋势（本年1月至当前月）
      *
+     * @param monthlyVisitors 本年每月访客数
      * @return 月访客趋势
      */
-    private List<MuseumStatisticsResponse.VisitorsTrend> getVisitorsTrend() {
-        List<MuseumStatisticsResponse.VisitorsTrend> result = new ArrayList<>();
-        
-        // 获取当前年份
-        int currentYear = LocalDate.now().getYear();
-        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("M月");
-        
-        // 获取每月的访客数据
-        for (int month = 1; month <= 12; month++) {
-            LocalDateTime monthStart = LocalDateTime.of(currentYear, month, 1, 0, 0);
-            
-            // 计算月末
-            LocalDateTime monthEnd;
-            if (month == 12) {
-                monthEnd = LocalDateTime.of(currentYear, month, 31, 23, 59, 59);
-            } else {
-                monthEnd = LocalDateTime.of(currentYear, month + 1, 1, 0, 0).minusSeconds(1);
-            }
-            
-            // 如果是未来月份，跳过
-            if (monthStart.isAfter(LocalDateTime.now())) {
-                continue;
-            }
-            
-            // 查询该月的访客数
-            Long visitors = checkinRecordMapper.selectCount(new LambdaQueryWrapper<CheckinRecord>()
-                    .eq(CheckinRecord::getDeleted, 0)
-                    .between(CheckinRecord::getCheckinTime, monthStart, monthEnd));
-            
-            // 格式化月份名称
-            String monthName = monthStart.format(monthFormatter);
-            
-            // 添加到结果列表
-            result.add(new MuseumStatisticsResponse.VisitorsTrend(monthName, visitors));
+    private List<MuseumStatisticsResponse.VisitorsTrend> getVisitorsTrend(long[] monthlyVisitors) {
+        List<MuseumStatisticsResponse.VisitorsTrend> result = new ArrayList<>(monthlyVisitors.length);
+        for (int month = 1; month <= monthlyVisitors.length; month++) {
+            result.add(new MuseumStatisticsResponse.VisitorsTrend(month + "月", monthlyVisitors[month - 1]));
         }
-        
         return result;
     }
 
@@ -197,55 +171,91 @@ public class MuseumStatisticsServiceImpl implements MuseumStatisticsService {
     }
 
     /**
-     * 获取热门博物馆
+     * 获取热门博物馆（今日打卡数前5），优先读取实时日榜
      *
+     * @param today 今日
      * @return 热门博物馆
      */
-    private List<MuseumStatisticsResponse.TopMuseum> getTopMuseums() {
-        // 获取今日打卡记录
-        LocalDateTime todayStart = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime todayEnd = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-        List<CheckinRecord> todayRecords = checkinRecordMapper.selectList(new LambdaQueryWrapper<CheckinRecord>()
-                .eq(CheckinRecord::getDeleted, 0)
-                .between(CheckinRecord::getCheckinTime, todayStart, todayEnd));
+    private List<MuseumStatisticsResponse.TopMuseum> getTopMuseums(LocalDate today) {
+        List<MuseumHotRanking.HotMuseum> ranked = museumHotRanking.top(HotWindow.DAY, 0, TOP_MUSEUM_LIMIT);
+        if (ranked.isEmpty()) {
+            // 日榜为空（今日尚无打卡或 Redis 不可用）时以每日汇总为准
+            return getTopMuseumsFromDailyStats(today);
+        }
 
-        // 按博物馆ID分组统计打卡人数
-        Map<Long, Long> museumVisitorsMap = todayRecords.stream()
-                .collect(Collectors.groupingBy(CheckinRecord::getMuseumId, Collectors.counting()));
+        Map<Long, MuseumResponse> details = museumHotRanking.details(
+                ranked.stream().map(MuseumHotRanking.HotMuseum::museumId).toList());
+        List<MuseumStatisticsResponse.TopMuseum> topMuseums = new ArrayList<>();
+        for (MuseumHotRanking.HotMuseum hot : ranked) {
+            MuseumResponse museum = details.get(hot.museumId());
+            if (museum == null) {
+                continue;
+            }
+            long visitors = (long) hot.score();
+            topMuseums.add(MuseumStatisticsResponse.TopMuseum.builder()
+                    .id(museum.getId())
+                    .name(museum.getName())
+                    .visitors(visitors)
+                    .status(museum.getStatus())
+                    .capacityUsage(capacityUsage(visitors, museum.getCapacity()))
+                    .build());
+        }
+        return topMuseums;
+    }
 
-        // 获取热门博物馆信息
+    /**
+     * 从打卡每日汇总获取今日热门博物馆
+     */
+    private List<MuseumStatisticsResponse.TopMuseum> getTopMuseumsFromDailyStats(LocalDate today) {
         List<MuseumStatisticsResponse.TopMuseum> topMuseums = new ArrayList<>();
-        museumVisitorsMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .limit(5)
-                .forEach(entry -> {
-                    Long museumId = entry.getKey();
-                    Long visitors = entry.getValue();
+        for (Map<String, Object> row : checkinDailyStatsMapper.selectTopMuseums(today, TOP_MUSEUM_LIMIT)) {
+            long visitors = ((Number) row.get("visitors")).longValue();
+            Number capacity = (Number) row.get("capacity");
+            Number status = (Number) row.get("status");
+            topMuseums.add(MuseumStatisticsResponse.TopMuseum.builder()
+                    .id(((Number) row.get("id")).longValue())
+                    .name((String) row.get("name"))
+                    .visitors(visitors)
+                    .status(status != null ? status.intValue() : null)
+                    .capacityUsage(capacityUsage(visitors, capacity != null ? capacity.intValue() : null))
+                    .build());
+        }
+        return topMuseums;
+    }
+
+    /**
+     * 计算容量使用率（百分比）
+     */
+    private static int capacityUsage(long visitors, Integer capacity) {
+        if (capacity == null || capacity <= 0) {
+            return 0;
+        }
+        return (int) (visitors * 100 / capacity);
+    }
 
-                    // 查询博物馆信息
-                    MuseumInfo museumInfo = museumInfoMapper.selectById(museumId);
-                    if (museumInfo != null) {
-                        // 计算容量使用率
-                        int capacityUsage = 0;
-                        Integer capacity = museumInfo.getCapacity();
-                        if (capacity != null && capacity > 0) {
-                            capacityUsage = (int) (visitors * 100 / capacity);
-                        }
+    @Override
+    public int rebuildCheckinStatistics(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : checkinDailyStatsMapper.selectEarliestCheckinDate();
+        if (start == null || start.isAfter(end)) {
+            return 0;
+        }
+        return checkinStatsRollup.rebuild(start, end);
+    }
 
-                        topMuseums.add(MuseumStatisticsResponse.TopMuseum.builder()
-                                .id(museumId)
-                                .name(museumInfo.getName())
-                                .visitors(visitors)
-                                .status(museumInfo.getStatus())
-                                .capacityUsage(capacityUsage)
-                                .build());
-                    }
-                });
+    @Override
+    public int rebuildCheckinUserStats() {
+        return checkinStatsRollup.rebuildUserStats();
+    }
 
-        // 如果没有数据，则返回空列表
-        // 不添加模拟数据，保持数据真实性
+    @Override
+    public int rebuildMuseumCheckinCounts() {
+        return checkinStatsRollup.rebuildMuseumCounts();
+    }
 
-        return topMuseums;
+    @Override
+    public boolean rebuildHotRanking() {
+        return museumHotRanking.rebuild();
     }
     
     @Override
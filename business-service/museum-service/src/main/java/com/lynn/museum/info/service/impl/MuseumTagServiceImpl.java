@@ -65,7 +65,7 @@ public class MuseumTagServiceImpl extends ServiceImpl<MuseumTagMapper, MuseumTag
     }
 
     @Override
-    @Cacheable(value = "museum_tag", key = "'tags'")
+    @Cacheable(value = "museum_tag", key = "'tags'", sync = true)
     public List<TagResponse> getAllTags() {
         LambdaQueryWrapper<MuseumTag> wrapper = new LambdaQueryWrapper<>();
         wrapper.orderByDesc(MuseumTag::getCreateAt);
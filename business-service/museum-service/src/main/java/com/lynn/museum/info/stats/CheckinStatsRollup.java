@@ -0,0 +1,299 @@
+package com.lynn.museum.info.stats;
+
+import com.lynn.museum.info.mapper.CheckinDailyStatsMapper;
+import com.lynn.museum.info.mapper.CheckinUserStatsMapper;
+import com.lynn.museum.info.mapper.MuseumInfoMapper;
+import com.lynn.museum.info.model.entity.CheckinRecord;
+import com.lynn.museum.info.ranking.MuseumHotRanking;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 打卡汇总维护
+ *
+ * 打卡记录变更时在同一事务内更新汇总，只统计正式打卡（暂存不计入）：
+ * 1. 每日汇总 checkin_daily_stats：按打卡日期和博物馆增量计数；全站行（museum_id=0）是所有打卡共用的热点行，
+ *    在事务提交后单独更新，不在业务事务内持有其行锁
+ * 2. 用户档案 checkin_user_museum / checkin_user_monthly：从打卡记录重新聚合受影响的
+ *    (用户, 博物馆) 和 (用户, 月份) 两行，只扫描该用户的记录
+ * 3. 博物馆打卡次数 museum_info.checkin_count：按博物馆增量计数，供列表和热门排序使用
+ * 4. 热门排行 {@link MuseumHotRanking}：事务提交后更新 Redis 日榜/周榜/累计榜/趋势榜
+ * 同一事务内涉及多行时按 (日期, 博物馆ID) 升序加锁，避免并发修改打卡记录时互相等待形成死锁。
+ * 历史数据或汇总出现偏差时通过 {@link #rebuild(LocalDate, LocalDate)}、{@link #rebuildUserStats()}
+ * 和 {@link #rebuildMuseumCounts()} 重建。
+ *
+ * @author lynn
+ * @since 2024-12-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CheckinStatsRollup {
+
+    /**
+     * 用户档案重建时每个事务覆盖的用户ID跨度
+     */
+    private static final long USER_REBUILD_STEP = 1000;
+
+    /**
+     * 博物馆打卡次数重建时每个事务覆盖的博物馆ID跨度
+     */
+    private static final long MUSEUM_REBUILD_STEP = 500;
+
+    private final CheckinDailyStatsMapper checkinDailyStatsMapper;
+    private final CheckinUserStatsMapper checkinUserStatsMapper;
+    private final MuseumInfoMapper museumInfoMapper;
+    private final MuseumHotRanking museumHotRanking;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 新增打卡记录
+     */
+    public void onCreated(CheckinRecord record) {
+        StatKey key = keyOf(record);
+        apply(List.of(new StatDelta(key, 1)));
+        applyMuseum(key, 1);
+        applyRanking(key, record, 1);
+        refreshUserStats(record);
+    }
+
+    /**
+     * 删除打卡记录
+     */
+    public void onRemoved(CheckinRecord record) {
+        StatKey key = keyOf(record);
+        apply(List.of(new StatDelta(key, -1)));
+        applyMuseum(key, -1);
+        applyRanking(key, record, -1);
+        refreshUserStats(record);
+    }
+
+    /**
+     * 更新打卡记录（暂存转正式、修改打卡时间或博物馆）
+     *
+     * @param before 更新前的记录
+     * @param after 更新后的记录
+     */
+    public void onChange(CheckinRecord before, CheckinRecord after) {
+        StatKey oldKey = keyOf(before);
+        StatKey newKey = keyOf(after);
+        if (!Objects.equals(oldKey, newKey)) {
+            apply(List.of(new StatDelta(oldKey, -1), new StatDelta(newKey, 1)));
+            applyRanking(oldKey, before, -1);
+            applyRanking(newKey, after, 1);
+        }
+        Long oldMuseumId = museumOf(oldKey);
+        Long newMuseumId = museumOf(newKey);
+        if (!Objects.equals(oldMuseumId, newMuseumId)) {
+            // 与每日汇总相同，按博物馆ID升序加锁
+            if (oldMuseumId == null || (newMuseumId != null && newMuseumId < oldMuseumId)) {
+                applyMuseum(newKey, 1);
+                applyMuseum(oldKey, -1);
+            } else {
+                applyMuseum(oldKey, -1);
+                applyMuseum(newKey, 1);
+            }
+        }
+        // 照片可能变化，即使日期和博物馆不变也要刷新用户档案
+        refreshUserStats(before, after);
+    }
+
+    /**
+     * 从打卡记录重建日期范围内的汇总，每个自然月一个事务
+     *
+     * @param from 开始日期（含）
+     * @param to 结束日期（含）
+     * @return 重建的月份数
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        int months = 0;
+        LocalDate chunkStart = from;
+        while (!chunkStart.isAfter(to)) {
+            LocalDate nextMonth = chunkStart.withDayOfMonth(1).plusMonths(1);
+            LocalDate chunkEnd = nextMonth.minusDays(1).isAfter(to) ? to : nextMonth.minusDays(1);
+            LocalDate start = chunkStart;
+            Integer rows = transactionTemplate.execute(status -> {
+                checkinDailyStatsMapper.deleteRange(start, chunkEnd);
+                return checkinDailyStatsMapper.rebuildRange(start, chunkEnd.plusDays(1));
+            });
+            log.info("重建打卡汇总: {} ~ {}, 写入{}行", start, chunkEnd, rows);
+            chunkStart = nextMonth;
+            months++;
+        }
+        return months;
+    }
+
+    /**
+     * 从打卡记录重建全部用户档案，按用户ID分段，每段一个事务
+     *
+     * @return 重建的分段数
+     */
+    public int rebuildUserStats() {
+        Long maxUserId = checkinUserStatsMapper.selectMaxUserId();
+        if (maxUserId == null) {
+            return 0;
+        }
+        int segments = 0;
+        for (long fromUserId = 0; fromUserId <= maxUserId; fromUserId += USER_REBUILD_STEP) {
+            long from = fromUserId;
+            long to = fromUserId + USER_REBUILD_STEP - 1;
+            transactionTemplate.executeWithoutResult(status -> {
+                checkinUserStatsMapper.deleteMuseumRange(from, to);
+                checkinUserStatsMapper.deleteMonthlyRange(from, to);
+                checkinUserStatsMapper.rebuildMuseumRange(from, to);
+                checkinUserStatsMapper.rebuildMonthlyRange(from, to);
+            });
+            segments++;
+        }
+        log.info("重建用户打卡档案完成: 最大用户ID={}, 共{}段", maxUserId, segments);
+        return segments;
+    }
+
+    /**
+     * 从打卡记录重新统计全部博物馆的打卡次数，按博物馆ID分段，每段一个事务
+     *
+     * @return 重建的分段数
+     */
+    public int rebuildMuseumCounts() {
+        Long maxMuseumId = museumInfoMapper.selectMaxId();
+        if (maxMuseumId == null) {
+            return 0;
+        }
+        int segments = 0;
+        for (long fromId = 0; fromId <= maxMuseumId; fromId += MUSEUM_REBUILD_STEP) {
+            long from = fromId;
+            long to = fromId + MUSEUM_REBUILD_STEP - 1;
+            transactionTemplate.executeWithoutResult(status -> museumInfoMapper.rebuildCheckinCountRange(from, to));
+            segments++;
+        }
+        log.info("重建博物馆打卡次数完成: 最大博物馆ID={}, 共{}段", maxMuseumId, segments);
+        return segments;
+    }
+
+    /**
+     * 刷新记录涉及的 (用户, 博物馆) 和 (用户, 月份) 汇总
+     */
+    private void refreshUserStats(CheckinRecord... records) {
+        Set<UserKey> refreshed = new LinkedHashSet<>();
+        for (CheckinRecord record : records) {
+            StatKey key = keyOf(record);
+            if (key == null || record.getUserId() == null
+                    || !refreshed.add(new UserKey(record.getUserId(), key.museumId(), key.statDate().withDayOfMonth(1)))) {
+                continue;
+            }
+            checkinUserStatsMapper.refreshMuseum(record.getUserId(), key.museumId());
+            checkinUserStatsMapper.refreshMonthly(record.getUserId(), key.statDate().withDayOfMonth(1));
+        }
+    }
+
+    /**
+     * 按 (日期, 博物馆ID) 升序更新博物馆当日计数，全站计数按日期合并后在事务提交后更新
+     */
+    private void apply(List<StatDelta> deltas) {
+        List<StatDelta> ordered = new ArrayList<>();
+        for (StatDelta delta : deltas) {
+            if (delta.key() != null) {
+                ordered.add(delta);
+            }
+        }
+        ordered.sort(Comparator.comparing((StatDelta delta) -> delta.key().statDate())
+                .thenComparing(delta -> delta.key().museumId()));
+
+        Map<LocalDate, Integer> globalDeltas = new TreeMap<>();
+        for (StatDelta delta : ordered) {
+            checkinDailyStatsMapper.increment(delta.key().statDate(), delta.key().museumId(), delta.delta());
+            globalDeltas.merge(delta.key().statDate(), delta.delta(), Integer::sum);
+        }
+        globalDeltas.values().removeIf(delta -> delta == 0);
+        if (globalDeltas.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyGlobal(globalDeltas);
+                }
+            });
+        } else {
+            applyGlobal(globalDeltas);
+        }
+    }
+
+    /**
+     * 更新全站当日计数，提交回调中仍绑定着原事务的连接，需要新开事务才能提交；
+     * 失败时全站计数偏少，可通过 {@link #rebuild(LocalDate, LocalDate)} 修正
+     */
+    private void applyGlobal(Map<LocalDate, Integer> globalDeltas) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        globalDeltas.forEach((statDate, delta) -> {
+            try {
+                requiresNew.executeWithoutResult(status -> checkinDailyStatsMapper.increment(statDate, 0L, delta));
+            } catch (Exception e) {
+                log.warn("更新全站打卡汇总失败: date={}, delta={}", statDate, delta, e);
+            }
+        });
+    }
+
+    private void applyMuseum(StatKey key, int delta) {
+        if (key != null) {
+            museumInfoMapper.incrementCheckinCount(key.museumId(), delta);
+        }
+    }
+
+    private void applyRanking(StatKey key, CheckinRecord record, int delta) {
+        if (key != null) {
+            museumHotRanking.record(key.museumId(), record.getCheckinTime(), delta);
+        }
+    }
+
+    private static Long museumOf(StatKey key) {
+        return key != null ? key.museumId() : null;
+    }
+
+    /**
+     * 暂存、已删除或缺少打卡时间/博物馆的记录不计入汇总
+     */
+    private static StatKey keyOf(CheckinRecord record) {
+        if (record == null
+                || !Boolean.FALSE.equals(record.getIsDraft())
+                || (record.getDeleted() != null && record.getDeleted() != 0)
+                || record.getCheckinTime() == null
+                || record.getMuseumId() == null) {
+            return null;
+        }
+        LocalDate statDate = toLocalDate(record.getCheckinTime());
+        return new StatKey(statDate, record.getMuseumId());
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private record StatKey(LocalDate statDate, Long museumId) {
+    }
+
+    private record StatDelta(StatKey key, int delta) {
+    }
+
+    private record UserKey(Long userId, Long museumId, LocalDate statMonth) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.lynn.museum.info.stats;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.lynn.museum.info.mapper.AreaProvinceMapper;
+import com.lynn.museum.info.mapper.MuseumInfoMapper;
+import com.lynn.museum.info.model.entity.AreaProvince;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 省份博物馆数量全局缓存
+ *
+ * 省份列表和各省开放中的博物馆数量对所有用户相同，一次 GROUP BY 查询后缓存在本地，
+ * 到期后后台刷新，刷新期间继续返回旧值。
+ *
+ * @author lynn
+ * @since 2024-12-30
+ */
+@Slf4j
+@Component
+public class ProvinceMuseumStats {
+
+    private static final String SNAPSHOT_KEY = "all";
+
+    private final AreaProvinceMapper areaProvinceMapper;
+    private final MuseumInfoMapper museumInfoMapper;
+
+    private final LoadingCache<String, Snapshot> cache;
+
+    public ProvinceMuseumStats(AreaProvinceMapper areaProvinceMapper,
+                               MuseumInfoMapper museumInfoMapper,
+                               @Value("${museum.info.province-stats.refresh-seconds:600}") long refreshSeconds) {
+        this.areaProvinceMapper = areaProvinceMapper;
+        this.museumInfoMapper = museumInfoMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .build(key -> load());
+    }
+
+    /**
+     * 获取当前快照
+     */
+    public Snapshot get() {
+        return cache.get(SNAPSHOT_KEY);
+    }
+
+    private Snapshot load() {
+        List<AreaProvince> provinces = List.copyOf(areaProvinceMapper.selectList(null));
+
+        Map<String, Integer> museumCounts = new HashMap<>();
+        int totalDisplayed = 0;
+        for (Map<String, Object> row : museumInfoMapper.selectOpenMuseumCountByProvince()) {
+            String provinceCode = (String) row.get("province_code");
+            if (provinceCode != null) {
+                museumCounts.put(provinceCode, ((Number) row.get("museum_count")).intValue());
+            }
+            Number displayCount = (Number) row.get("display_count");
+            if (displayCount != null) {
+                totalDisplayed += displayCount.intValue();
+            }
+        }
+        log.debug("加载省份博物馆数量: {}个省份, 展示中的博物馆{}个", provinces.size(), totalDisplayed);
+        return new Snapshot(provinces, Map.copyOf(museumCounts), totalDisplayed);
+    }
+
+    /**
+     * 省份统计快照
+     *
+     * @param provinces 全部省份
+     * @param museumCounts 省份编码 -> 开放中的博物馆数量
+     * @param totalNationalMuseums 全国开放且展示的博物馆数量
+     */
+    public record Snapshot(List<AreaProvince> provinces,
+                           Map<String, Integer> museumCounts,
+                           int totalNationalMuseums) {
+
+        public int museumCount(String provinceCode) {
+            return provinceCode != null ? museumCounts.getOrDefault(provinceCode, 0) : 0;
+        }
+    }
+}
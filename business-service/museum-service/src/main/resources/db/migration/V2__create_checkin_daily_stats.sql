@@ -0,0 +1,9 @@
+-- 打卡每日汇总：每个 (统计日期, 博物馆) 一行，museum_id = 0 为当日全站汇总
+-- 随打卡提交/删除增量维护；上线后调用 POST /statistics/checkin/rebuild 从历史打卡记录回填
+CREATE TABLE IF NOT EXISTS checkin_daily_stats (
+    stat_date     DATE    NOT NULL COMMENT '统计日期（按打卡时间）',
+    museum_id     BIGINT  NOT NULL COMMENT '博物馆ID，0表示全站',
+    checkin_count BIGINT  NOT NULL DEFAULT 0 COMMENT '正式打卡次数（不含暂存、已删除）',
+    PRIMARY KEY (stat_date, museum_id),
+    KEY idx_museum_date (museum_id, stat_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '打卡每日汇总';
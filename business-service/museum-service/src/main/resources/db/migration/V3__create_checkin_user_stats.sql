@@ -0,0 +1,21 @@
+-- 用户打卡档案：每个 (用户, 博物馆) 一行，汇总打卡次数、照片数和首末打卡时间
+-- 随打卡提交/删除刷新受影响的行；上线后调用 POST /statistics/checkin/user-stats/rebuild 从历史打卡记录回填
+CREATE TABLE IF NOT EXISTS checkin_user_museum (
+    user_id            BIGINT       NOT NULL COMMENT '用户ID',
+    museum_id          BIGINT       NOT NULL COMMENT '博物馆ID',
+    museum_name        VARCHAR(255)          DEFAULT NULL COMMENT '博物馆名称',
+    province_code      VARCHAR(20)           DEFAULT NULL COMMENT '博物馆所在省份编码',
+    checkin_count      INT          NOT NULL DEFAULT 0 COMMENT '正式打卡次数',
+    photo_count        INT          NOT NULL DEFAULT 0 COMMENT '照片数量',
+    first_checkin_time DATETIME              DEFAULT NULL COMMENT '首次打卡时间',
+    last_checkin_time  DATETIME              DEFAULT NULL COMMENT '最近打卡时间',
+    PRIMARY KEY (user_id, museum_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '用户博物馆打卡汇总';
+
+-- 用户每月打卡次数
+CREATE TABLE IF NOT EXISTS checkin_user_monthly (
+    user_id       BIGINT NOT NULL COMMENT '用户ID',
+    stat_month    DATE   NOT NULL COMMENT '统计月份（当月1日）',
+    checkin_count INT    NOT NULL DEFAULT 0 COMMENT '正式打卡次数',
+    PRIMARY KEY (user_id, stat_month)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '用户每月打卡汇总';
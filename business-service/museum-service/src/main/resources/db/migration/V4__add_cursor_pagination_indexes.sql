@@ -0,0 +1,6 @@
+-- 游标分页索引：按 (排序时间, id) 倒序定位下一页，InnoDB 二级索引已隐含主键，无需显式包含 id
+CREATE INDEX idx_checkin_record_user_cursor ON checkin_record (user_id, checkin_time);
+
+CREATE INDEX idx_museum_info_cursor ON museum_info (create_at);
+
+CREATE INDEX idx_user_museum_favorite_cursor ON user_museum_favorite (user_id, create_at);
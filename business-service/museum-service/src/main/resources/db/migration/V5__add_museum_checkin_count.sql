@@ -0,0 +1,11 @@
+-- 博物馆正式打卡次数（冗余计数），随打卡提交/删除在同一事务内增量维护，替代列表和热门查询中对 checkin_record 的全表聚合
+-- 出现偏差时调用 POST /statistics/checkin/museum-counts/rebuild 重新统计
+ALTER TABLE museum_info
+    ADD COLUMN checkin_count INT NOT NULL DEFAULT 0 COMMENT '正式打卡次数';
+
+CREATE INDEX idx_museum_info_checkin_count ON museum_info (checkin_count);
+
+UPDATE museum_info m
+SET m.checkin_count = (SELECT COUNT(*)
+                       FROM checkin_record cr
+                       WHERE cr.museum_id = m.id AND cr.deleted = 0 AND cr.is_draft = 0);
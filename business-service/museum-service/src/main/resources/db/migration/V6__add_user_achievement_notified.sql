@@ -0,0 +1,6 @@
+-- 新解锁成就的提示状态，随解锁写入，客户端检查成就时按条件更新取出，多实例共享且重启后不丢失
+-- 已有记录视为已提示，避免上线后集中弹出历史成就
+ALTER TABLE user_achievements
+    ADD COLUMN notified TINYINT NOT NULL DEFAULT 1 COMMENT '新解锁提示是否已取出：0-未取出，1-已取出';
+
+CREATE INDEX idx_user_achievements_user_notified ON user_achievements (user_id, notified);
@@ -0,0 +1,89 @@
+package com.lynn.museum.info.dto;
+
+import com.lynn.museum.common.redis.serializer.CompactRedisSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 博物馆响应在 Redis 二进制格式下的往返测试
+ *
+ * 服务层常用 List.of、Stream.toList()、Arrays.asList 填充列表字段，这些 JDK 集合需要能写入并原样读回
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+class MuseumResponseRedisSerializationTest {
+
+    private static final byte COMPACT_MAGIC = (byte) 0xC1;
+
+    private final RedisSerializer<Object> serializer = new CompactRedisSerializer(
+            new GenericJackson2JsonRedisSerializer(), true, 1024, List.of("com.lynn.museum."));
+
+    @Test
+    void roundTripsMuseumWithJdkImmutableLists() {
+        MuseumResponse museum = museum(1L);
+
+        byte[] bytes = serializer.serialize(museum);
+
+        assertEquals(COMPACT_MAGIC, bytes[0]);
+        assertEquals(museum, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void roundTripsMuseumPage() {
+        List<MuseumResponse> page = Stream.of(1L, 2L, 3L).map(MuseumResponseRedisSerializationTest::museum).toList();
+
+        byte[] bytes = serializer.serialize(page);
+
+        assertEquals(COMPACT_MAGIC, bytes[0]);
+        assertEquals(page, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void roundTripsListWithNullElements() {
+        MuseumResponse museum = museum(1L);
+        museum.setImageUrls(Stream.of("https://cdn.example.com/a.jpg", (String) null).toList());
+
+        assertEquals(museum, serializer.deserialize(serializer.serialize(museum)));
+    }
+
+    private static MuseumResponse museum(Long id) {
+        MuseumResponse.CategoryInfo category = new MuseumResponse.CategoryInfo();
+        category.setId(10L);
+        category.setName("综合类");
+        category.setCode("GENERAL");
+
+        MuseumResponse.TagInfo tag = new MuseumResponse.TagInfo();
+        tag.setId(20L);
+        tag.setName("国家一级");
+        tag.setCode("LEVEL_1");
+        tag.setColor("#C1272D");
+
+        MuseumResponse museum = new MuseumResponse();
+        museum.setId(id);
+        museum.setName("故宫博物院");
+        museum.setAddress("北京市东城区景山前街4号");
+        museum.setCityCode("110100");
+        museum.setLongitude(new BigDecimal("116.397026"));
+        museum.setLatitude(new BigDecimal("39.918058"));
+        museum.setStatus(1);
+        museum.setCheckinCount(128);
+        museum.setCategories(Collections.unmodifiableList(new ArrayList<>(List.of(category))));
+        museum.setTags(Stream.of(tag).toList());
+        museum.setImageUrls(List.of("https://cdn.example.com/1.jpg", "https://cdn.example.com/2.jpg"));
+        museum.setImageFileIds(Arrays.asList(101L, 102L));
+        museum.setCreateAt(new Date(1736380800000L));
+        return museum;
+    }
+}
@@ -0,0 +1,175 @@
+package com.lynn.museum.info.dto;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lynn.museum.common.redis.serializer.CompactRedisSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Redis 序列化器对比基准
+ *
+ * 用缓存中实际存放的 DTO（博物馆分页、定位信息、行政区划树）对比 JSON 与二进制格式的数据大小和
+ * 单次序列化/反序列化耗时，先预热再计时，结果用于评估切换写入格式的收益，不作为精确的微基准。
+ * 默认不执行，手动运行：mvn test -Dtest=RedisSerializerBenchmarkTest -Dbenchmark=true
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RedisSerializerBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 10000);
+
+    /**
+     * 保存计算结果，避免循环体被 JIT 当作无用代码消除
+     */
+    private static volatile long sink;
+
+    private final RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer();
+    private final RedisSerializer<Object> compact = new CompactRedisSerializer(json, true, 1024,
+            List.of("com.lynn.museum.", "com.baomidou.mybatisplus."));
+
+    @Test
+    void museumPage() {
+        Page<MuseumResponse> page = new Page<>(1, 20, 356);
+        page.setRecords(IntStream.rangeClosed(1, 20).mapToObj(i -> museum((long) i)).toList());
+        Page<?> copy = (Page<?>) run("museum-page", page);
+        assertEquals(page.getRecords(), copy.getRecords());
+        assertEquals(page.getTotal(), copy.getTotal());
+    }
+
+    @Test
+    void locationInfo() {
+        NearbyMuseumsResponse.LocationInfo location = NearbyMuseumsResponse.LocationInfo.builder()
+                .latitude(39.918058)
+                .longitude(116.397026)
+                .cityName("北京市")
+                .cityCode("110100")
+                .formattedAddress("北京市东城区东华门街道景山前街4号")
+                .province("北京市")
+                .district("东城区")
+                .build();
+        assertEquals(location, run("location-info", location));
+    }
+
+    @Test
+    void areaTree() {
+        AreaDivisionResponse province = area("440000", "广东省", "province", null);
+        province.setChildren(new ArrayList<>());
+        for (int c = 1; c <= 21; c++) {
+            int cityIndex = c;
+            AreaDivisionResponse city = area(String.format("44%02d00", c), "城市" + c, "city", province.getAdcode());
+            city.setChildren(IntStream.rangeClosed(1, 8)
+                    .mapToObj(d -> area(String.format("44%02d%02d", cityIndex, d), "区县" + d, "district", city.getAdcode()))
+                    .toList());
+            province.getChildren().add(city);
+        }
+        List<AreaDivisionResponse> tree = List.of(province);
+        assertEquals(tree, run("area-tree", tree));
+    }
+
+    /**
+     * 输出对比结果，返回二进制格式读回的对象供调用方校验
+     */
+    private Object run(String sample, Object value) {
+        byte[] jsonBytes = json.serialize(value);
+        byte[] compactBytes = compact.serialize(value);
+
+        measureSerialize(json, value);
+        measureDeserialize(json, jsonBytes);
+        measureSerialize(compact, value);
+        measureDeserialize(compact, compactBytes);
+        log.info("[{}] bytes json={} compact={}; serialize json={}us compact={}us; deserialize json={}us compact={}us",
+                sample, jsonBytes.length, compactBytes.length,
+                String.format("%.2f", measureSerialize(json, value)),
+                String.format("%.2f", measureSerialize(compact, value)),
+                String.format("%.2f", measureDeserialize(json, jsonBytes)),
+                String.format("%.2f", measureDeserialize(compact, compactBytes)));
+        return compact.deserialize(compactBytes);
+    }
+
+    private static double measureSerialize(RedisSerializer<Object> serializer, Object value) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += serializer.serialize(value).length;
+        }
+        return elapsedMicros(start, checksum);
+    }
+
+    private static double measureDeserialize(RedisSerializer<Object> serializer, byte[] bytes) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += serializer.deserialize(bytes) != null ? 1 : 0;
+        }
+        return elapsedMicros(start, checksum);
+    }
+
+    private static double elapsedMicros(long start, long checksum) {
+        long elapsed = System.nanoTime() - start;
+        sink = checksum;
+        return elapsed / 1000.0 / ITERATIONS;
+    }
+
+    private static MuseumResponse museum(Long id) {
+        MuseumResponse.TagInfo tag = new MuseumResponse.TagInfo();
+        tag.setId(20L);
+        tag.setName("国家一级");
+        tag.setCode("LEVEL_1");
+        tag.setColor("#C1272D");
+
+        MuseumResponse museum = new MuseumResponse();
+        museum.setId(id);
+        museum.setName("博物馆" + id);
+        museum.setCode("M" + id);
+        museum.setDescription("馆藏文物以明清宫廷文物为主，兼收历代书画、陶瓷、青铜器。".repeat(3));
+        museum.setAddress("北京市东城区景山前街" + id + "号");
+        museum.setProvinceCode("110000");
+        museum.setProvinceName("北京市");
+        museum.setCityCode("110100");
+        museum.setCityName("北京市");
+        museum.setDistrictCode("110101");
+        museum.setDistrictName("东城区");
+        museum.setLongitude(new BigDecimal("116.397026"));
+        museum.setLatitude(new BigDecimal("39.918058"));
+        museum.setOpenTime("08:30-17:00");
+        museum.setTicketPrice(new BigDecimal("60.00"));
+        museum.setStatus(1);
+        museum.setLevel(1);
+        museum.setFreeAdmission(0);
+        museum.setCheckinCount(128);
+        museum.setDisplay(1);
+        museum.setTags(List.of(tag));
+        museum.setImageUrls(List.of("https://cdn.example.com/" + id + "/1.jpg", "https://cdn.example.com/" + id + "/2.jpg"));
+        museum.setImageFileIds(Arrays.asList(id * 10 + 1, id * 10 + 2));
+        museum.setCreateAt(new Date(1736380800000L));
+        museum.setUpdateAt(new Date(1736380800000L));
+        museum.setDistance("1.5km");
+        return museum;
+    }
+
+    private static AreaDivisionResponse area(String adcode, String name, String level, String parentCode) {
+        AreaDivisionResponse area = new AreaDivisionResponse();
+        area.setAdcode(adcode);
+        area.setName(name);
+        area.setLevel(level);
+        area.setParentCode(parentCode);
+        area.setLongitude(new BigDecimal("113.280637"));
+        area.setLatitude(new BigDecimal("23.125178"));
+        return area;
+    }
+}
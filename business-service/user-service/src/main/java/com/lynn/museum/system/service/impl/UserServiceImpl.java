@@ -11,6 +11,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.lynn.museum.api.auth.client.AuthApiClient;
 import com.lynn.museum.api.auth.dto.UserLoginInfo;
 import com.lynn.museum.common.exception.BizException;
+import com.lynn.museum.common.moderation.SensitiveWordFilter;
 import com.lynn.museum.common.result.Result;
 import com.lynn.museum.common.result.ResultCode;
 import com.lynn.museum.common.utils.PasswordUtils;
@@ -37,6 +38,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -66,6 +68,8 @@ public class UserServiceImpl implements UserService {
     private UserRoleMapper userRoleMapper;
     @Resource
     private PermissionMapper permissionMapper;
+    @Resource
+    private SensitiveWordFilter sensitiveWordFilter;
     private final AuthApiClient authApiClient;
 
     @Override
@@ -150,6 +154,8 @@ public class UserServiceImpl implements UserService {
             throw new BizException(ResultCode.USER_PHONE_ALREADY_EXISTS);
         }
 
+        checkNickname(request.getNickname());
+
         // 创建用户对象
         User user = new User();
         BeanUtils.copyProperties(request, user);
@@ -198,6 +204,10 @@ public class UserServiceImpl implements UserService {
             throw new BizException(ResultCode.PHONE_ALREADY_EXISTS);
         }
 
+        if (!Objects.equals(request.getNickname(), user.getNickname())) {
+            checkNickname(request.getNickname());
+        }
+
         // 更新用户信息
         BeanUtils.copyProperties(request, user);
         user.setUpdateAt(new Date());
@@ -614,7 +624,11 @@ public class UserServiceImpl implements UserService {
         
         // 更新允许修改的字段
         if (profileData.containsKey("nickname")) {
-            updateUser.setNickname((String) profileData.get("nickname"));
+            String nickname = (String) profileData.get("nickname");
+            if (!Objects.equals(nickname, user.getNickname())) {
+                checkNickname(nickname);
+            }
+            updateUser.setNickname(nickname);
         }
         if (profileData.containsKey("email")) {
             updateUser.setEmail((String) profileData.get("email"));
@@ -654,6 +668,15 @@ public class UserServiceImpl implements UserService {
         log.info("解锁用户{}", id);
     }
 
+    /**
+     * 校验昵称是否包含不当内容
+     */
+    private void checkNickname(String nickname) {
+        if (sensitiveWordFilter.contains(nickname, SensitiveWordFilter.DICT_COMMON)) {
+            throw new BizException(ResultCode.PARAM_ERROR, "昵称包含不当内容，请修改后重试");
+        }
+    }
+
     /**
      * 转换User实体为UserResponse
      */
@@ -0,0 +1,286 @@
+package com.lynn.museum.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lynn.museum.common.cache.config.MultiLevelCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * 两级缓存：本实例 Caffeine（L1）+ Redis（L2）
+ *
+ * 读：L1 -> L2 -> 加载，L2 命中时回填 L1。{@link #get(Object, Callable)} 借助 Caffeine 的按键计算
+ * 实现单飞，同一实例上同一个键并发未命中时只有一个线程查询 Redis/数据库，其余线程等待其结果。
+ * 写和失效：先写/删 Redis，再更新本地，最后通过 Redis 频道通知其他实例清除本地副本；
+ * 通知丢失时其他实例的本地副本最多陈旧 localTtl。
+ * Redis 不可用时读写降级为只用本地缓存，不影响业务调用。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Slf4j
+public class MultiLevelCache extends AbstractValueAdaptingCache {
+
+    private static final int CLEAR_SCAN_COUNT = 500;
+
+    private final String name;
+    private final String redisKeyPrefix;
+    private final Duration ttl;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final BiConsumer<String, String> invalidationPublisher;
+    private final Cache<String, Object> localCache;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    /**
+     * @param name 缓存名
+     * @param keyPrefix Redis 键前缀
+     * @param spec 缓存规格
+     * @param allowNullValues 是否缓存空值
+     * @param redisTemplate L2 读写模板
+     * @param invalidationPublisher 失效通知 (缓存名, 键)，键为 null 表示清空
+     */
+    public MultiLevelCache(String name, String keyPrefix, MultiLevelCacheProperties.Spec spec, boolean allowNullValues,
+                           RedisTemplate<String, Object> redisTemplate,
+                           BiConsumer<String, String> invalidationPublisher) {
+        super(allowNullValues);
+        this.name = name;
+        this.redisKeyPrefix = keyPrefix + name + "::";
+        this.ttl = spec.getTtl();
+        this.redisTemplate = redisTemplate;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = toCacheKey(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        value = readRemote(cacheKey);
+        if (value != null) {
+            remoteHits.increment();
+            localCache.put(cacheKey, value);
+            return value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = toCacheKey(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            localHits.increment();
+            return (T) fromStoreValue(value);
+        }
+        return (T) fromStoreValue(localCache.get(cacheKey, k -> loadThrough(key, k, valueLoader)));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = toCacheKey(key);
+        Object storeValue = toStoreValue(value);
+        writeRemote(cacheKey, storeValue);
+        localCache.put(cacheKey, storeValue);
+        invalidationPublisher.accept(name, cacheKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String cacheKey = toCacheKey(key);
+        Object existing = lookup(key);
+        if (existing != null) {
+            return toValueWrapper(existing);
+        }
+        Object storeValue = toStoreValue(value);
+        try {
+            Boolean stored = redisTemplate.opsForValue().setIfAbsent(redisKeyPrefix + cacheKey, storeValue, ttl);
+            if (!Boolean.TRUE.equals(stored)) {
+                return toValueWrapper(readRemote(cacheKey));
+            }
+        } catch (RuntimeException e) {
+            log.warn("缓存[{}]写入Redis失败, key={}, 错误: {}", name, cacheKey, e.getMessage());
+        }
+        localCache.put(cacheKey, storeValue);
+        invalidationPublisher.accept(name, cacheKey);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = toCacheKey(key);
+        try {
+            redisTemplate.delete(redisKeyPrefix + cacheKey);
+        } catch (RuntimeException e) {
+            log.error("缓存[{}]删除Redis键失败, key={}, Redis副本将在过期后失效, 错误: {}", name, cacheKey, e.getMessage());
+        }
+        localCache.invalidate(cacheKey);
+        invalidationPublisher.accept(name, cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        try {
+            deleteRemoteKeys();
+        } catch (RuntimeException e) {
+            log.error("缓存[{}]清空Redis失败, Redis副本将在过期后失效, 错误: {}", name, e.getMessage());
+        }
+        localCache.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * 收到其他实例的失效通知后清除本地副本
+     */
+    void evictLocal(String cacheKey) {
+        localCache.invalidate(cacheKey);
+    }
+
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getLoadSuccesses() {
+        return loadSuccesses.sum();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    /**
+     * 本地未命中时在 Caffeine 的按键计算中执行，同一键同时只有一个线程进入
+     */
+    private Object loadThrough(Object key, String cacheKey, Callable<?> valueLoader) {
+        Object remote = readRemote(cacheKey);
+        if (remote != null) {
+            remoteHits.increment();
+            return remote;
+        }
+        misses.increment();
+        Object value;
+        try {
+            value = valueLoader.call();
+            loadSuccesses.increment();
+        } catch (Exception e) {
+            loadFailures.increment();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value == null && !isAllowNullValues()) {
+            return null;
+        }
+        Object storeValue = toStoreValue(value);
+        writeRemote(cacheKey, storeValue);
+        return storeValue;
+    }
+
+    private Object readRemote(String cacheKey) {
+        String redisKey = redisKeyPrefix + cacheKey;
+        try {
+            return redisTemplate.opsForValue().get(redisKey);
+        } catch (SerializationException e) {
+            // 类结构变更导致旧数据无法反序列化，删除后按未命中处理
+            log.warn("缓存[{}]反序列化失败，删除旧数据, key={}, 错误: {}", name, cacheKey, e.getMessage());
+            try {
+                redisTemplate.delete(redisKey);
+            } catch (RuntimeException ignored) {
+                // 删除失败时等待过期
+            }
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("缓存[{}]读取Redis失败, key={}, 错误: {}", name, cacheKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRemote(String cacheKey, Object storeValue) {
+        try {
+            redisTemplate.opsForValue().set(redisKeyPrefix + cacheKey, storeValue, ttl);
+        } catch (RuntimeException e) {
+            log.warn("缓存[{}]写入Redis失败, key={}, 错误: {}", name, cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 按前缀 SCAN 删除本缓存的全部 Redis 键，不使用 KEYS 阻塞 Redis
+     */
+    private void deleteRemoteKeys() {
+        ScanOptions options = ScanOptions.scanOptions().match(redisKeyPrefix + "*").count(CLEAR_SCAN_COUNT).build();
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            List<byte[]> batch = new ArrayList<>(CLEAR_SCAN_COUNT);
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= CLEAR_SCAN_COUNT) {
+                        delete(connection, batch);
+                    }
+                }
+            }
+            delete(connection, batch);
+            return null;
+        });
+    }
+
+    private static void delete(RedisConnection connection, List<byte[]> keys) {
+        if (!keys.isEmpty()) {
+            connection.keyCommands().del(keys.toArray(new byte[0][]));
+            keys.clear();
+        }
+    }
+
+    private static String toCacheKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,106 @@
+package com.lynn.museum.common.cache;
+
+import com.lynn.museum.common.cache.config.MultiLevelCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 多级缓存管理器
+ *
+ * 配置中声明的缓存启动时创建，其余缓存在首次使用时按默认规格创建。
+ * 缓存的写入和失效在事务提交后执行，避免事务回滚或提交前的并发读把旧值写回缓存。
+ * 失效通知格式为 "实例ID\n缓存名[\n键]"，不带键表示清空，实例忽略自己发出的通知。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Slf4j
+public class MultiLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private static final String SEPARATOR = "\n";
+
+    private final MultiLevelCacheProperties properties;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, MultiLevelCache> caches = new ConcurrentHashMap<>();
+    private final List<Consumer<MultiLevelCache>> cacheListeners = new CopyOnWriteArrayList<>();
+
+    public MultiLevelCacheManager(MultiLevelCacheProperties properties,
+                                  RedisTemplate<String, Object> redisTemplate,
+                                  StringRedisTemplate stringRedisTemplate) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        setTransactionAware(true);
+    }
+
+    /**
+     * 注册缓存创建回调（如绑定指标），对已创建的缓存立即回调一次
+     */
+    public void addCacheListener(Consumer<MultiLevelCache> listener) {
+        cacheListeners.add(listener);
+        caches.values().forEach(listener);
+    }
+
+    /**
+     * 处理其他实例发来的失效通知
+     *
+     * @param message 通知内容
+     */
+    public void handleInvalidation(String message) {
+        String[] parts = message.split(SEPARATOR, 3);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return;
+        }
+        MultiLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts.length == 2) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getCaches().keySet().stream().map(this::createCache).toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private MultiLevelCache createCache(String name) {
+        return caches.computeIfAbsent(name, key -> {
+            MultiLevelCache cache = new MultiLevelCache(key, properties.getKeyPrefix(), properties.specOf(key),
+                    properties.isCacheNullValues(), redisTemplate, this::publishInvalidation);
+            cacheListeners.forEach(listener -> listener.accept(cache));
+            log.info("[common-cache] 创建多级缓存: {}", key);
+            return cache;
+        });
+    }
+
+    private void publishInvalidation(String cacheName, String cacheKey) {
+        String message = instanceId + SEPARATOR + cacheName + (cacheKey != null ? SEPARATOR + cacheKey : "");
+        try {
+            stringRedisTemplate.convertAndSend(properties.getInvalidationChannel(), message);
+        } catch (RuntimeException e) {
+            log.warn("缓存[{}]失效通知发送失败，其他实例的本地副本将在过期后失效, 错误: {}", cacheName, e.getMessage());
+        }
+    }
+}
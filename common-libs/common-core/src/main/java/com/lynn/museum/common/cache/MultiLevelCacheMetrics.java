@@ -0,0 +1,44 @@
+package com.lynn.museum.common.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 多级缓存指标
+ *
+ * cache.multilevel.gets{cache, result=local_hit|remote_hit|miss}：读取次数
+ * cache.multilevel.loads{cache, result=success|failure}：未命中后的加载次数
+ * cache.multilevel.local.size{cache}：本地缓存条数
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+public class MultiLevelCacheMetrics {
+
+    public MultiLevelCacheMetrics(MultiLevelCacheManager cacheManager, MeterRegistry meterRegistry) {
+        if (meterRegistry != null) {
+            cacheManager.addCacheListener(cache -> bind(meterRegistry, cache));
+        }
+    }
+
+    private static void bind(MeterRegistry registry, MultiLevelCache cache) {
+        Tags tags = Tags.of("cache", cache.getName());
+        counter(registry, "cache.multilevel.gets", tags.and("result", "local_hit"), cache, MultiLevelCache::getLocalHits);
+        counter(registry, "cache.multilevel.gets", tags.and("result", "remote_hit"), cache, MultiLevelCache::getRemoteHits);
+        counter(registry, "cache.multilevel.gets", tags.and("result", "miss"), cache, MultiLevelCache::getMisses);
+        counter(registry, "cache.multilevel.loads", tags.and("result", "success"), cache, MultiLevelCache::getLoadSuccesses);
+        counter(registry, "cache.multilevel.loads", tags.and("result", "failure"), cache, MultiLevelCache::getLoadFailures);
+        Gauge.builder("cache.multilevel.local.size", cache, MultiLevelCache::getLocalSize)
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, Tags tags, MultiLevelCache cache,
+                                ToDoubleFunction<MultiLevelCache> count) {
+        FunctionCounter.builder(name, cache, count).tags(tags).register(registry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.lynn.museum.common.cache.config;
+
+import com.lynn.museum.common.cache.MultiLevelCacheManager;
+import com.lynn.museum.common.cache.MultiLevelCacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 多级缓存自动配置类
+ *
+ * 依赖 Caffeine，引入 Caffeine 的服务自动启用 Spring Cache 注解并使用多级缓存，
+ * 可通过 museum.cache.enabled=false 关闭。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Slf4j
+@Configuration
+@EnableCaching
+@ConditionalOnClass(name = "com.github.benmanes.caffeine.cache.Caffeine")
+@ConditionalOnProperty(prefix = "museum.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(MultiLevelCacheProperties.class)
+public class MultiLevelCacheAutoConfiguration {
+
+    @Bean
+    public MultiLevelCacheManager cacheManager(MultiLevelCacheProperties properties,
+                                               RedisTemplate<String, Object> redisTemplate,
+                                               StringRedisTemplate stringRedisTemplate) {
+        log.info("[common-cache] 初始化多级缓存管理器");
+        return new MultiLevelCacheManager(properties, redisTemplate, stringRedisTemplate);
+    }
+
+    /**
+     * 订阅失效通知频道
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            MultiLevelCacheManager cacheManager,
+                                                                            MultiLevelCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> cacheManager.handleInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(properties.getInvalidationChannel()));
+        return container;
+    }
+
+    /**
+     * 缓存命中率指标，仅在引入 Micrometer 时生效
+     */
+    @Configuration
+    @ConditionalOnClass(name = {
+            "com.github.benmanes.caffeine.cache.Caffeine",
+            "io.micrometer.core.instrument.MeterRegistry"
+    })
+    @ConditionalOnProperty(prefix = "museum.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class MetricsConfiguration {
+
+        @Bean
+        public MultiLevelCacheMetrics multiLevelCacheMetrics(MultiLevelCacheManager cacheManager,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+            return new MultiLevelCacheMetrics(cacheManager, meterRegistry.getIfAvailable());
+        }
+    }
+}
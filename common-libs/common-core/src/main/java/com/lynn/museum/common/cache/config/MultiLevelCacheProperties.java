@@ -0,0 +1,86 @@
+package com.lynn.museum.common.cache.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 多级缓存配置
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Data
+@ConfigurationProperties(prefix = "museum.cache")
+public class MultiLevelCacheProperties {
+
+    /**
+     * 是否启用多级缓存（同时开启 Spring Cache 注解）
+     */
+    private boolean enabled = true;
+
+    /**
+     * Redis 缓存键前缀，完整键为 前缀 + 缓存名 + "::" + 键
+     */
+    private String keyPrefix = "museum:cache:";
+
+    /**
+     * 跨实例失效通知的 Redis 频道
+     */
+    private String invalidationChannel = "museum:cache:invalidation";
+
+    /**
+     * 是否缓存空值，避免不存在的键反复穿透到数据库
+     */
+    private boolean cacheNullValues = true;
+
+    /**
+     * 未单独配置的缓存使用的默认规格
+     */
+    private Spec defaults = new Spec(Duration.ofMinutes(30), Duration.ofMinutes(5), 10000L);
+
+    /**
+     * 按缓存名配置的规格，未设置的项沿用默认规格
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    /**
+     * 获取缓存的有效规格
+     */
+    public Spec specOf(String name) {
+        Spec spec = caches.get(name);
+        if (spec == null) {
+            return defaults;
+        }
+        return new Spec(
+                spec.getTtl() != null ? spec.getTtl() : defaults.getTtl(),
+                spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl(),
+                spec.getLocalMaxSize() != null ? spec.getLocalMaxSize() : defaults.getLocalMaxSize());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Spec {
+
+        /**
+         * Redis 中的过期时间
+         */
+        private Duration ttl;
+
+        /**
+         * 本地缓存过期时间，失效通知丢失时本地副本最多陈旧这么久，不应超过 ttl
+         */
+        private Duration localTtl;
+
+        /**
+         * 本地缓存最大条数
+         */
+        private Long localMaxSize;
+    }
+}
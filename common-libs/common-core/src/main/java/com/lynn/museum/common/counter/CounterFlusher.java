@@ -0,0 +1,24 @@
+package com.lynn.museum.common.counter;
+
+import java.util.Map;
+
+/**
+ * 计数增量写回接口
+ *
+ * 一次调用写回一批增量，通常实现为一条 {@code UPDATE ... SET x = x + CASE id ... END} 语句。
+ * 抛出异常表示整批未写入，增量会放回计数器等待下次刷新。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@FunctionalInterface
+public interface CounterFlusher {
+
+    /**
+     * 写回一批增量
+     *
+     * @param deltas ID -> 增量，按ID升序
+     * @return 影响行数
+     */
+    int flush(Map<Long, Long> deltas);
+}
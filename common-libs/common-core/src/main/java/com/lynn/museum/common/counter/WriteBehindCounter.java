@@ -0,0 +1,154 @@
+package com.lynn.museum.common.counter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 延迟写回计数器
+ *
+ * 增量按线程分散到多个分段中累加，热点ID的并发累加不会集中在同一把锁上；
+ * 刷新时逐个原子移除分段中的增量，合并后按ID升序分批交给 {@link CounterFlusher} 写回。
+ * 写回失败的批次及其后未写回的批次放回计数器，下次刷新重试，因此增量至少写入一次。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Slf4j
+public class WriteBehindCounter {
+
+    private final String name;
+    private final CounterFlusher flusher;
+    private final int batchSize;
+    private final ConcurrentHashMap<Long, Long>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    WriteBehindCounter(String name, CounterFlusher flusher, int stripeCount, int batchSize) {
+        this.name = name;
+        this.flusher = flusher;
+        this.batchSize = Math.max(1, batchSize);
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ConcurrentHashMap[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.mask = size - 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 计数加一
+     *
+     * @param id 业务ID
+     */
+    public void increment(Long id) {
+        add(id, 1);
+    }
+
+    /**
+     * 累加增量
+     *
+     * @param id 业务ID
+     * @param delta 增量
+     */
+    public void add(Long id, long delta) {
+        if (id == null || delta == 0) {
+            return;
+        }
+        stripes[(int) Thread.currentThread().getId() & mask].merge(id, delta, Long::sum);
+    }
+
+    /**
+     * 尚未写回的ID数（各分段之和，同一ID可能重复计入）
+     */
+    public int pendingSize() {
+        int size = 0;
+        for (ConcurrentHashMap<Long, Long> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * 将累积的增量写回
+     *
+     * @return 是否全部写回成功
+     */
+    public synchronized boolean flush() {
+        Map<Long, Long> drained = drain();
+        if (drained.isEmpty()) {
+            return true;
+        }
+        List<Map<Long, Long>> batches = partition(drained);
+        int rows = 0;
+        for (int i = 0; i < batches.size(); i++) {
+            try {
+                rows += flusher.flush(batches.get(i));
+            } catch (Exception e) {
+                for (int j = i; j < batches.size(); j++) {
+                    batches.get(j).forEach(this::add);
+                }
+                log.warn("计数器[{}]写回失败，{}个ID的增量等待重试, 错误: {}",
+                        name, drained.size() - i * batchSize, e.getMessage());
+                return false;
+            }
+        }
+        log.debug("计数器[{}]写回完成: {}个ID, 影响{}行", name, drained.size(), rows);
+        return true;
+    }
+
+    /**
+     * 未能写回的增量，仅在停机时用于记录日志
+     */
+    synchronized Map<Long, Long> snapshot() {
+        Map<Long, Long> merged = new TreeMap<>();
+        for (ConcurrentHashMap<Long, Long> stripe : stripes) {
+            stripe.forEach((id, delta) -> merged.merge(id, delta, Long::sum));
+        }
+        return merged;
+    }
+
+    /**
+     * 逐个原子移除各分段的增量，移除与累加互斥，不会丢失并发写入
+     */
+    private Map<Long, Long> drain() {
+        TreeMap<Long, Long> drained = new TreeMap<>();
+        for (ConcurrentHashMap<Long, Long> stripe : stripes) {
+            for (Long id : stripe.keySet()) {
+                Long delta = stripe.remove(id);
+                if (delta != null) {
+                    drained.merge(id, delta, Long::sum);
+                }
+            }
+        }
+        drained.values().removeIf(delta -> delta == 0);
+        return drained;
+    }
+
+    private List<Map<Long, Long>> partition(Map<Long, Long> drained) {
+        List<Map<Long, Long>> batches = new ArrayList<>();
+        Map<Long, Long> batch = new TreeMap<>();
+        for (Map.Entry<Long, Long> entry : drained.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= batchSize) {
+                batches.add(batch);
+                batch = new TreeMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,128 @@
+package com.lynn.museum.common.counter;
+
+import com.lynn.museum.common.counter.config.CounterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延迟写回计数器注册表
+ *
+ * 点击、阅读、下载等高频计数先在内存中累加，由后台线程按固定间隔批量写回数据库，
+ * 避免每次请求都对同一行加锁更新。停机时在 Web 服务器停止接收请求之后、数据源关闭之前
+ * 执行最后一次刷新（失败时重试），重试仍失败的增量以 ERROR 日志输出，便于人工补录。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Slf4j
+public class WriteBehindCounters implements SmartLifecycle {
+
+    /**
+     * 晚于 Web 服务器优雅停机（DEFAULT_PHASE - 1024）和 Web 服务器停止（DEFAULT_PHASE - 2048）
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final CounterProperties properties;
+    private final Map<String, WriteBehindCounter> counters = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    public WriteBehindCounters(CounterProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 注册计数器，同名计数器只注册一次
+     *
+     * @param name 计数器名称，如 banner.click
+     * @param flusher 增量写回实现
+     * @return 计数器
+     */
+    public WriteBehindCounter register(String name, CounterFlusher flusher) {
+        return counters.computeIfAbsent(name,
+                key -> new WriteBehindCounter(key, flusher, properties.getStripes(), properties.getBatchSize()));
+    }
+
+    /**
+     * 立即写回全部计数器
+     *
+     * @return 是否全部写回成功
+     */
+    public boolean flushAll() {
+        boolean success = true;
+        for (WriteBehindCounter counter : counters.values()) {
+            try {
+                success &= counter.flush();
+            } catch (Exception e) {
+                success = false;
+                log.warn("计数器[{}]刷新异常: {}", counter.getName(), e.getMessage());
+            }
+        }
+        return success;
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "write-behind-counter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushIntervalMs();
+        executor.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+        log.info("[common-counter] 延迟写回计数器已启动，刷新间隔: {}ms", interval);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        scheduler = null;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushOnShutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void flushOnShutdown() {
+        for (int attempt = 1; attempt <= properties.getShutdownRetries(); attempt++) {
+            if (flushAll()) {
+                log.info("[common-counter] 停机前计数已全部写回");
+                return;
+            }
+            try {
+                Thread.sleep(properties.getShutdownRetryIntervalMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (WriteBehindCounter counter : counters.values()) {
+            Map<Long, Long> remaining = counter.snapshot();
+            if (!remaining.isEmpty()) {
+                log.error("计数器[{}]停机前写回失败，未写回的增量: {}", counter.getName(), remaining);
+            }
+        }
+    }
+}
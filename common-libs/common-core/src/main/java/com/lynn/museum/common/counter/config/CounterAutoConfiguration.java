@@ -0,0 +1,24 @@
+package com.lynn.museum.common.counter.config;
+
+import com.lynn.museum.common.counter.WriteBehindCounters;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 延迟写回计数器自动配置类
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Configuration
+@EnableConfigurationProperties(CounterProperties.class)
+public class CounterAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(WriteBehindCounters.class)
+    public WriteBehindCounters writeBehindCounters(CounterProperties properties) {
+        return new WriteBehindCounters(properties);
+    }
+}
@@ -0,0 +1,40 @@
+package com.lynn.museum.common.counter.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 延迟写回计数器配置
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Data
+@ConfigurationProperties(prefix = "museum.counter")
+public class CounterProperties {
+
+    /**
+     * 写回间隔（毫秒）
+     */
+    private long flushIntervalMs = 5000;
+
+    /**
+     * 每条批量 UPDATE 包含的最大ID数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 累加分段数，向上取整为2的幂，热点ID的并发累加分散到不同分段
+     */
+    private int stripes = 16;
+
+    /**
+     * 停机时写回失败的重试次数
+     */
+    private int shutdownRetries = 3;
+
+    /**
+     * 停机重试间隔（毫秒）
+     */
+    private long shutdownRetryIntervalMs = 1000;
+}
@@ -0,0 +1,98 @@
+package com.lynn.museum.common.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果类
+ *
+ * 用于小程序无限滚动列表：不查询总数，每页多取一条判断是否还有下一页，
+ * 翻到多深的位置查询代价都与第一页相同。
+ *
+ * @author lynn
+ * @since 2025-01-07
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 默认每页大小
+     */
+    public static final int DEFAULT_SIZE = 10;
+
+    /**
+     * 每页大小上限
+     */
+    public static final int MAX_SIZE = 100;
+
+    /**
+     * 数据列表
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标，没有下一页时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 每页大小
+     */
+    private Integer size;
+
+    /**
+     * 由多取一条的查询结果构造分页结果
+     *
+     * @param rows 按游标顺序查询的 size + 1 条记录
+     * @param size 每页大小
+     * @param cursorOf 由记录取得游标
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, PageCursor> cursorOf) {
+        if (rows == null || rows.isEmpty()) {
+            return empty(size);
+        }
+        boolean hasMore = rows.size() > size;
+        List<T> records = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(records.get(records.size() - 1)).encode() : null;
+        return new CursorPage<>(records, nextCursor, hasMore, size);
+    }
+
+    /**
+     * 创建空的分页结果
+     */
+    public static <T> CursorPage<T> empty(int size) {
+        return new CursorPage<>(List.of(), null, false, size);
+    }
+
+    /**
+     * 规范每页大小：为空取默认值，超出范围截断到 [1, 100]
+     */
+    public static int normalizeSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * 保留游标，替换数据列表（如按主键批量加载详情后）
+     */
+    public <R> CursorPage<R> withRecords(List<R> newRecords) {
+        return new CursorPage<>(newRecords, nextCursor, hasMore, size);
+    }
+}
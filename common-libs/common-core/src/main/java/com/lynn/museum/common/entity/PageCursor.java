@@ -0,0 +1,62 @@
+package com.lynn.museum.common.entity;
+
+import com.lynn.museum.common.exception.BizException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 游标分页的位置（排序时间 + 主键）
+ *
+ * 对外以不透明字符串传递，下一页查询条件为 (time, id) &lt; (游标.time, 游标.id)，
+ * 按 time DESC, id DESC 排序，时间相同的记录由主键区分，不会重复或遗漏。
+ *
+ * @author lynn
+ * @since 2025-01-07
+ */
+public record PageCursor(long time, long id) {
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * 由最后一条记录的时间和主键构造游标
+     */
+    public static PageCursor of(Date time, Long id) {
+        return new PageCursor(time != null ? time.getTime() : 0L, id != null ? id : 0L);
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @param cursor 上一页返回的 nextCursor，为空表示第一页
+     * @return 游标，第一页返回 null
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new PageCursor(Long.parseLong(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw BizException.paramError("无效的分页游标");
+        }
+    }
+
+    /**
+     * 编码为不透明字符串
+     */
+    public String encode() {
+        String raw = Long.toString(time) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 游标时间
+     */
+    public Date timeAsDate() {
+        return new Date(time);
+    }
+}
@@ -0,0 +1,194 @@
+package com.lynn.museum.common.moderation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho–Corasick 多模式匹配自动机
+ *
+ * 构建后不可变，可被多个线程同时使用。扫描一遍文本即可找出全部词条，
+ * 耗时与文本长度和命中数成正比，与词典大小无关。
+ * 每个节点的子节点按字符排序存放在数组中，转移时二分查找。
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    /**
+     * 节点 -> 子节点字符（升序）
+     */
+    private final char[][] edges;
+    /**
+     * 节点 -> 子节点编号，与 edges 一一对应
+     */
+    private final int[][] targets;
+    /**
+     * 失败指针
+     */
+    private final int[] fail;
+    /**
+     * 以该节点结尾的词条编号，没有则为 -1
+     */
+    private final int[] output;
+    /**
+     * 沿失败指针能到达的下一个有词条的节点，没有则为 -1
+     */
+    private final int[] outputLink;
+
+    private final String[] words;
+    private final int[] payloads;
+
+    private AhoCorasickMatcher(char[][] edges, int[][] targets, int[] fail, int[] output, int[] outputLink,
+                               String[] words, int[] payloads) {
+        this.edges = edges;
+        this.targets = targets;
+        this.fail = fail;
+        this.output = output;
+        this.outputLink = outputLink;
+        this.words = words;
+        this.payloads = payloads;
+    }
+
+    /**
+     * 构建自动机
+     *
+     * @param dictionary 词条 -> 附加数据（由调用方定义，例如所属词典的位掩码），空词条会被忽略
+     * @return 自动机
+     */
+    public static AhoCorasickMatcher build(Map<String, Integer> dictionary) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> nodeOutput = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutput.add(NONE);
+
+        List<String> wordList = new ArrayList<>(dictionary.size());
+        int[] payloadList = new int[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            String word = entry.getKey();
+            if (word == null || word.isEmpty()) {
+                continue;
+            }
+            int node = ROOT;
+            for (int i = 0; i < word.length(); i++) {
+                Integer child = trie.get(node).get(word.charAt(i));
+                if (child == null) {
+                    child = trie.size();
+                    trie.add(new TreeMap<>());
+                    nodeOutput.add(NONE);
+                    trie.get(node).put(word.charAt(i), child);
+                }
+                node = child;
+            }
+            payloadList[wordList.size()] = entry.getValue() != null ? entry.getValue() : 0;
+            nodeOutput.set(node, wordList.size());
+            wordList.add(word);
+        }
+
+        int size = trie.size();
+        char[][] edges = new char[size][];
+        int[][] targets = new int[size][];
+        int[] output = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> children = trie.get(node);
+            edges[node] = new char[children.size()];
+            targets[node] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> child : children.entrySet()) {
+                edges[node][i] = child.getKey();
+                targets[node][i] = child.getValue();
+                i++;
+            }
+            output[node] = nodeOutput.get(node);
+        }
+
+        // 按层次遍历计算失败指针，父节点的失败指针总是先于子节点确定
+        int[] fail = new int[size];
+        int[] outputLink = new int[size];
+        outputLink[ROOT] = NONE;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            fail[child] = ROOT;
+            outputLink[child] = NONE;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edges[node].length; i++) {
+                char c = edges[node][i];
+                int child = targets[node][i];
+                int state = fail[node];
+                int next;
+                while ((next = transition(edges, targets, state, c)) == NONE && state != ROOT) {
+                    state = fail[state];
+                }
+                fail[child] = next == NONE ? ROOT : next;
+                outputLink[child] = output[fail[child]] != NONE ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+
+        return new AhoCorasickMatcher(edges, targets, fail, output, outputLink,
+                wordList.toArray(new String[0]), Arrays.copyOf(payloadList, wordList.size()));
+    }
+
+    /**
+     * 扫描文本，每个命中（含重叠命中）回调一次
+     *
+     * @param text 待扫描文本
+     * @param handler 命中回调，返回 false 时停止扫描
+     */
+    public void scan(CharSequence text, HitHandler handler) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transition(edges, targets, state, c)) == NONE && state != ROOT) {
+                state = fail[state];
+            }
+            state = next == NONE ? ROOT : next;
+            for (int node = output[state] != NONE ? state : outputLink[state]; node != NONE; node = outputLink[node]) {
+                int word = output[node];
+                if (!handler.onHit(i + 1 - words[word].length(), i + 1, words[word], payloads[word])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 词条数量
+     */
+    public int size() {
+        return words.length;
+    }
+
+    private static int transition(char[][] edges, int[][] targets, int node, char c) {
+        int index = Arrays.binarySearch(edges[node], c);
+        return index >= 0 ? targets[node][index] : NONE;
+    }
+
+    /**
+     * 命中回调
+     */
+    @FunctionalInterface
+    public interface HitHandler {
+
+        /**
+         * @param start 命中起始位置（含）
+         * @param end 命中结束位置（不含）
+         * @param word 命中的词条
+         * @param payload 词条的附加数据
+         * @return 是否继续扫描
+         */
+        boolean onHit(int start, int end, String word, int payload);
+    }
+}
@@ -0,0 +1,252 @@
+package com.lynn.museum.common.moderation;
+
+import com.lynn.museum.common.moderation.config.SensitiveWordProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 敏感词过滤
+ *
+ * 所有词典合并为一个 Aho–Corasick 自动机，每个词条带有所属词典的位掩码，
+ * 一次扫描即可按场景过滤命中，耗时与文本长度成正比，不随词典规模增长。
+ * 文本和词条先经过 {@link TextNormalizer} 归一化，拼音变体直接作为词条加入词典（如 "weixin"、"vx"）。
+ *
+ * 词典来源：配置中的内置词条 + Redis Set（{@code museum:moderation:dict:<词典名>}）。
+ * 修改 Redis 词典后 INCR 版本号键，各实例定期检查版本号，变化时在后台重建自动机并整体替换，
+ * 重建期间继续使用旧自动机。
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+@Slf4j
+public class SensitiveWordFilter implements DisposableBean {
+
+    /**
+     * 通用不当内容词典
+     */
+    public static final String DICT_COMMON = "common";
+
+    /**
+     * 广告引流词典
+     */
+    public static final String DICT_ADVERT = "advert";
+
+    /**
+     * 位掩码最多支持的词典数量
+     */
+    private static final int MAX_DICTIONARIES = Integer.SIZE;
+
+    private final SensitiveWordProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final ScheduledExecutorService refresher;
+
+    private volatile Dictionary dictionary;
+
+    /**
+     * @param properties 过滤配置
+     * @param redisTemplate Redis 模板，为 null 时只使用配置中的词条
+     */
+    public SensitiveWordFilter(SensitiveWordProperties properties, StringRedisTemplate redisTemplate) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        reload();
+
+        if (redisTemplate != null && properties.getRefreshSeconds() > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sensitive-word-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refreshIfChanged,
+                    properties.getRefreshSeconds(), properties.getRefreshSeconds(), TimeUnit.SECONDS);
+        } else {
+            refresher = null;
+        }
+    }
+
+    /**
+     * 是否包含敏感词
+     *
+     * @param text 待检测文本
+     * @param dictionaries 使用的词典，不传表示全部词典
+     */
+    public boolean contains(String text, String... dictionaries) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        Dictionary current = dictionary;
+        int mask = current.maskOf(dictionaries);
+        boolean[] found = {false};
+        current.matcher().scan(TextNormalizer.normalize(text).text(), (start, end, word, payload) -> {
+            if ((payload & mask) != 0) {
+                found[0] = true;
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    /**
+     * 找出命中的全部敏感词（归一化后的词条，去重）
+     *
+     * @param text 待检测文本
+     * @param dictionaries 使用的词典，不传表示全部词典
+     */
+    public Set<String> findAll(String text, String... dictionaries) {
+        Set<String> hits = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return hits;
+        }
+        Dictionary current = dictionary;
+        int mask = current.maskOf(dictionaries);
+        current.matcher().scan(TextNormalizer.normalize(text).text(), (start, end, word, payload) -> {
+            if ((payload & mask) != 0) {
+                hits.add(word);
+            }
+            return true;
+        });
+        return hits;
+    }
+
+    /**
+     * 将原文中的敏感词替换为打码字符，夹在敏感词中间的分隔符一并打码
+     *
+     * @param text 原文
+     * @param dictionaries 使用的词典，不传表示全部词典
+     * @return 打码后的文本，没有命中时返回原文
+     */
+    public String mask(String text, String... dictionaries) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        Dictionary current = dictionary;
+        int mask = current.maskOf(dictionaries);
+        TextNormalizer.Normalized normalized = TextNormalizer.normalize(text);
+        char[] chars = text.toCharArray();
+        boolean[] changed = {false};
+        current.matcher().scan(normalized.text(), (start, end, word, payload) -> {
+            if ((payload & mask) != 0) {
+                for (int i = normalized.originalIndex(start); i <= normalized.originalIndex(end - 1); i++) {
+                    chars[i] = properties.getMaskChar();
+                }
+                changed[0] = true;
+            }
+            return true;
+        });
+        return changed[0] ? new String(chars) : text;
+    }
+
+    /**
+     * 重新加载全部词典并替换自动机
+     */
+    public synchronized void reload() {
+        String version = readVersion();
+        List<String> names = new ArrayList<>(properties.getDictionaries().keySet());
+        if (names.size() > MAX_DICTIONARIES) {
+            log.warn("[common-moderation] 词典数量超过{}个，多余的词典被忽略: {}",
+                    MAX_DICTIONARIES, names.subList(MAX_DICTIONARIES, names.size()));
+            names = names.subList(0, MAX_DICTIONARIES);
+        }
+
+        Map<String, Integer> bits = new HashMap<>();
+        Map<String, Integer> words = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            int bit = 1 << i;
+            bits.put(name, bit);
+            addWords(words, properties.getDictionaries().get(name), bit);
+            addWords(words, readRedisWords(name), bit);
+        }
+
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.build(words);
+        dictionary = new Dictionary(matcher, Map.copyOf(bits), version);
+        log.info("[common-moderation] 敏感词词典加载完成: 词典{}个, 词条{}个, 版本{}", bits.size(), matcher.size(), version);
+    }
+
+    @Override
+    public void destroy() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    private void refreshIfChanged() {
+        try {
+            if (!Objects.equals(readVersion(), dictionary.version())) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("[common-moderation] 刷新敏感词词典失败 - {}", e.getMessage());
+        }
+    }
+
+    private static void addWords(Map<String, Integer> words, Iterable<String> source, int bit) {
+        if (source == null) {
+            return;
+        }
+        for (String word : source) {
+            String normalized = TextNormalizer.normalizeWord(word);
+            if (!normalized.isEmpty()) {
+                words.merge(normalized, bit, (a, b) -> a | b);
+            }
+        }
+    }
+
+    private String readVersion() {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForValue().get(properties.getRedisVersionKey());
+        } catch (Exception e) {
+            log.warn("[common-moderation] 读取敏感词版本失败 - {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Set<String> readRedisWords(String name) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForSet().members(properties.getRedisKeyPrefix() + name);
+        } catch (Exception e) {
+            log.warn("[common-moderation] 读取Redis敏感词典失败: {} - {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 当前生效的词典
+     *
+     * @param matcher 合并后的自动机
+     * @param bits 词典名称 -> 位掩码
+     * @param version 加载时的 Redis 版本号
+     */
+    private record Dictionary(AhoCorasickMatcher matcher, Map<String, Integer> bits, String version) {
+
+        private int maskOf(String... names) {
+            if (names == null || names.length == 0) {
+                return -1;
+            }
+            int mask = 0;
+            for (String name : names) {
+                mask |= bits.getOrDefault(name, 0);
+            }
+            return mask;
+        }
+    }
+}
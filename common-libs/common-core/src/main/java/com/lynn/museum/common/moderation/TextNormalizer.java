@@ -0,0 +1,70 @@
+package com.lynn.museum.common.moderation;
+
+/**
+ * 敏感词匹配前的文本归一化
+ *
+ * 1. 全角字符转半角（"ＱＱ" -> "qq"）
+ * 2. 英文字母转小写，拼音写法不区分大小写（"WeiXin" -> "weixin"）
+ * 3. 去掉空白、标点和符号，防止用分隔符绕过（"微 信"、"微-信"、"w.e.i.x.i.n"）
+ * 归一化结果保留每个字符在原文中的位置，用于在原文上打码。
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * 归一化文本
+     *
+     * @param text 原文
+     * @return 归一化结果
+     */
+    public static Normalized normalize(CharSequence text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        int[] offsets = new int[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            char c = fold(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                offsets[builder.length()] = i;
+                builder.append(c);
+            }
+        }
+        return new Normalized(builder.toString(), offsets);
+    }
+
+    /**
+     * 归一化词条，与文本使用相同规则
+     */
+    public static String normalizeWord(String word) {
+        return word == null ? "" : normalize(word).text();
+    }
+
+    private static char fold(char c) {
+        if (c == '　') {
+            return ' ';
+        }
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * 归一化结果
+     *
+     * @param text 归一化后的文本
+     * @param offsets 归一化文本第 i 个字符在原文中的位置（只有前 text.length() 个有效）
+     */
+    public record Normalized(String text, int[] offsets) {
+
+        /**
+         * 归一化文本中的位置映射回原文位置
+         */
+        public int originalIndex(int index) {
+            return offsets[index];
+        }
+    }
+}
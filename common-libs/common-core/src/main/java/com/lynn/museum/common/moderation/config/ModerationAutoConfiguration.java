@@ -0,0 +1,33 @@
+package com.lynn.museum.common.moderation.config;
+
+import com.lynn.museum.common.moderation.SensitiveWordFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 内容审核自动配置类
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(SensitiveWordProperties.class)
+public class ModerationAutoConfiguration {
+
+    /**
+     * 敏感词过滤器，存在 Redis 时支持词典热更新
+     */
+    @Bean
+    @ConditionalOnMissingBean(SensitiveWordFilter.class)
+    public SensitiveWordFilter sensitiveWordFilter(SensitiveWordProperties properties,
+                                                   ObjectProvider<StringRedisTemplate> redisTemplate) {
+        log.info("[common-moderation] 初始化敏感词过滤器");
+        return new SensitiveWordFilter(properties, redisTemplate.getIfAvailable());
+    }
+}
@@ -0,0 +1,48 @@
+package com.lynn.museum.common.moderation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 敏感词过滤配置
+ *
+ * @author lynn
+ * @since 2025-01-06
+ */
+@Data
+@ConfigurationProperties(prefix = "museum.moderation")
+public class SensitiveWordProperties {
+
+    /**
+     * 词典名称 -> 内置词条，Redis 中的词条会合并进同名词典
+     * common：辱骂、违法等通用不当内容；advert：广告引流、联系方式
+     */
+    private Map<String, List<String>> dictionaries = new LinkedHashMap<>(Map.of(
+            "common", new ArrayList<>(),
+            "advert", new ArrayList<>(List.of("广告", "推广", "联系方式", "微信", "QQ"))));
+
+    /**
+     * Redis 词典 Set 的键前缀，完整键为前缀 + 词典名称
+     */
+    private String redisKeyPrefix = "museum:moderation:dict:";
+
+    /**
+     * Redis 词典版本号的键，修改词典后 INCR 该键，各实例在下次检查时重新加载
+     */
+    private String redisVersionKey = "museum:moderation:version";
+
+    /**
+     * 检查 Redis 词典版本的间隔（秒），0 表示不自动刷新
+     */
+    private long refreshSeconds = 60;
+
+    /**
+     * 打码字符
+     */
+    private char maskChar = '*';
+}
@@ -1,5 +1,6 @@
 package com.lynn.museum.common.redis.config;
 
+import com.lynn.museum.common.redis.serializer.CompactRedisSerializer;
 import com.lynn.museum.common.redis.utils.RedisUtils;
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.SocketOptions;
@@ -8,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -26,14 +28,17 @@ import java.time.Duration;
 @Slf4j
 @Configuration
 @ConditionalOnClass(RedisTemplate.class)
+@EnableConfigurationProperties(RedisSerializerProperties.class)
 public class RedisAutoConfiguration {
 
     /**
      * Redis模板配置
+     * 值使用二进制序列化器（兼容读取 JSON），Hash 值和默认序列化器保持 JSON
      */
     @Bean
     @ConditionalOnMissingBean(name = "redisTemplate")
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisSerializerProperties serializerProperties) {
         log.info("[common-redis] 初始化通用Redis模板");
         
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -42,19 +47,22 @@ public class RedisAutoConfiguration {
         // 设置序列化器
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
         GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(jsonSerializer,
+                serializerProperties.getWriteFormat() == RedisSerializerProperties.WriteFormat.COMPACT,
+                serializerProperties.getCompressThreshold(), serializerProperties.getTrustedPackages());
         
         // Key序列化
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
         
         // Value序列化
-        template.setValueSerializer(jsonSerializer);
+        template.setValueSerializer(valueSerializer);
         template.setHashValueSerializer(jsonSerializer);
         
         template.setDefaultSerializer(jsonSerializer);
         template.afterPropertiesSet();
         
-        log.info("[common-redis] 通用RedisTemplate配置完成");
+        log.info("[common-redis] 通用RedisTemplate配置完成，值写入格式: {}", serializerProperties.getWriteFormat());
         return template;
     }
 
@@ -0,0 +1,49 @@
+package com.lynn.museum.common.redis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis 值序列化配置
+ *
+ * 读取时自动识别 JSON 和二进制两种格式，写入格式由 writeFormat 决定。切换到二进制分两步：
+ * 先以 json 发布新版本（所有实例都能读二进制），确认旧版本实例全部下线后再改为 compact。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Data
+@ConfigurationProperties(prefix = "museum.redis.serializer")
+public class RedisSerializerProperties {
+
+    /**
+     * 写入格式
+     */
+    private WriteFormat writeFormat = WriteFormat.JSON;
+
+    /**
+     * 二进制内容超过该字节数时使用 LZ4 压缩
+     */
+    private int compressThreshold = 1024;
+
+    /**
+     * 允许二进制反序列化的类名前缀，java.* 和基本类型始终允许
+     */
+    private List<String> trustedPackages = new ArrayList<>(List.of("com.lynn.museum.", "com.baomidou.mybatisplus."));
+
+    public enum WriteFormat {
+
+        /**
+         * 带类型信息的 JSON（GenericJackson2JsonRedisSerializer）
+         */
+        JSON,
+
+        /**
+         * Kryo 二进制，字符串、数字和布尔值仍写 JSON
+         */
+        COMPACT
+    }
+}
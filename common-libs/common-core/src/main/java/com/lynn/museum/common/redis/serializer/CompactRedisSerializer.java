@@ -0,0 +1,278 @@
+package com.lynn.museum.common.redis.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.SerializerFactory;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer;
+import com.esotericsoftware.kryo.serializers.MapSerializer;
+import com.esotericsoftware.kryo.util.DefaultClassResolver;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis 值的二进制序列化器，兼容已有 JSON 数据
+ *
+ * 二进制格式：[0xC1][版本][标志位][内容]，标志位 0x01 表示内容经过 LZ4 压缩，此时内容为
+ * [原始长度(4字节)][LZ4块]。0xC1 不会出现在 UTF-8 文本开头，读取时首字节不是 0xC1 的数据交给 JSON 序列化器，
+ * 因此新旧两种格式可以共存，旧数据无需迁移。对象使用 Kryo 的 CompatibleFieldSerializer 按字段名写入，
+ * DTO 增删字段后旧数据仍可读取；格式不兼容的调整需要提升版本号并保留旧版本的读取分支。
+ *
+ * 字符串、数字和布尔值始终写 JSON：Lua 脚本参数和 INCR 计数依赖文本格式，且这类值 JSON 已足够紧凑。
+ * JDK 中无法直接实例化的集合（List.of、Stream.toList()、Arrays.asList、Collections.unmodifiableList 等）
+ * 按元素写入，读取为 ArrayList、LinkedHashSet 或 LinkedHashMap。Kryo 写入失败的对象退回 JSON 写入；
+ * 未开启引用跟踪，含循环引用的对象会在写入时栈溢出，同样退回 JSON 写入。
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xC1;
+    private static final byte VERSION_1 = 1;
+    private static final byte FLAG_LZ4 = 0x01;
+    private static final int HEADER_LENGTH = 3;
+    private static final int LENGTH_PREFIX = 4;
+    private static final int BUFFER_SIZE = 4096;
+
+    private final RedisSerializer<Object> jsonSerializer;
+    private final boolean writeCompact;
+    private final int compressThreshold;
+    private final List<String> trustedPackages;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+    private final Pool<Kryo> kryoPool;
+
+    /**
+     * @param jsonSerializer JSON 序列化器，用于读取旧数据和写入简单值
+     * @param writeCompact 是否以二进制写入对象
+     * @param compressThreshold 超过该字节数时压缩
+     * @param trustedPackages 允许反序列化的类名前缀
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> jsonSerializer, boolean writeCompact,
+                                  int compressThreshold, List<String> trustedPackages) {
+        this.jsonSerializer = jsonSerializer;
+        this.writeCompact = writeCompact;
+        this.compressThreshold = compressThreshold;
+        this.trustedPackages = List.copyOf(trustedPackages);
+        this.kryoPool = new Pool<>(true, false, Runtime.getRuntime().availableProcessors() * 2) {
+            @Override
+            protected Kryo create() {
+                return createKryo();
+            }
+        };
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null || !writeCompact || isPlainValue(value)) {
+            return jsonSerializer.serialize(value);
+        }
+        byte[] body;
+        Kryo kryo = kryoPool.obtain();
+        try (Output output = new Output(BUFFER_SIZE, -1)) {
+            kryo.writeClassAndObject(output, value);
+            body = output.toBytes();
+        } catch (RuntimeException | StackOverflowError e) {
+            kryo.reset();
+            log.debug("[common-redis] {} 无法二进制序列化，使用JSON: {}", value.getClass().getName(), e.toString());
+            return jsonSerializer.serialize(value);
+        } finally {
+            kryoPool.free(kryo);
+        }
+        return body.length > compressThreshold ? compress(body) : frame(body);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION_1) {
+            throw new SerializationException("不支持的Redis序列化版本: " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        Kryo kryo = kryoPool.obtain();
+        try (Input input = (bytes[2] & FLAG_LZ4) != 0 ? decompress(bytes)
+                : new Input(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH)) {
+            return kryo.readClassAndObject(input);
+        } catch (RuntimeException | StackOverflowError e) {
+            kryo.reset();
+            throw new SerializationException("Redis二进制数据反序列化失败: " + e.getMessage(), e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    private Kryo createKryo() {
+        Kryo kryo = new Kryo(new TrustedClassResolver(trustedPackages), null) {
+            @Override
+            @SuppressWarnings("rawtypes")
+            public Serializer getDefaultSerializer(Class type) {
+                if (isCopiedJdkType(type)) {
+                    return Map.class.isAssignableFrom(type) ? new CopyingMapSerializer() : new CopyingCollectionSerializer();
+                }
+                return super.getDefaultSerializer(type);
+            }
+        };
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(false);
+        kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        CompatibleFieldSerializer.CompatibleFieldSerializerConfig config =
+                new CompatibleFieldSerializer.CompatibleFieldSerializerConfig();
+        // 分块写入字段，读取方缺少某个字段的类型时也能跳过
+        config.setChunkedEncoding(true);
+        kryo.setDefaultSerializer(new SerializerFactory.CompatibleFieldSerializerFactory(config));
+        return kryo;
+    }
+
+    private byte[] frame(byte[] body) {
+        byte[] framed = new byte[HEADER_LENGTH + body.length];
+        framed[0] = MAGIC;
+        framed[1] = VERSION_1;
+        System.arraycopy(body, 0, framed, HEADER_LENGTH, body.length);
+        return framed;
+    }
+
+    private byte[] compress(byte[] body) {
+        int offset = HEADER_LENGTH + LENGTH_PREFIX;
+        byte[] buffer = new byte[offset + compressor.maxCompressedLength(body.length)];
+        int compressedLength = compressor.compress(body, 0, body.length, buffer, offset, buffer.length - offset);
+        if (compressedLength >= body.length) {
+            return frame(body);
+        }
+        buffer[0] = MAGIC;
+        buffer[1] = VERSION_1;
+        buffer[2] = FLAG_LZ4;
+        buffer[3] = (byte) (body.length >>> 24);
+        buffer[4] = (byte) (body.length >>> 16);
+        buffer[5] = (byte) (body.length >>> 8);
+        buffer[6] = (byte) body.length;
+        byte[] result = new byte[offset + compressedLength];
+        System.arraycopy(buffer, 0, result, 0, result.length);
+        return result;
+    }
+
+    private Input decompress(byte[] bytes) {
+        int offset = HEADER_LENGTH + LENGTH_PREFIX;
+        if (bytes.length < offset) {
+            throw new SerializationException("Redis压缩数据不完整");
+        }
+        int length = ((bytes[3] & 0xFF) << 24) | ((bytes[4] & 0xFF) << 16) | ((bytes[5] & 0xFF) << 8) | (bytes[6] & 0xFF);
+        byte[] body = new byte[length];
+        int decompressed = decompressor.decompress(bytes, offset, bytes.length - offset, body, 0, length);
+        if (decompressed != length) {
+            throw new SerializationException("Redis压缩数据长度不符: " + decompressed + "/" + length);
+        }
+        return new Input(body);
+    }
+
+    private static boolean isPlainValue(Object value) {
+        return value instanceof CharSequence || value instanceof Number || value instanceof Boolean;
+    }
+
+    /**
+     * JDK 中没有公共无参构造方法的集合类型，Kryo 默认的集合序列化器读取时无法重建（实例化失败或 add 抛出
+     * UnsupportedOperationException），需要读取为可变的标准集合
+     */
+    private static boolean isCopiedJdkType(Class<?> type) {
+        if (!type.getName().startsWith("java.")
+                || !(Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+                || EnumSet.class.isAssignableFrom(type) || EnumMap.class.isAssignableFrom(type)) {
+            return false;
+        }
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+            return true;
+        }
+        try {
+            type.getConstructor();
+            return false;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 按元素写入集合，读取为 ArrayList（Set 读取为 LinkedHashSet，保留原有顺序）
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class CopyingCollectionSerializer extends CollectionSerializer<Collection> {
+
+        @Override
+        protected Collection create(Kryo kryo, Input input, Class<? extends Collection> type, int size) {
+            return Set.class.isAssignableFrom(type) ? new LinkedHashSet<>(Math.max(16, size * 4 / 3 + 1))
+                    : new ArrayList<>(size);
+        }
+    }
+
+    /**
+     * 按键值写入映射，读取为 LinkedHashMap
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class CopyingMapSerializer extends MapSerializer<Map> {
+
+        @Override
+        protected Map create(Kryo kryo, Input input, Class<? extends Map> type, int size) {
+            return new LinkedHashMap<>(Math.max(16, size * 4 / 3 + 1));
+        }
+    }
+
+    /**
+     * 只允许反序列化受信任包下的类，防止篡改的 Redis 数据实例化任意类
+     */
+    private static final class TrustedClassResolver extends DefaultClassResolver {
+
+        private final List<String> trustedPackages;
+
+        private TrustedClassResolver(List<String> trustedPackages) {
+            this.trustedPackages = trustedPackages;
+        }
+
+        @Override
+        protected Registration readName(Input input) {
+            Registration registration = super.readName(input);
+            Class<?> type = registration.getType();
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (!type.isPrimitive() && !type.getName().startsWith("java.") && !isTrusted(type.getName())) {
+                throw new KryoException("不允许反序列化的类型: " + type.getName());
+            }
+            return registration;
+        }
+
+        private boolean isTrusted(String className) {
+            for (String prefix : trustedPackages) {
+                if (className.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
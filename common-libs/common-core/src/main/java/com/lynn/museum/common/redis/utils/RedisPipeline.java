@@ -0,0 +1,114 @@
+package com.lynn.museum.common.redis.utils;
+
+import org.springframework.data.redis.core.RedisOperations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Redis 流水线构建器
+ *
+ * 先收集命令，{@link #execute()} 时一次网络往返发送，结果按添加顺序返回：
+ * <pre>
+ * redisUtils.pipeline()
+ *         .set(accessKey, accessToken, 7200)
+ *         .set(refreshKey, refreshToken, 604800)
+ *         .execute();
+ * </pre>
+ *
+ * @author lynn
+ * @since 2025-01-09
+ */
+public class RedisPipeline {
+
+    private final RedisUtils redisUtils;
+    private final List<Consumer<RedisOperations<String, Object>>> commands = new ArrayList<>();
+
+    RedisPipeline(RedisUtils redisUtils) {
+        this.redisUtils = redisUtils;
+    }
+
+    /**
+     * 放入缓存，time 小于等于0时不过期
+     */
+    public RedisPipeline set(String key, Object value, long time) {
+        commands.add(operations -> {
+            if (time > 0) {
+                operations.opsForValue().set(key, value, time, TimeUnit.SECONDS);
+            } else {
+                operations.opsForValue().set(key, value);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 获取缓存
+     */
+    public RedisPipeline get(String key) {
+        commands.add(operations -> operations.opsForValue().get(key));
+        return this;
+    }
+
+    /**
+     * 递增
+     */
+    public RedisPipeline incr(String key, long delta) {
+        commands.add(operations -> operations.opsForValue().increment(key, delta));
+        return this;
+    }
+
+    /**
+     * 设置过期时间
+     */
+    public RedisPipeline expire(String key, long time) {
+        commands.add(operations -> operations.expire(key, time, TimeUnit.SECONDS));
+        return this;
+    }
+
+    /**
+     * 删除缓存
+     */
+    public RedisPipeline del(String... keys) {
+        commands.add(operations -> operations.delete(List.of(keys)));
+        return this;
+    }
+
+    /**
+     * HashSet
+     */
+    public RedisPipeline hset(String key, String item, Object value) {
+        commands.add(operations -> operations.opsForHash().put(key, item, value));
+        return this;
+    }
+
+    /**
+     * 添加任意命令
+     */
+    public RedisPipeline command(Consumer<RedisOperations<String, Object>> command) {
+        commands.add(command);
+        return this;
+    }
+
+    /**
+     * 已收集的命令数
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * 发送全部命令
+     *
+     * @return 各命令结果，顺序与添加顺序一致
+     */
+    public List<Object> execute() {
+        if (commands.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return redisUtils.executePipelined(operations -> commands.forEach(command -> command.accept(operations)));
+    }
+}
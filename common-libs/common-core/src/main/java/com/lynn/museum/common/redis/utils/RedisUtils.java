@@ -3,14 +3,23 @@ package com.lynn.museum.common.redis.utils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Redis工具类 - 通用版本
@@ -27,6 +36,36 @@ public class RedisUtils {
     private static final int MAX_RETRY_TIMES = 3;
     private static final long RETRY_INTERVAL_MS = 100;
 
+    /**
+     * 递增计数，计数键没有过期时间时（首次递增）设置过期时间
+     */
+    private static final RedisScript<Long> INCR_WITH_EXPIRE_SCRIPT = RedisScript.of(
+            "local count = redis.call('incrby', KEYS[1], ARGV[1]) "
+                    + "if redis.call('ttl', KEYS[1]) < 0 then redis.call('expire', KEYS[1], ARGV[2]) end "
+                    + "return count", Long.class);
+
+    /**
+     * 已锁定返回 -1；否则递增计数，达到阈值时写入锁定键并删除计数键，返回递增后的计数
+     */
+    private static final RedisScript<Long> INCR_AND_LOCK_SCRIPT = RedisScript.of(
+            "if redis.call('exists', KEYS[2]) == 1 then return -1 end "
+                    + "local count = redis.call('incrby', KEYS[1], ARGV[1]) "
+                    + "if redis.call('ttl', KEYS[1]) < 0 then redis.call('expire', KEYS[1], ARGV[2]) end "
+                    + "if count >= tonumber(ARGV[3]) then "
+                    + "redis.call('set', KEYS[2], ARGV[4], 'EX', ARGV[5]) "
+                    + "redis.call('del', KEYS[1]) "
+                    + "end "
+                    + "return count", Long.class);
+
+    /**
+     * 值与预期一致时删除全部键，返回 1；否则返回 0
+     */
+    private static final RedisScript<Long> COMPARE_AND_DELETE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('del', unpack(KEYS)) return 1 end "
+                    + "return 0", Long.class);
+
+    private static final RedisSerializer<Long> LONG_RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
     public RedisUtils(RedisTemplate<String, Object> redisTemplate) {
         this.redisTemplate = redisTemplate;
     }
@@ -498,4 +537,141 @@ public class RedisUtils {
             return false;
         }
     }
+
+    // ============================batch=============================
+
+    /**
+     * 批量获取（一次 MGET），结果顺序与 keys 一致，不存在的键对应 null
+     */
+    public List<Object> mget(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> values = executeWithRetry(() -> redisTemplate.opsForValue().multiGet(keys), null);
+        if (values == null) {
+            return new ArrayList<>(Collections.nCopies(keys.size(), null));
+        }
+        return values;
+    }
+
+    /**
+     * 批量放入并设置相同的过期时间（一次流水线往返，支持重试）
+     *
+     * @param values 键值对
+     * @param time 过期时间（秒），小于等于0时不过期
+     */
+    public boolean mset(Map<String, Object> values, long time) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        return executeWithRetry(() -> {
+            redisTemplate.executePipelined(pipelineCallback(operations ->
+                    values.forEach((key, value) -> {
+                        if (time > 0) {
+                            operations.opsForValue().set(key, value, time, TimeUnit.SECONDS);
+                        } else {
+                            operations.opsForValue().set(key, value);
+                        }
+                    })));
+            return true;
+        }, false);
+    }
+
+    /**
+     * 以流水线方式执行一组命令，只产生一次网络往返
+     *
+     * 回调中的命令结果均为 null，真实结果按命令顺序在返回列表中给出。
+     * 流水线中可能包含非幂等命令（如 INCR），因此不做自动重试。
+     */
+    public List<Object> executePipelined(Consumer<RedisOperations<String, Object>> commands) {
+        return redisTemplate.executePipelined(pipelineCallback(commands));
+    }
+
+    /**
+     * 创建流水线构建器
+     */
+    public RedisPipeline pipeline() {
+        return new RedisPipeline(this);
+    }
+
+    /**
+     * 原子递增并在首次递增时设置过期时间（一次往返，替代 INCR + EXPIRE）
+     *
+     * @param key 计数键
+     * @param delta 递增因子
+     * @param time 计数过期时间（秒）
+     * @return 递增后的值
+     */
+    public long incrWithExpire(String key, long delta, long time) {
+        if (delta < 0) {
+            throw new RuntimeException("递增因子必须大于0");
+        }
+        Long count = executeScript(INCR_WITH_EXPIRE_SCRIPT, List.of(key), rawArg(delta), rawArg(time));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 原子递增失败计数，达到阈值时锁定（一次往返，替代 EXISTS + INCR + EXPIRE + SET + DEL）
+     *
+     * 集群模式下计数键和锁定键需位于同一槽位。
+     *
+     * @param countKey 计数键
+     * @param lockKey 锁定键
+     * @param lockValue 锁定值
+     * @param threshold 锁定阈值
+     * @param countTime 计数过期时间（秒）
+     * @param lockTime 锁定时长（秒）
+     * @return 递增后的计数；已处于锁定状态时返回 -1
+     */
+    public long incrAndLock(String countKey, String lockKey, Object lockValue,
+                            long threshold, long countTime, long lockTime) {
+        Long count = executeScript(INCR_AND_LOCK_SCRIPT, List.of(countKey, lockKey),
+                rawArg(1), rawArg(countTime), rawArg(threshold), rawValue(lockValue), rawArg(lockTime));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 值与预期一致时删除该键及附带的键（一次往返，替代 GET + DEL，并保证只有一个调用方删除成功）
+     *
+     * 集群模式下所有键需位于同一槽位。
+     *
+     * @param key 比对的键
+     * @param expected 预期值
+     * @param alsoDelete 一并删除的键
+     * @return 比对一致并删除时返回 true
+     */
+    public boolean compareAndDelete(String key, Object expected, String... alsoDelete) {
+        List<String> keys = new ArrayList<>(1 + alsoDelete.length);
+        keys.add(key);
+        Collections.addAll(keys, alsoDelete);
+        Long result = executeScript(COMPARE_AND_DELETE_SCRIPT, keys, rawValue(expected));
+        return result != null && result > 0;
+    }
+
+    /**
+     * 执行脚本，参数已按需序列化：数值按字符串传入以便 Lua 直接运算，值按 value 序列化器传入以便与存储内容比对
+     */
+    private Long executeScript(RedisScript<Long> script, List<String> keys, byte[]... args) {
+        return redisTemplate.execute(script, RedisSerializer.byteArray(), LONG_RESULT_SERIALIZER, keys, (Object[]) args);
+    }
+
+    private static byte[] rawArg(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SessionCallback<Object> pipelineCallback(Consumer<RedisOperations<String, Object>> commands) {
+        return new SessionCallback<>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        };
+    }
 }
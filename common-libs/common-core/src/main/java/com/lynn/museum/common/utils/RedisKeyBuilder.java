@@ -46,6 +46,7 @@ public class RedisKeyBuilder {
     public static final String MODULE_EMAIL = "email";
     public static final String MODULE_BLACKLIST = "blacklist";
     public static final String MODULE_FAVORITE = "favorite";
+    public static final String MODULE_UPLOAD = "upload";
 
     // ==================== 认证服务键构建 ====================
 
@@ -131,6 +132,14 @@ public class RedisKeyBuilder {
         return String.format("%s:%s:%s:%s:%s", SERVICE_GATEWAY, MODULE_AUTH, MODULE_CACHE, TYPE_STR, tokenHash);
     }
 
+    /**
+     * 构建网关用户 Token 索引键（该用户已缓存的 Token 摘要，按缓存过期时间排序，用于按用户清理认证缓存）
+     * 格式: gateway:auth:cache:zset:{userId}
+     */
+    public static String buildGatewayAuthUserIndexKey(String userId) {
+        return String.format("%s:%s:%s:%s:%s", SERVICE_GATEWAY, MODULE_AUTH, MODULE_CACHE, TYPE_ZSET, userId);
+    }
+
     /**
      * 构建网关 Token 黑名单键
      * 格式: gateway:auth:blacklist:str:{jti}
@@ -139,6 +148,14 @@ public class RedisKeyBuilder {
         return String.format("%s:%s:%s:%s:%s", SERVICE_GATEWAY, MODULE_AUTH, MODULE_BLACKLIST, TYPE_STR, jti);
     }
 
+    /**
+     * 构建网关认证吊销通知频道（黑名单、用户缓存清理广播到所有网关节点）
+     * 格式: gateway:auth:channel:revocation
+     */
+    public static String buildGatewayAuthRevocationChannel() {
+        return String.format("%s:%s:channel:revocation", SERVICE_GATEWAY, MODULE_AUTH);
+    }
+
     /**
      * 构建网关缓存统计键
      * 格式: gateway:auth:stats:hash:metrics
@@ -257,6 +274,32 @@ public class RedisKeyBuilder {
 
     // ==================== 通用工具方法 ====================
 
+    // ==================== 文件服务键构建 ====================
+
+    /**
+     * 构建分片上传会话键
+     * 格式: file:upload:hash:{uploadId}
+     */
+    public static String buildFileUploadSessionKey(String uploadId) {
+        return String.format("%s:%s:%s:%s", SERVICE_FILE, MODULE_UPLOAD, TYPE_HASH, uploadId);
+    }
+
+    /**
+     * 构建分片上传位图键（已上传分片）
+     * 格式: file:upload:str:{uploadId}:chunks
+     */
+    public static String buildFileUploadChunksKey(String uploadId) {
+        return String.format("%s:%s:%s:%s:chunks", SERVICE_FILE, MODULE_UPLOAD, TYPE_STR, uploadId);
+    }
+
+    /**
+     * 构建分片上传完成锁键
+     * 格式: file:lock:str:upload:{uploadId}
+     */
+    public static String buildFileUploadLockKey(String uploadId) {
+        return String.format("%s:%s:%s:upload:%s", SERVICE_FILE, MODULE_LOCK, TYPE_STR, uploadId);
+    }
+
     /**
      * 构建完整的键名
      *
@@ -0,0 +1,158 @@
+package com.lynn.museum.file.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.lynn.museum.file.config.StorageProperties;
+import com.lynn.museum.file.service.StorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预签名URL缓存
+ *
+ * 以 (存储桶, 文件名, 有效期) 为键缓存签名结果，缓存时长为有效期的 refreshRatio 倍，
+ * 过期后下一次访问重新签名，因此返回的URL始终保留足够的剩余有效期。
+ * 同一文件在缓存期内返回相同URL，客户端和CDN的HTTP缓存也能命中。
+ * 未命中的文件通过 {@link StorageService#getPresignedObjectUrls} 批量签名。
+ *
+ * @author Lynn
+ * @since 2024-01-01
+ */
+@Slf4j
+@Component
+public class PresignedUrlCache {
+
+    private final StorageService storageService;
+    private final StorageProperties storageProperties;
+    private final Cache<String, SignedUrl> cache;
+
+    public PresignedUrlCache(StorageService storageService, StorageProperties storageProperties) {
+        this.storageService = storageService;
+        this.storageProperties = storageProperties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(storageProperties.getUrlCache().getMaxSize())
+                .expireAfter(new Expiry<String, SignedUrl>() {
+                    @Override
+                    public long expireAfterCreate(String key, SignedUrl value, long currentTime) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, SignedUrl value, long currentTime, long currentDuration) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, SignedUrl value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 获取单个文件的预签名URL（使用默认存储桶）
+     *
+     * @param objectName 文件名称
+     * @param expiry 过期时间（秒）
+     * @return 访问URL
+     * @throws Exception URL生成异常
+     */
+    public String getUrl(String objectName, int expiry) throws Exception {
+        String bucketName = storageProperties.getBucketName();
+        if (!isEnabled()) {
+            return storageService.getPresignedObjectUrl(bucketName, objectName, expiry);
+        }
+
+        String key = cacheKey(bucketName, objectName, expiry);
+        SignedUrl cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.url;
+        }
+        String url = storageService.getPresignedObjectUrl(bucketName, objectName, expiry);
+        cache.put(key, new SignedUrl(url, ttlNanos(expiry)));
+        return url;
+    }
+
+    /**
+     * 批量获取预签名URL（使用默认存储桶），未命中部分合并为一次批量签名
+     *
+     * @param objectNames 文件名列表
+     * @param expiry 过期时间（秒）
+     * @return 文件名到访问URL的映射，签名失败的文件不包含在内
+     * @throws Exception URL生成异常
+     */
+    public Map<String, String> getUrls(List<String> objectNames, int expiry) throws Exception {
+        String bucketName = storageProperties.getBucketName();
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(objectNames));
+        if (!isEnabled()) {
+            return storageService.getPresignedObjectUrls(bucketName, distinctNames, expiry);
+        }
+
+        Map<String, String> result = new HashMap<>(distinctNames.size() * 2);
+        List<String> misses = new ArrayList<>();
+        for (String objectName : distinctNames) {
+            SignedUrl cached = cache.getIfPresent(cacheKey(bucketName, objectName, expiry));
+            if (cached != null) {
+                result.put(objectName, cached.url);
+            } else {
+                misses.add(objectName);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<String, String> signed = storageService.getPresignedObjectUrls(bucketName, misses, expiry);
+            long ttlNanos = ttlNanos(expiry);
+            signed.forEach((objectName, url) ->
+                    cache.put(cacheKey(bucketName, objectName, expiry), new SignedUrl(url, ttlNanos)));
+            result.putAll(signed);
+            log.debug("预签名URL批量获取: 命中={}, 签名={}", distinctNames.size() - misses.size(), signed.size());
+        }
+        return result;
+    }
+
+    /**
+     * 文件删除后移除该文件所有有效期的缓存URL
+     *
+     * @param objectName 文件名称
+     */
+    public void evict(String objectName) {
+        String prefix = storageProperties.getBucketName() + "/" + objectName + "#";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private boolean isEnabled() {
+        return storageProperties.getUrlCache().isEnabled();
+    }
+
+    private long ttlNanos(int expiry) {
+        double ratio = storageProperties.getUrlCache().getRefreshRatio();
+        return TimeUnit.SECONDS.toNanos((long) (expiry * Math.max(0, Math.min(ratio, 1))));
+    }
+
+    private static String cacheKey(String bucketName, String objectName, int expiry) {
+        return bucketName + "/" + objectName + "#" + expiry;
+    }
+
+    /**
+     * 已签名的URL及其缓存时长
+     */
+    private static final class SignedUrl {
+
+        private final String url;
+        private final long ttlNanos;
+
+        private SignedUrl(String url, long ttlNanos) {
+            this.url = url;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.lynn.museum.file.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Part;
+
+/**
+ * MinIO原生分片上传客户端
+ * MinIO SDK 将 CreateMultipartUpload / UploadPart / CompleteMultipartUpload 声明为 protected，
+ * 这里继承异步客户端并以同步方式暴露，供分片上传逐片直传使用
+ *
+ * @author Lynn
+ * @since 2025-11-25
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * 创建分片上传
+     *
+     * @return 存储端的uploadId
+     */
+    public String initMultipart(String bucketName, String objectName, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUploadAsync(bucketName, null, objectName, headers, null)
+                .get()
+                .result()
+                .uploadId();
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @return 分片ETag
+     */
+    public String putPart(String bucketName, String objectName, String uploadId, int partNumber, byte[] data) throws Exception {
+        return uploadPartAsync(bucketName, null, objectName, data, data.length, uploadId, partNumber, null, null)
+                .get()
+                .etag();
+    }
+
+    /**
+     * 按分片号顺序合并分片，由存储端完成，不经过本服务
+     */
+    public void completeMultipart(String bucketName, String objectName, String uploadId, Part[] parts) throws Exception {
+        completeMultipartUploadAsync(bucketName, null, objectName, uploadId, parts, null, null).get();
+    }
+
+    /**
+     * 取消分片上传并释放已上传的分片
+     */
+    public void abortMultipart(String bucketName, String objectName, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucketName, null, objectName, uploadId, null, null).get();
+    }
+}
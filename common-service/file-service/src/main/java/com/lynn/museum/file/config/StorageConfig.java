@@ -1,5 +1,6 @@
 package com.lynn.museum.file.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,4 +37,18 @@ public class StorageConfig {
                 .credentials(minioConfig.getAccessKey(), minioConfig.getSecretKey())
                 .build();
     }
+
+    /**
+     * 创建MinIO原生分片上传客户端（仅在使用MinIO存储时）
+     */
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "minio", matchIfMissing = true)
+    public MultipartMinioClient multipartMinioClient() {
+        StorageProperties.MinioConfig minioConfig = storageProperties.getMinio();
+        
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(minioConfig.getEndpoint())
+                .credentials(minioConfig.getAccessKey(), minioConfig.getSecretKey())
+                .build());
+    }
 }
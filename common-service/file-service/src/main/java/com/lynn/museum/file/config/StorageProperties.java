@@ -31,6 +31,11 @@ public class StorageProperties {
      */
     private long urlExpiry = 7 * 24 * 60 * 60;
 
+    /**
+     * 预签名URL缓存配置
+     */
+    private UrlCacheConfig urlCache = new UrlCacheConfig();
+
     /**
      * 最大文件大小（字节），默认100MB
      */
@@ -108,6 +113,24 @@ public class StorageProperties {
         private String appVersion = "appVersion";
     }
 
+    @Data
+    public static class UrlCacheConfig {
+        /**
+         * 是否启用预签名URL缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存时长占URL有效期的比例，超过后重新签名，保证返回的URL剩余有效期不少于 (1 - ratio) * urlExpiry
+         */
+        private double refreshRatio = 0.5;
+
+        /**
+         * 最大缓存条数
+         */
+        private long maxSize = 50000;
+    }
+
     @Data
     public static class MinioConfig {
         /**
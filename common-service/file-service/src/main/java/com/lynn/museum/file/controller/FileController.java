@@ -1,5 +1,6 @@
 package com.lynn.museum.file.controller;
 
+import cn.hutool.core.util.StrUtil;
 import com.lynn.museum.common.result.Result;
 import com.lynn.museum.common.result.ResultUtils;
 import com.lynn.museum.file.entity.FileRecord;
@@ -8,14 +9,19 @@ import com.lynn.museum.file.service.FileService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +39,11 @@ import java.util.Map;
 @Tag(name = "FileController", description = "文件上传下载相关接口")
 public class FileController {
 
+    /**
+     * 下载缓冲区大小
+     */
+    private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
     private final FileService fileService;
 
     @Operation(summary = "上传单个文件")
@@ -141,50 +152,38 @@ public class FileController {
         return ResultUtils.success(url);
     }
 
-    @Operation(summary = "下载文件")
+    @Operation(summary = "下载文件", description = "支持ETag协商缓存和Range断点续传")
     @GetMapping("/download/{fileId}")
     public void downloadFile(
             @Parameter(description = "文件ID") @PathVariable Long fileId,
+            HttpServletRequest request,
             HttpServletResponse response) {
         
         try {
             FileRecord fileRecord = fileService.getFileRecord(fileId);
-            InputStream inputStream = fileService.downloadFile(fileId);
-            
-            // 设置响应头
-            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-            response.setHeader("Content-Disposition", 
-                "attachment; filename=\"" + fileRecord.getOriginalName() + "\"");
-            
-            // 写入响应流
-            inputStream.transferTo(response.getOutputStream());
-            response.flushBuffer();
-            
+            writeFile(fileRecord, request, response);
+        } catch (IOException e) {
+            // 客户端断开（暂停、取消下载）属于正常情况
+            log.warn("文件下载中断: fileId={}, 原因: {}", fileId, e.getMessage());
         } catch (Exception e) {
             log.error("文件下载失败: {}", e.getMessage(), e);
             response.setStatus(500);
         }
     }
 
-    @Operation(summary = "根据文件名下载文件")
+    @Operation(summary = "根据文件名下载文件", description = "支持ETag协商缓存和Range断点续传")
     @GetMapping("/download/name/{fileName:.+}")
     public void downloadFileByName(
             @Parameter(description = "文件名") @PathVariable String fileName,
+            HttpServletRequest request,
             HttpServletResponse response) {
         
         try {
             FileRecord fileRecord = fileService.getFileRecordByName(fileName);
-            InputStream inputStream = fileService.downloadFileByName(fileName);
-            
-            // 设置响应头
-            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-            response.setHeader("Content-Disposition", 
-                "attachment; filename=\"" + fileRecord.getOriginalName() + "\"");
-            
-            // 写入响应流
-            inputStream.transferTo(response.getOutputStream());
-            response.flushBuffer();
-            
+            writeFile(fileRecord, request, response);
+        } catch (IOException e) {
+            // 客户端断开（暂停、取消下载）属于正常情况
+            log.warn("文件下载中断: fileName={}, 原因: {}", fileName, e.getMessage());
         } catch (Exception e) {
             log.error("文件下载失败: {}", e.getMessage(), e);
             response.setStatus(500);
@@ -232,4 +231,104 @@ public class FileController {
         
         return ResultUtils.success(exists);
     }
+
+    /**
+     * 输出文件内容
+     * 以文件MD5作为强ETag，命中If-None-Match时返回304；支持单段Range（断点续传），
+     * 多段或无法解析的Range按完整文件返回。只有从头开始的下载计入访问次数
+     */
+    private void writeFile(FileRecord fileRecord, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = StrUtil.isNotEmpty(fileRecord.getMd5Hash()) ? "\"" + fileRecord.getMd5Hash() + "\"" : null;
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (matchesETag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader("Content-Disposition", 
+            "attachment; filename=\"" + fileRecord.getOriginalName() + "\"");
+        
+        long fileSize = fileRecord.getFileSize() != null ? fileRecord.getFileSize() : 0;
+        HttpRange range = null;
+        if (fileSize > 0) {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            range = resolveRange(request, etag);
+        }
+        
+        InputStream inputStream;
+        long start = 0;
+        if (range != null) {
+            start = range.getRangeStart(fileSize);
+            if (start >= fileSize) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            long end = range.getRangeEnd(fileSize);
+            long length = end - start + 1;
+            
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            response.setContentLengthLong(length);
+            inputStream = fileService.downloadFileByName(fileRecord.getFileName(), start, length);
+        } else {
+            if (fileSize > 0) {
+                response.setContentLengthLong(fileSize);
+            }
+            inputStream = fileService.downloadFileByName(fileRecord.getFileName());
+        }
+        
+        if (start == 0) {
+            fileService.recordAccess(fileRecord.getId());
+        }
+        
+        // 使用大缓冲区直接转发存储端的流，不落盘也不整体读入内存
+        response.setBufferSize(DOWNLOAD_BUFFER_SIZE);
+        try (InputStream in = inputStream) {
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+            }
+            response.flushBuffer();
+        }
+    }
+    
+    /**
+     * 解析单段Range请求，If-Range与当前ETag不一致时按完整文件返回
+     */
+    private HttpRange resolveRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (StrUtil.isEmpty(rangeHeader)) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && (etag == null || !etag.equals(ifRange.trim()))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("忽略无效的Range请求头: {}", rangeHeader);
+            return null;
+        }
+    }
+    
+    private boolean matchesETag(String ifNoneMatch, String etag) {
+        if (StrUtil.isEmpty(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || etag.equals(value) || etag.equals(StrUtil.removePrefix(value, "W/"))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,34 @@
+package com.lynn.museum.file.counter;
+
+import com.lynn.museum.common.counter.WriteBehindCounter;
+import com.lynn.museum.common.counter.WriteBehindCounters;
+import com.lynn.museum.file.mapper.FileRecordMapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文件访问次数计数器
+ *
+ * 下载时只在内存中累加，由 {@link WriteBehindCounters} 定时将增量合并为批量UPDATE写回 file_records，
+ * 避免每次下载都读写一次数据库；停机前会执行最后一次写回。
+ *
+ * @author Lynn
+ * @since 2024-01-01
+ */
+@Component
+public class FileAccessCounter {
+
+    private final WriteBehindCounter counter;
+
+    public FileAccessCounter(WriteBehindCounters writeBehindCounters, FileRecordMapper fileRecordMapper) {
+        this.counter = writeBehindCounters.register("file.access", fileRecordMapper::incrementAccessCounts);
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param fileId 文件ID
+     */
+    public void increment(Long fileId) {
+        counter.increment(fileId);
+    }
+}
@@ -70,8 +70,9 @@ public class FileRecord extends BaseEntity {
     private Integer status;
 
     /**
-     * 访问次数
+     * 访问次数（由延迟写回计数器累加，更新文件记录时不写入）
      */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
     private Integer accessCount;
 
     /**
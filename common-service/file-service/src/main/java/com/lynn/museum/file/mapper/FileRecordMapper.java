@@ -3,6 +3,10 @@ package com.lynn.museum.file.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.lynn.museum.file.entity.FileRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 /**
  * 文件记录Mapper
@@ -12,5 +16,18 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface FileRecordMapper extends BaseMapper<FileRecord> {
-    
+
+    /**
+     * 批量累加文件访问次数
+     *
+     * @param deltas 文件ID -> 增量
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE file_records SET access_count = IFNULL(access_count, 0) + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'> WHEN #{id} THEN #{delta} </foreach>" +
+            " END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementAccessCounts(@Param("deltas") Map<Long, Long> deltas);
 }
@@ -109,6 +109,23 @@ public interface FileService {
      */
     InputStream downloadFileByName(String fileName);
 
+    /**
+     * 下载文件的指定字节范围（根据文件名）
+     * 
+     * @param fileName 文件名
+     * @param offset 起始字节位置
+     * @param length 读取字节数
+     * @return 文件流
+     */
+    InputStream downloadFileByName(String fileName, long offset, long length);
+
+    /**
+     * 记录一次文件访问（异步批量写回访问次数）
+     * 
+     * @param fileId 文件ID
+     */
+    void recordAccess(Long fileId);
+
     /**
      * 根据ID获取文件记录
      * 
@@ -2,6 +2,7 @@ package com.lynn.museum.file.service;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 存储服务接口
@@ -55,6 +56,17 @@ public interface StorageService {
      */
     InputStream getObject(String bucketName, String objectName) throws Exception;
 
+    /**
+     * 下载文件的指定字节范围（使用默认存储桶），用于断点续传和Range请求
+     * 
+     * @param objectName 文件名称
+     * @param offset 起始字节位置
+     * @param length 读取字节数
+     * @return 文件流
+     * @throws Exception 下载异常
+     */
+    InputStream getObject(String objectName, long offset, long length) throws Exception;
+
     /**
      * 删除文件（使用默认存储桶）
      * 
@@ -93,6 +105,28 @@ public interface StorageService {
      */
     String getPresignedObjectUrl(String bucketName, String objectName, int expiry) throws Exception;
 
+    /**
+     * 批量获取文件访问URL（使用默认存储桶）
+     * 
+     * @param objectNames 文件名列表
+     * @param expiry 过期时间（秒）
+     * @return 文件名到访问URL的映射，签名失败的文件不包含在内
+     * @throws Exception URL生成异常
+     */
+    Map<String, String> getPresignedObjectUrls(List<String> objectNames, int expiry) throws Exception;
+
+    /**
+     * 批量获取文件访问URL（指定存储桶）
+     * 同一批次共用过期时间和客户端凭证，单个文件签名失败不影响其他文件
+     * 
+     * @param bucketName 存储桶名称
+     * @param objectNames 文件名列表
+     * @param expiry 过期时间（秒）
+     * @return 文件名到访问URL的映射，签名失败的文件不包含在内
+     * @throws Exception URL生成异常
+     */
+    Map<String, String> getPresignedObjectUrls(String bucketName, List<String> objectNames, int expiry) throws Exception;
+
     /**
      * 获取文件强制下载URL（使用默认存储桶）
      * 返回的URL会强制浏览器下载而不是预览
@@ -207,6 +241,49 @@ public interface StorageService {
      */
     List<Boolean> doesObjectsExist(String bucketName, List<String> objectNames) throws Exception;
 
+    /**
+     * 创建原生分片上传（使用默认存储桶）
+     * 
+     * @param objectName 文件名称
+     * @param contentType 文件类型
+     * @return 存储端的分片上传ID
+     * @throws Exception 创建异常
+     */
+    String initiateMultipartUpload(String objectName, String contentType) throws Exception;
+
+    /**
+     * 上传单个分片（使用默认存储桶）
+     * 除最后一个分片外，每个分片不能小于存储端的最小分片大小（MinIO/S3为5MB）
+     * 
+     * @param objectName 文件名称
+     * @param uploadId 存储端的分片上传ID
+     * @param partNumber 分片序号（从1开始）
+     * @param inputStream 分片数据流
+     * @param partSize 分片大小
+     * @return 分片ETag
+     * @throws Exception 上传异常
+     */
+    String uploadPart(String objectName, String uploadId, int partNumber, InputStream inputStream, long partSize) throws Exception;
+
+    /**
+     * 完成分片上传，由存储端按分片序号合并（使用默认存储桶）
+     * 
+     * @param objectName 文件名称
+     * @param uploadId 存储端的分片上传ID
+     * @param partETags 按分片序号排列的ETag列表，第i个元素对应分片i+1
+     * @throws Exception 合并异常
+     */
+    void completeMultipartUpload(String objectName, String uploadId, List<String> partETags) throws Exception;
+
+    /**
+     * 取消分片上传并清理已上传的分片（使用默认存储桶）
+     * 
+     * @param objectName 文件名称
+     * @param uploadId 存储端的分片上传ID
+     * @throws Exception 取消异常
+     */
+    void abortMultipartUpload(String objectName, String uploadId) throws Exception;
+
     /**
      * 获取存储类型
      * 
@@ -2,41 +2,48 @@ package com.lynn.museum.file.service.impl;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.crypto.digest.DigestUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.lynn.museum.common.exception.BizException;
+import com.lynn.museum.common.redis.utils.RedisUtils;
+import com.lynn.museum.common.utils.RedisKeyBuilder;
 import com.lynn.museum.file.config.StorageProperties;
 import com.lynn.museum.file.entity.FileRecord;
 import com.lynn.museum.file.enums.FileTypeEnum;
 import com.lynn.museum.file.mapper.FileRecordMapper;
 import com.lynn.museum.file.service.ChunkedUploadService;
 import com.lynn.museum.file.service.StorageService;
-import com.lynn.museum.file.service.impl.MinioStorageServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.digests.MD5Digest;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 分片上传服务实现类
  * 
+ * 上传会话保存在Redis中（会话Hash + 已上传分片位图），任意副本都能处理同一次上传的分片。
+ * 每个分片直接作为对象存储原生分片上传的一个part写入，完成时由存储端合并，本服务不落盘。
+ * 文件MD5随分片按序增量计算，摘要中间状态保存在会话中；分片乱序到达时在合并后回读一次对象计算。
+ * 
  * @author Lynn
  * @since 2025-11-25
  */
@@ -45,15 +52,59 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class ChunkedUploadServiceImpl implements ChunkedUploadService {
 
+    /**
+     * 上传会话有效期（秒），超时后会话自动过期
+     */
+    private static final long SESSION_TTL_SECONDS = 24 * 60 * 60;
+
+    /**
+     * 完成上传的互斥锁有效期（秒）
+     */
+    private static final long COMPLETE_LOCK_SECONDS = 10 * 60;
+
+    /**
+     * 对象存储原生分片上传的最小分片大小（MinIO/S3要求除最后一片外不小于5MB）
+     */
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final String PART_FIELD_PREFIX = "part:";
+
+    /**
+     * 记录已上传分片：置位图、保存ETag、按需扩大总分片数；
+     * 重复上传已摘要过的分片时使增量摘要失效。返回已上传分片数，会话不存在时返回-1
+     */
+    private static final DefaultRedisScript<Long> RECORD_CHUNK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[2]) == 0 then return -1 end " +
+            "local n = tonumber(ARGV[1]) " +
+            "local prev = redis.call('setbit', KEYS[1], n, 1) " +
+            "redis.call('hset', KEYS[2], 'part:' .. n, ARGV[2]) " +
+            "if n > tonumber(redis.call('hget', KEYS[2], 'totalChunks') or '0') then " +
+            "  redis.call('hset', KEYS[2], 'totalChunks', ARGV[1]) " +
+            "end " +
+            "if prev == 1 and tonumber(redis.call('hget', KEYS[2], 'digestCursor') or '0') > n then " +
+            "  redis.call('hset', KEYS[2], 'digestCursor', '0') " +
+            "end " +
+            "redis.call('expire', KEYS[1], redis.call('ttl', KEYS[2])) " +
+            "return redis.call('bitcount', KEYS[1])",
+            Long.class);
+
+    /**
+     * 增量摘要推进（CAS）：仅当摘要游标等于期望的分片序号时写入新状态
+     */
+    private static final DefaultRedisScript<Long> ADVANCE_DIGEST_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hget', KEYS[1], 'digestCursor') == ARGV[1] then " +
+            "  redis.call('hset', KEYS[1], 'digestCursor', ARGV[2], 'digestState', ARGV[3]) " +
+            "  return 1 " +
+            "end " +
+            "return 0",
+            Long.class);
+
     private final StorageService storageService;
     private final StorageProperties storageProperties;
     private final FileRecordMapper fileRecordMapper;
-    
-    // 存储上传信息的内存缓存（生产环境应该使用Redis等分布式缓存）
-    private final Map<String, UploadInfo> uploadInfoMap = new ConcurrentHashMap<>();
-    
-    // 临时文件存储目录
-    private final String TEMP_DIR = System.getProperty("java.io.tmpdir") + File.separator + "mseek-uploads";
+    private final RedisUtils redisUtils;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public Map<String, Object> initMultipartUpload(String fileName, long fileSize, int totalChunks, String fileTypeStr, Long uploaderId, String md5Hash) {
@@ -207,13 +258,15 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
         String uuid = IdUtil.simpleUUID();
         String storedFileName = String.format("%s/%s/%s.%s", 
             getPathByFileType(fileType), datePath, uuid, extension);
+        String contentType = getContentTypeByFileName(fileName);
         
-        // 创建临时目录
-        Path tempDir = Paths.get(TEMP_DIR, uploadId);
+        // 在存储端创建原生分片上传
+        String storageUploadId;
         try {
-            Files.createDirectories(tempDir);
-        } catch (IOException e) {
-            log.error("创建临时目录失败: {}", e.getMessage(), e);
+            storageService.ensureBucketExists();
+            storageUploadId = storageService.initiateMultipartUpload(storedFileName, contentType);
+        } catch (Exception e) {
+            log.error("创建分片上传失败: {}", e.getMessage(), e);
             throw new BizException("初始化上传失败: " + e.getMessage());
         }
         
@@ -222,16 +275,20 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
         uploadInfo.setUploadId(uploadId);
         uploadInfo.setOriginalFileName(fileName);
         uploadInfo.setStoredFileName(storedFileName);
+        uploadInfo.setContentType(contentType);
         uploadInfo.setFileSize(fileSize);
         uploadInfo.setTotalChunks(totalChunks);
-        uploadInfo.setUploadedChunks(new ArrayList<>());
         uploadInfo.setFileType(fileType);
         uploadInfo.setUploaderId(uploaderId);
-        uploadInfo.setTempDir(tempDir.toString());
+        uploadInfo.setStorageUploadId(storageUploadId);
         uploadInfo.setStartTime(System.currentTimeMillis());
         uploadInfo.setMd5Hash(md5Hash); // 存储MD5哈希值，如果有
+        uploadInfo.setDigestCursor(1);
         
-        uploadInfoMap.put(uploadId, uploadInfo);
+        if (!redisUtils.hmset(RedisKeyBuilder.buildFileUploadSessionKey(uploadId), uploadInfo.toMap(), SESSION_TTL_SECONDS)) {
+            abortStorageUpload(uploadInfo);
+            throw new BizException("初始化上传失败: 保存上传会话失败");
+        }
         
         log.info("初始化分片上传: uploadId={}, fileName={}, totalChunks={}", uploadId, fileName, totalChunks);
         
@@ -252,145 +309,142 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
             throw new BizException("分片序号必须大于0: " + chunkNumber);
         }
         
-        // 如果总分片数为0，表示还没有设置正确的分片数，自动更新
+        // 存储端合并时会拒绝过小的中间分片，提前失败避免白传
         int totalChunks = uploadInfo.getTotalChunks();
-        if (totalChunks == 0 || chunkNumber > totalChunks) {
-            // 更新总分片数，使用最大的分片序号
-            uploadInfo.setTotalChunks(Math.max(totalChunks, chunkNumber));
-            log.info("更新总分片数: uploadId={}, totalChunks={}", uploadId, uploadInfo.getTotalChunks());
+        if (totalChunks > 0 && chunkNumber < totalChunks && chunk.getSize() < MIN_PART_SIZE) {
+            throw new BizException("除最后一个分片外，分片大小不能小于" + (MIN_PART_SIZE / 1024 / 1024) + "MB");
         }
         
         try {
-            // 保存分片到临时文件
-            Path chunkPath = Paths.get(uploadInfo.getTempDir(), String.valueOf(chunkNumber));
-            Files.write(chunkPath, chunk.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            // 分片直接写入存储端的分片上传，不落本地磁盘
+            byte[] data = chunk.getBytes();
+            String etag = storageService.uploadPart(
+                uploadInfo.getStoredFileName(),
+                uploadInfo.getStorageUploadId(),
+                chunkNumber,
+                new ByteArrayInputStream(data),
+                data.length
+            );
             
             // 记录已上传的分片
-            uploadInfo.getUploadedChunks().add(chunkNumber);
+            Long uploadedCount = redisTemplate.execute(RECORD_CHUNK_SCRIPT,
+                    List.of(RedisKeyBuilder.buildFileUploadChunksKey(uploadId), RedisKeyBuilder.buildFileUploadSessionKey(uploadId)),
+                    chunkNumber, etag);
+            if (uploadedCount == null || uploadedCount < 0) {
+                throw new BizException("上传已超时，请重新上传");
+            }
+            
+            advanceDigest(uploadInfo, chunkNumber, data);
             
             log.info("分片上传成功: uploadId={}, chunkNumber={}, progress={}/{}",
-                    uploadId, chunkNumber, uploadInfo.getUploadedChunks().size(), uploadInfo.getTotalChunks());
+                    uploadId, chunkNumber, uploadedCount, Math.max(totalChunks, chunkNumber));
             
-            return "chunk-" + chunkNumber;
-        } catch (IOException e) {
+            return etag;
+        } catch (BizException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("分片上传失败: {}", e.getMessage(), e);
             throw new BizException("分片上传失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 存储端合并和MD5回读耗时较长，不放在事务里，事务只包住文件记录的写入
+     */
     @Override
-    @Transactional
     public FileRecord completeMultipartUpload(String uploadId) {
         log.info("开始完成分片上传: uploadId={}", uploadId);
         long startTime = System.currentTimeMillis();
         
-        UploadInfo uploadInfo = getUploadInfo(uploadId);
-        
-        // 检查是否所有分片都已上传
-        if (uploadInfo.getUploadedChunks().size() != uploadInfo.getTotalChunks()) {
-            int missingChunks = uploadInfo.getTotalChunks() - uploadInfo.getUploadedChunks().size();
-            log.warn("分片上传不完整: uploadId={}, 已上传={}, 总分片={}, 缺失={}", 
-                    uploadId, uploadInfo.getUploadedChunks().size(), uploadInfo.getTotalChunks(), missingChunks);
-            throw new BizException("分片上传不完整，还有" + missingChunks + "个分片未上传");
+        // 防止同一上传在多个副本上被重复完成
+        String lockKey = RedisKeyBuilder.buildFileUploadLockKey(uploadId);
+        String lockValue = IdUtil.fastSimpleUUID();
+        if (!redisUtils.tryLock(lockKey, lockValue, COMPLETE_LOCK_SECONDS)) {
+            throw new BizException("上传正在处理中，请勿重复提交");
         }
         
-        log.info("分片上传完整性检查通过: uploadId={}, 总分片={}", uploadId, uploadInfo.getTotalChunks());
-        
-        // 使用更高效的方式检查分片序号是否连续
-        List<Integer> uploadedChunks = new ArrayList<>(uploadInfo.getUploadedChunks());
-        java.util.Collections.sort(uploadedChunks);
-        
-        for (int i = 0; i < uploadedChunks.size(); i++) {
-            if (uploadedChunks.get(i) != i + 1) {
-                log.warn("分片序号不连续: uploadId={}, 期望={}, 实际={}", uploadId, i + 1, uploadedChunks.get(i));
-                throw new BizException("分片" + (i + 1) + "未上传");
-            }
-        }
-        
-        log.info("分片序号连续性检查通过: uploadId={}", uploadId);
-        
         try {
-            // 合并分片
-            Path mergedFile = Paths.get(uploadInfo.getTempDir(), "merged");
-            mergeChunks(uploadInfo, mergedFile);
+            UploadInfo uploadInfo = getUploadInfo(uploadId);
             
-            // 计算文件MD5
-            String md5Hash = DigestUtil.md5Hex(Files.newInputStream(mergedFile));
-            
-            // 确保存储桶存在
-            try {
-                storageService.ensureBucketExists();
-                log.info("已确保存储桶 {} 存在", storageProperties.getBucketName());
-            } catch (Exception e) {
-                log.error("确保存储桶存在失败: {}", e.getMessage(), e);
-                throw new BizException("创建存储桶失败: " + e.getMessage());
+            // 检查是否所有分片都已上传
+            int totalChunks = uploadInfo.getTotalChunks();
+            if (totalChunks == 0) {
+                throw new BizException("尚未上传任何分片");
             }
-            
-            // 上传到存储服务
-            log.info("开始上传文件到{}存储: {}, 大小: {}MB", 
-                    storageService.getStorageType().toUpperCase(), 
-                    uploadInfo.getStoredFileName(),
-                    String.format("%.2f", uploadInfo.getFileSize() / 1024.0 / 1024.0));
-            
-            long uploadStartTime = System.currentTimeMillis();
-            try (InputStream inputStream = Files.newInputStream(mergedFile)) {
-                storageService.putObject(
-                    uploadInfo.getStoredFileName(),
-                    inputStream,
-                    getContentTypeByFileName(uploadInfo.getOriginalFileName()),
-                    uploadInfo.getFileSize()
-                );
+            List<String> partETags = new ArrayList<>(totalChunks);
+            int missingChunks = 0;
+            for (int i = 1; i <= totalChunks; i++) {
+                String etag = uploadInfo.getPartETags().get(i);
+                if (etag == null) {
+                    missingChunks++;
+                }
+                partETags.add(etag);
+            }
+            if (missingChunks > 0) {
+                log.warn("分片上传不完整: uploadId={}, 总分片={}, 缺失={}", uploadId, totalChunks, missingChunks);
+                throw new BizException("分片上传不完整，还有" + missingChunks + "个分片未上传");
             }
             
-            long uploadEndTime = System.currentTimeMillis();
-            log.info("文件上传到{}存储成功: {}, 耗时: {}ms, 速度: {}MB/s", 
-                    storageService.getStorageType().toUpperCase(), 
-                    uploadInfo.getStoredFileName(),
-                    (uploadEndTime - uploadStartTime),
-                    String.format("%.2f", (uploadInfo.getFileSize() / 1024.0 / 1024.0) / ((uploadEndTime - uploadStartTime) / 1000.0)));
-            
-            // 保存文件记录到数据库
-            FileRecord fileRecord = new FileRecord();
-            fileRecord.setOriginalName(uploadInfo.getOriginalFileName());
-            fileRecord.setFileName(uploadInfo.getStoredFileName());
-            fileRecord.setFileSize(uploadInfo.getFileSize());
-            fileRecord.setContentType(getContentTypeByFileName(uploadInfo.getOriginalFileName()));
-            fileRecord.setBucketName(storageProperties.getBucketName());
-            fileRecord.setCategory(uploadInfo.getFileType().getCode());
-            fileRecord.setUploaderId(uploadInfo.getUploaderId());
-            fileRecord.setStatus(1);
-            fileRecord.setAccessCount(0);
-            fileRecord.setMd5Hash(md5Hash);
-            
-            fileRecordMapper.insert(fileRecord);
-            
-            log.info("文件记录保存成功: {}", fileRecord.getId());
-            
-            // 清理临时文件
-            cleanupTempFiles(uploadInfo);
-            
-            // 从缓存中移除上传信息
-            uploadInfoMap.remove(uploadId);
-            
-            long endTime = System.currentTimeMillis();
-            log.info("分片上传全过程完成: uploadId={}, 总耗时: {}ms", uploadId, (endTime - startTime));
+            log.info("分片上传完整性检查通过: uploadId={}, 总分片={}", uploadId, totalChunks);
             
-            return fileRecord;
-        } catch (Exception e) {
-            log.error("完成分片上传失败: {}", e.getMessage(), e);
-            throw new BizException("完成分片上传失败: " + e.getMessage());
+            try {
+                // 由存储端合并分片
+                long mergeStartTime = System.currentTimeMillis();
+                storageService.completeMultipartUpload(uploadInfo.getStoredFileName(), uploadInfo.getStorageUploadId(), partETags);
+                log.info("文件在{}存储合并成功: {}, 大小: {}MB, 耗时: {}ms", 
+                        storageService.getStorageType().toUpperCase(), 
+                        uploadInfo.getStoredFileName(),
+                        String.format("%.2f", uploadInfo.getFileSize() / 1024.0 / 1024.0),
+                        (System.currentTimeMillis() - mergeStartTime));
+                
+                // 计算文件MD5
+                String md5Hash = finishDigest(uploadInfo);
+                if (StrUtil.isNotEmpty(uploadInfo.getMd5Hash()) && !uploadInfo.getMd5Hash().equalsIgnoreCase(md5Hash)) {
+                    log.warn("客户端MD5与实际文件不一致: uploadId={}, 客户端={}, 实际={}", uploadId, uploadInfo.getMd5Hash(), md5Hash);
+                }
+                
+                // 保存文件记录到数据库
+                FileRecord fileRecord = new FileRecord();
+                fileRecord.setOriginalName(uploadInfo.getOriginalFileName());
+                fileRecord.setFileName(uploadInfo.getStoredFileName());
+                fileRecord.setFileSize(uploadInfo.getFileSize());
+                fileRecord.setContentType(uploadInfo.getContentType());
+                fileRecord.setBucketName(storageProperties.getBucketName());
+                fileRecord.setCategory(uploadInfo.getFileType().getCode());
+                fileRecord.setUploaderId(uploadInfo.getUploaderId());
+                fileRecord.setStatus(1);
+                fileRecord.setAccessCount(0);
+                fileRecord.setMd5Hash(md5Hash);
+                
+                transactionTemplate.executeWithoutResult(status -> fileRecordMapper.insert(fileRecord));
+                
+                log.info("文件记录保存成功: {}", fileRecord.getId());
+                
+                // 移除上传会话
+                deleteSession(uploadId);
+                
+                long endTime = System.currentTimeMillis();
+                log.info("分片上传全过程完成: uploadId={}, 总耗时: {}ms", uploadId, (endTime - startTime));
+                
+                return fileRecord;
+            } catch (Exception e) {
+                log.error("完成分片上传失败: {}", e.getMessage(), e);
+                throw new BizException("完成分片上传失败: " + e.getMessage());
+            }
+        } finally {
+            redisUtils.releaseLock(lockKey, lockValue);
         }
     }
 
     @Override
     public void abortMultipartUpload(String uploadId) {
-        UploadInfo uploadInfo = uploadInfoMap.get(uploadId);
+        UploadInfo uploadInfo = loadUploadInfo(uploadId);
         if (uploadInfo != null) {
-            // 清理临时文件
-            cleanupTempFiles(uploadInfo);
+            // 释放存储端已上传的分片
+            abortStorageUpload(uploadInfo);
             
-            // 从缓存中移除上传信息
-            uploadInfoMap.remove(uploadId);
+            // 移除上传会话
+            deleteSession(uploadId);
             
             log.info("取消分片上传: uploadId={}", uploadId);
         }
@@ -398,70 +452,85 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
 
     @Override
     public int getUploadStatus(String uploadId) {
-        UploadInfo uploadInfo = getUploadInfo(uploadId);
-        return uploadInfo.getUploadedChunks().size();
+        getUploadInfo(uploadId);
+        byte[] chunksKey = RedisKeyBuilder.buildFileUploadChunksKey(uploadId).getBytes(StandardCharsets.UTF_8);
+        Long count = redisTemplate.execute((RedisCallback<Long>) (RedisConnection connection) ->
+                connection.stringCommands().bitCount(chunksKey));
+        return count != null ? count.intValue() : 0;
     }
     
     /**
      * 获取上传信息
      */
     private UploadInfo getUploadInfo(String uploadId) {
-        UploadInfo uploadInfo = uploadInfoMap.get(uploadId);
+        UploadInfo uploadInfo = loadUploadInfo(uploadId);
         if (uploadInfo == null) {
-            throw new BizException("无效的上传ID: " + uploadId);
-        }
-        
-        // 检查上传是否超时（默认24小时）
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - uploadInfo.getStartTime() > 24 * 60 * 60 * 1000) {
-            abortMultipartUpload(uploadId);
-            throw new BizException("上传已超时，请重新上传");
+            // 会话按有效期自动过期，过期与无效ID无法区分
+            throw new BizException("无效的上传ID或上传已超时: " + uploadId);
         }
-        
         return uploadInfo;
     }
     
     /**
-     * 合并分片（优化版）
-     * 使用缓冲流提高效率
+     * 从Redis加载上传会话，不存在时返回null
      */
-    private void mergeChunks(UploadInfo uploadInfo, Path mergedFile) throws IOException {
-        log.info("开始合并文件分片，总分片数: {}", uploadInfo.getTotalChunks());
-        long startTime = System.currentTimeMillis();
-        
-        // 使用缓冲输出流
-        try (java.io.OutputStream out = new java.io.BufferedOutputStream(
-                Files.newOutputStream(mergedFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE), 8192 * 16)) {
-            
-            byte[] buffer = new byte[8192 * 16]; // 128KB缓冲区
-            int bytesRead;
-            
-            for (int i = 1; i <= uploadInfo.getTotalChunks(); i++) {
-                Path chunkPath = Paths.get(uploadInfo.getTempDir(), String.valueOf(i));
-                
-                // 使用缓冲输入流
-                try (java.io.InputStream in = new java.io.BufferedInputStream(
-                        Files.newInputStream(chunkPath), 8192 * 16)) {
-                    
-                    while ((bytesRead = in.read(buffer)) != -1) {
-                        out.write(buffer, 0, bytesRead);
-                    }
-                }
-            }
+    private UploadInfo loadUploadInfo(String uploadId) {
+        Map<Object, Object> session = redisUtils.hmget(RedisKeyBuilder.buildFileUploadSessionKey(uploadId));
+        if (session == null || session.isEmpty()) {
+            return null;
+        }
+        return UploadInfo.fromMap(session);
+    }
+    
+    private void deleteSession(String uploadId) {
+        redisUtils.del(RedisKeyBuilder.buildFileUploadSessionKey(uploadId), RedisKeyBuilder.buildFileUploadChunksKey(uploadId));
+    }
+    
+    private void abortStorageUpload(UploadInfo uploadInfo) {
+        try {
+            storageService.abortMultipartUpload(uploadInfo.getStoredFileName(), uploadInfo.getStorageUploadId());
+        } catch (Exception e) {
+            log.warn("取消存储端分片上传失败: uploadId={}, 错误: {}", uploadInfo.getUploadId(), e.getMessage());
         }
-        
-        long endTime = System.currentTimeMillis();
-        log.info("文件分片合并完成，耗时: {}ms", (endTime - startTime));
     }
     
     /**
-     * 清理临时文件
+     * 按序推进增量MD5
+     * 仅当该分片正好是摘要游标指向的分片时计算，乱序到达的分片留给完成时回读计算
      */
-    private void cleanupTempFiles(UploadInfo uploadInfo) {
+    private void advanceDigest(UploadInfo uploadInfo, int chunkNumber, byte[] data) {
+        if (uploadInfo.getDigestCursor() != chunkNumber) {
+            return;
+        }
         try {
-            FileUtil.del(uploadInfo.getTempDir());
+            MD5Digest digest = StrUtil.isEmpty(uploadInfo.getDigestState())
+                    ? new MD5Digest()
+                    : new MD5Digest(Base64.getDecoder().decode(uploadInfo.getDigestState()));
+            digest.update(data, 0, data.length);
+            redisTemplate.execute(ADVANCE_DIGEST_SCRIPT,
+                    List.of(RedisKeyBuilder.buildFileUploadSessionKey(uploadInfo.getUploadId())),
+                    chunkNumber, chunkNumber + 1, Base64.getEncoder().encodeToString(digest.getEncodedState()));
         } catch (Exception e) {
-            log.warn("清理临时文件失败: {}", e.getMessage());
+            // 摘要推进失败不影响上传，完成时回读计算
+            log.warn("增量MD5计算失败: uploadId={}, chunkNumber={}, 错误: {}", uploadInfo.getUploadId(), chunkNumber, e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取合并后文件的MD5
+     * 所有分片均已按序摘要时直接结束增量计算，否则从存储端回读一次对象
+     */
+    private String finishDigest(UploadInfo uploadInfo) throws Exception {
+        if (uploadInfo.getDigestCursor() == uploadInfo.getTotalChunks() + 1 && StrUtil.isNotEmpty(uploadInfo.getDigestState())) {
+            MD5Digest digest = new MD5Digest(Base64.getDecoder().decode(uploadInfo.getDigestState()));
+            byte[] md5 = new byte[digest.getDigestSize()];
+            digest.doFinal(md5, 0);
+            return HexUtil.encodeHexStr(md5);
+        }
+        
+        log.info("分片未按序到达，回读文件计算MD5: uploadId={}", uploadInfo.getUploadId());
+        try (InputStream inputStream = storageService.getObject(uploadInfo.getStoredFileName())) {
+            return DigestUtil.md5Hex(inputStream);
         }
     }
     
@@ -494,40 +563,93 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
     
     /**
      * 计算最佳分片大小
-     * 根据文件大小动态调整分片大小，保证分片数量在合理范围内
+     * 分片直接作为存储端原生分片上传的part，不能小于存储端的最小分片大小
      */
     private int calculateOptimalChunkSize(long fileSize) {
-        // 默认分片大小为2MB
-        int defaultChunkSize = 2 * 1024 * 1024;
-        
-        // 如果文件小于10MB，使用1MB分片
-        if (fileSize < 10 * 1024 * 1024) {
-            return 1024 * 1024;
-        }
-        
-        // 如果文件大于100MB，使用5MB分片
+        // 如果文件大于100MB，使用10MB分片，控制分片数量
         if (fileSize > 100 * 1024 * 1024) {
-            return 5 * 1024 * 1024;
+            return 2 * MIN_PART_SIZE;
         }
         
-        return defaultChunkSize;
+        return MIN_PART_SIZE;
     }
     
     /**
-     * 上传信息类
+     * 上传信息类（以Hash形式保存在Redis中）
      */
     private static class UploadInfo {
         private String uploadId;
         private String originalFileName;
         private String storedFileName;
+        private String contentType;
         private long fileSize;
         private int totalChunks;
-        private List<Integer> uploadedChunks;
         private FileTypeEnum fileType;
         private Long uploaderId;
-        private String tempDir;
+        private String storageUploadId;
         private long startTime;
         private String md5Hash;
+        private int digestCursor;
+        private String digestState;
+        private Map<Integer, String> partETags = new HashMap<>();
+        
+        /**
+         * 转换为会话Hash（分片ETag由上传分片时单独写入）
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("uploadId", uploadId);
+            map.put("originalFileName", originalFileName);
+            map.put("storedFileName", storedFileName);
+            map.put("contentType", contentType);
+            map.put("fileSize", fileSize);
+            map.put("totalChunks", totalChunks);
+            map.put("fileType", fileType.name());
+            map.put("storageUploadId", storageUploadId);
+            map.put("startTime", startTime);
+            map.put("digestCursor", digestCursor);
+            if (uploaderId != null) {
+                map.put("uploaderId", uploaderId);
+            }
+            if (md5Hash != null) {
+                map.put("md5Hash", md5Hash);
+            }
+            return map;
+        }
+        
+        public static UploadInfo fromMap(Map<Object, Object> map) {
+            UploadInfo info = new UploadInfo();
+            info.setUploadId(asString(map.get("uploadId")));
+            info.setOriginalFileName(asString(map.get("originalFileName")));
+            info.setStoredFileName(asString(map.get("storedFileName")));
+            info.setContentType(asString(map.get("contentType")));
+            info.setFileSize(asLong(map.get("fileSize")));
+            info.setTotalChunks((int) asLong(map.get("totalChunks")));
+            info.setFileType(FileTypeEnum.valueOf(asString(map.get("fileType"))));
+            info.setStorageUploadId(asString(map.get("storageUploadId")));
+            info.setStartTime(asLong(map.get("startTime")));
+            info.setMd5Hash(asString(map.get("md5Hash")));
+            info.setDigestCursor((int) asLong(map.get("digestCursor")));
+            info.setDigestState(asString(map.get("digestState")));
+            Object uploaderId = map.get("uploaderId");
+            info.setUploaderId(uploaderId != null ? asLong(uploaderId) : null);
+            
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                String field = entry.getKey().toString();
+                if (field.startsWith(PART_FIELD_PREFIX) && entry.getValue() != null) {
+                    info.getPartETags().put(Integer.parseInt(field.substring(PART_FIELD_PREFIX.length())), entry.getValue().toString());
+                }
+            }
+            return info;
+        }
+        
+        private static String asString(Object value) {
+            return value != null ? value.toString() : null;
+        }
+        
+        private static long asLong(Object value) {
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        }
         
         // Getters and setters
         public String getUploadId() { return uploadId; }
@@ -539,28 +661,36 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
         public String getStoredFileName() { return storedFileName; }
         public void setStoredFileName(String storedFileName) { this.storedFileName = storedFileName; }
         
+        public String getContentType() { return contentType; }
+        public void setContentType(String contentType) { this.contentType = contentType; }
+        
         public long getFileSize() { return fileSize; }
         public void setFileSize(long fileSize) { this.fileSize = fileSize; }
         
         public int getTotalChunks() { return totalChunks; }
         public void setTotalChunks(int totalChunks) { this.totalChunks = totalChunks; }
         
-        public List<Integer> getUploadedChunks() { return uploadedChunks; }
-        public void setUploadedChunks(List<Integer> uploadedChunks) { this.uploadedChunks = uploadedChunks; }
-        
         public FileTypeEnum getFileType() { return fileType; }
         public void setFileType(FileTypeEnum fileType) { this.fileType = fileType; }
         
         public Long getUploaderId() { return uploaderId; }
         public void setUploaderId(Long uploaderId) { this.uploaderId = uploaderId; }
         
-        public String getTempDir() { return tempDir; }
-        public void setTempDir(String tempDir) { this.tempDir = tempDir; }
+        public String getStorageUploadId() { return storageUploadId; }
+        public void setStorageUploadId(String storageUploadId) { this.storageUploadId = storageUploadId; }
         
         public long getStartTime() { return startTime; }
         public void setStartTime(long startTime) { this.startTime = startTime; }
         
         public String getMd5Hash() { return md5Hash; }
         public void setMd5Hash(String md5Hash) { this.md5Hash = md5Hash; }
+        
+        public int getDigestCursor() { return digestCursor; }
+        public void setDigestCursor(int digestCursor) { this.digestCursor = digestCursor; }
+        
+        public String getDigestState() { return digestState; }
+        public void setDigestState(String digestState) { this.digestState = digestState; }
+        
+        public Map<Integer, String> getPartETags() { return partETags; }
     }
 }
@@ -7,7 +7,9 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.crypto.digest.DigestUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.lynn.museum.common.exception.BizException;
+import com.lynn.museum.file.cache.PresignedUrlCache;
 import com.lynn.museum.file.config.StorageProperties;
+import com.lynn.museum.file.counter.FileAccessCounter;
 import com.lynn.museum.file.entity.FileRecord;
 import com.lynn.museum.file.enums.FileTypeEnum;
 import com.lynn.museum.file.mapper.FileRecordMapper;
@@ -44,6 +46,8 @@ public class FileServiceImpl implements FileService {
     private final StorageService storageService;
     private final StorageProperties storageProperties;
     private final FileRecordMapper fileRecordMapper;
+    private final PresignedUrlCache presignedUrlCache;
+    private final FileAccessCounter fileAccessCounter;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -121,6 +125,7 @@ public class FileServiceImpl implements FileService {
         try {
             // 从存储服务删除文件
             storageService.removeObject(fileRecord.getFileName());
+            presignedUrlCache.evict(fileRecord.getFileName());
             
             // 从数据库删除记录
             fileRecordMapper.deleteById(fileId);
@@ -167,22 +172,37 @@ public class FileServiceImpl implements FileService {
         
         // 批量查询文件记录
         List<FileRecord> fileRecords = fileRecordMapper.selectBatchIds(fileIds);
+        if (fileRecords.isEmpty()) {
+            return result;
+        }
+        
+        // 批量签名，已缓存的URL直接复用
+        Map<String, String> urls;
+        try {
+            urls = presignedUrlCache.getUrls(
+                fileRecords.stream().map(FileRecord::getFileName).collect(Collectors.toList()),
+                (int) storageProperties.getUrlExpiry()
+            );
+        } catch (Exception e) {
+            log.warn("批量获取文件URL失败，文件ID: {}, 错误: {}", fileIds, e.getMessage());
+            return result;
+        }
         
         for (FileRecord fileRecord : fileRecords) {
-            try {
-                String url = getFileUrlByName(fileRecord.getFileName());
-                
-                Map<String, Object> fileInfo = new HashMap<>();
-                fileInfo.put("fileId", fileRecord.getId());
-                fileInfo.put("url", url);
-                fileInfo.put("fileName", fileRecord.getFileName());
-                fileInfo.put("originalName", fileRecord.getOriginalName());
-                
-                result.add(fileInfo);
-            } catch (Exception e) {
-                log.warn("获取文件URL失败，文件ID: {}, 错误: {}", fileRecord.getId(), e.getMessage());
-                // 失败的文件跳过，不影响其他文件
+            String url = urls.get(fileRecord.getFileName());
+            if (url == null) {
+                // 签名失败的文件跳过，不影响其他文件
+                log.warn("获取文件URL失败，文件ID: {}", fileRecord.getId());
+                continue;
             }
+            
+            Map<String, Object> fileInfo = new HashMap<>();
+            fileInfo.put("fileId", fileRecord.getId());
+            fileInfo.put("url", url);
+            fileInfo.put("fileName", fileRecord.getFileName());
+            fileInfo.put("originalName", fileRecord.getOriginalName());
+            
+            result.add(fileInfo);
         }
         
         return result;
@@ -191,7 +211,7 @@ public class FileServiceImpl implements FileService {
     @Override
     public String getFileUrlByName(String fileName) {
         try {
-            return storageService.getPresignedObjectUrl(
+            return presignedUrlCache.getUrl(
                 fileName,
                 (int) storageProperties.getUrlExpiry()
             );
@@ -244,8 +264,7 @@ public class FileServiceImpl implements FileService {
         }
         
         // 增加访问次数
-        fileRecord.setAccessCount(fileRecord.getAccessCount() + 1);
-        fileRecordMapper.updateById(fileRecord);
+        recordAccess(fileId);
         
         return downloadFileByName(fileRecord.getFileName());
     }
@@ -260,6 +279,21 @@ public class FileServiceImpl implements FileService {
         }
     }
 
+    @Override
+    public InputStream downloadFileByName(String fileName, long offset, long length) {
+        try {
+            return storageService.getObject(fileName, offset, length);
+        } catch (Exception e) {
+            log.error("文件分段下载失败: {}", e.getMessage(), e);
+            throw new BizException("文件下载失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordAccess(Long fileId) {
+        fileAccessCounter.increment(fileId);
+    }
+
     @Override
     public FileRecord getFileRecord(Long fileId) {
         FileRecord fileRecord = fileRecordMapper.selectById(fileId);
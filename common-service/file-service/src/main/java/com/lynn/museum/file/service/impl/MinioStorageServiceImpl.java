@@ -1,5 +1,6 @@
 package com.lynn.museum.file.service.impl;
 
+import com.lynn.museum.file.config.MultipartMinioClient;
 import com.lynn.museum.file.config.StorageProperties;
 import com.lynn.museum.file.service.MinioStorageService;
 import com.lynn.museum.file.service.StorageService;
@@ -7,6 +8,7 @@ import io.minio.*;
 import io.minio.CopyObjectArgs;
 import io.minio.CopySource;
 import io.minio.http.Method;
+import io.minio.messages.Part;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -14,7 +16,9 @@ import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,6 +34,7 @@ import java.util.concurrent.TimeUnit;
 public class MinioStorageServiceImpl implements StorageService {
 
     private final MinioClient minioClient;
+    private final MultipartMinioClient multipartMinioClient;
     private final StorageProperties storageProperties;
 
     @Override
@@ -71,6 +76,20 @@ public class MinioStorageServiceImpl implements StorageService {
         );
     }
 
+    @Override
+    public InputStream getObject(String objectName, long offset, long length) throws Exception {
+        log.debug("MinIO分段下载文件: object={}, offset={}, length={}", objectName, offset, length);
+        
+        return minioClient.getObject(
+            GetObjectArgs.builder()
+                .bucket(storageProperties.getBucketName())
+                .object(objectName)
+                .offset(offset)
+                .length(length)
+                .build()
+        );
+    }
+
     @Override
     public void removeObject(String objectName) throws Exception {
         removeObject(storageProperties.getBucketName(), objectName);
@@ -109,6 +128,34 @@ public class MinioStorageServiceImpl implements StorageService {
         );
     }
 
+    @Override
+    public Map<String, String> getPresignedObjectUrls(List<String> objectNames, int expiry) throws Exception {
+        return getPresignedObjectUrls(storageProperties.getBucketName(), objectNames, expiry);
+    }
+
+    @Override
+    public Map<String, String> getPresignedObjectUrls(String bucketName, List<String> objectNames, int expiry) throws Exception {
+        log.debug("MinIO批量获取预签名URL: bucket={}, count={}, expiry={}", bucketName, objectNames.size(), expiry);
+        
+        // 存储桶区域在首次签名后由客户端缓存，后续签名均在本地完成，不发起网络请求
+        Map<String, String> results = new HashMap<>(objectNames.size() * 2);
+        for (String objectName : objectNames) {
+            try {
+                results.put(objectName, minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                        .method(Method.GET)
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .expiry(expiry, TimeUnit.SECONDS)
+                        .build()
+                ));
+            } catch (Exception e) {
+                log.warn("MinIO批量签名失败: {}, 错误: {}", objectName, e.getMessage());
+            }
+        }
+        return results;
+    }
+
     @Override
     public String getPresignedDownloadUrl(String objectName, String originalFileName, int expiry) throws Exception {
         return getPresignedDownloadUrl(storageProperties.getBucketName(), objectName, originalFileName, expiry);
@@ -264,6 +311,39 @@ public class MinioStorageServiceImpl implements StorageService {
         }
     }
 
+    @Override
+    public String initiateMultipartUpload(String objectName, String contentType) throws Exception {
+        String bucketName = storageProperties.getBucketName();
+        String uploadId = multipartMinioClient.initMultipart(bucketName, objectName, contentType);
+        log.debug("MinIO创建分片上传: bucket={}, object={}, uploadId={}", bucketName, objectName, uploadId);
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String objectName, String uploadId, int partNumber, InputStream inputStream, long partSize) throws Exception {
+        log.debug("MinIO上传分片: object={}, partNumber={}, size={}", objectName, partNumber, partSize);
+        
+        // MinIO SDK的分片接口只接受内存或文件数据，单个分片大小有限，直接读入内存
+        byte[] data = inputStream.readNBytes((int) partSize);
+        return multipartMinioClient.putPart(storageProperties.getBucketName(), objectName, uploadId, partNumber, data);
+    }
+
+    @Override
+    public void completeMultipartUpload(String objectName, String uploadId, List<String> partETags) throws Exception {
+        Part[] parts = new Part[partETags.size()];
+        for (int i = 0; i < partETags.size(); i++) {
+            parts[i] = new Part(i + 1, partETags.get(i));
+        }
+        multipartMinioClient.completeMultipart(storageProperties.getBucketName(), objectName, uploadId, parts);
+        log.info("MinIO分片合并完成: object={}, 分片数={}", objectName, parts.length);
+    }
+
+    @Override
+    public void abortMultipartUpload(String objectName, String uploadId) throws Exception {
+        multipartMinioClient.abortMultipart(storageProperties.getBucketName(), objectName, uploadId);
+        log.info("MinIO取消分片上传: object={}, uploadId={}", objectName, uploadId);
+    }
+
     @Override
     public String getStorageType() {
         return "minio";
@@ -2,10 +2,16 @@ package com.lynn.museum.file.service.impl;
 
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
 import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
 import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
 import com.aliyun.oss.model.PutObjectRequest;
 import com.aliyun.oss.model.ResponseHeaderOverrides;
+import com.aliyun.oss.model.UploadPartRequest;
 import com.lynn.museum.file.config.StorageProperties;
 import com.lynn.museum.file.service.OssStorageService;
 import com.lynn.museum.file.service.StorageService;
@@ -20,7 +26,9 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 阿里云OSS存储服务实现
@@ -110,6 +118,15 @@ public class OssStorageServiceImpl implements StorageService {
         return ossClient.getObject(bucketName, objectName).getObjectContent();
     }
 
+    @Override
+    public InputStream getObject(String objectName, long offset, long length) throws Exception {
+        log.debug("OSS分段下载文件: object={}, offset={}, length={}", objectName, offset, length);
+        
+        GetObjectRequest request = new GetObjectRequest(storageProperties.getBucketName(), objectName);
+        request.setRange(offset, offset + length - 1);
+        return ossClient.getObject(request).getObjectContent();
+    }
+
     @Override
     public void removeObject(String bucketName, String objectName) throws Exception {
         log.debug("OSS删除文件: bucket={}, object={}", bucketName, objectName);
@@ -134,6 +151,31 @@ public class OssStorageServiceImpl implements StorageService {
         return url.toString();
     }
 
+    @Override
+    public Map<String, String> getPresignedObjectUrls(List<String> objectNames, int expiry) throws Exception {
+        return getPresignedObjectUrls(storageProperties.getBucketName(), objectNames, expiry);
+    }
+
+    @Override
+    public Map<String, String> getPresignedObjectUrls(String bucketName, List<String> objectNames, int expiry) throws Exception {
+        log.debug("OSS批量获取预签名URL: bucket={}, count={}, expiry={}", bucketName, objectNames.size(), expiry);
+        
+        // 同一批次共用过期时间，签名均在本地完成，不发起网络请求
+        Date expiration = new Date(System.currentTimeMillis() + expiry * 1000L);
+        
+        Map<String, String> results = new HashMap<>(objectNames.size() * 2);
+        for (String objectName : objectNames) {
+            try {
+                GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, objectName);
+                request.setExpiration(expiration);
+                results.put(objectName, ossClient.generatePresignedUrl(request).toString());
+            } catch (Exception e) {
+                log.warn("OSS批量签名失败: {}, 错误: {}", objectName, e.getMessage());
+            }
+        }
+        return results;
+    }
+
     @Override
     public String getPresignedDownloadUrl(String objectName, String originalFileName, int expiry) throws Exception {
         return getPresignedDownloadUrl(storageProperties.getBucketName(), objectName, originalFileName, expiry);
@@ -237,6 +279,54 @@ public class OssStorageServiceImpl implements StorageService {
         log.debug("✅ OSS bucket名称验证通过: {}", bucketName);
     }
 
+    @Override
+    public String initiateMultipartUpload(String objectName, String contentType) throws Exception {
+        String bucketName = storageProperties.getBucketName();
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, objectName);
+        if (contentType != null) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            request.setObjectMetadata(metadata);
+        }
+        
+        String uploadId = ossClient.initiateMultipartUpload(request).getUploadId();
+        log.debug("OSS创建分片上传: bucket={}, object={}, uploadId={}", bucketName, objectName, uploadId);
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String objectName, String uploadId, int partNumber, InputStream inputStream, long partSize) throws Exception {
+        log.debug("OSS上传分片: object={}, partNumber={}, size={}", objectName, partNumber, partSize);
+        
+        UploadPartRequest request = new UploadPartRequest();
+        request.setBucketName(storageProperties.getBucketName());
+        request.setKey(objectName);
+        request.setUploadId(uploadId);
+        request.setPartNumber(partNumber);
+        request.setInputStream(inputStream);
+        request.setPartSize(partSize);
+        
+        return ossClient.uploadPart(request).getPartETag().getETag();
+    }
+
+    @Override
+    public void completeMultipartUpload(String objectName, String uploadId, List<String> partETags) throws Exception {
+        List<PartETag> parts = new ArrayList<>(partETags.size());
+        for (int i = 0; i < partETags.size(); i++) {
+            parts.add(new PartETag(i + 1, partETags.get(i)));
+        }
+        ossClient.completeMultipartUpload(
+            new CompleteMultipartUploadRequest(storageProperties.getBucketName(), objectName, uploadId, parts));
+        log.info("OSS分片合并完成: object={}, 分片数={}", objectName, parts.size());
+    }
+
+    @Override
+    public void abortMultipartUpload(String objectName, String uploadId) throws Exception {
+        ossClient.abortMultipartUpload(
+            new AbortMultipartUploadRequest(storageProperties.getBucketName(), objectName, uploadId));
+        log.info("OSS取消分片上传: object={}, uploadId={}", objectName, uploadId);
+    }
+
     @Override
     public String getStorageType() {
         return "oss";